@@ -31,9 +31,17 @@ import java.util.List;
 
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.resizers.FixedResizerFactory;
+import net.coobird.thumbnailator.geometry.Position;
 import net.coobird.thumbnailator.geometry.Region;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
+import net.coobird.thumbnailator.tasks.io.ConnectionOptions;
+import net.coobird.thumbnailator.tasks.io.EncoderOptions;
+import net.coobird.thumbnailator.tasks.io.FrameOptions;
+import net.coobird.thumbnailator.tasks.io.ImageSelector;
+import net.coobird.thumbnailator.tasks.io.Offloading;
+import net.coobird.thumbnailator.tasks.io.OutputSizeLimit;
+import net.coobird.thumbnailator.tasks.io.StreamCaching;
 
 /**
  * This class is used to specify the parameters to use when creating a thumbnail.
@@ -86,6 +94,31 @@ public class ThumbnailParameter {
 	 */
 	public static final int DEFAULT_IMAGE_TYPE = BufferedImage.TYPE_INT_ARGB;
 	
+	/**
+	 * A constant used to denote that source images should always be decoded
+	 * at once, rather than subsampled or decoded in strips when they are
+	 * large.
+	 * 
+	 * @since	0.4.21
+	 */
+	public static final long NO_STREAMING = Long.MAX_VALUE;
+	
+	/**
+	 * A constant used to denote that the thumbnail should have the same
+	 * {@link java.awt.image.ColorModel} and
+	 * {@link java.awt.image.SampleModel} as the original image.
+	 * <p>
+	 * Unlike {@link #ORIGINAL_IMAGE_TYPE}, original images of type
+	 * {@link BufferedImage#TYPE_CUSTOM} are not converted to
+	 * {@link #DEFAULT_IMAGE_TYPE}, and indexed images keep their palette.
+	 * If the original image does not have an alpha channel but a filter
+	 * which makes the image translucent is to be applied,
+	 * {@link #DEFAULT_IMAGE_TYPE} is used instead.
+	 * 
+	 * @since	0.4.21
+	 */
+	public static final int NATIVE_IMAGE_TYPE = -2;
+	
 	/**
 	 * The thumbnail size.
 	 * <p>
@@ -194,6 +227,59 @@ public class ThumbnailParameter {
 	 */
 	private final boolean useExifOrientation;
 	
+	/**
+	 * How streams are cached while reading the source image and writing
+	 * the thumbnail.
+	 */
+	private final StreamCaching streamCaching;
+	
+	/**
+	 * The limit on the size of the written thumbnail, or {@code null} if
+	 * the size is not limited.
+	 */
+	private final OutputSizeLimit outputSizeLimit;
+	
+	/**
+	 * The options for encoding the thumbnail.
+	 */
+	private final EncoderOptions encoderOptions;
+	
+	/**
+	 * The position of the region which remains when the thumbnail is
+	 * cropped to its size, or {@code null} if the thumbnail is not cropped.
+	 */
+	private final Position croppingPosition;
+	
+	/**
+	 * The frames of animated or multi-page images to make thumbnails of,
+	 * or {@code null} if only the first image is used.
+	 */
+	private final FrameOptions frameOptions;
+	
+	/**
+	 * Selects the image of the source to make the thumbnail from, or
+	 * {@code null} if the first image is used.
+	 */
+	private final ImageSelector imageSelector;
+	
+	/**
+	 * Where the decoding, resizing and encoding are run, or {@code null} if
+	 * they are run on the calling thread.
+	 */
+	private final Offloading offloading;
+	
+	/**
+	 * The options of connections to URLs of source images, or {@code null}
+	 * if the default options are used.
+	 */
+	private final ConnectionOptions connectionOptions;
+	
+	/**
+	 * The number of bytes a decoded source image may take up before it is
+	 * subsampled, or decoded in strips, rather than decoded at once.
+	 */
+	private final long streamingThreshold;
+	
 	/**
 	 * Private constructor which sets all the required fields, and performs
 	 * validation of the given arguments.
@@ -270,11 +356,41 @@ public class ThumbnailParameter {
 	 * 								If {@code true} is specified, then the
 	 * 								Exif metadata will be used to determine
 	 * 								the orientation of the thumbnail.
+	 * @param streamCaching		How streams are cached while reading the
+	 * 							source image and writing the thumbnail.
+	 * @param outputSizeLimit	The limit on the size of the written
+	 * 							thumbnail, or {@code null} if the size should
+	 * 							not be limited.
+	 * @param encoderOptions	The options for encoding the thumbnail.
+	 * @param croppingPosition	The position of the region which remains when
+	 * 							the thumbnail is cropped to its size, or
+	 * 							{@code null} if it should not be cropped.
+	 * @param frameOptions		The frames of animated or multi-page images to
+	 * 							make thumbnails of, or {@code null} if only
+	 * 							the first image should be used.
+	 * @param imageSelector	Selects the image of the source to make the
+	 * 							thumbnail from, or {@code null} if the first
+	 * 							image should be used.
+	 * @param offloading		Where the decoding, resizing and encoding are
+	 * 							run, or {@code null} if they should be run on
+	 * 							the calling thread.
+	 * @param connectionOptions	The options of connections to URLs of
+	 * 							source images, or {@code null} for the
+	 * 							default options.
+	 * @param streamingThreshold	The number of bytes a decoded source
+	 * 							image may take up before it is subsampled,
+	 * 							or decoded in strips, or
+	 * 							{@link #NO_STREAMING} to always decode
+	 * 							source images at once.
 	 * 
 	 * @throws IllegalArgumentException 	If the scaling factor is not a
 	 * 										rational number or is less than or
 	 * 										equal to 0, or if the
-	 * 										{@link ResizerFactory} is null.
+	 * 										{@link ResizerFactory}, the
+	 * 										{@link StreamCaching} or the
+	 * 										{@link EncoderOptions} is null, or
+	 * 										if the streaming threshold is not
+	 * 										greater than 0.
 	 */
 	private ThumbnailParameter(
 			Dimension thumbnailSize,
@@ -289,7 +405,16 @@ public class ThumbnailParameter {
 			List<ImageFilter> filters,
 			ResizerFactory resizerFactory,
 			boolean fitWithinDimensions,
-			boolean useExifOrientation
+			boolean useExifOrientation,
+			StreamCaching streamCaching,
+			OutputSizeLimit outputSizeLimit,
+			EncoderOptions encoderOptions,
+			Position croppingPosition,
+			FrameOptions frameOptions,
+			ImageSelector imageSelector,
+			Offloading offloading,
+			ConnectionOptions connectionOptions,
+			long streamingThreshold
 	) {
 		// The following 2 fields are set by the public constructors.
 		this.thumbnailSize = thumbnailSize;
@@ -332,6 +457,30 @@ public class ThumbnailParameter {
 		this.resizerFactory = resizerFactory;
 		this.fitWithinDimensions = fitWithinDimensions;
 		this.useExifOrientation = useExifOrientation;
+		
+		if (streamCaching == null) {
+			throw new IllegalArgumentException("StreamCaching cannot be null.");
+		}
+		
+		this.streamCaching = streamCaching;
+		this.outputSizeLimit = outputSizeLimit;
+		
+		if (encoderOptions == null) {
+			throw new IllegalArgumentException("EncoderOptions cannot be null.");
+		}
+		
+		this.encoderOptions = encoderOptions;
+		this.croppingPosition = croppingPosition;
+		this.frameOptions = frameOptions;
+		this.imageSelector = imageSelector;
+		this.offloading = offloading;
+		this.connectionOptions = connectionOptions;
+		
+		if (streamingThreshold <= 0) {
+			throw new IllegalArgumentException("Streaming threshold must be greater than 0.");
+		}
+		
+		this.streamingThreshold = streamingThreshold;
 	}
 	
 	/**
@@ -460,7 +609,16 @@ public class ThumbnailParameter {
 				filters,
 				new FixedResizerFactory(resizer),
 				fitWithinDimensions,
-				useExifOrientation
+				useExifOrientation,
+				StreamCaching.DEFAULT,
+				null,
+				EncoderOptions.DEFAULT,
+				null,
+				null,
+				null,
+				null,
+				null,
+				NO_STREAMING
 		);
 		
 		validateThumbnailSize();
@@ -572,7 +730,16 @@ public class ThumbnailParameter {
 				filters,
 				new FixedResizerFactory(resizer),
 				fitWithinDimensions,
-				useExifOrientation
+				useExifOrientation,
+				StreamCaching.DEFAULT,
+				null,
+				EncoderOptions.DEFAULT,
+				null,
+				null,
+				null,
+				null,
+				null,
+				NO_STREAMING
 		);
 		
 		validateScalingFactor();
@@ -678,7 +845,172 @@ public class ThumbnailParameter {
 				filters,
 				resizerFactory,
 				fitWithinDimensions,
-				useExifOrientation
+				useExifOrientation,
+				StreamCaching.DEFAULT,
+				null,
+				EncoderOptions.DEFAULT,
+				null,
+				null,
+				null,
+				null,
+				null,
+				NO_STREAMING
+		);
+		
+		validateThumbnailSize();
+	}
+	
+	/**
+	 * Creates an object holding the parameters needed in order to make a
+	 * thumbnail.
+	 * 
+	 * @param thumbnailSize		The size of the thumbnail to generate.
+	 * @param sourceRegion		The region of the source image to use when
+	 * 							creating a thumbnail.
+	 * 							A value of {@code null} indicates that the
+	 * 							entire source image should be used to create
+	 * 							the thumbnail.
+	 * @param keepAspectRatio	Indicates whether or not the thumbnail should
+	 * 							maintain the aspect ratio of the original image.
+	 * @param outputFormat		A string indicating the compression format
+	 * 							that should be applied on the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#ORIGINAL_FORMAT}
+	 * 							should be provided if the same image format as
+	 * 							the original should	be used for the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DETERMINE_FORMAT}
+	 * 							should be provided if the output format of the
+	 * 							thumbnail should be the determined from the
+	 * 							information available, such as the output file
+	 * 							name of the thumbnail.
+	 * @param outputFormatType	A string indicating the compression type that
+	 * 							should be used when writing the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DEFAULT_FORMAT_TYPE}
+	 * 							should be provided if the thumbnail should be
+	 * 							written using the default compression type of
+	 * 							the codec specified in {@code outputFormat}.
+	 * @param outputQuality		A value from {@code 0.0f} to {@code 1.0f} which
+	 * 							indicates the quality setting to use for the
+	 * 							compression of the thumbnail. {@code 0.0f}
+	 * 							indicates the lowest quality, {@code 1.0f}
+	 * 							indicates the highest quality setting for the
+	 * 							compression.
+	 * 							{@link ThumbnailParameter#DEFAULT_QUALITY}
+	 * 							should be specified when the codec's default
+	 * 							compression quality settings should be used.
+	 * @param imageType 		The {@link BufferedImage} image type of the
+	 * 							thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DEFAULT_IMAGE_TYPE}
+	 *							should be specified when the default image
+	 *							type should be used when creating the thumbnail.
+	 * @param filters			The {@link ImageFilter}s to apply to the
+	 * 							thumbnail.
+	 * 							A value of {@code null} will be recognized as
+	 * 							no filters are to be applied.
+	 * 							The filters are applied after the original
+	 * 							image has been resized.
+	 * @param resizerFactory	The {@link ResizerFactory} for obtaining a
+	 * 							{@link Resizer} that is to be used when
+	 * 							performing an image resizing operation.
+	 * @param fitWithinDimensions	Whether or not to fit the thumbnail within
+	 * 								the specified dimensions.
+	 * 								<p>
+	 * 								If {@code true} is specified, then the
+	 * 								thumbnail will be sized to fit within the
+	 * 								specified dimensions, if the thumbnail is
+	 * 								going to exceed those dimensions.
+	 * @param useExifOrientation	Whether or not to use the Exif metadata to
+	 * 								determine the orientation of the thumbnail.
+	 * 								<p>
+	 * 								If {@code true} is specified, then the
+	 * 								Exif metadata will be used to determine
+	 * 								the orientation of the thumbnail.
+	 * @param streamCaching		How streams are cached while reading the
+	 * 							source image and writing the thumbnail.
+	 * @param outputSizeLimit	The limit on the size of the written
+	 * 							thumbnail, or {@code null} if the size should
+	 * 							not be limited.
+	 * @param encoderOptions	The options for encoding the thumbnail.
+	 * @param croppingPosition	The position of the region which remains when
+	 * 							the thumbnail is cropped to its size, or
+	 * 							{@code null} if it should not be cropped.
+	 * 							Cropping requires {@code fitWithinDimensions}
+	 * 							to be {@code false}.
+	 * @param frameOptions		The frames of animated or multi-page images to
+	 * 							make thumbnails of, or {@code null} if only
+	 * 							the first image should be used.
+	 * @param imageSelector	Selects the image of the source to make the
+	 * 							thumbnail from, or {@code null} if the first
+	 * 							image should be used.
+	 * @param offloading		Where the decoding, resizing and encoding are
+	 * 							run, or {@code null} if they should be run on
+	 * 							the calling thread.
+	 * @param connectionOptions	The options of connections to URLs of
+	 * 							source images, or {@code null} for the
+	 * 							default options.
+	 * @param streamingThreshold	The number of bytes a decoded source
+	 * 							image may take up before it is subsampled,
+	 * 							or decoded in strips, or
+	 * 							{@link #NO_STREAMING} to always decode
+	 * 							source images at once.
+	 * 
+	 * @throws IllegalArgumentException 	If size is {@code null} or if the
+	 * 										dimensions are negative, or if the
+	 * 										{@link ResizerFactory}, the
+	 * 										{@link StreamCaching} or the
+	 * 										{@link EncoderOptions} is null, or
+	 * 										if the streaming threshold is not
+	 * 										greater than 0.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameter(
+			Dimension thumbnailSize,
+			Region sourceRegion,
+			boolean keepAspectRatio,
+			String outputFormat,
+			String outputFormatType,
+			float outputQuality,
+			int imageType,
+			List<ImageFilter> filters,
+			ResizerFactory resizerFactory,
+			boolean fitWithinDimensions,
+			boolean useExifOrientation,
+			StreamCaching streamCaching,
+			OutputSizeLimit outputSizeLimit,
+			EncoderOptions encoderOptions,
+			Position croppingPosition,
+			FrameOptions frameOptions,
+			ImageSelector imageSelector,
+			Offloading offloading,
+			ConnectionOptions connectionOptions,
+			long streamingThreshold
+	) {
+		this(
+				thumbnailSize,
+				Double.NaN,
+				Double.NaN,
+				sourceRegion,
+				keepAspectRatio,
+				outputFormat,
+				outputFormatType,
+				outputQuality,
+				imageType,
+				filters,
+				resizerFactory,
+				fitWithinDimensions,
+				useExifOrientation,
+				streamCaching,
+				outputSizeLimit,
+				encoderOptions,
+				croppingPosition,
+				frameOptions,
+				imageSelector,
+				offloading,
+				connectionOptions,
+				streamingThreshold
 		);
 		
 		validateThumbnailSize();
@@ -791,7 +1123,173 @@ public class ThumbnailParameter {
 				filters,
 				resizerFactory,
 				fitWithinDimensions,
-				useExifOrientation
+				useExifOrientation,
+				StreamCaching.DEFAULT,
+				null,
+				EncoderOptions.DEFAULT,
+				null,
+				null,
+				null,
+				null,
+				null,
+				NO_STREAMING
+		);
+		
+		validateScalingFactor();
+	}
+	
+	/**
+	 * Creates an object holding the parameters needed in order to make a
+	 * thumbnail.
+	 * 
+	 * @param widthScalingFactor	The scaling factor to apply to the width
+	 * 								when creating a	thumbnail from the original
+	 * 								image.
+	 * @param heightScalingFactor	The scaling factor to apply to the height
+	 * 								when creating a	thumbnail from the original
+	 * 								image.
+	 * @param sourceRegion		The region of the source image to use when
+	 * 							creating a thumbnail.
+	 * 							A value of {@code null} indicates that the
+	 * 							entire source image should be used to create
+	 * 							the thumbnail.
+	 * @param keepAspectRatio	Indicates whether or not the thumbnail should
+	 * 							maintain the aspect ratio of the original image.
+	 * @param outputFormat		A string indicating the compression format
+	 * 							that should be applied on the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#ORIGINAL_FORMAT}
+	 * 							should be provided if the same image format as
+	 * 							the original should	be used for the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DETERMINE_FORMAT}
+	 * 							should be provided if the output format of the
+	 * 							thumbnail should be the determined from the
+	 * 							information available, such as the output file
+	 * 							name of the thumbnail.
+	 * @param outputFormatType	A string indicating the compression type that
+	 * 							should be used when writing the thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DEFAULT_FORMAT_TYPE}
+	 * 							should be provided if the thumbnail should be
+	 * 							written using the default compression type of
+	 * 							the codec specified in {@code outputFormat}.
+	 * @param outputQuality		A value from {@code 0.0f} to {@code 1.0f} which
+	 * 							indicates the quality setting to use for the
+	 * 							compression of the thumbnail. {@code 0.0f}
+	 * 							indicates the lowest quality, {@code 1.0f}
+	 * 							indicates the highest quality setting for the
+	 * 							compression.
+	 * 							{@link ThumbnailParameter#DEFAULT_QUALITY}
+	 * 							should be specified when the codec's default
+	 * 							compression quality settings should be used.
+	 * @param imageType 		The {@link BufferedImage} image type of the
+	 * 							thumbnail.
+	 * 							A value of
+	 * 							{@link ThumbnailParameter#DEFAULT_IMAGE_TYPE}
+	 *							should be specified when the default image
+	 *							type should be used when creating the thumbnail.
+	 * @param filters			The {@link ImageFilter}s to apply to the
+	 * 							thumbnail.
+	 * 							A value of {@code null} will be recognized as
+	 * 							no filters are to be applied.
+	 * 							The filters are applied after the original
+	 * 							image has been resized.
+	 * @param resizerFactory	The {@link ResizerFactory} for obtaining a
+	 * 							{@link Resizer} that is to be used when
+	 * 							performing an image resizing operation.
+	 * @param fitWithinDimensions	Whether or not to fit the thumbnail within
+	 * 								the specified dimensions.
+	 * 								<p>
+	 * 								If {@code true} is specified, then the
+	 * 								thumbnail will be sized to fit within the
+	 * 								specified dimensions, if the thumbnail is
+	 * 								going to exceed those dimensions.
+	 * @param useExifOrientation	Whether or not to use the Exif metadata to
+	 * 								determine the orientation of the thumbnail.
+	 * 								<p>
+	 * 								If {@code true} is specified, then the
+	 * 								Exif metadata will be used to determine
+	 * 								the orientation of the thumbnail.
+	 * @param streamCaching		How streams are cached while reading the
+	 * 							source image and writing the thumbnail.
+	 * @param outputSizeLimit	The limit on the size of the written
+	 * 							thumbnail, or {@code null} if the size should
+	 * 							not be limited.
+	 * @param encoderOptions	The options for encoding the thumbnail.
+	 * @param frameOptions		The frames of animated or multi-page images to
+	 * 							make thumbnails of, or {@code null} if only
+	 * 							the first image should be used.
+	 * @param imageSelector	Selects the image of the source to make the
+	 * 							thumbnail from, or {@code null} if the first
+	 * 							image should be used.
+	 * @param offloading		Where the decoding, resizing and encoding are
+	 * 							run, or {@code null} if they should be run on
+	 * 							the calling thread.
+	 * @param connectionOptions	The options of connections to URLs of
+	 * 							source images, or {@code null} for the
+	 * 							default options.
+	 * @param streamingThreshold	The number of bytes a decoded source
+	 * 							image may take up before it is subsampled,
+	 * 							or decoded in strips, or
+	 * 							{@link #NO_STREAMING} to always decode
+	 * 							source images at once.
+	 * 
+	 * @throws IllegalArgumentException 	If the scaling factor is not a
+	 * 										rational number or is less than or
+	 * 										equal to 0, or if the
+	 * 										{@link ResizerFactory}, the
+	 * 										{@link StreamCaching} or the
+	 * 										{@link EncoderOptions} is null, or
+	 * 										if the streaming threshold is not
+	 * 										greater than 0.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameter(
+			double widthScalingFactor,
+			double heightScalingFactor,
+			Region sourceRegion,
+			boolean keepAspectRatio,
+			String outputFormat,
+			String outputFormatType,
+			float outputQuality,
+			int imageType,
+			List<ImageFilter> filters,
+			ResizerFactory resizerFactory,
+			boolean fitWithinDimensions,
+			boolean useExifOrientation,
+			StreamCaching streamCaching,
+			OutputSizeLimit outputSizeLimit,
+			EncoderOptions encoderOptions,
+			FrameOptions frameOptions,
+			ImageSelector imageSelector,
+			Offloading offloading,
+			ConnectionOptions connectionOptions,
+			long streamingThreshold
+	) {
+		this(
+				null,
+				widthScalingFactor,
+				heightScalingFactor,
+				sourceRegion,
+				keepAspectRatio,
+				outputFormat,
+				outputFormatType,
+				outputQuality,
+				imageType,
+				filters,
+				resizerFactory,
+				fitWithinDimensions,
+				useExifOrientation,
+				streamCaching,
+				outputSizeLimit,
+				encoderOptions,
+				null,
+				frameOptions,
+				imageSelector,
+				offloading,
+				connectionOptions,
+				streamingThreshold
 		);
 		
 		validateScalingFactor();
@@ -954,6 +1452,18 @@ public class ThumbnailParameter {
 		return imageType == ORIGINAL_IMAGE_TYPE;
 	}
 	
+	/**
+	 * Returns whether or not the thumbnail should have the same color and
+	 * sample layout as the original image.
+	 * 
+	 * @return		{@code true} if the layout of the original image should
+	 * 				be used, {@code false} otherwise.
+	 * @since	0.4.21
+	 */
+	public boolean useNativeImageType() {
+		return imageType == NATIVE_IMAGE_TYPE;
+	}
+	
 	/**
 	 * Returns the region of the source image to use when creating a thumbnail,
 	 * represented by a {@link Region} object.
@@ -993,4 +1503,111 @@ public class ThumbnailParameter {
 	public boolean useExifOrientation() {
 		return useExifOrientation;
 	}
+	
+	/**
+	 * Returns how streams are cached while reading the source image and
+	 * writing the thumbnail.
+	 * 
+	 * @return		The {@link StreamCaching} to use.
+	 * @since	0.4.21
+	 */
+	public StreamCaching getStreamCaching() {
+		return streamCaching;
+	}
+	
+	/**
+	 * Returns the limit on the size of the written thumbnail.
+	 * 
+	 * @return		The {@link OutputSizeLimit}, or {@code null} if the size
+	 * 				is not limited.
+	 * @since	0.4.21
+	 */
+	public OutputSizeLimit getOutputSizeLimit() {
+		return outputSizeLimit;
+	}
+	
+	/**
+	 * Returns the options for encoding the thumbnail.
+	 * 
+	 * @return		The {@link EncoderOptions} to use.
+	 * @since	0.4.21
+	 */
+	public EncoderOptions getEncoderOptions() {
+		return encoderOptions;
+	}
+	
+	/**
+	 * Returns the position of the region which remains when the thumbnail
+	 * is cropped to its size.
+	 * <p>
+	 * When a position is set, the source image is scaled to cover the size
+	 * of the thumbnail, and the portion which overhangs the size is
+	 * discarded.
+	 * 
+	 * @return		The cropping position, or {@code null} if the thumbnail
+	 * 				is not cropped.
+	 * @since	0.4.21
+	 */
+	public Position getCroppingPosition() {
+		return croppingPosition;
+	}
+	
+	/**
+	 * Returns the frames of animated or multi-page images to make
+	 * thumbnails of.
+	 * 
+	 * @return		The {@link FrameOptions}, or {@code null} if only the
+	 * 				first image is used.
+	 * @since	0.4.21
+	 */
+	public FrameOptions getFrameOptions() {
+		return frameOptions;
+	}
+	
+	/**
+	 * Returns which of the images stored in the source is used to make the
+	 * thumbnail.
+	 * 
+	 * @return		The {@link ImageSelector}, or {@code null} if the first
+	 * 				image is used.
+	 * @since	0.4.21
+	 */
+	public ImageSelector getImageSelector() {
+		return imageSelector;
+	}
+	
+	/**
+	 * Returns where the decoding, resizing and encoding of the thumbnail
+	 * are run.
+	 * 
+	 * @return		The {@link Offloading}, or {@code null} if they are run
+	 * 				on the calling thread.
+	 * @since	0.4.21
+	 */
+	public Offloading getOffloading() {
+		return offloading;
+	}
+	
+	/**
+	 * Returns the options of connections to URLs of source images.
+	 * 
+	 * @return		The {@link ConnectionOptions}, or {@code null} if the
+	 * 				default options are used.
+	 * @since	0.4.21
+	 */
+	public ConnectionOptions getConnectionOptions() {
+		return connectionOptions;
+	}
+	
+	/**
+	 * Returns the number of bytes a decoded source image may take up before
+	 * it is subsampled, or decoded in strips, rather than decoded at once.
+	 * 
+	 * @return		The number of bytes, or {@link #NO_STREAMING} if
+	 * 				source images are always decoded at once.
+	 * @since	0.4.21
+	 */
+	public long getStreamingThreshold() {
+		return streamingThreshold;
+	}
 }
@@ -0,0 +1,578 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.coobird.thumbnailator.tasks.ThumbnailTask;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
+
+/**
+ * Creates thumbnails from many {@link ThumbnailTask}s in three stages,
+ * each with its own threads, so that the reading of one image overlaps
+ * the resizing and the writing of others.
+ * <p>
+ * Reading and writing are dominated by the codecs, while resizing and
+ * applying filters only use the CPU, so the stages usually need different
+ * numbers of threads. The stages are connected by bounded queues: when a
+ * stage falls behind, the queue before it fills up and the stage before
+ * it waits, which keeps the number of decoded images in memory bounded.
+ * <pre>
+ThumbnailPipeline pipeline = new ThumbnailPipeline(2, 4, 2, 8);
+pipeline.run(tasks);
+
+for (ThumbnailPipeline.Stage stage : ThumbnailPipeline.Stage.values()) {
+    ThumbnailPipeline.StageStatistics stats = pipeline.getStatistics(stage);
+    System.out.println(stage + ": " + stats.getUtilization() + " utilized, "
+        + stats.getPeakQueueDepth() + " peak queue depth");
+}
+ * </pre>
+ * The statistics of the last run can be read while it runs, from another
+ * thread. A stage whose threads are almost always busy while the queue
+ * before it is full is the one which needs more threads.
+ * <p>
+ * When a task fails, the pipeline stops, and {@link #run(Iterable)}
+ * throws the exception once all the threads have stopped. Thumbnails of
+ * all the frames of animated images are made as set by the
+ * {@link net.coobird.thumbnailator.tasks.io.FrameOptions} of the tasks,
+ * but the frames of an image are resized by a single thread.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailPipeline {
+	/**
+	 * The stages of a {@link ThumbnailPipeline}.
+	 */
+	public enum Stage {
+		/**
+		 * Reads and decodes the source images.
+		 */
+		READ,
+		
+		/**
+		 * Resizes the images and applies the filters.
+		 */
+		PROCESS,
+		
+		/**
+		 * Encodes and writes the thumbnails.
+		 */
+		WRITE;
+	}
+	
+	/**
+	 * A snapshot of the work of a stage of a {@link ThumbnailPipeline}.
+	 */
+	public static final class StageStatistics {
+		private final int threads;
+		private final int queueDepth;
+		private final int peakQueueDepth;
+		private final int queueCapacity;
+		private final long completed;
+		private final long busyNanos;
+		private final long elapsedNanos;
+		
+		private StageStatistics(
+				int threads,
+				int queueDepth,
+				int peakQueueDepth,
+				int queueCapacity,
+				long completed,
+				long busyNanos,
+				long elapsedNanos
+		) {
+			this.threads = threads;
+			this.queueDepth = queueDepth;
+			this.peakQueueDepth = peakQueueDepth;
+			this.queueCapacity = queueCapacity;
+			this.completed = completed;
+			this.busyNanos = busyNanos;
+			this.elapsedNanos = elapsedNanos;
+		}
+		
+		/**
+		 * Returns the number of threads of the stage.
+		 * 
+		 * @return		The number of threads.
+		 */
+		public int getThreads() {
+			return threads;
+		}
+		
+		/**
+		 * Returns the number of images waiting in the queue before the
+		 * stage. The {@link Stage#READ} stage takes the tasks directly,
+		 * and has no queue.
+		 * 
+		 * @return		The number of waiting images.
+		 */
+		public int getQueueDepth() {
+			return queueDepth;
+		}
+		
+		/**
+		 * Returns the largest number of images which waited in the queue
+		 * before the stage at once.
+		 * 
+		 * @return		The peak number of waiting images.
+		 */
+		public int getPeakQueueDepth() {
+			return peakQueueDepth;
+		}
+		
+		/**
+		 * Returns the capacity of the queue before the stage.
+		 * 
+		 * @return		The capacity, or {@code 0} for the
+		 * 				{@link Stage#READ} stage.
+		 */
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+		
+		/**
+		 * Returns the number of images the stage has finished.
+		 * 
+		 * @return		The number of images.
+		 */
+		public long getCompleted() {
+			return completed;
+		}
+		
+		/**
+		 * Returns the time the threads of the stage spent working, rather
+		 * than waiting for images or for room in the next queue.
+		 * 
+		 * @param unit	The unit of the returned time.
+		 * @return		The total working time of the threads.
+		 */
+		public long getBusyTime(TimeUnit unit) {
+			return unit.convert(busyNanos, TimeUnit.NANOSECONDS);
+		}
+		
+		/**
+		 * Returns the fraction of the time since the run started which the
+		 * threads of the stage spent working.
+		 * 
+		 * @return		The utilization between {@code 0.0} and {@code 1.0}.
+		 */
+		public double getUtilization() {
+			if (elapsedNanos <= 0) {
+				return 0.0;
+			}
+			return Math.min(1.0, (double)busyNanos / ((double)elapsedNanos * threads));
+		}
+		
+		@Override
+		public String toString() {
+			return "StageStatistics[threads=" + threads
+					+ ", queueDepth=" + queueDepth
+					+ ", peakQueueDepth=" + peakQueueDepth
+					+ ", queueCapacity=" + queueCapacity
+					+ ", completed=" + completed
+					+ ", utilization=" + getUtilization() + "]";
+		}
+	}
+	
+	/**
+	 * An image passed between the stages.
+	 */
+	private static final class Item {
+		private final ThumbnailTask<?, ?> task;
+		private final boolean hasFrames;
+		private final int sourceFilterCount;
+		private FrameSequence frames;
+		
+		private Item(ThumbnailTask<?, ?> task, boolean hasFrames, int sourceFilterCount, FrameSequence frames) {
+			this.task = task;
+			this.hasFrames = hasFrames;
+			this.sourceFilterCount = sourceFilterCount;
+			this.frames = frames;
+		}
+	}
+	
+	/**
+	 * Marks the end of the images in a queue.
+	 */
+	private static final Item END = new Item(null, false, 0, null);
+	
+	/**
+	 * The work counters of a stage during a run.
+	 */
+	private static final class StageCounters {
+		private final int threads;
+		private final BlockingQueue<Item> queue;
+		private final AtomicInteger peakQueueDepth = new AtomicInteger();
+		private final AtomicLong completed = new AtomicLong();
+		private final AtomicLong busyNanos = new AtomicLong();
+		
+		private StageCounters(int threads, BlockingQueue<Item> queue) {
+			this.threads = threads;
+			this.queue = queue;
+		}
+		
+		private void updatePeak() {
+			int depth = queue.size();
+			int peak;
+			while (depth > (peak = peakQueueDepth.get())
+					&& !peakQueueDepth.compareAndSet(peak, depth)) {
+				// Retry until the peak is at least the depth.
+			}
+		}
+		
+		private void finished(long startNanos) {
+			busyNanos.addAndGet(System.nanoTime() - startNanos);
+			completed.incrementAndGet();
+		}
+	}
+	
+	private final int readers;
+	private final int processors;
+	private final int writers;
+	private final int queueCapacity;
+	
+	/*
+	 * The state of the last run, which is read by getStatistics.
+	 */
+	private volatile StageCounters[] counters;
+	private volatile long startNanos;
+	private volatile long endNanos;
+	
+	/**
+	 * Instantiates a {@link ThumbnailPipeline}.
+	 * 
+	 * @param readers		The number of threads which read images.
+	 * @param processors	The number of threads which resize images.
+	 * @param writers		The number of threads which write thumbnails.
+	 * @param queueCapacity	The number of images each queue between the
+	 * 						stages holds.
+	 * @throws IllegalArgumentException	If any of the arguments is not
+	 * 									positive.
+	 */
+	public ThumbnailPipeline(int readers, int processors, int writers, int queueCapacity) {
+		if (readers < 1 || processors < 1 || writers < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		} else if (queueCapacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be positive.");
+		}
+		
+		this.readers = readers;
+		this.processors = processors;
+		this.writers = writers;
+		this.queueCapacity = queueCapacity;
+	}
+	
+	/**
+	 * Creates the thumbnails of the tasks, and returns once all of them
+	 * have been written.
+	 * 
+	 * @param tasks			The tasks to execute. The iterator is only used
+	 * 						by one thread at a time.
+	 * @throws IOException	The first exception thrown by a task, in which
+	 * 						case the remaining tasks are not executed, or an
+	 * 						{@link InterruptedIOException} if the calling
+	 * 						thread is interrupted.
+	 * @throws NullPointerException		If the tasks are {@code null}.
+	 */
+	public void run(Iterable<? extends ThumbnailTask<?, ?>> tasks) throws IOException {
+		if (tasks == null) {
+			throw new NullPointerException("Tasks cannot be null.");
+		}
+		
+		final Run run = new Run(tasks.iterator());
+		counters = new StageCounters[] {run.readStage, run.processStage, run.writeStage};
+		startNanos = System.nanoTime();
+		endNanos = 0;
+		
+		for (int i = 0; i < readers; i++) {
+			run.threads.add(new Thread(new Runnable() {
+				public void run() {
+					run.read();
+				}
+			}, "thumbnailator-read-" + (i + 1)));
+		}
+		for (int i = 0; i < processors; i++) {
+			run.threads.add(new Thread(new Runnable() {
+				public void run() {
+					run.process();
+				}
+			}, "thumbnailator-process-" + (i + 1)));
+		}
+		for (int i = 0; i < writers; i++) {
+			run.threads.add(new Thread(new Runnable() {
+				public void run() {
+					run.write();
+				}
+			}, "thumbnailator-write-" + (i + 1)));
+		}
+		
+		for (Thread thread : run.threads) {
+			thread.start();
+		}
+		
+		try {
+			for (Thread thread : run.threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			run.fail(e);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while making thumbnails.");
+		} finally {
+			endNanos = System.nanoTime();
+		}
+		
+		Throwable t = run.failure.get();
+		if (t instanceof IOException) {
+			throw (IOException)t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException)t;
+		} else if (t instanceof Error) {
+			throw (Error)t;
+		} else if (t != null) {
+			throw new IOException(t);
+		}
+	}
+	
+	/**
+	 * The state of one run of the pipeline, shared by its threads.
+	 */
+	private final class Run {
+		/**
+		 * How long a thread waits on a queue before it checks whether the
+		 * run has failed. Codecs may clear the interrupt used to stop the
+		 * threads, so the threads do not rely on it alone.
+		 */
+		private static final long POLL_MILLIS = 100;
+		
+		private final Iterator<? extends ThumbnailTask<?, ?>> iter;
+		private final Lock iterLock = new ReentrantLock();
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final List<Thread> threads = new ArrayList<Thread>();
+		
+		private final StageCounters readStage = new StageCounters(readers, null);
+		private final StageCounters processStage = new StageCounters(
+				processors, new ArrayBlockingQueue<Item>(queueCapacity)
+		);
+		private final StageCounters writeStage = new StageCounters(
+				writers, new ArrayBlockingQueue<Item>(queueCapacity)
+		);
+		private final AtomicInteger readersLeft = new AtomicInteger(readers);
+		private final AtomicInteger processorsLeft = new AtomicInteger(processors);
+		
+		private Run(Iterator<? extends ThumbnailTask<?, ?>> iter) {
+			this.iter = iter;
+		}
+		
+		private void read() {
+			try {
+				ThumbnailTask<?, ?> task;
+				while ((task = next()) != null) {
+					long start = System.nanoTime();
+					Item item = readImage(task);
+					readStage.finished(start);
+					put(processStage, item);
+				}
+				if (readersLeft.decrementAndGet() == 0) {
+					for (int i = 0; i < processors; i++) {
+						put(processStage, END);
+					}
+				}
+			} catch (Throwable t) {
+				fail(t);
+			}
+		}
+		
+		private void process() {
+			try {
+				Item item;
+				while ((item = take(processStage)) != END) {
+					long start = System.nanoTime();
+					resizeImage(item);
+					processStage.finished(start);
+					put(writeStage, item);
+				}
+				if (processorsLeft.decrementAndGet() == 0) {
+					for (int i = 0; i < writers; i++) {
+						put(writeStage, END);
+					}
+				}
+			} catch (Throwable t) {
+				fail(t);
+			}
+		}
+		
+		private void write() {
+			try {
+				Item item;
+				while ((item = take(writeStage)) != END) {
+					long start = System.nanoTime();
+					writeThumbnail(item);
+					writeStage.finished(start);
+				}
+			} catch (Throwable t) {
+				fail(t);
+			}
+		}
+		
+		private ThumbnailTask<?, ?> next() {
+			iterLock.lock();
+			try {
+				return failure.get() == null && iter.hasNext() ? iter.next() : null;
+			} finally {
+				iterLock.unlock();
+			}
+		}
+		
+		private void put(StageCounters stage, Item item) throws InterruptedException {
+			while (!stage.queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+			}
+			checkFailure();
+			if (item != END) {
+				stage.updatePeak();
+			}
+		}
+		
+		private Item take(StageCounters stage) throws InterruptedException {
+			Item item;
+			while ((item = stage.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				checkFailure();
+			}
+			checkFailure();
+			return item;
+		}
+		
+		private void checkFailure() throws InterruptedException {
+			if (failure.get() != null) {
+				throw new InterruptedException();
+			}
+		}
+		
+		/**
+		 * Records the first failure, and stops all the threads. Threads
+		 * stopped because of a failure do not replace it.
+		 */
+		private void fail(Throwable t) {
+			if (failure.compareAndSet(null, t)) {
+				for (Thread thread : threads) {
+					thread.interrupt();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the statistics of a stage of the current or the last run.
+	 * 
+	 * @param stage			The stage.
+	 * @return				The statistics, which are all zero if the
+	 * 						pipeline has not been run.
+	 * @throws NullPointerException		If the stage is {@code null}.
+	 */
+	public StageStatistics getStatistics(Stage stage) {
+		if (stage == null) {
+			throw new NullPointerException("Stage cannot be null.");
+		}
+		
+		StageCounters[] current = counters;
+		if (current == null) {
+			int threads = stage == Stage.READ ? readers
+					: stage == Stage.PROCESS ? processors : writers;
+			return new StageStatistics(
+					threads, 0, 0, stage == Stage.READ ? 0 : queueCapacity, 0, 0, 0
+			);
+		}
+		
+		StageCounters c = current[stage.ordinal()];
+		long end = endNanos;
+		long elapsed = (end != 0 ? end : System.nanoTime()) - startNanos;
+		
+		return new StageStatistics(
+				c.threads,
+				c.queue != null ? c.queue.size() : 0,
+				c.peakQueueDepth.get(),
+				c.queue != null ? queueCapacity : 0,
+				c.completed.get(),
+				c.busyNanos.get(),
+				elapsed
+		);
+	}
+	
+	private static Item readImage(ThumbnailTask<?, ?> task) throws IOException {
+		ThumbnailParameter param = task.getParam();
+		int filterCount = param.getImageFilters().size();
+		boolean hasFrames = param.getFrameOptions() != null;
+		
+		FrameSequence frames = hasFrames
+				? task.readFrames()
+				: new FrameSequence(task.read());
+		
+		/*
+		 * Filters added by the source are at the front of the pipeline, as
+		 * in Thumbnailator.createThumbnail(ThumbnailTask).
+		 */
+		int sourceFilterCount = param.getImageFilters().size() - filterCount;
+		
+		return new Item(task, hasFrames, sourceFilterCount, frames);
+	}
+	
+	private static void resizeImage(Item item) {
+		ThumbnailParameter param = item.task.getParam();
+		List<BufferedImage> thumbnails = new ArrayList<BufferedImage>();
+		for (BufferedImage frame : item.frames.getFrames()) {
+			thumbnails.add(Thumbnailator.createThumbnail(frame, param, item.sourceFilterCount));
+			frame.flush();
+		}
+		item.frames = item.frames.withFrames(thumbnails);
+	}
+	
+	private static void writeThumbnail(Item item) throws IOException {
+		if (item.hasFrames) {
+			item.task.writeFrames(item.frames);
+		} else {
+			item.task.write(item.frames.getFrame(0));
+		}
+		for (BufferedImage thumbnail : item.frames.getFrames()) {
+			thumbnail.flush();
+		}
+	}
+}
@@ -24,6 +24,7 @@
 
 package net.coobird.thumbnailator;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Image;
@@ -32,22 +33,36 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.filters.Canvas;
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.filters.Pipeline;
+import net.coobird.thumbnailator.filters.Rotation.Rotator;
 import net.coobird.thumbnailator.filters.SwapDimensions;
+import net.coobird.thumbnailator.filters.Transparency;
+import net.coobird.thumbnailator.geometry.Position;
 import net.coobird.thumbnailator.makers.FixedSizeThumbnailMaker;
 import net.coobird.thumbnailator.makers.ScaledThumbnailMaker;
 import net.coobird.thumbnailator.name.Rename;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.tasks.ThumbnailTask;
+import net.coobird.thumbnailator.tasks.io.FrameOptions;
+import net.coobird.thumbnailator.tasks.io.FrameProcessor;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
+import net.coobird.thumbnailator.tasks.io.Offloading;
+import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.Futures;
 
 /**
  * This class provides static utility methods which perform generation of
@@ -72,11 +87,203 @@ public final class Thumbnailator {
 	 * 							thumbnail.
 	 */
 	public static void createThumbnail(ThumbnailTask<?, ?> task) throws IOException {
-		ThumbnailParameter param = task.getParam();
+		final ThumbnailParameter param = task.getParam();
+		int filterCount = param.getImageFilters().size();
+		
+		if (param.getFrameOptions() != null) {
+			createFrameThumbnails(task, filterCount);
+			return;
+		}
 		
 		// Obtain the original image.
-		BufferedImage sourceImage = task.read();
-
+		final BufferedImage sourceImage = task.read();
+		
+		/*
+		 * Filters added by the source, such as the one which orients the
+		 * image according to its Exif metadata, are at the front of the
+		 * pipeline, and must be applied before the thumbnail is cropped.
+		 */
+		final int sourceFilterCount = param.getImageFilters().size() - filterCount;
+		
+		BufferedImage destinationImage;
+		if (param.getOffloading() != null) {
+			destinationImage = param.getOffloading().call(new Callable<BufferedImage>() {
+				public BufferedImage call() {
+					return createThumbnail(sourceImage, param, sourceFilterCount);
+				}
+			});
+		} else {
+			destinationImage = createThumbnail(sourceImage, param, sourceFilterCount);
+		}
+		
+		// Write the thumbnail image to the destination.
+		task.write(destinationImage);
+		
+		sourceImage.flush();
+		destinationImage.flush();
+	}
+	
+	/**
+	 * Creates thumbnails of the frames of an animated or multi-page image,
+	 * which are resized concurrently by the number of threads set in the
+	 * {@link FrameOptions}.
+	 * <p>
+	 * Each frame is resized as soon as it has been read, so that only the
+	 * frames being resized are kept at the size of the source image.
+	 * 
+	 * @param task				The task to execute.
+	 * @param filterCount		The number of filters before the source was
+	 * 							read.
+	 * @throws IOException		Thrown when a problem occurs when creating the
+	 * 							thumbnails.
+	 */
+	private static void createFrameThumbnails(ThumbnailTask<?, ?> task, int filterCount) throws IOException {
+		FrameResizer resizer = new FrameResizer(task.getParam(), filterCount);
+		try {
+			FrameSequence frames = task.readFrames(resizer);
+			task.writeFrames(frames.withFrames(resizer.getThumbnails(frames.getFrames())));
+			
+		} finally {
+			resizer.cancel();
+		}
+	}
+	
+	/**
+	 * Resizes the frames of an animated or multi-page image as they are
+	 * read.
+	 * <p>
+	 * With a single thread, each frame is resized before the next one is
+	 * read. With more threads, a copy of each frame is resized on the
+	 * {@link Offloading} of the parameters, or on a pool shared by all
+	 * thumbnails if none is set, and reading waits for the oldest frame
+	 * once as many frames as there are threads are being resized, so that
+	 * at most that many frames are kept at the size of the source image.
+	 */
+	private static final class FrameResizer implements FrameProcessor {
+		/**
+		 * Stands in for the frames which are resized by the thread pool,
+		 * until {@link #getThumbnails(List)} replaces them with the results.
+		 */
+		private static final BufferedImage PENDING =
+				new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		
+		private static final String INTERRUPTED_MESSAGE = "Interrupted while making thumbnails.";
+		
+		private final ThumbnailParameter param;
+		private final int filterCount;
+		private final int threads;
+		private int sourceFilterCount = -1;
+		
+		private Offloading offloading;
+		private final Queue<Future<BufferedImage>> pending =
+				new ArrayDeque<Future<BufferedImage>>();
+		private final List<BufferedImage> thumbnails = new ArrayList<BufferedImage>();
+		
+		private FrameResizer(ThumbnailParameter param, int filterCount) {
+			this.param = param;
+			this.filterCount = filterCount;
+			this.threads = param.getFrameOptions().getThreads();
+		}
+		
+		public BufferedImage process(BufferedImage frame) throws IOException {
+			if (sourceFilterCount < 0) {
+				/*
+				 * Filters added by the source are in place once it has
+				 * started reading.
+				 */
+				sourceFilterCount = param.getImageFilters().size() - filterCount;
+			}
+			
+			if (threads == 1) {
+				return resize(frame);
+			}
+			
+			if (offloading == null) {
+				offloading = param.getOffloading() != null
+						? param.getOffloading() : SharedFramePool.OFFLOADING;
+			}
+			if (pending.size() >= threads) {
+				thumbnails.add(Futures.getResult(pending.remove(), INTERRUPTED_MESSAGE));
+			}
+			
+			// The frame may be reused once this method returns.
+			final BufferedImage copy = BufferedImages.createCompatible(
+					frame, frame.getWidth(), frame.getHeight()
+			);
+			frame.copyData(copy.getRaster());
+			
+			pending.add(offloading.submit(new Callable<BufferedImage>() {
+				public BufferedImage call() {
+					return createThumbnail(copy, param, sourceFilterCount);
+				}
+			}));
+			return PENDING;
+		}
+		
+		private BufferedImage resize(final BufferedImage frame) throws IOException {
+			if (param.getOffloading() != null) {
+				return param.getOffloading().call(new Callable<BufferedImage>() {
+					public BufferedImage call() {
+						return createThumbnail(frame, param, sourceFilterCount);
+					}
+				});
+			}
+			return createThumbnail(frame, param, sourceFilterCount);
+		}
+		
+		/**
+		 * Returns the thumbnails of the frames which were read.
+		 */
+		private List<BufferedImage> getThumbnails(List<BufferedImage> frames) throws IOException {
+			if (offloading == null) {
+				return frames;
+			}
+			while (!pending.isEmpty()) {
+				thumbnails.add(Futures.getResult(pending.remove(), INTERRUPTED_MESSAGE));
+			}
+			return thumbnails;
+		}
+		
+		/**
+		 * Cancels the frames which are still being resized.
+		 */
+		private void cancel() {
+			for (Future<BufferedImage> future : pending) {
+				future.cancel(true);
+			}
+		}
+	}
+	
+	/**
+	 * Holds the pool which resizes frames concurrently when no
+	 * {@link Offloading} is set, which is only created once it is needed.
+	 */
+	private static final class SharedFramePool {
+		private static final Offloading OFFLOADING =
+				Offloading.withThreads(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a thumbnail of the source image with the parameters of a
+	 * {@link ThumbnailTask}.
+	 * <p>
+	 * The filters of the {@link ThumbnailParameter} are not modified, so
+	 * that thumbnails of several images can be created concurrently with
+	 * the same parameters.
+	 * 
+	 * @param sourceImage		The source image.
+	 * @param param				The parameters of the thumbnail.
+	 * @param sourceFilterCount	The number of filters at the front of the
+	 * 							filters which were added by the source.
+	 * @return					The thumbnail.
+	 */
+	static BufferedImage createThumbnail(
+			BufferedImage sourceImage,
+			ThumbnailParameter param,
+			int sourceFilterCount
+	) {
+		List<ImageFilter> filters = new ArrayList<ImageFilter>(param.getImageFilters());
+		
 		// Decide the image type of the destination image.
 		int imageType = param.getType();
 		/*
@@ -96,6 +303,17 @@ public final class Thumbnailator {
 				imageType = sourceImage.getType();
 			}
 		}
+		
+		/*
+		 * If the native layout of the original image is to be kept, it can
+		 * only be used when no filter needs an alpha channel which the
+		 * original image lacks.
+		 */
+		if (param.useNativeImageType()
+				&& !sourceImage.getColorModel().hasAlpha()
+				&& hasTranslucentFilter(param.getImageFilters())) {
+			imageType = ThumbnailParameter.DEFAULT_IMAGE_TYPE;
+		}
 
 		// Check for presence of marker indicating to swap the width and height.
 		boolean isSwapDimensions = hasSwapDimensionsFilter(param.getImageFilters());
@@ -108,12 +326,33 @@ public final class Thumbnailator {
 			int destinationWidth = !isSwapDimensions ? size.width : size.height;
 			int destinationHeight = !isSwapDimensions ? size.height : size.width;
 			
-			// Create the thumbnail.
-			destinationImage =
+			FixedSizeThumbnailMaker maker =
 				new FixedSizeThumbnailMaker()
 					.size(destinationWidth, destinationHeight)
 					.keepAspectRatio(param.isKeepAspectRatio())
-					.fitWithinDimensions(param.fitWithinDimenions())
+					.fitWithinDimensions(param.fitWithinDimenions());
+			
+			/*
+			 * The maker crops by resizing only the region which remains,
+			 * unless the image is oriented afterwards, in which case the
+			 * thumbnail is cropped by a Canvas after it has been oriented.
+			 */
+			Position croppingPosition = param.getCroppingPosition();
+			if (croppingPosition != null) {
+				if (sourceFilterCount == 0
+						&& size.width != Integer.MAX_VALUE
+						&& size.height != Integer.MAX_VALUE) {
+					maker.crop(croppingPosition);
+				} else {
+					filters.add(
+							sourceFilterCount,
+							new Canvas(size.width, size.height, croppingPosition)
+					);
+				}
+			}
+			
+			// Create the thumbnail.
+			destinationImage = maker
 					.imageType(imageType)
 					.resizerFactory(param.getResizerFactory())
 					.make(sourceImage);
@@ -138,15 +377,11 @@ public final class Thumbnailator {
 		}
 		
 		// Perform the image filters
-		for (ImageFilter filter : param.getImageFilters()) {
+		for (ImageFilter filter : filters) {
 			destinationImage = filter.apply(destinationImage);
 		}
 		
-		// Write the thumbnail image to the destination.
-		task.write(destinationImage);
-		
-		sourceImage.flush();
-		destinationImage.flush();
+		return destinationImage;
 	}
 
 	private static boolean hasSwapDimensionsFilter(List<ImageFilter> imageFilters) {
@@ -163,6 +398,36 @@ public final class Thumbnailator {
 		return hasSwapDimenionsFilter;
 	}
 
+	/**
+	 * Returns whether any of the filters makes part of an image
+	 * translucent: a {@link Transparency}, a {@link Canvas} filling with
+	 * a translucent color, or a rotation by an angle other than a right
+	 * angle, which leaves the corners transparent.
+	 */
+	private static boolean hasTranslucentFilter(List<ImageFilter> imageFilters) {
+		for (ImageFilter imageFilter : imageFilters) {
+			if (imageFilter instanceof Pipeline) {
+				if (hasTranslucentFilter(((Pipeline) imageFilter).getFilters())) {
+					return true;
+				}
+			} else if (imageFilter instanceof Transparency) {
+				return true;
+				
+			} else if (imageFilter instanceof Canvas) {
+				Color fillColor = ((Canvas) imageFilter).getFillColor();
+				if (fillColor != null && fillColor.getAlpha() != 0xff) {
+					return true;
+				}
+				
+			} else if (imageFilter instanceof Rotator) {
+				if (((Rotator) imageFilter).getAngle() % 90 != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Creates a thumbnail.
 	 * <p>
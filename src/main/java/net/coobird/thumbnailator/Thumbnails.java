@@ -24,7 +24,9 @@
 
 package net.coobird.thumbnailator;
 
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
@@ -33,16 +35,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 
-import net.coobird.thumbnailator.filters.Canvas;
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.filters.Pipeline;
 import net.coobird.thumbnailator.filters.Rotation;
@@ -53,28 +59,46 @@ import net.coobird.thumbnailator.geometry.Position;
 import net.coobird.thumbnailator.geometry.Positions;
 import net.coobird.thumbnailator.geometry.Region;
 import net.coobird.thumbnailator.geometry.Size;
+import net.coobird.thumbnailator.makers.FixedSizeThumbnailMaker;
 import net.coobird.thumbnailator.name.Rename;
 import net.coobird.thumbnailator.resizers.BicubicResizer;
 import net.coobird.thumbnailator.resizers.BilinearResizer;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.FixedResizerFactory;
+import net.coobird.thumbnailator.resizers.LinearLightResizer;
+import net.coobird.thumbnailator.resizers.LinearLightResizerFactory;
 import net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer;
+import net.coobird.thumbnailator.resizers.ProgressiveBoxResizer;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
 import net.coobird.thumbnailator.resizers.configurations.AlphaInterpolation;
 import net.coobird.thumbnailator.resizers.configurations.Antialiasing;
 import net.coobird.thumbnailator.resizers.configurations.Dithering;
+import net.coobird.thumbnailator.resizers.configurations.GammaCorrection;
 import net.coobird.thumbnailator.resizers.configurations.Rendering;
 import net.coobird.thumbnailator.resizers.configurations.ScalingMode;
 import net.coobird.thumbnailator.tasks.SourceSinkThumbnailTask;
 import net.coobird.thumbnailator.tasks.io.BufferedImageSink;
 import net.coobird.thumbnailator.tasks.io.BufferedImageSource;
+import net.coobird.thumbnailator.tasks.io.ByteBufferImageSink;
+import net.coobird.thumbnailator.tasks.io.ByteBufferImageSource;
+import net.coobird.thumbnailator.tasks.io.ConnectionOptions;
+import net.coobird.thumbnailator.tasks.io.EncoderOptions;
 import net.coobird.thumbnailator.tasks.io.FileImageSink;
 import net.coobird.thumbnailator.tasks.io.FileImageSource;
+import net.coobird.thumbnailator.tasks.io.FileWriteMode;
+import net.coobird.thumbnailator.tasks.io.FrameOptions;
+import net.coobird.thumbnailator.tasks.io.ImageEncoder;
+import net.coobird.thumbnailator.tasks.io.ImageSelector;
 import net.coobird.thumbnailator.tasks.io.ImageSource;
 import net.coobird.thumbnailator.tasks.io.InputStreamImageSource;
+import net.coobird.thumbnailator.tasks.io.Offloading;
+import net.coobird.thumbnailator.tasks.io.OutputSizeLimit;
 import net.coobird.thumbnailator.tasks.io.OutputStreamImageSink;
+import net.coobird.thumbnailator.tasks.io.StreamCaching;
 import net.coobird.thumbnailator.tasks.io.URLImageSource;
+import net.coobird.thumbnailator.tiles.SpriteSheet;
+import net.coobird.thumbnailator.util.Futures;
 import net.coobird.thumbnailator.util.ThumbnailatorUtils;
 
 /**
@@ -262,6 +286,29 @@ public final class Thumbnails {
 		return Builder.ofInputStreams(Arrays.asList(inputStreams));
 	}
 	
+	/**
+	 * Indicate to make thumbnails from the image data held in the specified
+	 * {@link ByteBuffer}s.
+	 * <p>
+	 * The data between the position and the limit of each buffer is read
+	 * directly, without being copied or cached. The position and limit of
+	 * the buffers are not changed. Data held in a {@code byte[]} can be
+	 * given by wrapping it using {@link ByteBuffer#wrap(byte[])}.
+	 * 
+	 * @param buffers	{@link ByteBuffer}s which hold the images for which
+	 * 					thumbnails are to be produced for.
+	 * @return			Reference to a builder object which is used to
+	 * 					specify the parameters for creating the thumbnail.
+	 * @throws NullPointerException		If the argument is {@code null}.
+	 * @throws IllegalArgumentException	If the argument is an empty array.
+	 * @since	0.4.21
+	 */
+	public static Builder<ByteBuffer> of(ByteBuffer... buffers) {
+		checkForNull(buffers, "Cannot specify null for ByteBuffers.");
+		checkForEmpty(buffers, "Cannot specify an empty array for ByteBuffers.");
+		return Builder.ofByteBuffers(Arrays.asList(buffers));
+	}
+	
 	/**
 	 * Indicate to make thumbnails from the specified {@link BufferedImage}s.
 	 * 
@@ -421,6 +468,7 @@ instance.asFiles("path/to/thumbnail");
 	 * <li>{@link Thumbnails#of(File...)}</li>
 	 * <li>{@link Thumbnails#of(String...)}</li>
 	 * <li>{@link Thumbnails#of(InputStream...)}</li>
+	 * <li>{@link Thumbnails#of(ByteBuffer...)}</li>
 	 * <li>{@link Thumbnails#of(URL...)}</li>
 	 * <li>{@link Thumbnails#fromImages(Iterable)}</li>
 	 * <li>{@link Thumbnails#fromFiles(Iterable)}</li>
@@ -552,6 +600,34 @@ instance.asFiles("path/to/thumbnail");
 			}
 		}
 		
+		private static final class ByteBufferImageSourceIterator implements
+				Iterable<ImageSource<ByteBuffer>> {
+
+			private final Iterable<ByteBuffer> buffers;
+			
+			private ByteBufferImageSourceIterator(Iterable<ByteBuffer> buffers) {
+				this.buffers = buffers;
+			}
+			
+			public Iterator<ImageSource<ByteBuffer>> iterator() {
+				return new Iterator<ImageSource<ByteBuffer>>() {
+					Iterator<ByteBuffer> iter = buffers.iterator();
+					
+					public boolean hasNext() {
+						return iter.hasNext();
+					}
+
+					public ImageSource<ByteBuffer> next() {
+						return new ByteBufferImageSource(iter.next());
+					}
+					
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		}
+		
 		private static final class BufferedImageImageSourceIterator implements
 			Iterable<ImageSource<BufferedImage>> {
 
@@ -600,6 +676,11 @@ instance.asFiles("path/to/thumbnail");
 			return new Builder<InputStream>(iter);
 		}
 		
+		private static Builder<ByteBuffer> ofByteBuffers(Iterable<ByteBuffer> buffers) {
+			Iterable<ImageSource<ByteBuffer>> iter = new ByteBufferImageSourceIterator(buffers);
+			return new Builder<ByteBuffer>(iter);
+		}
+		
 		private static Builder<BufferedImage> ofBufferedImages(Iterable<BufferedImage> images) {
 			Iterable<ImageSource<BufferedImage>> iter = new BufferedImageImageSourceIterator(images);
 			return new Builder<BufferedImage>(iter);
@@ -681,6 +762,7 @@ instance.asFiles("path/to/thumbnail");
 			ANTIALIASING("antialiasing"),
 			DITHERING("dithering"),
 			RENDERING("rendering"),
+			GAMMA_CORRECTION("gammaCorrection"),
 			KEEP_ASPECT_RATIO("keepAspectRatio"),
 			OUTPUT_FORMAT("outputFormat"),
 			OUTPUT_FORMAT_TYPE("outputFormatType"),
@@ -689,8 +771,18 @@ instance.asFiles("path/to/thumbnail");
 			SOURCE_REGION("sourceRegion"),
 			RESIZER_FACTORY("resizerFactory"),
 			ALLOW_OVERWRITE("allowOverwrite"),
+			FILE_WRITE_MODE("fileWriteMode"),
+			FILE_BUFFER_SIZE("fileBufferSize"),
 			CROP("crop"),
 			USE_EXIF_ORIENTATION("useExifOrientation"),
+			STREAM_CACHING("streamCaching"),
+			MAX_OUTPUT_BYTES("maxOutputBytes"),
+			ENCODER_OPTIONS("encoderOptions"),
+			FRAMES("frames"),
+			SELECT_IMAGE("selectImage"),
+			OFFLOAD("offload"),
+			CONNECTION("connection"),
+			STREAM_LARGE_IMAGES("streamLargeImages"),
 			;
 			
 			private final String name;
@@ -724,6 +816,7 @@ instance.asFiles("path/to/thumbnail");
 			statusMap.put(Properties.ANTIALIASING, Status.OPTIONAL);
 			statusMap.put(Properties.DITHERING, Status.OPTIONAL);
 			statusMap.put(Properties.RENDERING, Status.OPTIONAL);
+			statusMap.put(Properties.GAMMA_CORRECTION, Status.OPTIONAL);
 			statusMap.put(Properties.KEEP_ASPECT_RATIO, Status.OPTIONAL);
 			statusMap.put(Properties.OUTPUT_FORMAT, Status.OPTIONAL);
 			statusMap.put(Properties.OUTPUT_FORMAT_TYPE, Status.OPTIONAL);
@@ -731,8 +824,18 @@ instance.asFiles("path/to/thumbnail");
 			statusMap.put(Properties.RESIZER, Status.OPTIONAL);
 			statusMap.put(Properties.RESIZER_FACTORY, Status.OPTIONAL);
 			statusMap.put(Properties.ALLOW_OVERWRITE, Status.OPTIONAL);
+			statusMap.put(Properties.FILE_WRITE_MODE, Status.OPTIONAL);
+			statusMap.put(Properties.FILE_BUFFER_SIZE, Status.OPTIONAL);
 			statusMap.put(Properties.CROP, Status.OPTIONAL);
 			statusMap.put(Properties.USE_EXIF_ORIENTATION, Status.OPTIONAL);
+			statusMap.put(Properties.STREAM_CACHING, Status.OPTIONAL);
+			statusMap.put(Properties.MAX_OUTPUT_BYTES, Status.OPTIONAL);
+			statusMap.put(Properties.ENCODER_OPTIONS, Status.OPTIONAL);
+			statusMap.put(Properties.FRAMES, Status.OPTIONAL);
+			statusMap.put(Properties.SELECT_IMAGE, Status.OPTIONAL);
+			statusMap.put(Properties.OFFLOAD, Status.OPTIONAL);
+			statusMap.put(Properties.CONNECTION, Status.OPTIONAL);
+			statusMap.put(Properties.STREAM_LARGE_IMAGES, Status.OPTIONAL);
 		}
 
 		/**
@@ -792,15 +895,36 @@ instance.asFiles("path/to/thumbnail");
 		private Dithering dithering = Dithering.DEFAULT;
 		private Antialiasing antialiasing = Antialiasing.DEFAULT;
 		private Rendering rendering = Rendering.DEFAULT;
+		private GammaCorrection gammaCorrection = GammaCorrection.DEFAULT;
 		
 		private ResizerFactory resizerFactory = DefaultResizerFactory.getInstance();
 		
 		private boolean allowOverwrite = true;
 		
+		private FileWriteMode fileWriteMode = FileWriteMode.DIRECT;
+		
+		private int fileBufferSize = FileImageSink.DEFAULT_BUFFER_SIZE;
+		
 		private boolean fitWithinDimenions = true;
 		
 		private boolean useExifOrientation = true;
 		
+		private StreamCaching streamCaching = StreamCaching.DEFAULT;
+		
+		private OutputSizeLimit outputSizeLimit = null;
+		
+		private EncoderOptions encoderOptions = EncoderOptions.DEFAULT;
+		
+		private FrameOptions frameOptions = null;
+		
+		private ImageSelector imageSelector = null;
+		
+		private Offloading offloading = null;
+		
+		private ConnectionOptions connectionOptions = null;
+		
+		private long streamingThreshold = ThumbnailParameter.NO_STREAMING;
+		
 		/**
 		 * This field should be set to the {@link Position} to be used for
 		 * cropping if cropping is enabled. If cropping is disabled, then
@@ -1269,6 +1393,67 @@ Thumbnails.of(image)
 			return this;
 		}
 		
+		/**
+		 * Sets how thumbnails are written into their destination files.
+		 * <p>
+		 * By default, thumbnails are written directly into the destination
+		 * files. With {@link FileWriteMode#ATOMIC} or
+		 * {@link FileWriteMode#ATOMIC_SYNC}, each thumbnail is written into a
+		 * temporary file next to its destination and moved into place once
+		 * complete, so that readers never observe a partially written
+		 * thumbnail.
+		 * <p>
+		 * This method will change the output behavior of the following methods:
+		 * <ul>
+		 * <li>{@link #toFile(File)}</li>
+		 * <li>{@link #toFile(String)}</li>
+		 * <li>{@link #toFiles(Iterable)}</li>
+		 * <li>{@link #toFiles(Rename)}</li>
+		 * <li>{@link #asFiles(Iterable)}</li>
+		 * <li>{@link #asFiles(Rename)}</li>
+		 * </ul>
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param fileWriteMode		How thumbnails are written into files.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> fileWriteMode(FileWriteMode fileWriteMode) {
+			checkForNull(fileWriteMode, "FileWriteMode cannot be null.");
+			
+			updateStatus(Properties.FILE_WRITE_MODE, Status.ALREADY_SET);
+			this.fileWriteMode = fileWriteMode;
+			return this;
+		}
+		
+		/**
+		 * Sets the size of the buffer used when thumbnails are written to
+		 * files through their {@link java.nio.channels.FileChannel}, which is
+		 * the case when writing with {@link FileWriteMode#ATOMIC},
+		 * {@link FileWriteMode#ATOMIC_SYNC} or with
+		 * {@link StreamCaching#NONE}.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param bufferSize		The size of the buffer in bytes.
+		 * @return					Reference to this object.
+		 * @throws IllegalArgumentException	If the size is not positive.
+		 * @since	0.4.21
+		 */
+		public Builder<T> fileBufferSize(int bufferSize) {
+			if (bufferSize <= 0) {
+				throw new IllegalArgumentException("Buffer size must be greater than 0.");
+			}
+			
+			updateStatus(Properties.FILE_BUFFER_SIZE, Status.ALREADY_SET);
+			this.fileBufferSize = bufferSize;
+			return this;
+		}
+		
 		/**
 		 * Sets the image type of the thumbnail.
 		 * <p>
@@ -1276,6 +1461,11 @@ Thumbnails.of(image)
 		 * <p>
 		 * Calling this method multiple times will result in an
 		 * {@link IllegalStateException} to be thrown.
+		 * <p>
+		 * Specifying {@link ThumbnailParameter#NATIVE_IMAGE_TYPE} will
+		 * produce thumbnails with the same color and sample layout as the
+		 * original image, including custom, grayscale and indexed layouts,
+		 * which avoids converting the image before encoding it.
 		 * 
 		 * @param type			The image type of the thumbnail.
 		 * @return				Reference to this object.
@@ -1325,6 +1515,7 @@ Thumbnails.of(image)
 			updateStatus(Properties.RESIZER, Status.ALREADY_SET);
 			updateStatus(Properties.RESIZER_FACTORY, Status.CANNOT_SET);
 			updateStatus(Properties.SCALING_MODE, Status.CANNOT_SET);
+			updateStatus(Properties.GAMMA_CORRECTION, Status.CANNOT_SET);
 			this.resizerFactory = new FixedResizerFactory(resizer);
 			return this;
 		}
@@ -1356,6 +1547,7 @@ Thumbnails.of(image)
 			updateStatus(Properties.DITHERING, Status.CANNOT_SET);
 			updateStatus(Properties.ANTIALIASING, Status.CANNOT_SET);
 			updateStatus(Properties.RENDERING, Status.CANNOT_SET);
+			updateStatus(Properties.GAMMA_CORRECTION, Status.CANNOT_SET);
 			
 			this.resizerFactory = resizerFactory;
 			return this;
@@ -1453,6 +1645,38 @@ Thumbnails.of(image)
 			return this;
 		}
 		
+		/**
+		 * Sets whether images should be reduced in linear light when
+		 * performing the resizing operation to generate the thumbnail.
+		 * <p>
+		 * When enabled, reductions to less than half the size are performed by
+		 * the {@link LinearLightResizer}, which keeps fine, high-contrast
+		 * detail from being darkened. Other resizing operations are performed
+		 * by the {@link Resizer} for the scaling mode if one has been set,
+		 * or else by the {@link Resizer} which would otherwise be chosen.
+		 * <p>
+		 * Calling this method to set this parameter is optional.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * <p>
+		 * This method cannot be called in conjunction with the
+		 * {@link #resizer(Resizer)} or
+		 * {@link #resizerFactory(ResizerFactory)} methods.
+		 * 
+		 * @param config		The gamma correction mode.
+		 * @return				Reference to this object.
+		 * @since	0.4.21
+		 */
+		public Builder<T> gammaCorrection(GammaCorrection config) {
+			checkForNull(config, "Gamma correction is null.");
+			updateStatus(Properties.RESIZER, Status.CANNOT_SET);
+			updateStatus(Properties.RESIZER_FACTORY, Status.CANNOT_SET);
+			updateStatus(Properties.GAMMA_CORRECTION, Status.ALREADY_SET);
+			gammaCorrection = config;
+			return this;
+		}
+		
 		/**
 		 * Sets whether or not to keep the aspect ratio of the original image
 		 * for the thumbnail.
@@ -1703,6 +1927,326 @@ Thumbnails.of(image)
 			return this;
 		}
 		
+		/**
+		 * Sets how the data of {@link InputStream}s and {@link OutputStream}s
+		 * is cached while the source images are read and the thumbnails are
+		 * written.
+		 * <p>
+		 * By default, the data is cached as decided by the Image I/O API,
+		 * which uses temporary files when {@link ImageIO#getUseCache()} is
+		 * {@code true}. Specifying a {@link StreamCaching} overrides that
+		 * JVM-wide setting for the thumbnails created by this builder.
+		 * For example, {@link StreamCaching#memoryUpTo(int)} keeps small
+		 * images off the file system entirely.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param streamCaching		How streams should be cached.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> streamCaching(StreamCaching streamCaching) {
+			checkForNull(streamCaching, "StreamCaching cannot be null.");
+			
+			updateStatus(Properties.STREAM_CACHING, Status.ALREADY_SET);
+			this.streamCaching = streamCaching;
+			return this;
+		}
+		
+		/**
+		 * Sets the maximum number of bytes the thumbnail may take when it is
+		 * written to an external destination such as a file or output
+		 * stream.
+		 * <p>
+		 * The thumbnail is encoded in memory while the compression quality
+		 * is binary-searched for the highest quality at which it fits, and
+		 * only the chosen encoding is written. If an output quality has been
+		 * set by {@link #outputQuality(float)}, it is used as the highest
+		 * quality to consider. See {@link OutputSizeLimit} for details.
+		 * <p>
+		 * Calling this method in conjunction with {@link #asBufferedImage()}
+		 * or {@link #asBufferedImages()} will not result in any changes to the
+		 * final result.
+		 * <p>
+		 * Calling this method multiple times, or the
+		 * {@link #maxOutputBytes(long, OutputSizeLimit.Listener)} in
+		 * conjunction with this method will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param maxBytes		The maximum number of bytes of the thumbnail.
+		 * @return				Reference to this object.
+		 * @throws IllegalArgumentException	If the argument is not greater
+		 * 									than 0.
+		 * @since	0.4.21
+		 */
+		public Builder<T> maxOutputBytes(long maxBytes) {
+			return maxOutputBytes(maxBytes, null);
+		}
+		
+		/**
+		 * Sets the maximum number of bytes the thumbnail may take when it is
+		 * written to an external destination such as a file or output
+		 * stream, and a listener which is notified of the compression quality
+		 * chosen for each thumbnail.
+		 * <p>
+		 * Calling this method multiple times, or the
+		 * {@link #maxOutputBytes(long)} in conjunction with this method will
+		 * result in an {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param maxBytes		The maximum number of bytes of the thumbnail.
+		 * @param listener		The listener to notify of the chosen quality,
+		 * 						or {@code null} if none.
+		 * @return				Reference to this object.
+		 * @throws IllegalArgumentException	If the maximum number of bytes
+		 * 									is not greater than 0.
+		 * @see #maxOutputBytes(long)
+		 * @since	0.4.21
+		 */
+		public Builder<T> maxOutputBytes(long maxBytes, OutputSizeLimit.Listener listener) {
+			OutputSizeLimit limit = new OutputSizeLimit(
+					maxBytes, OutputSizeLimit.DEFAULT_TOLERANCE, listener
+			);
+			
+			updateStatus(Properties.MAX_OUTPUT_BYTES, Status.ALREADY_SET);
+			this.outputSizeLimit = limit;
+			return this;
+		}
+		
+		/**
+		 * Sets the options for encoding the thumbnail when it is written to
+		 * an external destination such as a file or output stream.
+		 * <p>
+		 * For example, to write progressive JPEGs with optimized Huffman
+		 * tables:
+		 * <pre>
+Thumbnails.of(image)
+    .size(200, 200)
+    .outputFormat("jpg")
+    .encoderOptions(EncoderOptions.DEFAULT.progressive(true).optimizeHuffmanTables(true))
+    .toFile(thumbnail);
+		 * </pre>
+		 * The {@link EncoderOptions} can also specify an
+		 * {@link ImageEncoder} to use in place of the Image I/O API.
+		 * <p>
+		 * Calling this method in conjunction with {@link #asBufferedImage()}
+		 * or {@link #asBufferedImages()} will not result in any changes to the
+		 * final result.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param encoderOptions	The options for encoding the thumbnail.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> encoderOptions(EncoderOptions encoderOptions) {
+			checkForNull(encoderOptions, "EncoderOptions cannot be null.");
+			
+			updateStatus(Properties.ENCODER_OPTIONS, Status.ALREADY_SET);
+			this.encoderOptions = encoderOptions;
+			return this;
+		}
+		
+		/**
+		 * Makes thumbnails of the frames of animated images, such as
+		 * animated GIFs, or of the pages of multi-page images, such as
+		 * multi-page TIFFs, rather than only of the first image.
+		 * <p>
+		 * For example, to make an animated avatar of at most 30 frames:
+		 * <pre>
+Thumbnails.of("avatar.gif")
+    .size(64, 64)
+    .frames(FrameOptions.ALL.sample(30))
+    .toFile("avatar-small.gif");
+		 * </pre>
+		 * The frames are resized concurrently by the {@link Resizer} in use,
+		 * and the thumbnails are written as an animated image when the
+		 * output format can hold a sequence of images, such as GIF and TIFF.
+		 * Otherwise, and when the thumbnails are returned as
+		 * {@link BufferedImage}s, only the first frame is kept.
+		 * <p>
+		 * Exif metadata is not used to orient the frames.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param frameOptions		The frames to make thumbnails of.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> frames(FrameOptions frameOptions) {
+			checkForNull(frameOptions, "FrameOptions cannot be null.");
+			
+			updateStatus(Properties.FRAMES, Status.ALREADY_SET);
+			this.frameOptions = frameOptions;
+			return this;
+		}
+		
+		/**
+		 * Selects which of the images stored in the source is used to make
+		 * the thumbnail, for formats which store several images, such as
+		 * multi-page TIFFs, pyramidal TIFFs and ICO files.
+		 * <p>
+		 * For example, to make a thumbnail of the third page of a scan, or
+		 * from the smallest stored resolution which is large enough:
+		 * <pre>
+Thumbnails.of("scan.tif")
+    .size(200, 200)
+    .selectImage(ImageSelector.index(2))
+    .toFile("page3.png");
+
+Thumbnails.of("pyramid.tif")
+    .size(200, 200)
+    .selectImage(ImageSelector.SMALLEST_COVERING)
+    .toFile("preview.png");
+		 * </pre>
+		 * Without calling this method, the first image is used. This method
+		 * has no effect when thumbnails of all frames are made by
+		 * {@link #frames(FrameOptions)}.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param imageSelector		Selects the image to use.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> selectImage(ImageSelector imageSelector) {
+			checkForNull(imageSelector, "ImageSelector cannot be null.");
+			
+			updateStatus(Properties.SELECT_IMAGE, Status.ALREADY_SET);
+			this.imageSelector = imageSelector;
+			return this;
+		}
+		
+		/**
+		 * Runs the decoding, resizing and encoding of the thumbnails on the
+		 * threads of the specified {@link Offloading}, while the calling
+		 * thread only reads the source images and writes the thumbnails.
+		 * <p>
+		 * This suits servers which make thumbnails on many lightweight
+		 * threads, such as virtual threads, where the number of thumbnails
+		 * being processed at once should be bounded by a pool of platform
+		 * threads shared by all requests:
+		 * <pre>
+static final Offloading OFFLOADING = Offloading.withThreads(4);
+
+Thumbnails.of(url)
+    .size(200, 200)
+    .outputFormat("jpg")
+    .offload(OFFLOADING)
+    .toOutputStream(response);
+		 * </pre>
+		 * Source images read from streams and URLs are read completely into
+		 * memory before they are decoded, and thumbnails written to streams
+		 * are encoded completely into memory before they are written, as
+		 * with {@link StreamCaching#BUFFERED}, regardless of the setting of
+		 * {@link #streamCaching(StreamCaching)}.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param offloading		Where to run the work.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> offload(Offloading offloading) {
+			checkForNull(offloading, "Offloading cannot be null.");
+			
+			updateStatus(Properties.OFFLOAD, Status.ALREADY_SET);
+			this.offloading = offloading;
+			return this;
+		}
+		
+		/**
+		 * Sets the options of the connections which retrieve source images
+		 * from URLs, such as timeouts, the largest size of a response, and
+		 * a cache of validators for conditional requests.
+		 * <p>
+		 * For example, to give up on servers which do not respond within
+		 * a few seconds, and to refuse images over 20MB:
+		 * <pre>
+Thumbnails.of(url)
+    .size(200, 200)
+    .connection(ConnectionOptions.DEFAULT
+        .connectTimeout(2000)
+        .readTimeout(5000)
+        .maxBodySize(20 * 1024 * 1024))
+    .toFile(thumbnail);
+		 * </pre>
+		 * This method has no effect on sources other than URLs.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param connectionOptions	The options of the connections.
+		 * @return					Reference to this object.
+		 * @throws NullPointerException	If the argument is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> connection(ConnectionOptions connectionOptions) {
+			checkForNull(connectionOptions, "ConnectionOptions cannot be null.");
+			
+			updateStatus(Properties.CONNECTION, Status.ALREADY_SET);
+			this.connectionOptions = connectionOptions;
+			return this;
+		}
+		
+		/**
+		 * Reduces source images which would take up more than the specified
+		 * number of bytes once decoded while they are decoded, so that
+		 * images larger than the heap can be made into thumbnails.
+		 * <p>
+		 * Such images are subsampled while they are decoded, as little as
+		 * needed to fit within the specified number of bytes, and then
+		 * resized by the {@link Resizer}. Only when even the smallest
+		 * subsampling which keeps the image larger than the thumbnail does
+		 * not fit, the image is decoded in strips which are reduced to the
+		 * size of the thumbnail as they are decoded.
+		 * <p>
+		 * This is not enabled by default, as subsampling discards pixels
+		 * rather than averaging them, which can cause aliasing, and as
+		 * formats such as PNG and JPEG are decoded from the start for each
+		 * strip.
+		 * <p>
+		 * For example, to make thumbnails of images which would otherwise
+		 * take up more than a quarter of the heap:
+		 * <pre>
+Thumbnails.of(scan)
+    .size(1000, 1000)
+    .streamLargeImages(Runtime.getRuntime().maxMemory() / 4)
+    .toFile(thumbnail);
+		 * </pre>
+		 * This method has no effect on sources other than files, streams,
+		 * byte buffers and URLs.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param maxDecodedBytes	The number of bytes a decoded source
+		 * 							image may take up before it is reduced
+		 * 							while it is decoded.
+		 * @return					Reference to this object.
+		 * @throws IllegalArgumentException	If the argument is not greater
+		 * 									than 0.
+		 * @since	0.4.21
+		 */
+		public Builder<T> streamLargeImages(long maxDecodedBytes) {
+			if (maxDecodedBytes <= 0) {
+				throw new IllegalArgumentException("Maximum decoded bytes must be greater than 0.");
+			}
+			
+			updateStatus(Properties.STREAM_LARGE_IMAGES, Status.ALREADY_SET);
+			this.streamingThreshold = maxDecodedBytes;
+			return this;
+		}
+		
 		/**
 		 * Indicates that the output format should be determined from the
 		 * available information when writing the thumbnail image.
@@ -2062,6 +2606,8 @@ watermark(Positions.CENTER, image, opacity);
 				return new BicubicResizer(hints);
 			} else if (mode == ScalingMode.PROGRESSIVE_BILINEAR) {
 				return new ProgressiveBilinearResizer(hints);
+			} else if (mode == ScalingMode.PROGRESSIVE_BOX) {
+				return new ProgressiveBoxResizer(hints);
 			} else {
 				return new ProgressiveBilinearResizer(hints);
 			}
@@ -2071,12 +2617,34 @@ watermark(Positions.CENTER, image, opacity);
 			/*
 			 * If the scalingMode has been set, then use scalingMode to obtain
 			 * a resizer, else, use the resizer field.
+			 * If gamma correction is enabled, reductions are performed in
+			 * linear light by wrapping the resizer.
 			 */
+			boolean isLinearLight = gammaCorrection == GammaCorrection.ENABLE;
+			
 			if (statusMap.get(Properties.SCALING_MODE) == Status.ALREADY_SET) {
-				this.resizerFactory = new FixedResizerFactory(makeResizer(scalingMode));
+				Resizer resizer = makeResizer(scalingMode);
+				if (isLinearLight) {
+					resizer = new LinearLightResizer(resizer);
+				}
+				this.resizerFactory = new FixedResizerFactory(resizer);
+				
+			} else if (isLinearLight) {
+				this.resizerFactory = new LinearLightResizerFactory();
 			}
 		}
 
+		/**
+		 * Returns a {@link FileImageSink} for the specified destination,
+		 * which writes as set up by this builder.
+		 * 
+		 * @param destinationFile	The destination file.
+		 * @return					A {@link FileImageSink}.
+		 */
+		private FileImageSink createFileImageSink(File destinationFile) {
+			return new FileImageSink(destinationFile, allowOverwrite, fileWriteMode, fileBufferSize);
+		}
+		
 		/**
 		 * Returns a {@link ThumbnailParameter} from the current builder state.
 		 * 
@@ -2091,14 +2659,6 @@ watermark(Positions.CENTER, image, opacity);
 				imageTypeToUse = ThumbnailParameter.ORIGINAL_IMAGE_TYPE;
 			}
 
-			/*
-			 * croppingPosition being non-null means that a crop should
-			 * take place.
-			 */
-			if (croppingPosition != null) {
-				filterPipeline.addFirst(new Canvas(width, height, croppingPosition));
-			}
-			
 			if (Double.isNaN(scaleWidth)) {
 				// If the dimensions were specified, do the following.
 				
@@ -2134,7 +2694,16 @@ watermark(Positions.CENTER, image, opacity);
 						filterPipeline.getFilters(),
 						resizerFactory,
 						fitWithinDimenions,
-						useExifOrientation
+						useExifOrientation,
+						streamCaching,
+						outputSizeLimit,
+						encoderOptions,
+						croppingPosition,
+						frameOptions,
+						imageSelector,
+						offloading,
+						connectionOptions,
+						streamingThreshold
 				);
 
 			} else {
@@ -2151,7 +2720,15 @@ watermark(Positions.CENTER, image, opacity);
 						filterPipeline.getFilters(),
 						resizerFactory,
 						fitWithinDimenions,
-						useExifOrientation
+						useExifOrientation,
+						streamCaching,
+						outputSizeLimit,
+						encoderOptions,
+						frameOptions,
+						imageSelector,
+						offloading,
+						connectionOptions,
+						streamingThreshold
 				);
 			}
 		}
@@ -2402,7 +2979,7 @@ watermark(Positions.CENTER, image, opacity);
 				
 				ThumbnailParameter param = makeParam();
 				
-				FileImageSink destination = new FileImageSink(filenameIter.next(), allowOverwrite);
+				FileImageSink destination = createFileImageSink(filenameIter.next());
 				
 				try {
 					Thumbnailator.createThumbnail(
@@ -2541,7 +3118,7 @@ watermark(Positions.CENTER, image, opacity);
 				File actualDestDir = destinationDir == null ? f.getParentFile() : destinationDir;
 				File destinationFile = new File(actualDestDir, rename.apply(f.getName(), param));
 				
-				FileImageSink destination = new FileImageSink(destinationFile, allowOverwrite);
+				FileImageSink destination = createFileImageSink(destinationFile);
 				
 				try {
 					Thumbnailator.createThumbnail(
@@ -2659,7 +3236,7 @@ watermark(Positions.CENTER, image, opacity);
 				throw new IllegalArgumentException("Cannot output multiple thumbnails to one file.");
 			}
 			
-			FileImageSink destination = new FileImageSink(outFile, allowOverwrite);
+			FileImageSink destination = createFileImageSink(outFile);
 			
 			Thumbnailator.createThumbnail(
 					new SourceSinkThumbnailTask<T, File>(makeParam(), source, destination)
@@ -2697,7 +3274,8 @@ watermark(Positions.CENTER, image, opacity);
 				throw new IllegalArgumentException("Cannot output multiple thumbnails to one file.");
 			}
 			
-			FileImageSink destination = new FileImageSink(outFilepath, allowOverwrite);
+			checkForNull(outFilepath, "File cannot be null.");
+			FileImageSink destination = createFileImageSink(new File(outFilepath));
 			
 			Thumbnailator.createThumbnail(
 					new SourceSinkThumbnailTask<T, File>(makeParam(), source, destination)
@@ -2810,5 +3388,256 @@ watermark(Positions.CENTER, image, opacity);
 				);
 			}
 		}
+		
+		/**
+		 * Create a thumbnail and returns it encoded in a {@link ByteBuffer}.
+		 * <p>
+		 * To call this method, the thumbnail must have been created from a
+		 * single source.
+		 * <p>
+		 * The thumbnail is encoded into a buffer which grows as needed, and
+		 * that buffer is returned without its content being copied again.
+		 * The returned buffer has a position of {@code 0} and a limit of the
+		 * size of the encoded thumbnail.
+		 * 
+		 * @return					The encoded thumbnail.
+		 * @throws IOException		If a problem occurs while reading the
+		 * 							original image or writing the thumbnail.
+		 * @throws IllegalArgumentException		If multiple original images
+		 * 										are specified.
+		 * @throws IllegalStateException		If the output format has not
+		 * 										been specified through the
+		 * 										{@link #outputFormat(String)}
+		 * 										method.
+		 * @since	0.4.21
+		 */
+		public ByteBuffer asByteBuffer() throws IOException {
+			checkReadiness();
+			
+			Iterator<ImageSource<T>> iter = sources.iterator();
+			ImageSource<T> source = iter.next();
+			
+			if (iter.hasNext()) {
+				throw new IllegalArgumentException("Cannot output multiple thumbnails to a single ByteBuffer.");
+			}
+			
+			/*
+			 * if the image is from a BufferedImage, then we require that the
+			 * output format be set. (or else, we can't tell what format to
+			 * output as!)
+			 */
+			if (source instanceof BufferedImageSource) {
+				if (isOutputFormatNotSet()) {
+					throw new IllegalStateException(
+							"Output format not specified."
+					);
+				}
+			}
+			
+			ByteBufferImageSink destination = new ByteBufferImageSink();
+			
+			Thumbnailator.createThumbnail(
+					new SourceSinkThumbnailTask<T, ByteBuffer>(makeParam(), source, destination)
+			);
+			
+			return destination.getSink();
+		}
+		
+		/**
+		 * Creates the thumbnails and lays them out in a grid on a single
+		 * image, a sprite sheet, with the specified number of columns.
+		 * <p>
+		 * Each cell of the grid has the size specified by the
+		 * {@link #size(int, int)} or {@link #forceSize(int, int)} method, and
+		 * thumbnails smaller than their cells are centered in them. The
+		 * regions of the thumbnails can be obtained from the returned
+		 * {@link SpriteSheet}, also as JSON or CSS.
+		 * <p>
+		 * The thumbnails are made in parallel, and are resized directly into
+		 * their cells of the sprite sheet, so that the memory used depends
+		 * on the size of the sprite sheet rather than the number of
+		 * thumbnails. Thumbnails which are cropped or have filters applied
+		 * are made separately, and then copied into their cells.
+		 * <p>
+		 * The sprite sheet has an alpha channel, unless another image type
+		 * has been specified by the {@link #imageType(int)} method.
+		 * 
+		 * @param columns			The number of columns of the grid.
+		 * @return					The sprite sheet.
+		 * @throws IOException		If a problem occurs while reading the
+		 * 							original images.
+		 * @throws IllegalArgumentException		If the number of columns is
+		 * 										not greater than zero.
+		 * @throws IllegalStateException		If the width and height of
+		 * 										the thumbnails have not both
+		 * 										been specified.
+		 * @since	0.4.21
+		 */
+		public SpriteSheet asSpriteSheet(int columns) throws IOException {
+			checkReadiness();
+			
+			if (columns <= 0) {
+				throw new IllegalArgumentException("Number of columns must be greater than zero.");
+			}
+			if (!Double.isNaN(scaleWidth)
+					|| width == DIMENSION_NOT_SPECIFIED || width == Integer.MAX_VALUE
+					|| height == DIMENSION_NOT_SPECIFIED || height == Integer.MAX_VALUE) {
+				throw new IllegalStateException(
+						"The width and height of the thumbnails must be specified."
+				);
+			}
+			
+			List<ImageSource<T>> sourceList = new ArrayList<ImageSource<T>>();
+			for (ImageSource<T> source : sources) {
+				sourceList.add(source);
+			}
+			
+			int count = sourceList.size();
+			int gridColumns = Math.min(columns, count);
+			int gridRows = (count + gridColumns - 1) / gridColumns;
+			int type = imageType > 0 ? imageType : BufferedImage.TYPE_INT_ARGB;
+			
+			final BufferedImage sheet = new BufferedImage(gridColumns * width, gridRows * height, type);
+			
+			List<Future<Rectangle>> futures = new ArrayList<Future<Rectangle>>();
+			ExecutorService executor = Executors.newFixedThreadPool(
+					Math.min(count, Runtime.getRuntime().availableProcessors())
+			);
+			try {
+				for (int i = 0; i < count; i++) {
+					final ImageSource<T> source = sourceList.get(i);
+					final ThumbnailParameter param = makeParam();
+					final Rectangle cell = new Rectangle(
+							(i % gridColumns) * width, (i / gridColumns) * height, width, height
+					);
+					
+					futures.add(executor.submit(new Callable<Rectangle>() {
+						public Rectangle call() throws IOException {
+							return drawThumbnail(source, param, sheet, cell);
+						}
+					}));
+				}
+				
+				List<Rectangle> regions = new ArrayList<Rectangle>();
+				for (Future<Rectangle> future : futures) {
+					regions.add(Futures.getResult(future, "Interrupted while making thumbnails."));
+				}
+				return new SpriteSheet(sheet, regions);
+				
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		
+		/**
+		 * Creates a sprite sheet as described by {@link #asSpriteSheet(int)},
+		 * and writes its image to a {@link File}.
+		 * <p>
+		 * If the output format has not been specified, it is determined from
+		 * the extension of the file.
+		 * 
+		 * @param outFile			The file to which the sprite sheet is to
+		 * 							be written to.
+		 * @param columns			The number of columns of the grid.
+		 * @return					The sprite sheet.
+		 * @throws IOException		If a problem occurs while reading the
+		 * 							original images or writing the sprite
+		 * 							sheet.
+		 * @throws IllegalArgumentException		If the number of columns is
+		 * 										not greater than zero, or if
+		 * 										the destination file exists,
+		 * 										and overwriting files is
+		 * 										disabled.
+		 * @throws IllegalStateException		If the width and height of
+		 * 										the thumbnails have not both
+		 * 										been specified.
+		 * @since	0.4.21
+		 */
+		public SpriteSheet toSpriteSheet(File outFile, int columns) throws IOException {
+			SpriteSheet spriteSheet = asSpriteSheet(columns);
+			
+			FileImageSink destination = createFileImageSink(outFile);
+			destination.setThumbnailParameter(makeParam());
+			
+			String formatName = outputFormat;
+			if (formatName == ThumbnailParameter.ORIGINAL_FORMAT
+					|| ThumbnailParameter.DETERMINE_FORMAT.equals(formatName)) {
+				formatName = destination.preferredOutputFormatName();
+			}
+			destination.setOutputFormatName(formatName);
+			destination.write(spriteSheet.getImage());
+			
+			return spriteSheet;
+		}
+		
+		/**
+		 * Makes the thumbnail of an image in its cell of a sprite sheet.
+		 * 
+		 * @param source		The source of the image.
+		 * @param param			The parameters of the thumbnail.
+		 * @param sheet			The image of the sprite sheet.
+		 * @param cell			The cell of the thumbnail.
+		 * @return				The region of the thumbnail.
+		 * @throws IOException	If a problem occurs while reading the image.
+		 */
+		private Rectangle drawThumbnail(
+				ImageSource<T> source,
+				ThumbnailParameter param,
+				BufferedImage sheet,
+				Rectangle cell
+		) throws IOException {
+			if (param.getImageFilters().isEmpty() && param.getCroppingPosition() == null) {
+				source.setThumbnailParameter(param);
+				BufferedImage img = source.read();
+				
+				// Orient the image, if the source added a filter to do so.
+				for (ImageFilter filter : param.getImageFilters()) {
+					img = filter.apply(img);
+				}
+				
+				Dimension size = FixedSizeThumbnailMaker.calculateSize(
+						img.getWidth(),
+						img.getHeight(),
+						cell.width,
+						cell.height,
+						param.isKeepAspectRatio(),
+						param.fitWithinDimenions()
+				);
+				Rectangle region = centerInCell(cell, size.width, size.height);
+				
+				Resizer resizer = param.getResizerFactory().getResizer(
+						new Dimension(img.getWidth(), img.getHeight()), size
+				);
+				resizer.resize(
+						img,
+						sheet.getSubimage(region.x, region.y, region.width, region.height)
+				);
+				return region;
+			}
+			
+			BufferedImageSink destination = new BufferedImageSink();
+			Thumbnailator.createThumbnail(
+					new SourceSinkThumbnailTask<T, BufferedImage>(param, source, destination)
+			);
+			BufferedImage thumbnail = destination.getSink();
+			
+			Rectangle region = centerInCell(cell, thumbnail.getWidth(), thumbnail.getHeight());
+			Graphics2D g = sheet.getSubimage(cell.x, cell.y, cell.width, cell.height).createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(thumbnail, region.x - cell.x, region.y - cell.y, null);
+			g.dispose();
+			
+			return region;
+		}
+		
+		/**
+		 * Returns the region of an image of the specified size centered in
+		 * a cell, limited to the cell.
+		 */
+		private static Rectangle centerInCell(Rectangle cell, int width, int height) {
+			int x = cell.x + (cell.width - width) / 2;
+			int y = cell.y + (cell.height - height) / 2;
+			return cell.intersection(new Rectangle(x, y, width, height));
+		}
 	}
 }
@@ -33,9 +33,17 @@ import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.FixedResizerFactory;
+import net.coobird.thumbnailator.geometry.Position;
 import net.coobird.thumbnailator.geometry.Region;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
+import net.coobird.thumbnailator.tasks.io.ConnectionOptions;
+import net.coobird.thumbnailator.tasks.io.EncoderOptions;
+import net.coobird.thumbnailator.tasks.io.FrameOptions;
+import net.coobird.thumbnailator.tasks.io.ImageSelector;
+import net.coobird.thumbnailator.tasks.io.Offloading;
+import net.coobird.thumbnailator.tasks.io.OutputSizeLimit;
+import net.coobird.thumbnailator.tasks.io.StreamCaching;
 
 /**
  * <p>
@@ -76,6 +84,10 @@ import net.coobird.thumbnailator.resizers.ResizerFactory;
  * <dd>The default {@link Resizer} returned by the {@link ResizerFactory}.</dd>
  * <dt>use of Exif metadata for orientation</dt>
  * <dd>Use the Exif metadata to determine the orientation of the thumbnail.</dd>
+ * <dt>stream caching</dt>
+ * <dd>{@link StreamCaching#DEFAULT} is used.</dd>
+ * <dt>cropping</dt>
+ * <dd>The thumbnail is not cropped.</dd>
  * </dl>
  * 
  * @author coobird
@@ -98,6 +110,15 @@ public final class ThumbnailParameterBuilder {
 	private Region sourceRegion = null;
 	private boolean fitWithinDimensions = true;
 	private boolean useExifOrientation = true;
+	private StreamCaching streamCaching = StreamCaching.DEFAULT;
+	private OutputSizeLimit outputSizeLimit = null;
+	private EncoderOptions encoderOptions = EncoderOptions.DEFAULT;
+	private Position croppingPosition = null;
+	private FrameOptions frameOptions = null;
+	private ImageSelector imageSelector = null;
+	private Offloading offloading = null;
+	private ConnectionOptions connectionOptions = null;
+	private long streamingThreshold = ThumbnailParameter.NO_STREAMING;
 	
 	/**
 	 * Creates an instance of a {@link ThumbnailParameterBuilder}.
@@ -346,6 +367,132 @@ public final class ThumbnailParameterBuilder {
 		this.useExifOrientation = use;
 		return this;
 	}
+	
+	/**
+	 * Sets how streams are cached while reading the source image and
+	 * writing the thumbnail.
+	 * 
+	 * @param streamCaching		The {@link StreamCaching} to use.
+	 * @return					A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder streamCaching(StreamCaching streamCaching) {
+		this.streamCaching = streamCaching;
+		return this;
+	}
+	
+	/**
+	 * Sets the limit on the size of the written thumbnail.
+	 * 
+	 * @param outputSizeLimit	The {@link OutputSizeLimit} to use, or
+	 * 							{@code null} if the size should not be
+	 * 							limited.
+	 * @return					A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder outputSizeLimit(OutputSizeLimit outputSizeLimit) {
+		this.outputSizeLimit = outputSizeLimit;
+		return this;
+	}
+	
+	/**
+	 * Sets the options for encoding the thumbnail.
+	 * 
+	 * @param encoderOptions	The {@link EncoderOptions} to use.
+	 * @return					A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder encoderOptions(EncoderOptions encoderOptions) {
+		this.encoderOptions = encoderOptions;
+		return this;
+	}
+	
+	/**
+	 * Sets the position of the region which remains when the thumbnail is
+	 * cropped to its size.
+	 * <p>
+	 * Cropping only takes place when the size of the thumbnail is set, and
+	 * {@link #fitWithinDimensions(boolean)} is set to {@code false}.
+	 * 
+	 * @param position	The cropping position, or {@code null} if the
+	 * 					thumbnail should not be cropped.
+	 * @return			A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder crop(Position position) {
+		this.croppingPosition = position;
+		return this;
+	}
+	
+	/**
+	 * Sets the frames of animated or multi-page images to make thumbnails
+	 * of.
+	 * 
+	 * @param frameOptions	The {@link FrameOptions} to use, or {@code null}
+	 * 						if only the first image should be used.
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder frames(FrameOptions frameOptions) {
+		this.frameOptions = frameOptions;
+		return this;
+	}
+	
+	/**
+	 * Sets which of the images stored in the source is used to make the
+	 * thumbnail.
+	 * 
+	 * @param imageSelector	The {@link ImageSelector} to use, or
+	 * 						{@code null} if the first image should be used.
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder selectImage(ImageSelector imageSelector) {
+		this.imageSelector = imageSelector;
+		return this;
+	}
+	
+	/**
+	 * Sets where the decoding, resizing and encoding of the thumbnail are
+	 * run.
+	 * 
+	 * @param offloading	The {@link Offloading} to use, or {@code null}
+	 * 						if the work should be run on the calling thread.
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder offload(Offloading offloading) {
+		this.offloading = offloading;
+		return this;
+	}
+	
+	/**
+	 * Sets the options of connections to URLs of source images.
+	 * 
+	 * @param connectionOptions	The {@link ConnectionOptions} to use, or
+	 * 							{@code null} for the default options.
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder connection(ConnectionOptions connectionOptions) {
+		this.connectionOptions = connectionOptions;
+		return this;
+	}
+	
+	/**
+	 * Sets the number of bytes a decoded source image may take up before
+	 * it is subsampled, or decoded in strips, rather than decoded at once.
+	 * 
+	 * @param streamingThreshold	The number of bytes, or
+	 * 							{@link ThumbnailParameter#NO_STREAMING} to
+	 * 							always decode source images at once.
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 */
+	public ThumbnailParameterBuilder streamingThreshold(long streamingThreshold) {
+		this.streamingThreshold = streamingThreshold;
+		return this;
+	}
 
 	/**
 	 * Returns a {@link ThumbnailParameter} from the parameters which are
@@ -374,7 +521,15 @@ public final class ThumbnailParameterBuilder {
 					filters,
 					resizerFactory,
 					fitWithinDimensions,
-					useExifOrientation
+					useExifOrientation,
+					streamCaching,
+					outputSizeLimit,
+					encoderOptions,
+					frameOptions,
+					imageSelector,
+					offloading,
+					connectionOptions,
+					streamingThreshold
 			);
 
 		} else if (width != UNINITIALIZED && height != UNINITIALIZED) {
@@ -389,7 +544,16 @@ public final class ThumbnailParameterBuilder {
 					filters,
 					resizerFactory,
 					fitWithinDimensions,
-					useExifOrientation
+					useExifOrientation,
+					streamCaching,
+					outputSizeLimit,
+					encoderOptions,
+					croppingPosition,
+					frameOptions,
+					imageSelector,
+					offloading,
+					connectionOptions,
+					streamingThreshold
 			);
 		} else {
 			throw new IllegalStateException(
@@ -28,9 +28,10 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 
-import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.geometry.Position;
+import net.coobird.thumbnailator.util.BufferedImages;
 
 /**
  * An {@link ImageFilter} which will enclose an image into a specified
@@ -150,6 +151,18 @@ public class Canvas implements ImageFilter {
 		this.fillColor = fillColor;
 	}
 
+	/**
+	 * Returns the color which fills the portions of the filtered image
+	 * which are not covered by the enclosed image.
+	 * 
+	 * @return		The fill color, or {@code null} if no fill color is
+	 * 				specified.
+	 * @since	0.4.21
+	 */
+	public Color getFillColor() {
+		return fillColor;
+	}
+
 	public BufferedImage apply(BufferedImage img) {
 		int widthToUse = width;
 		int heightToUse = height;
@@ -172,11 +185,11 @@ public class Canvas implements ImageFilter {
 				0, 0, 0, 0
 		);
 		
-		BufferedImage finalImage = new BufferedImageBuilder(
-				widthToUse,
-				heightToUse,
-				img.getType()
-		).build();
+		// Indexed images are mapped back to their palette afterwards.
+		boolean indexed = img.getColorModel() instanceof IndexColorModel;
+		BufferedImage finalImage = indexed
+				? new BufferedImage(widthToUse, heightToUse, BufferedImage.TYPE_INT_ARGB)
+				: BufferedImages.createCompatible(img, widthToUse, heightToUse);
 		
 		Graphics g = finalImage.getGraphics();
 		
@@ -196,6 +209,9 @@ public class Canvas implements ImageFilter {
 		g.drawImage(img, p.x, p.y, null);
 		g.dispose();
 		
+		if (indexed) {
+			return BufferedImages.copyCompatible(finalImage, img);
+		}
 		return finalImage;
 	}
 }
@@ -0,0 +1,632 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.filters;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+import net.coobird.thumbnailator.resizers.configurations.Dithering;
+
+/**
+ * An image filter which reduces an image to an adaptive palette, resulting
+ * in an image of type {@link BufferedImage#TYPE_BYTE_INDEXED}.
+ * <p>
+ * Images which have no more colors than the palette size are converted
+ * without loss. Otherwise, the palette is chosen by median cut on a
+ * histogram of the colors reduced to 5 bits per color component, and 3 bits
+ * of alpha for images with translucent pixels. Fully transparent pixels
+ * share a single transparent palette entry.
+ * <p>
+ * The {@link Dithering} setting decides whether Floyd-Steinberg error
+ * diffusion is used when mapping colors to the palette:
+ * {@link Dithering#ENABLE} enables it, while {@link Dithering#DISABLE} and
+ * {@link Dithering#DEFAULT} map each pixel to its palette entry without
+ * dithering, which keeps flat areas of icons and illustrations clean and
+ * compressible.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ColorQuantizer implements ImageFilter {
+	/**
+	 * The number of bits per color component in the histogram.
+	 */
+	private static final int COLOR_BITS = 5;
+	
+	/**
+	 * The number of bits of alpha in the histogram of translucent images.
+	 */
+	private static final int ALPHA_BITS = 3;
+	
+	/**
+	 * The maximum number of colors of the palette.
+	 */
+	private final int maxColors;
+	
+	/**
+	 * Whether to dither.
+	 */
+	private final boolean dither;
+	
+	/**
+	 * Instantiates a {@link ColorQuantizer} which does not dither.
+	 * 
+	 * @param maxColors		The maximum number of colors of the palette,
+	 * 						from {@code 2} to {@code 256}.
+	 * @throws IllegalArgumentException	If the number of colors is out of
+	 * 									range.
+	 */
+	public ColorQuantizer(int maxColors) {
+		this(maxColors, Dithering.DEFAULT);
+	}
+	
+	/**
+	 * Instantiates a {@link ColorQuantizer}.
+	 * 
+	 * @param maxColors		The maximum number of colors of the palette,
+	 * 						from {@code 2} to {@code 256}.
+	 * @param dithering		Whether to dither when mapping colors to the
+	 * 						palette.
+	 * @throws IllegalArgumentException	If the number of colors is out of
+	 * 									range.
+	 * @throws NullPointerException		If the dithering setting is
+	 * 									{@code null}.
+	 */
+	public ColorQuantizer(int maxColors, Dithering dithering) {
+		if (maxColors < 2 || maxColors > 256) {
+			throw new IllegalArgumentException("The number of colors must be between 2 and 256.");
+		}
+		if (dithering == null) {
+			throw new NullPointerException("Dithering cannot be null.");
+		}
+		
+		this.maxColors = maxColors;
+		this.dither = dithering == Dithering.ENABLE;
+	}
+	
+	public BufferedImage apply(BufferedImage img) {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		boolean hasAlpha = img.getColorModel().hasAlpha();
+		
+		int[] pixels = readPixels(img);
+		
+		/*
+		 * Fully transparent pixels are all treated the same, and alpha is
+		 * only taken into account when there are translucent pixels.
+		 */
+		boolean translucent = false;
+		if (hasAlpha) {
+			for (int i = 0; i < pixels.length; i++) {
+				int alpha = pixels[i] >>> 24;
+				if (alpha == 0) {
+					pixels[i] = 0;
+				} else if (alpha != 0xff) {
+					translucent = true;
+				}
+			}
+		} else {
+			for (int i = 0; i < pixels.length; i++) {
+				pixels[i] |= 0xff000000;
+			}
+		}
+		
+		BufferedImage result = quantizeExactly(pixels, width, height);
+		if (result == null) {
+			result = quantizeByMedianCut(pixels, width, height, translucent);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the pixels of the image as ARGB values, copying the pixel data
+	 * directly for images which already store pixels that way.
+	 */
+	private static int[] readPixels(BufferedImage img) {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int type = img.getType();
+		Raster raster = img.getRaster();
+		
+		if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+				&& raster.getDataBuffer() instanceof DataBufferInt
+				&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& ((SinglePixelPackedSampleModel)raster.getSampleModel()).getScanlineStride() == width
+				&& raster.getSampleModelTranslateX() == 0
+				&& raster.getSampleModelTranslateY() == 0) {
+			DataBufferInt buffer = (DataBufferInt)raster.getDataBuffer();
+			if (buffer.getOffset() == 0 && buffer.getSize() >= width * height) {
+				return Arrays.copyOf(buffer.getData(), width * height);
+			}
+		}
+		
+		return img.getRGB(0, 0, width, height, null, 0, width);
+	}
+	
+	/**
+	 * Converts the image without loss if it has no more colors than the
+	 * palette size.
+	 * 
+	 * @return		The converted image, or {@code null} if there are too
+	 * 				many colors.
+	 */
+	private BufferedImage quantizeExactly(int[] pixels, int width, int height) {
+		int capacity = 512;
+		int[] keys = new int[capacity];
+		int[] indices = new int[capacity];
+		Arrays.fill(indices, -1);
+		int[] palette = new int[maxColors];
+		int size = 0;
+		
+		byte[] data = new byte[pixels.length];
+		for (int i = 0; i < pixels.length; i++) {
+			int color = pixels[i];
+			int slot = (color * 0x9e3779b1) >>> 23;
+			while (indices[slot] != -1 && keys[slot] != color) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			if (indices[slot] == -1) {
+				if (size == maxColors) {
+					return null;
+				}
+				keys[slot] = color;
+				indices[slot] = size;
+				palette[size++] = color;
+			}
+			data[i] = (byte)indices[slot];
+		}
+		
+		return createImage(width, height, Arrays.copyOf(palette, size), data);
+	}
+	
+	/**
+	 * Quantizes the image by median cut.
+	 */
+	private BufferedImage quantizeByMedianCut(int[] pixels, int width, int height, boolean hasAlpha) {
+		int bits = 3 * COLOR_BITS + (hasAlpha ? ALPHA_BITS : 0);
+		int[] counts = new int[1 << bits];
+		boolean hasTransparent = false;
+		
+		for (int color : pixels) {
+			if (color == 0) {
+				hasTransparent = true;
+			} else {
+				counts[bin(color, hasAlpha)]++;
+			}
+		}
+		
+		int used = 0;
+		for (int count : counts) {
+			if (count != 0) {
+				used++;
+			}
+		}
+		int[] bins = new int[used];
+		for (int b = 0, i = 0; b < counts.length; b++) {
+			if (counts[b] != 0) {
+				bins[i++] = b;
+			}
+		}
+		
+		int offset = hasTransparent ? 1 : 0;
+		int[] boxStart = new int[maxColors - offset];
+		int[] boxEnd = new int[maxColors - offset];
+		int boxes = split(bins, counts, boxStart, boxEnd, hasAlpha);
+		
+		/*
+		 * Every bin of the histogram is mapped to a palette entry, lazily
+		 * for bins without pixels, which are only looked up when dithering.
+		 */
+		int[] lut = counts;
+		Arrays.fill(lut, -1);
+		for (int box = 0; box < boxes; box++) {
+			for (int i = boxStart[box]; i < boxEnd[box]; i++) {
+				lut[bins[i]] = box + offset;
+			}
+		}
+		
+		// The palette entries are the mean colors of their pixels.
+		int entries = boxes + offset;
+		long[] sums = new long[entries * 4];
+		int[] populations = new int[entries];
+		byte[] data = new byte[pixels.length];
+		for (int i = 0; i < pixels.length; i++) {
+			int color = pixels[i];
+			int index = color == 0 ? 0 : lut[bin(color, hasAlpha)];
+			data[i] = (byte)index;
+			populations[index]++;
+			sums[index * 4] += color >>> 24;
+			sums[index * 4 + 1] += (color >> 16) & 0xff;
+			sums[index * 4 + 2] += (color >> 8) & 0xff;
+			sums[index * 4 + 3] += color & 0xff;
+		}
+		int[] palette = new int[entries];
+		for (int i = offset; i < entries; i++) {
+			long n = populations[i];
+			int a = (int)((sums[i * 4] + n / 2) / n);
+			int r = (int)((sums[i * 4 + 1] + n / 2) / n);
+			int g = (int)((sums[i * 4 + 2] + n / 2) / n);
+			int b = (int)((sums[i * 4 + 3] + n / 2) / n);
+			palette[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+		
+		if (dither) {
+			mapWithDithering(pixels, width, height, hasAlpha, palette, lut, offset, data);
+		}
+		
+		return createImage(width, height, palette, data);
+	}
+	
+	/**
+	 * Splits the bins into at most the specified number of boxes, each time
+	 * splitting the box with the largest product of its population and the
+	 * length of its longest side, along that side at the median of the
+	 * population. The bins are reordered so that each box is a range of the
+	 * array, which is stored in the specified start and end arrays.
+	 * 
+	 * @return		The number of boxes.
+	 */
+	private static int split(int[] bins, int[] counts, int[] start, int[] end, boolean hasAlpha) {
+		int maxBoxes = start.length;
+		int channels = hasAlpha ? 4 : 3;
+		int[] sorted = new int[bins.length];
+		
+		// The score and the longest channel of each box, kept across splits.
+		long[] scores = new long[maxBoxes];
+		int[] longest = new int[maxBoxes];
+		
+		int boxes = 1;
+		start[0] = 0;
+		end[0] = bins.length;
+		measure(bins, counts, start, end, 0, channels, scores, longest);
+		
+		while (boxes < maxBoxes) {
+			int candidate = -1;
+			long candidateScore = 0;
+			for (int box = 0; box < boxes; box++) {
+				if (scores[box] > candidateScore) {
+					candidateScore = scores[box];
+					candidate = box;
+				}
+			}
+			
+			if (candidate == -1) {
+				break;
+			}
+			
+			int from = start[candidate];
+			int to = end[candidate];
+			sortByChannel(bins, sorted, from, to, longest[candidate]);
+			
+			long total = 0;
+			for (int i = from; i < to; i++) {
+				total += counts[bins[i]];
+			}
+			long half = 0;
+			int median = from + 1;
+			for (int i = from; i < to - 1; i++) {
+				half += counts[bins[i]];
+				median = i + 1;
+				if (half * 2 >= total) {
+					break;
+				}
+			}
+			
+			end[candidate] = median;
+			start[boxes] = median;
+			end[boxes] = to;
+			measure(bins, counts, start, end, candidate, channels, scores, longest);
+			measure(bins, counts, start, end, boxes, channels, scores, longest);
+			boxes++;
+		}
+		
+		return boxes;
+	}
+	
+	/**
+	 * Computes the score and the longest channel of a box. Boxes which
+	 * cannot be split have a score of {@code 0}.
+	 */
+	private static void measure(
+			int[] bins,
+			int[] counts,
+			int[] start,
+			int[] end,
+			int box,
+			int channels,
+			long[] scores,
+			int[] longest
+	) {
+		int[] min = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+		int[] max = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+		long population = 0;
+		
+		for (int i = start[box]; i < end[box]; i++) {
+			int bin = bins[i];
+			population += counts[bin];
+			for (int c = 0; c < channels; c++) {
+				int value = channel(bin, c);
+				if (value < min[c]) {
+					min[c] = value;
+				}
+				if (value > max[c]) {
+					max[c] = value;
+				}
+			}
+		}
+		
+		int longestChannel = 0;
+		int longestLength = 0;
+		for (int c = 0; c < channels; c++) {
+			if (max[c] - min[c] > longestLength) {
+				longestLength = max[c] - min[c];
+				longestChannel = c;
+			}
+		}
+		
+		scores[box] = end[box] - start[box] < 2 ? 0 : population * longestLength;
+		longest[box] = longestChannel;
+	}
+	
+	/**
+	 * Sorts a range of the bins by the value of a channel, with a counting
+	 * sort as the values have few levels.
+	 */
+	private static void sortByChannel(int[] bins, int[] scratch, int from, int to, int channel) {
+		int[] offsets = new int[(1 << COLOR_BITS) + 1];
+		for (int i = from; i < to; i++) {
+			offsets[channel(bins[i], channel) + 1]++;
+		}
+		for (int v = 1; v < offsets.length; v++) {
+			offsets[v] += offsets[v - 1];
+		}
+		for (int i = from; i < to; i++) {
+			scratch[from + offsets[channel(bins[i], channel)]++] = bins[i];
+		}
+		System.arraycopy(scratch, from, bins, from, to - from);
+	}
+	
+	/**
+	 * Maps the pixels to the palette with Floyd-Steinberg error diffusion of
+	 * the color components. Alpha is not diffused.
+	 * <p>
+	 * Diffused errors move many pixels into bins without pixels of their
+	 * own, whose nearest palette entries are found by a {@link Palette}
+	 * search and kept in the lookup table. The entry of the pixel before
+	 * the error was added is a close first guess, which keeps the search
+	 * short.
+	 */
+	private static void mapWithDithering(
+			int[] pixels,
+			int width,
+			int height,
+			boolean hasAlpha,
+			int[] palette,
+			int[] lut,
+			int offset,
+			byte[] data
+	) {
+		// Errors of the current and next rows, with a pixel of margin.
+		int[] current = new int[(width + 2) * 3];
+		int[] next = new int[(width + 2) * 3];
+		Palette search = new Palette(palette, offset);
+		
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int i = y * width + x;
+				int color = pixels[i];
+				
+				if (color == 0) {
+					data[i] = 0;
+					continue;
+				}
+				
+				int e = (x + 1) * 3;
+				int r = clamp(((color >> 16) & 0xff) + current[e] / 16);
+				int g = clamp(((color >> 8) & 0xff) + current[e + 1] / 16);
+				int b = clamp((color & 0xff) + current[e + 2] / 16);
+				int adjusted = (color & 0xff000000) | (r << 16) | (g << 8) | b;
+				
+				int bin = bin(adjusted, hasAlpha);
+				int index = lut[bin];
+				if (index == -1) {
+					index = search.nearest(adjusted, lut[bin(color, hasAlpha)]);
+					lut[bin] = index;
+				}
+				data[i] = (byte)index;
+				
+				int chosen = palette[index];
+				diffuse(current, next, e, r - ((chosen >> 16) & 0xff), 0);
+				diffuse(current, next, e, g - ((chosen >> 8) & 0xff), 1);
+				diffuse(current, next, e, b - (chosen & 0xff), 2);
+			}
+			
+			int[] swap = current;
+			current = next;
+			next = swap;
+			Arrays.fill(next, 0);
+		}
+	}
+	
+	private static void diffuse(int[] current, int[] next, int e, int error, int c) {
+		current[e + 3 + c] += error * 7;
+		next[e - 3 + c] += error * 3;
+		next[e + c] += error * 5;
+		next[e + 3 + c] += error;
+	}
+	
+	/**
+	 * Finds the nearest palette entry to a color. The entries are sorted
+	 * by green, and the search moves outwards from the green of the color,
+	 * stopping in each direction once the difference in green alone is
+	 * larger than the distance to the nearest entry found so far.
+	 * Starting from a close guess lets the search stop early.
+	 */
+	private static final class Palette {
+		private final int[] colors;
+		private final int[] indices;
+		private final int[] greens;
+		private final int[] positions;
+		
+		private Palette(int[] palette, int offset) {
+			int size = palette.length - offset;
+			int[] order = new int[size];
+			int[] counts = new int[257];
+			for (int i = offset; i < palette.length; i++) {
+				counts[((palette[i] >> 8) & 0xff) + 1]++;
+			}
+			for (int v = 1; v < counts.length; v++) {
+				counts[v] += counts[v - 1];
+			}
+			for (int i = offset; i < palette.length; i++) {
+				order[counts[(palette[i] >> 8) & 0xff]++] = i;
+			}
+			
+			colors = new int[size];
+			indices = order;
+			greens = new int[size];
+			positions = new int[palette.length];
+			for (int i = 0; i < size; i++) {
+				positions[order[i]] = i;
+				colors[i] = palette[order[i]];
+				greens[i] = (colors[i] >> 8) & 0xff;
+			}
+		}
+		
+		private int nearest(int color, int guess) {
+			int a = color >>> 24;
+			int r = (color >> 16) & 0xff;
+			int g = (color >> 8) & 0xff;
+			int b = color & 0xff;
+			
+			int low = 0;
+			int high = greens.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (greens[mid] < g) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			
+			int best = positions[guess];
+			int bestDistance = distance(colors[best], a, r, b, g - greens[best]);
+			int up = low;
+			int down = low - 1;
+			while (up < greens.length || down >= 0) {
+				if (up < greens.length) {
+					int dg = greens[up] - g;
+					if (dg * dg >= bestDistance) {
+						up = greens.length;
+					} else {
+						int distance = distance(colors[up], a, r, b, dg);
+						if (distance < bestDistance) {
+							bestDistance = distance;
+							best = up;
+						}
+						up++;
+					}
+				}
+				if (down >= 0) {
+					int dg = g - greens[down];
+					if (dg * dg >= bestDistance) {
+						down = -1;
+					} else {
+						int distance = distance(colors[down], a, r, b, dg);
+						if (distance < bestDistance) {
+							bestDistance = distance;
+							best = down;
+						}
+						down--;
+					}
+				}
+			}
+			return indices[best];
+		}
+		
+		private static int distance(int p, int a, int r, int b, int dg) {
+			int dr = r - ((p >> 16) & 0xff);
+			int db = b - (p & 0xff);
+			int da = a - (p >>> 24);
+			return dg * dg + dr * dr + db * db + da * da;
+		}
+	}
+	
+	private static int clamp(int value) {
+		return value < 0 ? 0 : (value > 255 ? 255 : value);
+	}
+	
+	/**
+	 * Returns the histogram bin of a color, where alpha is in the most
+	 * significant bits above red, green and blue.
+	 */
+	private static int bin(int color, boolean hasAlpha) {
+		int r = (color >> (16 + 8 - COLOR_BITS)) & 0x1f;
+		int g = (color >> (8 + 8 - COLOR_BITS)) & 0x1f;
+		int b = (color >> (8 - COLOR_BITS)) & 0x1f;
+		int bin = (r << (2 * COLOR_BITS)) | (g << COLOR_BITS) | b;
+		if (hasAlpha) {
+			bin |= (color >>> (32 - ALPHA_BITS)) << (3 * COLOR_BITS);
+		}
+		return bin;
+	}
+	
+	/**
+	 * Returns the value of a channel of a bin, where channel {@code 0} to
+	 * {@code 2} are red, green and blue, and channel {@code 3} is alpha.
+	 */
+	private static int channel(int bin, int channel) {
+		if (channel == 3) {
+			return bin >>> (3 * COLOR_BITS);
+		}
+		return (bin >> ((2 - channel) * COLOR_BITS)) & 0x1f;
+	}
+	
+	private static BufferedImage createImage(int width, int height, int[] palette, byte[] data) {
+		// An IndexColorModel needs at least one entry.
+		int size = Math.max(palette.length, 1);
+		int[] colors = Arrays.copyOf(palette, size);
+		
+		boolean hasAlpha = false;
+		for (int color : colors) {
+			hasAlpha |= (color >>> 24) != 0xff;
+		}
+		
+		IndexColorModel cm = new IndexColorModel(8, size, colors, 0, hasAlpha, -1, DataBuffer.TYPE_BYTE);
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, cm);
+		byte[] target = ((DataBufferByte)img.getRaster().getDataBuffer()).getData();
+		System.arraycopy(data, 0, target, 0, data.length);
+		return img;
+	}
+}
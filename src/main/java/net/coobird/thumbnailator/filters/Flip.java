@@ -24,13 +24,17 @@
 
 package net.coobird.thumbnailator.filters;
 
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 
-import net.coobird.thumbnailator.builders.BufferedImageBuilder;
+import net.coobird.thumbnailator.util.BufferedImages;
 
 /**
  * A class containing flip transformation filters.
+ * <p>
+ * The pixels are moved as they are stored, so that the flipped image is
+ * the same as the original in any color and sample layout.
  * 
  * @author coobird
  *
@@ -46,11 +50,15 @@ public class Flip {
 			int height = img.getHeight();
 			
 			BufferedImage newImage =
-					new BufferedImageBuilder(width, height, img.getType()).build();
+					BufferedImages.createCompatible(img, width, height);
 			
-			Graphics g = newImage.getGraphics();
-			g.drawImage(img, width, 0, 0, height, 0, 0, width, height, null);
-			g.dispose();
+			Raster source = img.getRaster();
+			WritableRaster target = newImage.getRaster();
+			Object column = null;
+			for (int x = 0; x < width; x++) {
+				column = source.getDataElements(x, 0, 1, height, column);
+				target.setDataElements(width - 1 - x, 0, 1, height, column);
+			}
 			
 			return newImage;
 		}
@@ -65,11 +73,15 @@ public class Flip {
 			int height = img.getHeight();
 			
 			BufferedImage newImage =
-					new BufferedImageBuilder(width, height, img.getType()).build();
+					BufferedImages.createCompatible(img, width, height);
 			
-			Graphics g = newImage.getGraphics();
-			g.drawImage(img, 0, height, width, 0, 0, 0, width, height, null);
-			g.dispose();
+			Raster source = img.getRaster();
+			WritableRaster target = newImage.getRaster();
+			Object row = null;
+			for (int y = 0; y < height; y++) {
+				row = source.getDataElements(0, y, width, 1, row);
+				target.setDataElements(0, height - 1 - y, width, 1, row);
+			}
 			
 			return newImage;
 		}
@@ -57,10 +57,27 @@ public class Rotation {
 	 *
 	 */
 	public abstract static class Rotator implements ImageFilter {
+		/**
+		 * The angle of the rotation, in degrees clockwise.
+		 */
+		private final double angle;
+		
 		/**
 		 * This class is not intended to be instantiated.
 		 */
-		private Rotator() {}
+		private Rotator(double angle) {
+			this.angle = angle;
+		}
+		
+		/**
+		 * Returns the angle by which this filter rotates images.
+		 * 
+		 * @return		The angle of the rotation, in degrees clockwise.
+		 * @since	0.4.21
+		 */
+		public double getAngle() {
+			return angle;
+		}
 	}
 	
 	/**
@@ -76,7 +93,7 @@ public class Rotation {
 	 * 						a given image.
 	 */
 	public static Rotator newRotator(final double angle) {
-		Rotator r = new Rotator() {
+		Rotator r = new Rotator(angle) {
 			
 			private double[] calculatePosition(double x, double y, double angle) {
 				angle = Math.toRadians(angle);
@@ -28,9 +28,10 @@ import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 
-import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.geometry.Position;
+import net.coobird.thumbnailator.util.BufferedImages;
 
 /**
  * This class applies a watermark to an image.
@@ -113,10 +114,12 @@ public class Watermark implements ImageFilter {
 	public BufferedImage apply(BufferedImage img) {
 		int width = img.getWidth();
 		int height = img.getHeight();
-		int type = img.getType();
 
-		BufferedImage imgWithWatermark =
-			new BufferedImageBuilder(width, height, type).build();
+		// Indexed images are mapped back to their palette afterwards.
+		boolean indexed = img.getColorModel() instanceof IndexColorModel;
+		BufferedImage imgWithWatermark = indexed
+			? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+			: BufferedImages.createCompatible(img, width, height);
 		
 		int watermarkWidth = watermarkImg.getWidth();
 		int watermarkHeight = watermarkImg.getHeight();
@@ -140,6 +143,9 @@ public class Watermark implements ImageFilter {
 		
 		g.dispose();
 
+		if (indexed) {
+			return BufferedImages.copyCompatible(imgWithWatermark, img);
+		}
 		return imgWithWatermark;
 	}
 }
@@ -0,0 +1,131 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.flow;
+
+/**
+ * Interfaces for streams of items where the receivers signal how many
+ * items they can take, which mirror those of
+ * {@code java.util.concurrent.Flow} and of Reactive Streams.
+ * <p>
+ * Thumbnailator supports Java 8, which does not have
+ * {@code java.util.concurrent.Flow}. The interfaces have the same methods
+ * and follow the same rules, so that adapting them to the interfaces of
+ * Java 9 or of a Reactive Streams library only takes forwarding each
+ * method.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class Flow {
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private Flow() {}
+	
+	/**
+	 * A producer of items which are received by {@link Subscriber}s.
+	 * 
+	 * @param <T>	The type of the items.
+	 */
+	public interface Publisher<T> {
+		/**
+		 * Adds the subscriber, which is given a {@link Subscription} through
+		 * {@link Subscriber#onSubscribe(Subscription)}.
+		 * 
+		 * @param subscriber	The subscriber.
+		 * @throws NullPointerException	If the subscriber is {@code null}.
+		 */
+		void subscribe(Subscriber<? super T> subscriber);
+	}
+	
+	/**
+	 * A receiver of items. The methods are called one at a time for each
+	 * {@link Subscription}.
+	 * 
+	 * @param <T>	The type of the items.
+	 */
+	public interface Subscriber<T> {
+		/**
+		 * Called before any other method, with the subscription through
+		 * which items are requested.
+		 * 
+		 * @param subscription	The subscription.
+		 */
+		void onSubscribe(Subscription subscription);
+		
+		/**
+		 * Called with the next item, at most as many times as items were
+		 * requested.
+		 * 
+		 * @param item			The item.
+		 */
+		void onNext(T item);
+		
+		/**
+		 * Called when the stream ends with a failure. No other method is
+		 * called afterwards.
+		 * 
+		 * @param throwable		The failure.
+		 */
+		void onError(Throwable throwable);
+		
+		/**
+		 * Called when the stream ends after all the items. No other method
+		 * is called afterwards.
+		 */
+		void onComplete();
+	}
+	
+	/**
+	 * The link between a {@link Publisher} and a {@link Subscriber}.
+	 */
+	public interface Subscription {
+		/**
+		 * Allows the publisher to send the specified number of additional
+		 * items.
+		 * 
+		 * @param n				The number of items, which must be
+		 * 						positive. {@link Long#MAX_VALUE} requests
+		 * 						an unbounded number of items.
+		 */
+		void request(long n);
+		
+		/**
+		 * Asks the publisher to stop sending items.
+		 */
+		void cancel();
+	}
+	
+	/**
+	 * A stage which is both a {@link Subscriber} and a {@link Publisher}.
+	 * 
+	 * @param <T>	The type of the items received.
+	 * @param <R>	The type of the items published.
+	 */
+	public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+	}
+}
@@ -0,0 +1,375 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.flow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.Thumbnailator;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.tasks.SourceSinkThumbnailTask;
+import net.coobird.thumbnailator.tasks.io.ByteBufferImageSink;
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+
+/**
+ * A {@link Flow.Processor} which makes thumbnails of the source images it
+ * receives, and publishes them, encoded, to a single subscriber.
+ * <p>
+ * Thumbnails are made on the threads of an {@link Executor}, with at most
+ * a set number of thumbnails being made at once. The processor also limits
+ * the number of items in flight, which are the source images requested
+ * from upstream whose results have not been delivered downstream yet. It
+ * requests that many source images when the subscriber is present, and
+ * one more for each result delivered, so that a subscriber which requests
+ * results slowly slows down the publisher of the source images, and the
+ * memory used by the processor stays bounded:
+ * <pre>
+ThumbnailProcessor processor = new ThumbnailProcessor(
+    new ThumbnailParameterBuilder().size(200, 200).format("jpg"),
+    executor,
+    4,     // thumbnails made at once
+    16     // source images and results held at once
+);
+sourcePublisher.subscribe(processor);
+processor.subscribe(thumbnailSubscriber);
+ * </pre>
+ * Results are published in the order in which the thumbnails are
+ * finished, which can differ from the order of the source images. A source
+ * image which cannot be read or written results in a
+ * {@link ThumbnailResult} holding the exception, and the stream goes on.
+ * Errors, such as an {@link OutOfMemoryError}, end the stream.
+ * <p>
+ * When the publisher of the source images completes or fails, the
+ * thumbnails being made are still published before the subscriber is
+ * notified.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailProcessor implements Flow.Processor<ImageSource<?>, ThumbnailResult> {
+	private final ThumbnailParameterBuilder parameters;
+	private final Executor executor;
+	private final int concurrency;
+	private final int maxInFlight;
+	
+	private final AtomicReference<Flow.Subscription> upstream =
+			new AtomicReference<Flow.Subscription>();
+	private final AtomicReference<Flow.Subscriber<? super ThumbnailResult>> downstream =
+			new AtomicReference<Flow.Subscriber<? super ThumbnailResult>>();
+	
+	/**
+	 * Source images which have been received but not started.
+	 */
+	private final Queue<ImageSource<?>> pending = new ConcurrentLinkedQueue<ImageSource<?>>();
+	
+	/**
+	 * Results which have not been delivered.
+	 */
+	private final Queue<ThumbnailResult> results = new ConcurrentLinkedQueue<ThumbnailResult>();
+	
+	/**
+	 * The number of thumbnails being made.
+	 */
+	private final AtomicInteger running = new AtomicInteger();
+	
+	/**
+	 * The number of results requested by the subscriber and not delivered.
+	 */
+	private final AtomicLong demand = new AtomicLong();
+	
+	/**
+	 * Serializes the work of {@link #drain()}, which is the only method to
+	 * signal the subscriber and to request from the publisher.
+	 */
+	private final AtomicInteger wip = new AtomicInteger();
+	
+	private volatile boolean upstreamDone = false;
+	private volatile Throwable upstreamError = null;
+	private volatile Throwable fatalError = null;
+	private volatile boolean cancelled = false;
+	
+	/*
+	 * Only accessed by drain().
+	 */
+	private boolean requested = false;
+	private boolean terminated = false;
+	
+	/**
+	 * Instantiates a {@link ThumbnailProcessor}.
+	 * 
+	 * @param parameters	Builds the parameters of each thumbnail. A new
+	 * 						{@link ThumbnailParameter} is built for every
+	 * 						source image, so the builder must not be
+	 * 						changed afterwards.
+	 * @param executor		The executor on which the thumbnails are made.
+	 * @param concurrency	The largest number of thumbnails made at once.
+	 * @param maxInFlight	The largest number of source images requested
+	 * 						and not delivered as results. It should be at
+	 * 						least the concurrency for all threads to be
+	 * 						used.
+	 * @throws NullPointerException		If the builder or the executor is
+	 * 									{@code null}.
+	 * @throws IllegalArgumentException	If the concurrency or the number
+	 * 									of items in flight is not positive.
+	 */
+	public ThumbnailProcessor(
+			ThumbnailParameterBuilder parameters,
+			Executor executor,
+			int concurrency,
+			int maxInFlight
+	) {
+		if (parameters == null) {
+			throw new NullPointerException("ThumbnailParameterBuilder cannot be null.");
+		} else if (executor == null) {
+			throw new NullPointerException("Executor cannot be null.");
+		} else if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be positive.");
+		} else if (maxInFlight < 1) {
+			throw new IllegalArgumentException("Number of items in flight must be positive.");
+		}
+		
+		this.parameters = parameters;
+		this.executor = executor;
+		this.concurrency = concurrency;
+		this.maxInFlight = maxInFlight;
+	}
+	
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (subscription == null) {
+			throw new NullPointerException("Subscription cannot be null.");
+		}
+		if (!upstream.compareAndSet(null, subscription)) {
+			subscription.cancel();
+			return;
+		}
+		drain();
+	}
+	
+	public void onNext(ImageSource<?> source) {
+		if (source == null) {
+			throw new NullPointerException("ImageSource cannot be null.");
+		}
+		pending.offer(source);
+		drain();
+	}
+	
+	public void onError(Throwable throwable) {
+		if (throwable == null) {
+			throw new NullPointerException("Throwable cannot be null.");
+		}
+		upstreamError = throwable;
+		upstreamDone = true;
+		drain();
+	}
+	
+	public void onComplete() {
+		upstreamDone = true;
+		drain();
+	}
+	
+	public void subscribe(Flow.Subscriber<? super ThumbnailResult> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Subscriber cannot be null.");
+		}
+		if (!downstream.compareAndSet(null, subscriber)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				public void request(long n) {}
+				public void cancel() {}
+			});
+			subscriber.onError(new IllegalStateException(
+					"ThumbnailProcessor only supports a single subscriber."
+			));
+			return;
+		}
+		
+		subscriber.onSubscribe(new Flow.Subscription() {
+			public void request(long n) {
+				if (n <= 0) {
+					fatalError = new IllegalArgumentException(
+							"Number of requested items must be positive."
+					);
+				} else {
+					addDemand(n);
+				}
+				drain();
+			}
+			
+			public void cancel() {
+				cancelled = true;
+				drain();
+			}
+		});
+		drain();
+	}
+	
+	private void addDemand(long n) {
+		while (true) {
+			long current = demand.get();
+			long updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+			if (demand.compareAndSet(current, updated)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Starts thumbnails, delivers results, and requests source images, as
+	 * far as the limits and the demand allow. Calls made while another
+	 * thread is in this method make that thread go over the state again,
+	 * rather than waiting for it.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		
+		int missed = 1;
+		do {
+			Flow.Subscriber<? super ThumbnailResult> subscriber = downstream.get();
+			Flow.Subscription subscription = upstream.get();
+			
+			if (subscriber != null && !terminated) {
+				if (cancelled || fatalError != null) {
+					terminated = true;
+					pending.clear();
+					results.clear();
+					if (subscription != null) {
+						subscription.cancel();
+					}
+					if (!cancelled) {
+						subscriber.onError(fatalError);
+					}
+					
+				} else {
+					if (subscription != null && !requested) {
+						requested = true;
+						subscription.request(maxInFlight);
+					}
+					
+					startPending();
+					
+					long delivered = deliver(subscriber);
+					if (delivered > 0 && subscription != null && !upstreamDone) {
+						subscription.request(delivered);
+					}
+					
+					// The order of the checks matters: tasks add their result before they stop running.
+					if (upstreamDone && !cancelled && pending.isEmpty()
+							&& running.get() == 0 && results.isEmpty()) {
+						terminated = true;
+						if (upstreamError != null) {
+							subscriber.onError(upstreamError);
+						} else {
+							subscriber.onComplete();
+						}
+					}
+				}
+			}
+			
+			missed = wip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+	
+	private void startPending() {
+		while (running.get() < concurrency) {
+			final ImageSource<?> source = pending.poll();
+			if (source == null) {
+				return;
+			}
+			
+			running.incrementAndGet();
+			try {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							results.offer(createThumbnail(source));
+						} catch (Throwable t) {
+							fatalError = t;
+						} finally {
+							running.decrementAndGet();
+						}
+						drain();
+					}
+				});
+			} catch (RuntimeException e) {
+				running.decrementAndGet();
+				fatalError = e;
+				return;
+			}
+		}
+	}
+	
+	private long deliver(Flow.Subscriber<? super ThumbnailResult> subscriber) {
+		long delivered = 0;
+		while (demand.get() > 0 && !cancelled) {
+			ThumbnailResult result = results.poll();
+			if (result == null) {
+				break;
+			}
+			
+			if (demand.get() != Long.MAX_VALUE) {
+				demand.decrementAndGet();
+			}
+			subscriber.onNext(result);
+			delivered++;
+		}
+		return delivered;
+	}
+	
+	private <S> ThumbnailResult createThumbnail(ImageSource<S> source) {
+		ThumbnailParameter param = parameters.build();
+		FormatRecordingImageSink sink = new FormatRecordingImageSink();
+		
+		try {
+			Thumbnailator.createThumbnail(
+					new SourceSinkThumbnailTask<S, ByteBuffer>(param, source, sink)
+			);
+			return new ThumbnailResult(source, sink.getSink(), sink.getOutputFormatName());
+			
+		} catch (IOException e) {
+			return new ThumbnailResult(source, e);
+		} catch (RuntimeException e) {
+			return new ThumbnailResult(source, e);
+		}
+	}
+	
+	/**
+	 * A {@link ByteBufferImageSink} which tells the format it was written in.
+	 */
+	private static final class FormatRecordingImageSink extends ByteBufferImageSink {
+		String getOutputFormatName() {
+			return outputFormat;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.flow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+
+/**
+ * The outcome of making a thumbnail of a source image in a
+ * {@link ThumbnailProcessor}, which is either the encoded thumbnail, or the
+ * exception which prevented it from being made.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailResult {
+	private final ImageSource<?> source;
+	private final ByteBuffer thumbnail;
+	private final String formatName;
+	private final Exception exception;
+	
+	ThumbnailResult(ImageSource<?> source, ByteBuffer thumbnail, String formatName) {
+		this.source = source;
+		this.thumbnail = thumbnail;
+		this.formatName = formatName;
+		this.exception = null;
+	}
+	
+	ThumbnailResult(ImageSource<?> source, Exception exception) {
+		this.source = source;
+		this.thumbnail = null;
+		this.formatName = null;
+		this.exception = exception;
+	}
+	
+	/**
+	 * Returns the source image the thumbnail was made from.
+	 * 
+	 * @return		The source.
+	 */
+	public ImageSource<?> getSource() {
+		return source;
+	}
+	
+	/**
+	 * Returns whether the thumbnail was made.
+	 * 
+	 * @return		{@code true} if the thumbnail was made, {@code false}
+	 * 				if an exception prevented it.
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+	
+	/**
+	 * Returns the encoded thumbnail.
+	 * <p>
+	 * The returned buffer has a position of {@code 0} and a limit of the
+	 * size of the encoded thumbnail.
+	 * 
+	 * @return		The thumbnail, or {@code null} if it was not made.
+	 */
+	public ByteBuffer getThumbnail() {
+		return thumbnail;
+	}
+	
+	/**
+	 * Returns the format the thumbnail was encoded in.
+	 * 
+	 * @return		The format name, or {@code null} if the thumbnail was
+	 * 				not made.
+	 */
+	public String getFormatName() {
+		return formatName;
+	}
+	
+	/**
+	 * Returns the exception which prevented the thumbnail from being made.
+	 * 
+	 * @return		An {@link IOException} or an unchecked exception, or
+	 * 				{@code null} if the thumbnail was made.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+}
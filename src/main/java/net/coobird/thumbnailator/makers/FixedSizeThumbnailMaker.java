@@ -24,8 +24,14 @@
 
 package net.coobird.thumbnailator.makers;
 
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
+import net.coobird.thumbnailator.filters.Canvas;
+import net.coobird.thumbnailator.geometry.Position;
+
 /**
  * <p>
  * A {@link ThumbnailMaker} which resizes an image to a specified dimension
@@ -80,6 +86,7 @@ public final class FixedSizeThumbnailMaker extends ThumbnailMaker {
 	private int height;
 	private boolean keepRatio;
 	private boolean fitWithinDimensions;
+	private Position croppingPosition;
 	
 	/**
 	 * Creates a {@link FixedSizeThumbnailMaker}.
@@ -261,15 +268,95 @@ public final class FixedSizeThumbnailMaker extends ThumbnailMaker {
 		return this;
 	}
 	
+	/**
+	 * Sets the position of the region which remains when the thumbnail is
+	 * cropped to the specified dimensions.
+	 * <p>
+	 * The resized image is placed on a canvas of the specified dimensions
+	 * as the {@link Canvas} filter would, which typically crops the portion
+	 * which overhangs the dimensions when the thumbnail does not fit within
+	 * them. Rather than resizing the entire image and then cropping it, only
+	 * the region of the source image which remains visible is resized,
+	 * directly to the dimensions of the thumbnail.
+	 * 
+	 * @param position		The position of the region which remains.
+	 * @return				A reference to this object.
+	 * @throws NullPointerException		If the position is {@code null}.
+	 * @throws IllegalStateException	If the cropping position has already
+	 * 									been set.
+	 * @since	0.4.21
+	 */
+	public FixedSizeThumbnailMaker crop(Position position) {
+		if (position == null) {
+			throw new NullPointerException("Position cannot be null.");
+		}
+		if (croppingPosition != null) {
+			throw new IllegalStateException(
+					"The cropping position has already been set."
+			);
+		}
+		this.croppingPosition = position;
+		
+		return this;
+	}
+	
 	@Override
 	public BufferedImage make(BufferedImage img) {
-		int targetWidth = this.width;
-		int targetHeight = this.height;
+		Dimension size = calculateSize(
+				img.getWidth(), img.getHeight(), width, height, keepRatio, fitWithinDimensions
+		);
+		
+		if (croppingPosition == null) {
+			return super.makeThumbnail(img, size.width, size.height);
+		}
+		
+		Rectangle visible = calculateVisibleRegion(size, width, height, croppingPosition);
+		if (visible.width != width || visible.height != height) {
+			/*
+			 * Positions which leave part of the thumbnail uncovered need the
+			 * background of the Canvas filter.
+			 */
+			BufferedImage thumbnail = super.makeThumbnail(img, size.width, size.height);
+			return new Canvas(width, height, croppingPosition).apply(thumbnail);
+		}
+		
+		Rectangle region = toSourceRegion(visible, size, img.getWidth(), img.getHeight());
+		if (region.width != img.getWidth() || region.height != img.getHeight()) {
+			img = img.getSubimage(region.x, region.y, region.width, region.height);
+		}
+		
+		return super.makeThumbnail(img, width, height);
+	}
+	
+	/**
+	 * Calculates the dimensions to which a source image is resized.
+	 * <p>
+	 * This is the size of the image made by {@link #make(BufferedImage)}
+	 * before it is cropped, which allows a source image to be reduced to
+	 * that size before it has been entirely decoded.
+	 * 
+	 * @param sourceWidth			The width of the source image.
+	 * @param sourceHeight			The height of the source image.
+	 * @param width					The width specified for the thumbnail.
+	 * @param height				The height specified for the thumbnail.
+	 * @param keepRatio				Whether to keep the aspect ratio.
+	 * @param fitWithinDimensions	Whether to fit within the specified
+	 * 								dimensions, rather than to cover them.
+	 * @return						The dimensions of the resized image.
+	 * @since	0.4.21
+	 */
+	public static Dimension calculateSize(
+			int sourceWidth,
+			int sourceHeight,
+			int width,
+			int height,
+			boolean keepRatio,
+			boolean fitWithinDimensions
+	) {
+		int targetWidth = width;
+		int targetHeight = height;
 
 		if (keepRatio) {
-			int sourceWidth = img.getWidth();
-			int sourceHeight = img.getHeight();
-			
 			double sourceRatio = (double)sourceWidth / (double)sourceHeight;
 			double targetRatio = (double)targetWidth / (double)targetHeight;
 			
@@ -301,6 +388,93 @@ public final class FixedSizeThumbnailMaker extends ThumbnailMaker {
 		targetWidth = (targetWidth == 0) ? 1 : targetWidth;
 		targetHeight = (targetHeight == 0) ? 1 : targetHeight;
 		
-		return super.makeThumbnail(img, targetWidth, targetHeight);
+		return new Dimension(targetWidth, targetHeight);
+	}
+	
+	/**
+	 * Calculates the region of a source image which remains visible when the
+	 * source image is scaled to cover the specified dimensions, keeping its
+	 * aspect ratio, and then cropped to those dimensions at the specified
+	 * position.
+	 * <p>
+	 * Only the pixels in this region contribute to the cropped thumbnail,
+	 * so a decoder can skip the rest of the source image, and a resizer
+	 * does not need to scale it.
+	 * 
+	 * @param sourceWidth	The width of the source image.
+	 * @param sourceHeight	The height of the source image.
+	 * @param width			The width of the cropped thumbnail.
+	 * @param height		The height of the cropped thumbnail.
+	 * @param position		The position of the cropped region.
+	 * @return				The region of the source image, which is the
+	 * 						entire source image if no part of it is
+	 * 						discarded.
+	 * @since	0.4.21
+	 */
+	public static Rectangle calculateCropRegion(
+			int sourceWidth,
+			int sourceHeight,
+			int width,
+			int height,
+			Position position
+	) {
+		Dimension scaled = calculateSize(sourceWidth, sourceHeight, width, height, true, false);
+		Rectangle visible = calculateVisibleRegion(scaled, width, height, position);
+		
+		if (visible.isEmpty()) {
+			return new Rectangle(0, 0, sourceWidth, sourceHeight);
+		}
+		
+		return toSourceRegion(visible, scaled, sourceWidth, sourceHeight);
+	}
+	
+	/**
+	 * Maps a region of a scaled image to the region of the source image
+	 * from which it is scaled.
+	 * <p>
+	 * The edges are rounded rather than widened to whole pixels, so that
+	 * the region keeps the aspect ratio of the scaled region and is scaled
+	 * by the same factor as the entire image would be.
+	 */
+	private static Rectangle toSourceRegion(
+			Rectangle visible,
+			Dimension scaled,
+			int sourceWidth,
+			int sourceHeight
+	) {
+		double scaleX = (double)sourceWidth / scaled.width;
+		double scaleY = (double)sourceHeight / scaled.height;
+		
+		int x0 = (int)Math.round(visible.x * scaleX);
+		int x1 = (int)Math.round((visible.x + visible.width) * scaleX);
+		int y0 = (int)Math.round(visible.y * scaleY);
+		int y1 = (int)Math.round((visible.y + visible.height) * scaleY);
+		
+		x1 = Math.max(x0 + 1, Math.min(sourceWidth, x1));
+		y1 = Math.max(y0 + 1, Math.min(sourceHeight, y1));
+		
+		return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+	}
+	
+	/**
+	 * Calculates the region of a scaled image which remains visible when it
+	 * is cropped to the specified dimensions, in the coordinates of the
+	 * scaled image.
+	 */
+	private static Rectangle calculateVisibleRegion(
+			Dimension scaled,
+			int width,
+			int height,
+			Position position
+	) {
+		// The location of the scaled image in the thumbnail, as in Canvas.
+		Point p = position.calculate(width, height, scaled.width, scaled.height, 0, 0, 0, 0);
+		
+		int left = Math.max(0, -p.x);
+		int right = Math.min(scaled.width, width - p.x);
+		int top = Math.max(0, -p.y);
+		int bottom = Math.min(scaled.height, height - p.y);
+		
+		return new Rectangle(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
 	}
 }
@@ -26,14 +26,17 @@ package net.coobird.thumbnailator.makers;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 import java.util.HashMap;
 import java.util.Map;
 
+import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.resizers.FixedResizerFactory;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
+import net.coobird.thumbnailator.util.BufferedImages;
 
 /**
  * An abstract class which provides support functionalities for
@@ -207,8 +210,25 @@ public abstract class ThumbnailMaker {
 			);
 		}
 
-		BufferedImage thumbnailImage =
-			new BufferedImageBuilder(width, height, imageType).build();
+		/*
+		 * Indexed images are resized in the default type, and then mapped
+		 * to their palette in a way which keeps opaque pixels off a
+		 * transparent entry of the same color.
+		 */
+		boolean indexed = imageType == ThumbnailParameter.NATIVE_IMAGE_TYPE
+				&& img.getColorModel() instanceof IndexColorModel;
+		
+		BufferedImage thumbnailImage;
+		if (indexed) {
+			thumbnailImage = new BufferedImageBuilder(
+					width, height, ThumbnailParameter.DEFAULT_IMAGE_TYPE
+			).build();
+		} else if (imageType == ThumbnailParameter.NATIVE_IMAGE_TYPE) {
+			thumbnailImage = BufferedImages.createCompatible(img, width, height);
+		} else {
+			thumbnailImage =
+				new BufferedImageBuilder(width, height, imageType).build();
+		}
 		
 		Dimension imgSize = new Dimension(img.getWidth(), img.getHeight());
 		Dimension thumbnailSize = new Dimension(width, height);
@@ -217,6 +237,9 @@ public abstract class ThumbnailMaker {
 		
 		resizer.resize(img, thumbnailImage);
 		
+		if (indexed) {
+			return BufferedImages.copyCompatible(thumbnailImage, img);
+		}
 		return thumbnailImage;
 	}
 
@@ -232,6 +255,19 @@ public abstract class ThumbnailMaker {
 		return this;
 	}
 	
+	/**
+	 * Sets the {@link BufferedImage} to produce to have the same
+	 * {@link java.awt.image.ColorModel} and
+	 * {@link java.awt.image.SampleModel} as the source image.
+	 * 
+	 * @return				A reference to this object.
+	 * @since	0.4.21
+	 * @see ThumbnailParameter#NATIVE_IMAGE_TYPE
+	 */
+	public ThumbnailMaker nativeImageType() {
+		return imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE);
+	}
+	
 	/**
 	 * Sets the type of the {@link BufferedImage} to be the default type.
 	 * 
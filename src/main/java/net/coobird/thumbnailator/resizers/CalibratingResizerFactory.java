@@ -0,0 +1,738 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.resizers;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ResizerFactory} which chooses {@link Resizer}s by measuring their
+ * speed and quality on the running Java virtual machine.
+ * <p>
+ * The relative cost of the resizing operations provided by Java2D differs
+ * between JDK versions, headless and non-headless modes and image types.
+ * Rather than choosing a {@link Resizer} from the ratio of the source and
+ * destination sizes alone, as {@link DefaultResizerFactory} does, this
+ * factory resizes a synthetic image with each of the candidate
+ * {@link Resizers} and picks the fastest one whose output is within a
+ * configured quality floor of an exact area-averaged reference.
+ * <p>
+ * Measurements are made for buckets of scaling ratios and image types.
+ * Each bucket is calibrated when it is first used, or all buckets can be
+ * calibrated up front by calling {@link #calibrate()}. Buckets are
+ * calibrated one at a time, so that measurements do not compete with each
+ * other. While a bucket is being calibrated, resizing operations on other
+ * threads do not wait for it, and use the {@link Resizer} which
+ * {@link DefaultResizerFactory} would choose instead.
+ * <p>
+ * When a cache file is given, the results are stored in the file and reused
+ * by later instances, as long as they run on the same kind of Java virtual
+ * machine with the same quality floor. The file is replaced as a whole, so
+ * that other processes never read a partly written file.
+ *
+ * <DL>
+ * <DT><B>Usage:</B></DT>
+ * <DD>
+ * <pre>
+ResizerFactory factory = new CalibratingResizerFactory(new File("resizers.properties"));
+
+Thumbnails.of(sourceImage)
+    .size(200, 200)
+    .resizerFactory(factory)
+    .toFile(thumbnail);
+ * </pre>
+ * </DD>
+ * </DL>
+ *
+ * @see DefaultResizerFactory
+ *
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class CalibratingResizerFactory implements ResizerFactory {
+	/**
+	 * The default quality floor, as the peak signal-to-noise ratio in
+	 * decibels relative to an area-averaged reference.
+	 */
+	public static final double DEFAULT_MINIMUM_PSNR = 30.0;
+	
+	/**
+	 * Buckets of scaling ratios which are calibrated separately.
+	 */
+	static enum RatioBucket {
+		/** Enlarging in both dimensions. */
+		UPSCALE(0.5, Resizers.BICUBIC, Arrays.asList(Resizers.BILINEAR, Resizers.BICUBIC)),
+		
+		/** Reducing by a factor of up to 2. */
+		DOWNSCALE_2X(1.5, Resizers.BILINEAR, Arrays.asList(Resizers.BILINEAR, Resizers.BICUBIC, Resizers.PROGRESSIVE, Resizers.PROGRESSIVE_BOX)),
+		
+		/** Reducing by a factor between 2 and 4. */
+		DOWNSCALE_4X(3.0, Resizers.PROGRESSIVE, Arrays.asList(Resizers.BILINEAR, Resizers.BICUBIC, Resizers.PROGRESSIVE, Resizers.PROGRESSIVE_BOX)),
+		
+		/** Reducing by a factor between 4 and 8. */
+		DOWNSCALE_8X(6.0, Resizers.PROGRESSIVE, Arrays.asList(Resizers.BILINEAR, Resizers.BICUBIC, Resizers.PROGRESSIVE, Resizers.PROGRESSIVE_BOX)),
+		
+		/** Reducing by a factor larger than 8. */
+		DOWNSCALE_LARGE(10.0, Resizers.PROGRESSIVE, Arrays.asList(Resizers.BILINEAR, Resizers.PROGRESSIVE, Resizers.PROGRESSIVE_BOX)),
+		;
+		
+		/**
+		 * The ratio of source size to destination size used for calibration.
+		 */
+		private final double ratio;
+		
+		/**
+		 * The {@link Resizers} which {@link DefaultResizerFactory} would
+		 * choose, used while this bucket is being calibrated.
+		 */
+		private final Resizers fallback;
+		
+		/**
+		 * The {@link Resizers} to consider for this bucket.
+		 */
+		private final List<Resizers> candidates;
+		
+		private RatioBucket(double ratio, Resizers fallback, List<Resizers> candidates) {
+			this.ratio = ratio;
+			this.fallback = fallback;
+			this.candidates = candidates;
+		}
+		
+		static RatioBucket of(double ratio) {
+			if (ratio < 1.0) {
+				return UPSCALE;
+			} else if (ratio <= 2.0) {
+				return DOWNSCALE_2X;
+			} else if (ratio <= 4.0) {
+				return DOWNSCALE_4X;
+			} else if (ratio <= 8.0) {
+				return DOWNSCALE_8X;
+			} else {
+				return DOWNSCALE_LARGE;
+			}
+		}
+	}
+	
+	/**
+	 * Image types which are calibrated separately. Images of other types use
+	 * the results for {@link BufferedImage#TYPE_INT_ARGB}.
+	 */
+	private static final List<Integer> CALIBRATED_TYPES = Collections.unmodifiableList(
+			Arrays.asList(
+					BufferedImage.TYPE_INT_RGB,
+					BufferedImage.TYPE_INT_ARGB,
+					BufferedImage.TYPE_3BYTE_BGR,
+					BufferedImage.TYPE_4BYTE_ABGR,
+					BufferedImage.TYPE_BYTE_GRAY
+			)
+	);
+	
+	/**
+	 * The width of the destination image used for calibration.
+	 */
+	private static final int CALIBRATION_WIDTH = 160;
+	
+	/**
+	 * The height of the destination image used for calibration.
+	 */
+	private static final int CALIBRATION_HEIGHT = 120;
+	
+	/**
+	 * The number of timed runs per candidate. The fastest run is used.
+	 */
+	private static final int TIMED_RUNS = 3;
+	
+	/**
+	 * Property key for the fingerprint of the environment and settings the
+	 * cached results were measured with.
+	 */
+	private static final String FINGERPRINT_KEY = "fingerprint";
+	
+	/**
+	 * The quality floor, in decibels of peak signal-to-noise ratio.
+	 */
+	private final double minimumPsnr;
+	
+	/**
+	 * The file to cache results to, or {@code null} if not caching.
+	 */
+	private final File cacheFile;
+	
+	/**
+	 * The chosen {@link Resizers}, keyed by {@link #key(RatioBucket, int)}.
+	 */
+	private final Map<String, Resizers> choices = new ConcurrentHashMap<String, Resizers>();
+	
+	/**
+	 * Held while a bucket is being calibrated, and while the cache file is
+	 * written.
+	 */
+	private final ReentrantLock calibrationLock = new ReentrantLock();
+	
+	/**
+	 * Instantiates a {@link CalibratingResizerFactory} which does not cache
+	 * its results, using the {@link #DEFAULT_MINIMUM_PSNR default} quality
+	 * floor.
+	 */
+	public CalibratingResizerFactory() {
+		this(null, DEFAULT_MINIMUM_PSNR);
+	}
+	
+	/**
+	 * Instantiates a {@link CalibratingResizerFactory} which caches its
+	 * results to the specified file, using the
+	 * {@link #DEFAULT_MINIMUM_PSNR default} quality floor.
+	 * 
+	 * @param cacheFile		The file to cache results to, or {@code null} if
+	 * 						results should not be cached.
+	 */
+	public CalibratingResizerFactory(File cacheFile) {
+		this(cacheFile, DEFAULT_MINIMUM_PSNR);
+	}
+	
+	/**
+	 * Instantiates a {@link CalibratingResizerFactory} which caches its
+	 * results to the specified file, using the specified quality floor.
+	 * <p>
+	 * If the cache file exists and was written on the same kind of Java
+	 * virtual machine with the same quality floor, its results are used
+	 * instead of calibrating again.
+	 * 
+	 * @param cacheFile		The file to cache results to, or {@code null} if
+	 * 						results should not be cached.
+	 * @param minimumPsnr	The minimum peak signal-to-noise ratio, in
+	 * 						decibels, which the output of a {@link Resizer}
+	 * 						must have relative to an area-averaged reference
+	 * 						for it to be chosen.
+	 * @throws IllegalArgumentException	If the quality floor is not a
+	 * 									positive number.
+	 */
+	public CalibratingResizerFactory(File cacheFile, double minimumPsnr) {
+		if (!(minimumPsnr > 0.0) || Double.isInfinite(minimumPsnr)) {
+			throw new IllegalArgumentException(
+					"The minimum PSNR must be a positive number."
+			);
+		}
+		
+		this.cacheFile = cacheFile;
+		this.minimumPsnr = minimumPsnr;
+		
+		loadCache();
+	}
+	
+	/**
+	 * Calibrates all ratio buckets and image types which have not been
+	 * calibrated yet.
+	 * <p>
+	 * Calling this method is optional, as buckets are calibrated when they
+	 * are first used. It can be called at startup to move the cost of
+	 * calibration out of the first thumbnail operations.
+	 */
+	public void calibrate() {
+		for (RatioBucket bucket : RatioBucket.values()) {
+			for (int type : CALIBRATED_TYPES) {
+				calibrationLock.lock();
+				try {
+					calibrate(bucket, type);
+				} finally {
+					calibrationLock.unlock();
+				}
+			}
+		}
+	}
+	
+	public Resizer getResizer() {
+		return Resizers.PROGRESSIVE;
+	}
+	
+	public Resizer getResizer(Dimension originalSize, Dimension thumbnailSize) {
+		if (originalSize.equals(thumbnailSize)) {
+			return Resizers.NULL;
+		}
+		
+		RatioBucket bucket = bucketOf(originalSize, thumbnailSize);
+		return bucket != null ? new CalibratedResizer(bucket) : getResizer();
+	}
+	
+	/**
+	 * Returns the ratio bucket for resizing an image of the specified size
+	 * to the size of the thumbnail.
+	 * 
+	 * @param originalSize		The size of the original image.
+	 * @param thumbnailSize		The size of the thumbnail.
+	 * @return					The bucket, or {@code null} if the image is
+	 * 							enlarged in one dimension and reduced in the
+	 * 							other, or is not resized.
+	 */
+	static RatioBucket bucketOf(Dimension originalSize, Dimension thumbnailSize) {
+		int origWidth = originalSize.width;
+		int origHeight = originalSize.height;
+		int thumbWidth = thumbnailSize.width;
+		int thumbHeight = thumbnailSize.height;
+		
+		if (thumbWidth > origWidth && thumbHeight > origHeight) {
+			return RatioBucket.UPSCALE;
+			
+		} else if (thumbWidth < origWidth && thumbHeight < origHeight) {
+			double ratio = Math.min(
+					(double)origWidth / thumbWidth,
+					(double)origHeight / thumbHeight
+			);
+			return RatioBucket.of(ratio);
+		}
+		return null;
+	}
+	
+	/**
+	 * A {@link Resizer} which delegates to the {@link Resizers} chosen for
+	 * its ratio bucket and the type of the source image.
+	 * <p>
+	 * The image type is only known once the images are given, which is why
+	 * the choice is deferred until {@link #resize(BufferedImage, BufferedImage)}
+	 * is called.
+	 */
+	private final class CalibratedResizer implements Resizer {
+		private final RatioBucket bucket;
+		
+		private CalibratedResizer(RatioBucket bucket) {
+			this.bucket = bucket;
+		}
+		
+		public void resize(BufferedImage srcImage, BufferedImage destImage) {
+			if (srcImage == null || destImage == null) {
+				throw new NullPointerException(
+						"The source and/or destination image is null."
+				);
+			}
+			
+			choose(bucket, srcImage.getType()).resize(srcImage, destImage);
+		}
+	}
+	
+	/**
+	 * Returns the {@link Resizers} chosen for a bucket and image type,
+	 * calibrating it if necessary.
+	 * <p>
+	 * If another bucket is being calibrated, this method does not wait,
+	 * and returns the fallback of the bucket instead.
+	 */
+	private Resizers choose(RatioBucket bucket, int imageType) {
+		Resizers choice = getChoice(bucket, imageType);
+		if (choice != null) {
+			return choice;
+		}
+		
+		if (!calibrationLock.tryLock()) {
+			return bucket.fallback;
+		}
+		try {
+			return calibrate(bucket, imageType);
+		} finally {
+			calibrationLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the {@link Resizers} chosen for a bucket and image type,
+	 * without calibrating it.
+	 * 
+	 * @param bucket		The ratio bucket.
+	 * @param imageType		The image type.
+	 * @return				The chosen {@link Resizers}, or {@code null} if
+	 * 						the bucket has not been calibrated for the type.
+	 */
+	Resizers getChoice(RatioBucket bucket, int imageType) {
+		if (!CALIBRATED_TYPES.contains(imageType)) {
+			imageType = BufferedImage.TYPE_INT_ARGB;
+		}
+		return choices.get(key(bucket, imageType));
+	}
+	
+	/**
+	 * Calibrates a bucket and image type, unless that was done while waiting
+	 * for the calibration lock, which must be held by the caller.
+	 */
+	private Resizers calibrate(RatioBucket bucket, int imageType) {
+		if (!CALIBRATED_TYPES.contains(imageType)) {
+			imageType = BufferedImage.TYPE_INT_ARGB;
+		}
+		
+		String key = key(bucket, imageType);
+		Resizers choice = choices.get(key);
+		if (choice == null) {
+			choice = measure(bucket, imageType);
+			choices.put(key, choice);
+			storeCache();
+		}
+		return choice;
+	}
+	
+	/**
+	 * Measures the candidates of a bucket and returns the fastest one
+	 * meeting the quality floor. If no candidate meets the floor, the one
+	 * with the highest quality is returned.
+	 */
+	private Resizers measure(RatioBucket bucket, int imageType) {
+		int destWidth = CALIBRATION_WIDTH;
+		int destHeight = CALIBRATION_HEIGHT;
+		int srcWidth = (int)Math.round(destWidth * bucket.ratio);
+		int srcHeight = (int)Math.round(destHeight * bucket.ratio);
+		
+		BufferedImage srcImage;
+		int[] reference;
+		if (bucket == RatioBucket.UPSCALE) {
+			/*
+			 * Enlargements are compared with the sample image at the size
+			 * of the destination, from which the source image is reduced.
+			 */
+			BufferedImage sample = createSample(destWidth, destHeight);
+			srcImage = convert(
+					toImage(areaAverage(sample, srcWidth, srcHeight), srcWidth, srcHeight),
+					imageType
+			);
+			reference = toArgb(convert(sample, imageType));
+		} else {
+			srcImage = convert(createSample(srcWidth, srcHeight), imageType);
+			reference = areaAverage(srcImage, destWidth, destHeight);
+		}
+		BufferedImage destImage = new BufferedImage(destWidth, destHeight, imageType);
+		
+		Resizers fastest = null;
+		long fastestTime = Long.MAX_VALUE;
+		Resizers best = null;
+		double bestPsnr = Double.NEGATIVE_INFINITY;
+		
+		for (Resizers candidate : bucket.candidates) {
+			// Warm up, and use the output of the first run for the quality.
+			candidate.resize(srcImage, destImage);
+			double psnr = psnr(reference, toArgb(destImage));
+			
+			long time = Long.MAX_VALUE;
+			for (int i = 0; i < TIMED_RUNS; i++) {
+				long start = System.nanoTime();
+				candidate.resize(srcImage, destImage);
+				time = Math.min(time, System.nanoTime() - start);
+			}
+			
+			if (psnr > bestPsnr) {
+				best = candidate;
+				bestPsnr = psnr;
+			}
+			if (psnr >= minimumPsnr && time < fastestTime) {
+				fastest = candidate;
+				fastestTime = time;
+			}
+		}
+		
+		srcImage.flush();
+		destImage.flush();
+		
+		return fastest != null ? fastest : best;
+	}
+	
+	/**
+	 * Creates a deterministic {@link BufferedImage#TYPE_INT_ARGB} sample
+	 * image with smooth gradients, fine periodic detail and noise, which is
+	 * sensitive to aliasing.
+	 */
+	private static BufferedImage createSample(int width, int height) {
+		BufferedImage argbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] data = ((DataBufferInt)argbImage.getRaster().getDataBuffer()).getData();
+		Random random = new Random(4313L);
+		
+		double[] waveX = new double[width];
+		for (int x = 0; x < width; x++) {
+			waveX[x] = Math.sin(x * 0.35);
+		}
+		
+		for (int y = 0; y < height; y++) {
+			double waveY = Math.sin(y * 0.35);
+			for (int x = 0; x < width; x++) {
+				double detail = waveX[x] * waveY;
+				int r = clamp(x * 255 / width + (int)(detail * 40) + random.nextInt(17) - 8);
+				int g = clamp(y * 255 / height - (int)(detail * 40) + random.nextInt(17) - 8);
+				int b = clamp(128 + (int)(detail * 100));
+				int a = clamp(255 - (x + y) * 64 / (width + height));
+				data[y * width + x] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+		}
+		return argbImage;
+	}
+	
+	/**
+	 * Returns a {@link BufferedImage#TYPE_INT_ARGB} image with the
+	 * specified pixels.
+	 */
+	private static BufferedImage toImage(int[] argb, int width, int height) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		img.setRGB(0, 0, width, height, argb, 0, width);
+		return img;
+	}
+	
+	/**
+	 * Converts a {@link BufferedImage#TYPE_INT_ARGB} image to the specified
+	 * image type.
+	 */
+	private static BufferedImage convert(BufferedImage argbImage, int imageType) {
+		if (imageType == BufferedImage.TYPE_INT_ARGB) {
+			return argbImage;
+		}
+		
+		BufferedImage img = new BufferedImage(argbImage.getWidth(), argbImage.getHeight(), imageType);
+		Graphics2D g = img.createGraphics();
+		g.drawImage(argbImage, 0, 0, null);
+		g.dispose();
+		
+		return img;
+	}
+	
+	/**
+	 * Returns the pixels of an image as ARGB values.
+	 * <p>
+	 * The conversion is performed by drawing the image, which is much faster
+	 * than {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}
+	 * for large images which are not of an integer RGB type.
+	 */
+	private static int[] toArgb(BufferedImage img) {
+		BufferedImage argbImage = img;
+		if (img.getType() != BufferedImage.TYPE_INT_ARGB) {
+			argbImage = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = argbImage.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(img, 0, 0, null);
+			g.dispose();
+		}
+		return ((DataBufferInt)argbImage.getRaster().getDataBuffer()).getData();
+	}
+	
+	private static int clamp(int value) {
+		return value < 0 ? 0 : (value > 255 ? 255 : value);
+	}
+	
+	/**
+	 * Returns an exact area-averaged reduction of an image, as ARGB pixels.
+	 */
+	private static int[] areaAverage(BufferedImage img, int destWidth, int destHeight) {
+		int srcWidth = img.getWidth();
+		int srcHeight = img.getHeight();
+		int[] src = toArgb(img);
+		
+		double scaleX = (double)srcWidth / destWidth;
+		double scaleY = (double)srcHeight / destHeight;
+		
+		// Horizontal pass: srcHeight rows of destWidth pixels, 4 channels.
+		double[] horizontal = new double[srcHeight * destWidth * 4];
+		for (int y = 0; y < srcHeight; y++) {
+			for (int dx = 0; dx < destWidth; dx++) {
+				double start = dx * scaleX;
+				double end = start + scaleX;
+				int offset = (y * destWidth + dx) * 4;
+				for (int sx = (int)start; sx < end && sx < srcWidth; sx++) {
+					double weight = Math.min(end, sx + 1) - Math.max(start, sx);
+					int argb = src[y * srcWidth + sx];
+					horizontal[offset] += (argb >>> 24) * weight;
+					horizontal[offset + 1] += ((argb >> 16) & 0xff) * weight;
+					horizontal[offset + 2] += ((argb >> 8) & 0xff) * weight;
+					horizontal[offset + 3] += (argb & 0xff) * weight;
+				}
+			}
+		}
+		
+		// Vertical pass.
+		int[] dest = new int[destWidth * destHeight];
+		double area = scaleX * scaleY;
+		double[] sum = new double[4];
+		for (int dy = 0; dy < destHeight; dy++) {
+			double start = dy * scaleY;
+			double end = start + scaleY;
+			for (int dx = 0; dx < destWidth; dx++) {
+				Arrays.fill(sum, 0.0);
+				for (int sy = (int)start; sy < end && sy < srcHeight; sy++) {
+					double weight = Math.min(end, sy + 1) - Math.max(start, sy);
+					int offset = (sy * destWidth + dx) * 4;
+					for (int c = 0; c < 4; c++) {
+						sum[c] += horizontal[offset + c] * weight;
+					}
+				}
+				dest[dy * destWidth + dx] =
+						(clamp((int)Math.round(sum[0] / area)) << 24)
+						| (clamp((int)Math.round(sum[1] / area)) << 16)
+						| (clamp((int)Math.round(sum[2] / area)) << 8)
+						| clamp((int)Math.round(sum[3] / area));
+			}
+		}
+		return dest;
+	}
+	
+	/**
+	 * Returns the peak signal-to-noise ratio between two sets of ARGB pixels,
+	 * over the color channels.
+	 */
+	private static double psnr(int[] reference, int[] actual) {
+		double squaredError = 0.0;
+		for (int i = 0; i < reference.length; i++) {
+			for (int shift = 0; shift <= 16; shift += 8) {
+				int diff = ((reference[i] >> shift) & 0xff) - ((actual[i] >> shift) & 0xff);
+				squaredError += diff * diff;
+			}
+		}
+		
+		double mse = squaredError / (reference.length * 3);
+		if (mse == 0.0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return 10.0 * Math.log10(255.0 * 255.0 / mse);
+	}
+	
+	private static String key(RatioBucket bucket, int imageType) {
+		return bucket.name() + "." + imageType;
+	}
+	
+	/**
+	 * Returns a string identifying the environment and settings under which
+	 * cached results are valid.
+	 */
+	private String fingerprint() {
+		return System.getProperty("java.vm.name") + "/"
+				+ System.getProperty("java.vm.version") + "/"
+				+ System.getProperty("os.arch") + "/"
+				+ System.getProperty("java.awt.headless", "false") + "/"
+				+ minimumPsnr;
+	}
+	
+	/**
+	 * Loads results from the cache file, if it is present and valid.
+	 * Problems reading the cache file are ignored, and the affected buckets
+	 * will be calibrated again.
+	 */
+	private void loadCache() {
+		if (cacheFile == null || !cacheFile.isFile()) {
+			return;
+		}
+		
+		Properties properties = new Properties();
+		try {
+			InputStream is = new FileInputStream(cacheFile);
+			try {
+				properties.load(is);
+			} finally {
+				is.close();
+			}
+		} catch (IOException e) {
+			return;
+		}
+		
+		if (!fingerprint().equals(properties.getProperty(FINGERPRINT_KEY))) {
+			return;
+		}
+		
+		for (RatioBucket bucket : RatioBucket.values()) {
+			for (int type : CALIBRATED_TYPES) {
+				String key = key(bucket, type);
+				String value = properties.getProperty(key);
+				if (value == null) {
+					continue;
+				}
+				try {
+					Resizers resizer = Resizers.valueOf(value);
+					if (bucket.candidates.contains(resizer)) {
+						choices.put(key, resizer);
+					}
+				} catch (IllegalArgumentException e) {
+					// Unknown resizer, so the bucket will be calibrated again.
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Stores the current results to the cache file. Problems writing the
+	 * cache file are ignored, as the results remain usable in memory.
+	 * <p>
+	 * The results are written to a temporary file next to the cache file,
+	 * which then replaces the cache file, so that the cache file is never
+	 * left partly written.
+	 */
+	private void storeCache() {
+		if (cacheFile == null) {
+			return;
+		}
+		
+		Properties properties = new Properties();
+		properties.setProperty(FINGERPRINT_KEY, fingerprint());
+		for (Map.Entry<String, Resizers> entry : choices.entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue().name());
+		}
+		
+		File temporaryFile = null;
+		try {
+			File directory = cacheFile.getAbsoluteFile().getParentFile();
+			temporaryFile = File.createTempFile("." + cacheFile.getName() + ".", ".tmp", directory);
+			
+			OutputStream os = new FileOutputStream(temporaryFile);
+			try {
+				properties.store(os, "Thumbnailator resizer calibration");
+			} finally {
+				os.close();
+			}
+			
+			try {
+				Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			temporaryFile = null;
+			
+		} catch (IOException e) {
+			// Results are still used for this instance.
+		} finally {
+			if (temporaryFile != null) {
+				temporaryFile.delete();
+			}
+		}
+	}
+}
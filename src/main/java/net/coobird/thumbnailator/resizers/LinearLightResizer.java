@@ -0,0 +1,530 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.resizers;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * A {@link Resizer} which reduces images in linear light, rather than by
+ * averaging the gamma-encoded sRGB values of the pixels.
+ * <p>
+ * Averaging gamma-encoded values darkens fine, high-contrast detail, such as
+ * text or foliage, when an image is reduced. This resizer converts the color
+ * components to 16-bit linear values through a lookup table, averages the
+ * source pixels covered by each destination pixel with integer arithmetic,
+ * and converts the result back to sRGB through a reverse lookup table.
+ * Translucent pixels are averaged with premultiplied alpha.
+ * <p>
+ * Only reductions to less than half the size are performed in linear light.
+ * Smaller reductions average so few source pixels that the darkening is
+ * slight, while converting to and from linear light would take more than
+ * twice as long as a single bilinear pass. These reductions, and
+ * enlargements, are performed by the {@link Resizer} specified when this
+ * resizer was created.
+ * <p>
+ * The contents of the destination image are replaced, rather than drawn
+ * over. When the source image has an alpha channel and the destination
+ * does not, the result is the same as drawing onto a black image.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class LinearLightResizer implements Resizer {
+	/**
+	 * The number of fractional bits used by the resampling weights.
+	 */
+	private static final int WEIGHT_BITS = 14;
+	
+	/**
+	 * The sum of the resampling weights of a destination pixel.
+	 */
+	private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+	
+	/**
+	 * Used for rounding when removing the fractional bits of the weights.
+	 */
+	private static final int WEIGHT_HALF = WEIGHT_ONE >> 1;
+	
+	/**
+	 * The {@link Resizer} to use when enlarging images.
+	 */
+	private final Resizer resizer;
+	
+	/**
+	 * The {@link Resizer} to use for reductions to half the size or more.
+	 */
+	private final Resizer reducingResizer;
+	
+	/**
+	 * Lookup tables between 8-bit sRGB values and 16-bit linear values.
+	 * <p>
+	 * The tables are held in their own class so that they are only created
+	 * when a {@link LinearLightResizer} is first used.
+	 */
+	private static final class Tables {
+		private static final int[] TO_LINEAR = new int[256];
+		private static final byte[] TO_SRGB = new byte[65536];
+		
+		static {
+			for (int i = 0; i < TO_LINEAR.length; i++) {
+				TO_LINEAR[i] = (int)Math.round(toLinear(i / 255.0) * 65535.0);
+			}
+			for (int i = 0; i < TO_SRGB.length; i++) {
+				TO_SRGB[i] = (byte)Math.round(toSrgb(i / 65535.0) * 255.0);
+			}
+		}
+		
+		private static double toLinear(double v) {
+			return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+		}
+		
+		private static double toSrgb(double v) {
+			return v <= 0.0031308 ? v * 12.92 : 1.055 * Math.pow(v, 1 / 2.4) - 0.055;
+		}
+	}
+	
+	/**
+	 * Instantiates a {@link LinearLightResizer} which uses
+	 * {@link Resizers#BICUBIC} when enlarging images, and
+	 * {@link Resizers#BILINEAR} for reductions to half the size or more.
+	 */
+	public LinearLightResizer() {
+		this(Resizers.BICUBIC, Resizers.BILINEAR);
+	}
+	
+	/**
+	 * Instantiates a {@link LinearLightResizer}.
+	 * 
+	 * @param resizer		The {@link Resizer} to use when the destination
+	 * 						image is not less than half the size of the source
+	 * 						image.
+	 * @throws NullPointerException		If the {@link Resizer} is
+	 * 									{@code null}.
+	 */
+	public LinearLightResizer(Resizer resizer) {
+		this(resizer, resizer);
+	}
+	
+	/**
+	 * Instantiates a {@link LinearLightResizer}.
+	 * 
+	 * @param enlargingResizer	The {@link Resizer} to use when the
+	 * 							destination image is larger than the source
+	 * 							image in either dimension.
+	 * @param reducingResizer	The {@link Resizer} to use when the
+	 * 							destination image is at least half the size
+	 * 							of the source image in either dimension.
+	 * @throws NullPointerException		If either {@link Resizer} is
+	 * 									{@code null}.
+	 */
+	public LinearLightResizer(Resizer enlargingResizer, Resizer reducingResizer) {
+		if (enlargingResizer == null || reducingResizer == null) {
+			throw new NullPointerException("Resizer is null.");
+		}
+		this.resizer = enlargingResizer;
+		this.reducingResizer = reducingResizer;
+	}
+	
+	/**
+	 * Resizes an image, reducing it in linear light.
+	 * <p>
+	 * If the source and/or destination image is {@code null}, then a
+	 * {@link NullPointerException} will be thrown.
+	 * 
+	 * @param srcImage		The source image.
+	 * @param destImage		The destination image.
+	 * 
+	 * @throws NullPointerException		When the source and/or the destination
+	 * 									image is {@code null}.
+	 */
+	public void resize(BufferedImage srcImage, BufferedImage destImage)
+			throws NullPointerException {
+		if (srcImage == null || destImage == null) {
+			throw new NullPointerException(
+					"The source and/or destination image is null."
+			);
+		}
+		
+		int srcWidth = srcImage.getWidth();
+		int srcHeight = srcImage.getHeight();
+		int destWidth = destImage.getWidth();
+		int destHeight = destImage.getHeight();
+		
+		if (destWidth > srcWidth || destHeight > srcHeight) {
+			resizer.resize(srcImage, destImage);
+			return;
+		}
+		if (destWidth * 2L >= srcWidth || destHeight * 2L >= srcHeight) {
+			reducingResizer.resize(srcImage, destImage);
+			return;
+		}
+		
+		boolean hasAlpha = srcImage.getColorModel().hasAlpha();
+		boolean unpremultiply = destImage.getColorModel().hasAlpha();
+		int channels = hasAlpha ? 4 : 3;
+		
+		Kernel kx = new Kernel(srcWidth, destWidth);
+		Kernel ky = new Kernel(srcHeight, destHeight);
+		
+		/*
+		 * Source rows are first summed vertically into a row of linear
+		 * components, which is then reduced horizontally. Adjacent
+		 * destination rows share at most one source row, so the last source
+		 * row which was read is kept.
+		 */
+		int[] pixels = new int[srcWidth];
+		int lastRow = -1;
+		
+		Layout srcLayout = layoutOf(srcImage);
+		Layout destLayout = layoutOf(destImage);
+		byte[] srcData = createRowData(srcImage, srcLayout);
+		byte[] destData = createRowData(destImage, destLayout);
+		
+		int[] columnSums = new int[srcWidth * channels];
+		int[] sums = new int[destWidth * channels];
+		int[] destPixels = new int[destWidth];
+		
+		for (int dy = 0; dy < destHeight; dy++) {
+			Arrays.fill(columnSums, 0);
+			
+			int offset = dy * ky.stride;
+			for (int k = 0; k < ky.counts[dy]; k++) {
+				int sy = ky.starts[dy] + k;
+				if (sy != lastRow) {
+					readRow(srcImage, srcLayout, sy, pixels, srcData);
+					lastRow = sy;
+				}
+				
+				int weight = ky.weights[offset + k];
+				if (hasAlpha) {
+					addPremultiplied(pixels, columnSums, weight);
+				} else {
+					addOpaque(pixels, columnSums, weight);
+				}
+			}
+			
+			reduceRow(columnSums, sums, kx, channels);
+			toSrgb(sums, destPixels, hasAlpha, unpremultiply);
+			writeRow(destImage, destLayout, dy, destPixels, destData);
+		}
+	}
+	
+	/**
+	 * Adds the weighted linear red, green and blue components of opaque
+	 * ARGB pixels to the sums.
+	 */
+	private static void addOpaque(int[] pixels, int[] sums, int weight) {
+		int[] table = Tables.TO_LINEAR;
+		
+		for (int x = 0, i = 0; x < pixels.length; x++, i += 3) {
+			int p = pixels[x];
+			sums[i] += table[(p >> 16) & 0xff] * weight;
+			sums[i + 1] += table[(p >> 8) & 0xff] * weight;
+			sums[i + 2] += table[p & 0xff] * weight;
+		}
+	}
+	
+	/**
+	 * Adds the weighted, premultiplied linear components of ARGB pixels to
+	 * the sums.
+	 */
+	private static void addPremultiplied(int[] pixels, int[] sums, int weight) {
+		int[] table = Tables.TO_LINEAR;
+		
+		for (int x = 0, i = 0; x < pixels.length; x++, i += 4) {
+			int p = pixels[x];
+			int a = p >>> 24;
+			
+			/*
+			 * Scaling 0-255 to 0-256 lets a multiply and an 8-bit shift stand
+			 * in for multiplying by alpha / 255. Applying the weight first
+			 * keeps the product within 31 bits.
+			 */
+			int scaledWeight = (weight * (a + (a >> 7))) >> 8;
+			sums[i] += table[(p >> 16) & 0xff] * scaledWeight;
+			sums[i + 1] += table[(p >> 8) & 0xff] * scaledWeight;
+			sums[i + 2] += table[p & 0xff] * scaledWeight;
+			sums[i + 3] += a * 257 * weight;
+		}
+	}
+	
+	/**
+	 * Reduces a row of summed linear components horizontally. The results
+	 * still carry the fractional bits of the horizontal weights.
+	 */
+	private static void reduceRow(int[] columnSums, int[] sums, Kernel kx, int channels) {
+		int destWidth = kx.counts.length;
+		
+		for (int dx = 0, o = 0; dx < destWidth; dx++, o += channels) {
+			int offset = dx * kx.stride;
+			int i = kx.starts[dx] * channels;
+			int count = kx.counts[dx];
+			
+			int r = 0, g = 0, b = 0, a = 0;
+			for (int k = 0; k < count; k++, i += channels) {
+				int weight = kx.weights[offset + k];
+				r += ((columnSums[i] + WEIGHT_HALF) >> WEIGHT_BITS) * weight;
+				g += ((columnSums[i + 1] + WEIGHT_HALF) >> WEIGHT_BITS) * weight;
+				b += ((columnSums[i + 2] + WEIGHT_HALF) >> WEIGHT_BITS) * weight;
+				if (channels == 4) {
+					a += ((columnSums[i + 3] + WEIGHT_HALF) >> WEIGHT_BITS) * weight;
+				}
+			}
+			
+			sums[o] = r;
+			sums[o + 1] = g;
+			sums[o + 2] = b;
+			if (channels == 4) {
+				sums[o + 3] = a;
+			}
+		}
+	}
+	
+	/**
+	 * Converts summed premultiplied linear components back to ARGB pixels.
+	 */
+	private static void toSrgb(int[] sums, int[] pixels, boolean hasAlpha, boolean unpremultiply) {
+		byte[] table = Tables.TO_SRGB;
+		int channels = hasAlpha ? 4 : 3;
+		
+		for (int x = 0, i = 0; x < pixels.length; x++, i += channels) {
+			int r = (sums[i] + WEIGHT_HALF) >> WEIGHT_BITS;
+			int g = (sums[i + 1] + WEIGHT_HALF) >> WEIGHT_BITS;
+			int b = (sums[i + 2] + WEIGHT_HALF) >> WEIGHT_BITS;
+			int a = 255;
+			
+			if (hasAlpha) {
+				int alpha = (sums[i + 3] + WEIGHT_HALF) >> WEIGHT_BITS;
+				a = (alpha + 128) / 257;
+				
+				if (!unpremultiply) {
+					// Leaves the components premultiplied, which is the
+					// same as compositing them onto black.
+					a = 255;
+				} else if (alpha == 0) {
+					r = g = b = 0;
+				} else if (alpha < 65535) {
+					r = Math.min(65535, (int)(((long)r * 65535 + (alpha >> 1)) / alpha));
+					g = Math.min(65535, (int)(((long)g * 65535 + (alpha >> 1)) / alpha));
+					b = Math.min(65535, (int)(((long)b * 65535 + (alpha >> 1)) / alpha));
+				}
+			}
+			
+			pixels[x] = (a << 24)
+					| ((table[r] & 0xff) << 16)
+					| ((table[g] & 0xff) << 8)
+					| (table[b] & 0xff);
+		}
+	}
+	
+	/**
+	 * Returns an array which holds the samples of a row of the image, for
+	 * images whose samples are bytes, so that it is not allocated for
+	 * every row.
+	 */
+	private static byte[] createRowData(BufferedImage img, Layout layout) {
+		if (layout == Layout.BYTE_RGB || layout == Layout.BYTE_RGBA) {
+			return new byte[img.getWidth() * img.getRaster().getNumBands()];
+		}
+		return null;
+	}
+	
+	/**
+	 * Reads a row of the image as non-premultiplied ARGB pixels.
+	 */
+	private static void readRow(BufferedImage img, Layout layout, int y, int[] pixels, byte[] data) {
+		Raster raster = img.getRaster();
+		int width = pixels.length;
+		
+		switch (layout) {
+			case INT_RGB:
+				raster.getDataElements(0, y, width, 1, pixels);
+				break;
+				
+			case BYTE_RGB:
+			case BYTE_RGBA:
+				int bands = raster.getNumBands();
+				raster.getDataElements(0, y, width, 1, data);
+				for (int x = 0, i = 0; x < width; x++, i += bands) {
+					int a = bands == 4 ? data[i + 3] & 0xff : 0xff;
+					pixels[x] = (a << 24)
+							| ((data[i] & 0xff) << 16)
+							| ((data[i + 1] & 0xff) << 8)
+							| (data[i + 2] & 0xff);
+				}
+				break;
+				
+			default:
+				img.getRGB(0, y, width, 1, pixels, 0, width);
+		}
+	}
+	
+	/**
+	 * Writes a row of non-premultiplied ARGB pixels to the image.
+	 */
+	private static void writeRow(BufferedImage img, Layout layout, int y, int[] pixels, byte[] data) {
+		WritableRaster raster = img.getRaster();
+		int width = pixels.length;
+		
+		switch (layout) {
+			case INT_RGB:
+				raster.setDataElements(0, y, width, 1, pixels);
+				break;
+				
+			case BYTE_RGB:
+			case BYTE_RGBA:
+				int bands = raster.getNumBands();
+				for (int x = 0, i = 0; x < width; x++, i += bands) {
+					int p = pixels[x];
+					data[i] = (byte)(p >> 16);
+					data[i + 1] = (byte)(p >> 8);
+					data[i + 2] = (byte)p;
+					if (bands == 4) {
+						data[i + 3] = (byte)(p >>> 24);
+					}
+				}
+				raster.setDataElements(0, y, width, 1, data);
+				break;
+				
+			default:
+				img.setRGB(0, y, width, 1, pixels, 0, width);
+		}
+	}
+	
+	/**
+	 * Pixel layouts which can be read and written without going through the
+	 * {@link ColorModel} for each pixel.
+	 */
+	private enum Layout {
+		/**
+		 * Packed integer pixels with the same layout as
+		 * {@link BufferedImage#TYPE_INT_RGB} or
+		 * {@link BufferedImage#TYPE_INT_ARGB}.
+		 */
+		INT_RGB,
+		
+		/**
+		 * Byte samples in red, green, blue band order.
+		 */
+		BYTE_RGB,
+		
+		/**
+		 * Byte samples in red, green, blue, alpha band order.
+		 */
+		BYTE_RGBA,
+		
+		/**
+		 * Any other layout.
+		 */
+		OTHER,
+	}
+	
+	private static Layout layoutOf(BufferedImage img) {
+		ColorModel cm = img.getColorModel();
+		if (cm.isAlphaPremultiplied() || !cm.getColorSpace().isCS_sRGB()) {
+			return Layout.OTHER;
+		}
+		
+		if (cm instanceof DirectColorModel) {
+			DirectColorModel dcm = (DirectColorModel)cm;
+			boolean isRgb = dcm.getTransferType() == DataBuffer.TYPE_INT
+					&& dcm.getRedMask() == 0x00ff0000
+					&& dcm.getGreenMask() == 0x0000ff00
+					&& dcm.getBlueMask() == 0x000000ff
+					&& (!dcm.hasAlpha() || dcm.getAlphaMask() == 0xff000000);
+			
+			return isRgb ? Layout.INT_RGB : Layout.OTHER;
+			
+		} else if (cm instanceof ComponentColorModel
+				&& cm.getTransferType() == DataBuffer.TYPE_BYTE) {
+			int bands = img.getRaster().getNumBands();
+			if (bands == 3 && !cm.hasAlpha()) {
+				return Layout.BYTE_RGB;
+			} else if (bands == 4 && cm.hasAlpha()) {
+				return Layout.BYTE_RGBA;
+			}
+		}
+		return Layout.OTHER;
+	}
+	
+	/**
+	 * Area-averaging weights for reducing one dimension of an image.
+	 * <p>
+	 * Each destination pixel covers {@code srcLength / destLength} source
+	 * pixels. Source pixels which are only partly covered are weighted by
+	 * the covered fraction. The weights of each destination pixel add up to
+	 * {@link LinearLightResizer#WEIGHT_ONE}.
+	 */
+	private static final class Kernel {
+		private final int[] starts;
+		private final int[] counts;
+		private final int[] weights;
+		private final int stride;
+		
+		private Kernel(int srcLength, int destLength) {
+			double scale = (double)srcLength / destLength;
+			
+			starts = new int[destLength];
+			counts = new int[destLength];
+			stride = (int)Math.ceil(scale) + 1;
+			weights = new int[destLength * stride];
+			
+			for (int d = 0; d < destLength; d++) {
+				double start = d * scale;
+				double end = Math.min(start + scale, srcLength);
+				int first = (int)start;
+				int last = Math.min((int)Math.ceil(end), srcLength);
+				
+				starts[d] = first;
+				counts[d] = last - first;
+				
+				int offset = d * stride;
+				int sum = 0;
+				int largest = offset;
+				for (int s = first; s < last; s++) {
+					double covered = Math.min(end, s + 1) - Math.max(start, s);
+					int weight = (int)Math.round(covered / scale * WEIGHT_ONE);
+					weights[offset + s - first] = weight;
+					sum += weight;
+					
+					if (weight > weights[largest]) {
+						largest = offset + s - first;
+					}
+				}
+				
+				// Rounding may leave the sum slightly off.
+				weights[largest] += WEIGHT_ONE - sum;
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.resizers;
+
+import java.awt.Dimension;
+
+/**
+ * A {@link ResizerFactory} which reduces images in linear light, by wrapping
+ * the {@link Resizer}s chosen by another {@link ResizerFactory} in a
+ * {@link LinearLightResizer}.
+ * <p>
+ * The choices of the other {@link ResizerFactory} are kept for enlargements,
+ * for images which stay the same size, and for reductions which leave at
+ * least half the size, which the {@link LinearLightResizer} would hand back
+ * to the wrapped {@link Resizer} anyway.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class LinearLightResizerFactory implements ResizerFactory {
+	/**
+	 * The factory whose {@link Resizer}s are wrapped.
+	 */
+	private final ResizerFactory factory;
+	
+	/**
+	 * Creates an instance of the {@link LinearLightResizerFactory} which
+	 * wraps the {@link Resizer}s of the {@link DefaultResizerFactory}.
+	 */
+	public LinearLightResizerFactory() {
+		this(DefaultResizerFactory.getInstance());
+	}
+	
+	/**
+	 * Creates an instance of the {@link LinearLightResizerFactory} which
+	 * wraps the {@link Resizer}s of the specified {@link ResizerFactory}.
+	 * 
+	 * @param factory		The {@link ResizerFactory} whose {@link Resizer}s
+	 * 						are to be wrapped.
+	 * @throws NullPointerException		If the {@link ResizerFactory} is
+	 * 									{@code null}.
+	 */
+	public LinearLightResizerFactory(ResizerFactory factory) {
+		if (factory == null) {
+			throw new NullPointerException("ResizerFactory is null.");
+		}
+		this.factory = factory;
+	}
+
+	public Resizer getResizer() {
+		return new LinearLightResizer(factory.getResizer());
+	}
+
+	public Resizer getResizer(Dimension originalSize, Dimension thumbnailSize) {
+		Resizer resizer = factory.getResizer(originalSize, thumbnailSize);
+		
+		if (thumbnailSize.width * 2L >= originalSize.width
+				|| thumbnailSize.height * 2L >= originalSize.height) {
+			return resizer;
+		}
+		return new LinearLightResizer(resizer);
+	}
+}
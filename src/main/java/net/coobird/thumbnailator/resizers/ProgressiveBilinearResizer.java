@@ -98,16 +98,6 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 			return;
 		}
 		
-		// Temporary image used for in-place resizing of image.
-		BufferedImage tempImage = new BufferedImageBuilder(
-				currentWidth,
-				currentHeight,
-				destImage.getType()
-		).build();
-		
-		Graphics2D g = createGraphics(tempImage);
-		g.setComposite(AlphaComposite.Src);
-		
 		/*
 		 * Determine the size of the first resize step should be.
 		 * 1) Beginning from the target size
@@ -124,12 +114,39 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 		
 		currentWidth = startWidth / 2;
 		currentHeight = startHeight / 2;
-
+		
+		/*
+		 * The intermediate steps are performed by ping-ponging between two
+		 * working images, each sized to the largest step it will hold,
+		 * rather than a single image with the dimensions of the source.
+		 * 
+		 * The first working image holds the result of the first step, which
+		 * is the target size doubled as many times as it stays smaller than
+		 * the source in both dimensions. It can therefore be up to just
+		 * under the size of the source, such as 200 pixels wide when
+		 * reducing 350 pixels to 100. The second working image holds the
+		 * result of the second step, which is at most half of the first.
+		 * Any later step is smaller still, so it will fit into whichever of
+		 * the two images is not being read from.
+		 */
+		BufferedImage readImage = new BufferedImageBuilder(
+				currentWidth,
+				currentHeight,
+				destImage.getType()
+		).build();
+		BufferedImage writeImage = null;
+		
 		// Perform first resize step.
+		Graphics2D g = createGraphics(readImage);
+		g.setComposite(AlphaComposite.Src);
 		g.drawImage(srcImage, 0, 0, currentWidth, currentHeight, null);
+		g.dispose();
 		
-		// Perform an in-place progressive bilinear resize.
+		// Perform a progressive bilinear resize.
 		while (	(currentWidth >= targetWidth * 2) && (currentHeight >= targetHeight * 2) ) {
+			int previousWidth = currentWidth;
+			int previousHeight = currentHeight;
+			
 			currentWidth /= 2;
 			currentHeight /= 2;
 			
@@ -140,19 +157,37 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 				currentHeight = targetHeight;
 			}
 			
+			if (writeImage == null) {
+				writeImage = new BufferedImageBuilder(
+						currentWidth,
+						currentHeight,
+						destImage.getType()
+				).build();
+			}
+			
+			g = createGraphics(writeImage);
+			g.setComposite(AlphaComposite.Src);
 			g.drawImage(
-					tempImage,
+					readImage,
 					0, 0, currentWidth, currentHeight,
-					0, 0, currentWidth * 2, currentHeight * 2,
+					0, 0, previousWidth, previousHeight,
 					null
 			);
+			g.dispose();
+			
+			BufferedImage swap = readImage;
+			readImage = writeImage;
+			writeImage = swap;
 		}
 		
-		g.dispose();
-		
 		// Draw the resized image onto the destination image.
 		Graphics2D destg = createGraphics(destImage);
-		destg.drawImage(tempImage, 0, 0, targetWidth, targetHeight, 0, 0, currentWidth, currentHeight, null);
+		destg.drawImage(readImage, 0, 0, targetWidth, targetHeight, 0, 0, currentWidth, currentHeight, null);
 		destg.dispose();
+		
+		readImage.flush();
+		if (writeImage != null) {
+			writeImage.flush();
+		}
 	}
 }
@@ -0,0 +1,278 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.resizers;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A {@link Resizer} which performs resizing operations by repeatedly halving
+ * the image using a 2x2 box filter, followed by a final bilinear step to
+ * reach the target size.
+ * <p>
+ * Like the {@link ProgressiveBilinearResizer}, the image is reduced in steps
+ * of one half. However, rather than drawing each step through
+ * {@link Graphics2D}, the halving steps average 2x2 blocks of pixels directly
+ * on the integer pixel data of the working images. Source images of type
+ * {@link BufferedImage#TYPE_INT_RGB} or {@link BufferedImage#TYPE_INT_ARGB}
+ * are read directly for the first step; for other image types, the first
+ * step is performed with bilinear interpolation.
+ * <p>
+ * The working images are sized to the steps they hold, so the temporary
+ * memory used is at most a third of the source image.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ProgressiveBoxResizer extends AbstractResizer {
+	/**
+	 * Instantiates a {@link ProgressiveBoxResizer} with default
+	 * rendering hints.
+	 */
+	public ProgressiveBoxResizer() {
+		this(Collections.<RenderingHints.Key, Object>emptyMap());
+	}
+	
+	/**
+	 * Instantiates a {@link ProgressiveBoxResizer} with the specified
+	 * rendering hints.
+	 * <p>
+	 * The rendering hints are used for the final resizing step and, for
+	 * source images which are not integer RGB images, the first step.
+	 * 
+	 * @param hints		Additional rendering hints to apply.
+	 */
+	public ProgressiveBoxResizer(Map<RenderingHints.Key, Object> hints) {
+		super(RenderingHints.VALUE_INTERPOLATION_BILINEAR, hints);
+	}
+	
+	/**
+	 * Resizes an image using the progressive box filter technique.
+	 * <p>
+	 * If the source and/or destination image is {@code null}, then a
+	 * {@link NullPointerException} will be thrown.
+	 * 
+	 * @param srcImage		The source image.
+	 * @param destImage		The destination image.
+	 * 
+	 * @throws NullPointerException		When the source and/or the destination
+	 * 									image is {@code null}.
+	 */
+	@Override
+	public void resize(BufferedImage srcImage, BufferedImage destImage)
+			throws NullPointerException {
+		super.performChecks(srcImage, destImage);
+		
+		int currentWidth = srcImage.getWidth();
+		int currentHeight = srcImage.getHeight();
+		
+		final int targetWidth = destImage.getWidth();
+		final int targetHeight = destImage.getHeight();
+		
+		// If no halving step is possible, perform one-step.
+		if ((targetWidth * 2 > currentWidth) || (targetHeight * 2 > currentHeight)) {
+			super.resize(srcImage, destImage);
+			return;
+		}
+		
+		boolean hasAlpha = srcImage.getColorModel().hasAlpha();
+		int workingType = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		
+		int previousWidth = currentWidth;
+		int previousHeight = currentHeight;
+		currentWidth /= 2;
+		currentHeight /= 2;
+		
+		/*
+		 * As with the ProgressiveBilinearResizer, two working images are used
+		 * in alternation. The first holds the first step and the second holds
+		 * the second step; later steps are smaller, so they fit into either.
+		 */
+		BufferedImage readImage = new BufferedImage(currentWidth, currentHeight, workingType);
+		BufferedImage writeImage = null;
+		
+		int srcType = srcImage.getType();
+		if (srcType == BufferedImage.TYPE_INT_RGB || srcType == BufferedImage.TYPE_INT_ARGB) {
+			halve(
+					srcImage.getRaster(), previousWidth,
+					getData(readImage), readImage.getWidth(),
+					currentWidth, currentHeight,
+					srcType == BufferedImage.TYPE_INT_ARGB
+			);
+			
+		} else {
+			Graphics2D g = createGraphics(readImage);
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(srcImage, 0, 0, currentWidth, currentHeight, null);
+			g.dispose();
+		}
+		
+		while ((currentWidth >= targetWidth * 2) && (currentHeight >= targetHeight * 2)) {
+			currentWidth /= 2;
+			currentHeight /= 2;
+			
+			if (writeImage == null) {
+				writeImage = new BufferedImage(currentWidth, currentHeight, workingType);
+			}
+			
+			halve(
+					getData(readImage), readImage.getWidth(),
+					getData(writeImage), writeImage.getWidth(),
+					currentWidth, currentHeight,
+					hasAlpha
+			);
+			
+			BufferedImage swap = readImage;
+			readImage = writeImage;
+			writeImage = swap;
+		}
+		
+		// Draw the resized image onto the destination image.
+		Graphics2D destg = createGraphics(destImage);
+		destg.drawImage(readImage, 0, 0, targetWidth, targetHeight, 0, 0, currentWidth, currentHeight, null);
+		destg.dispose();
+	}
+	
+	/**
+	 * Returns the pixel data of a working image.
+	 * 
+	 * @param img		A working image, which has a {@link DataBufferInt}.
+	 * @return			The pixel data of the image.
+	 */
+	private static int[] getData(BufferedImage img) {
+		return ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+	}
+	
+	/**
+	 * Halves an image held in integer pixel data.
+	 * 
+	 * @param src			The source pixels.
+	 * @param srcStride		The number of pixels per row in the source.
+	 * @param dst			The destination pixels.
+	 * @param dstStride		The number of pixels per row in the destination.
+	 * @param dstWidth		The width of the destination.
+	 * @param dstHeight		The height of the destination.
+	 * @param hasAlpha		Whether the pixels have an alpha channel.
+	 */
+	private static void halve(
+			int[] src, int srcStride,
+			int[] dst, int dstStride,
+			int dstWidth, int dstHeight,
+			boolean hasAlpha
+	) {
+		for (int y = 0; y < dstHeight; y++) {
+			int row0 = (y * 2) * srcStride;
+			halveRow(src, row0, row0 + srcStride, dst, y * dstStride, dstWidth, hasAlpha);
+		}
+	}
+	
+	/**
+	 * Halves an image read from a {@link Raster} of an integer RGB image.
+	 * <p>
+	 * Pixels are read two rows at a time, so the source raster's data
+	 * buffer is never exposed.
+	 * 
+	 * @param src			The source raster.
+	 * @param srcWidth		The width of the source.
+	 * @param dst			The destination pixels.
+	 * @param dstStride		The number of pixels per row in the destination.
+	 * @param dstWidth		The width of the destination.
+	 * @param dstHeight		The height of the destination.
+	 * @param hasAlpha		Whether the pixels have an alpha channel.
+	 */
+	private static void halve(
+			Raster src, int srcWidth,
+			int[] dst, int dstStride,
+			int dstWidth, int dstHeight,
+			boolean hasAlpha
+	) {
+		int[] rows = new int[srcWidth * 2];
+		for (int y = 0; y < dstHeight; y++) {
+			src.getDataElements(0, y * 2, srcWidth, 2, rows);
+			halveRow(rows, 0, srcWidth, dst, y * dstStride, dstWidth, hasAlpha);
+		}
+	}
+	
+	/**
+	 * Averages 2x2 blocks from two source rows into one destination row.
+	 * <p>
+	 * Pixels with an alpha channel are averaged with their color components
+	 * weighted by alpha, so that transparent pixels do not bleed their color
+	 * into neighboring pixels.
+	 */
+	private static void halveRow(
+			int[] src, int row0, int row1,
+			int[] dst, int dstOffset, int dstWidth,
+			boolean hasAlpha
+	) {
+		for (int x = 0; x < dstWidth; x++) {
+			int p0 = src[row0 + x * 2];
+			int p1 = src[row0 + x * 2 + 1];
+			int p2 = src[row1 + x * 2];
+			int p3 = src[row1 + x * 2 + 1];
+			
+			if (!hasAlpha) {
+				int r = ((p0 >> 16) & 0xff) + ((p1 >> 16) & 0xff) + ((p2 >> 16) & 0xff) + ((p3 >> 16) & 0xff);
+				int g = ((p0 >> 8) & 0xff) + ((p1 >> 8) & 0xff) + ((p2 >> 8) & 0xff) + ((p3 >> 8) & 0xff);
+				int b = (p0 & 0xff) + (p1 & 0xff) + (p2 & 0xff) + (p3 & 0xff);
+				
+				dst[dstOffset + x] = 0xff000000
+						| (((r + 2) >> 2) << 16)
+						| (((g + 2) >> 2) << 8)
+						| ((b + 2) >> 2);
+				continue;
+			}
+			
+			int a0 = p0 >>> 24;
+			int a1 = p1 >>> 24;
+			int a2 = p2 >>> 24;
+			int a3 = p3 >>> 24;
+			int a = a0 + a1 + a2 + a3;
+			
+			if (a == 0) {
+				dst[dstOffset + x] = 0;
+				continue;
+			}
+			
+			int r = ((p0 >> 16) & 0xff) * a0 + ((p1 >> 16) & 0xff) * a1 + ((p2 >> 16) & 0xff) * a2 + ((p3 >> 16) & 0xff) * a3;
+			int g = ((p0 >> 8) & 0xff) * a0 + ((p1 >> 8) & 0xff) * a1 + ((p2 >> 8) & 0xff) * a2 + ((p3 >> 8) & 0xff) * a3;
+			int b = (p0 & 0xff) * a0 + (p1 & 0xff) * a1 + (p2 & 0xff) * a2 + (p3 & 0xff) * a3;
+			int half = a >> 1;
+			
+			dst[dstOffset + x] = (((a + 2) >> 2) << 24)
+					| (((r + half) / a) << 16)
+					| (((g + half) / a) << 8)
+					| ((b + half) / a);
+		}
+	}
+}
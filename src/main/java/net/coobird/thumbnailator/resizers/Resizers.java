@@ -85,7 +85,18 @@ public enum Resizers implements Resizer {
 	 * For details on this technique, refer to the documentation of the
 	 * {@link ProgressiveBilinearResizer} class.
 	 */
-	PROGRESSIVE(new ProgressiveBilinearResizer())
+	PROGRESSIVE(new ProgressiveBilinearResizer()),
+
+	/**
+	 * A {@link Resizer} which performs resizing operations by repeatedly
+	 * halving the image with a 2x2 box filter.
+	 * <p>
+	 * For details on this technique, refer to the documentation of the
+	 * {@link ProgressiveBoxResizer} class.
+	 * 
+	 * @since	0.4.21
+	 */
+	PROGRESSIVE_BOX(new ProgressiveBoxResizer())
 	;
 	
 	private final Resizer resizer;
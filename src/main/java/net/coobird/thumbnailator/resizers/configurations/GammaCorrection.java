@@ -0,0 +1,85 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.resizers.configurations;
+
+import java.awt.RenderingHints;
+import java.awt.RenderingHints.Key;
+
+import net.coobird.thumbnailator.resizers.LinearLightResizer;
+
+/**
+ * An enum which is used to specify whether resizing operations should
+ * reduce images in linear light.
+ * <p>
+ * Java 2D has no rendering hint for this, so this configuration uses its own
+ * {@link RenderingHints.Key}, {@link #KEY}. When gamma correction is enabled,
+ * images are reduced by the {@link LinearLightResizer}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public enum GammaCorrection implements ResizerConfiguration {
+	/**
+	 * A hint used to reduce images in linear light.
+	 */
+	ENABLE,
+	
+	/**
+	 * A hint used to reduce images by averaging gamma-encoded values.
+	 */
+	DISABLE,
+	
+	/**
+	 * A hint to use the default setting, which is to average gamma-encoded
+	 * values.
+	 */
+	DEFAULT,
+	;
+	
+	/**
+	 * The rendering hint key for gamma correction settings.
+	 * The values for this key are the values of this enum.
+	 */
+	public static final Key KEY = new Key(0x47414d41) {
+		@Override
+		public boolean isCompatibleValue(Object val) {
+			return val instanceof GammaCorrection;
+		}
+		
+		@Override
+		public String toString() {
+			return "Gamma correction key";
+		}
+	};
+
+	public Key getKey() {
+		return KEY;
+	}
+
+	public Object getValue() {
+		return this;
+	}
+}
@@ -28,6 +28,7 @@
 package net.coobird.thumbnailator.resizers.configurations;
 
 import net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer;
+import net.coobird.thumbnailator.resizers.ProgressiveBoxResizer;
 
 /**
  * An enum which is used to specify how to scale images when creating
@@ -54,5 +55,16 @@ public enum ScalingMode {
 	 * {@link ProgressiveBilinearResizer} class.
 	 */
 	PROGRESSIVE_BILINEAR,
+	
+	/**
+	 * A hint to use progressive halving with a 2x2 box filter when resizing
+	 * images.
+	 * <p>
+	 * For details on this technique, refer to the documentation of the
+	 * {@link ProgressiveBoxResizer} class.
+	 * 
+	 * @since	0.4.21
+	 */
+	PROGRESSIVE_BOX,
 	;
 }
@@ -31,6 +31,8 @@ import java.io.IOException;
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.io.FileImageSink;
 import net.coobird.thumbnailator.tasks.io.FileImageSource;
+import net.coobird.thumbnailator.tasks.io.FrameProcessor;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
 
 /**
  * A thumbnail generation task which reads and writes data from and to a
@@ -76,6 +78,21 @@ public class FileThumbnailTask extends ThumbnailTask<File, File> {
 	public void write(BufferedImage img) throws IOException {
 		task.write(img);
 	}
+	
+	@Override
+	public FrameSequence readFrames() throws IOException {
+		return task.readFrames();
+	}
+	
+	@Override
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		return task.readFrames(processor);
+	}
+	
+	@Override
+	public void writeFrames(FrameSequence frames) throws IOException {
+		task.writeFrames(frames);
+	}
 
 	@Override
 	public ThumbnailParameter getParam() {
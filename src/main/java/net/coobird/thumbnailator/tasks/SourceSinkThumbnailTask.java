@@ -28,8 +28,12 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.io.FrameProcessor;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
 import net.coobird.thumbnailator.tasks.io.ImageSink;
 import net.coobird.thumbnailator.tasks.io.ImageSource;
+import net.coobird.thumbnailator.tasks.io.MultiFrameImageSink;
+import net.coobird.thumbnailator.tasks.io.MultiFrameImageSource;
 
 /**
  * A {@link ThumbnailTask} which holds an {@link ImageSource} from which the
@@ -98,8 +102,64 @@ public class SourceSinkThumbnailTask<S, D> extends ThumbnailTask<S, D> {
 		return img;
 	}
 
+	/**
+	 * Reads the frames of the source image, if the {@link ImageSource} is a
+	 * {@link MultiFrameImageSource}, or else the image as a single frame.
+	 */
+	@Override
+	public FrameSequence readFrames() throws IOException {
+		if (!(source instanceof MultiFrameImageSource)) {
+			return super.readFrames();
+		}
+		
+		FrameSequence frames = ((MultiFrameImageSource<S>)source).readFrames();
+		inputFormatName = source.getInputFormatName();
+		
+		return frames;
+	}
+	
+	/**
+	 * Reads and processes the frames from the source, if the
+	 * {@link ImageSource} is a {@link MultiFrameImageSource}, or else the
+	 * image as a single frame.
+	 */
+	@Override
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		if (!(source instanceof MultiFrameImageSource)) {
+			return super.readFrames(processor);
+		}
+		
+		FrameSequence frames = ((MultiFrameImageSource<S>)source).readFrames(processor);
+		inputFormatName = source.getInputFormatName();
+		
+		return frames;
+	}
+
 	@Override
 	public void write(BufferedImage img) throws IOException {
+		prepareDestination();
+		destination.write(img);
+	}
+	
+	/**
+	 * Writes the frames to the destination, if the {@link ImageSink} is a
+	 * {@link MultiFrameImageSink}, or else the first frame.
+	 */
+	@Override
+	public void writeFrames(FrameSequence frames) throws IOException {
+		if (!(destination instanceof MultiFrameImageSink)) {
+			super.writeFrames(frames);
+			return;
+		}
+		
+		prepareDestination();
+		((MultiFrameImageSink<D>)destination).writeFrames(frames);
+	}
+	
+	/**
+	 * Sets the output format of the destination.
+	 */
+	private void prepareDestination() {
 		String paramOutputFormat = param.getOutputFormat();
 		String formatName = null;
 		
@@ -114,7 +174,6 @@ public class SourceSinkThumbnailTask<S, D> extends ThumbnailTask<S, D> {
 		}
 
 		destination.setOutputFormatName(formatName);
-		destination.write(img);
 	}
 
 	@Override
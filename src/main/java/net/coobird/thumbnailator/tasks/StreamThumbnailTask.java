@@ -30,6 +30,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.io.FrameProcessor;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
 import net.coobird.thumbnailator.tasks.io.InputStreamImageSource;
 import net.coobird.thumbnailator.tasks.io.OutputStreamImageSink;
 
@@ -81,6 +83,21 @@ public class StreamThumbnailTask extends ThumbnailTask<InputStream, OutputStream
 	public void write(BufferedImage img) throws IOException {
 		task.write(img);
 	}
+	
+	@Override
+	public FrameSequence readFrames() throws IOException {
+		return task.readFrames();
+	}
+	
+	@Override
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		return task.readFrames(processor);
+	}
+	
+	@Override
+	public void writeFrames(FrameSequence frames) throws IOException {
+		task.writeFrames(frames);
+	}
 
 	@Override
 	public ThumbnailParameter getParam() {
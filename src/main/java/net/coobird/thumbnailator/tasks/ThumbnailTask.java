@@ -26,8 +26,12 @@ package net.coobird.thumbnailator.tasks;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.io.FrameProcessor;
+import net.coobird.thumbnailator.tasks.io.FrameSequence;
 
 /**
  * This class is used by {@link ThumbnailTask} implementations which is used
@@ -101,6 +105,74 @@ public abstract class ThumbnailTask<S, D> {
 	 */
 	public abstract void write(BufferedImage img) throws IOException;
 	
+	/**
+	 * Reads the frames of an animated or multi-page source image, as
+	 * selected by the {@link net.coobird.thumbnailator.tasks.io.FrameOptions}
+	 * of the {@link ThumbnailParameter}.
+	 * <p>
+	 * This implementation reads the image returned by {@link #read()} as
+	 * a single frame. Tasks whose source can read all frames override this
+	 * method.
+	 * 
+	 * @return					The frames which were obtained from the
+	 * 							source.
+	 * @throws IOException		Thrown when an I/O problem occurs when reading
+	 * 							from the image source.
+	 * @since	0.4.21
+	 */
+	public FrameSequence readFrames() throws IOException {
+		return new FrameSequence(read());
+	}
+	
+	/**
+	 * Reads the frames of an animated or multi-page source image, as
+	 * {@link #readFrames()} does, handing each frame to the given
+	 * {@link FrameProcessor} as soon as it has been read, so that all the
+	 * frames at the size of the source image need not be kept.
+	 * <p>
+	 * This implementation processes the frames returned by
+	 * {@link #readFrames()}. Tasks whose source can read all frames
+	 * override this method.
+	 * 
+	 * @param processor			The processor of the frames.
+	 * @return					The processed frames.
+	 * @throws IOException		Thrown when an I/O problem occurs when reading
+	 * 							from the image source, or processing a frame.
+	 * @throws NullPointerException	If the processor is {@code null}.
+	 * @since	0.4.21
+	 */
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		if (processor == null) {
+			throw new NullPointerException("FrameProcessor cannot be null.");
+		}
+		
+		FrameSequence frames = readFrames();
+		List<BufferedImage> processed = new ArrayList<BufferedImage>();
+		for (BufferedImage frame : frames.getFrames()) {
+			processed.add(processor.process(frame));
+		}
+		return frames.withFrames(processed);
+	}
+	
+	/**
+	 * Writes the thumbnails of the frames of an animated or multi-page
+	 * image to the destination.
+	 * <p>
+	 * This implementation writes the first frame with
+	 * {@link #write(BufferedImage)}. Tasks whose destination can hold a
+	 * sequence of images override this method.
+	 * 
+	 * @param frames		The frames to write.
+	 * @throws UnsupportedFormatException	When an image file which is to be
+	 * 										read or written is unsupported.
+	 * @throws IOException	Thrown when an I/O problem occurs when writing the
+	 * 						images.
+	 * @since	0.4.21
+	 */
+	public void writeFrames(FrameSequence frames) throws IOException {
+		write(frames.getFrame(0));
+	}
+	
 	/**
 	 * Returns the {@link ThumbnailParameter} for this {@link ThumbnailTask},
 	 * used when performing a thumbnail generation operation.
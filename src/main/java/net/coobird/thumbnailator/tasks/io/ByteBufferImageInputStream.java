@@ -0,0 +1,115 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * An {@link ImageInputStream} which reads from a {@link ByteBuffer}.
+ * <p>
+ * The stream covers the bytes between the position and the limit of the
+ * buffer at the time the stream is created. Seeking is performed by moving
+ * the position of a private view of the buffer, so no data is cached or
+ * copied other than into the arrays given to the read methods. The position
+ * and limit of the original buffer are not changed.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+	/**
+	 * A view of the buffer to read from, starting at index {@code 0}.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * Instantiates a {@link ByteBufferImageInputStream}.
+	 * 
+	 * @param buffer		The buffer to read from.
+	 */
+	ByteBufferImageInputStream(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		
+		if (streamPos >= buffer.limit()) {
+			return -1;
+		}
+		return buffer.get((int)streamPos++) & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		bitOffset = 0;
+		
+		if (len == 0) {
+			return 0;
+		}
+		
+		long remaining = buffer.limit() - streamPos;
+		if (remaining <= 0) {
+			return -1;
+		}
+		
+		int length = (int)Math.min(len, remaining);
+		// Cast so that this links against the Java 8 Buffer.position(int).
+		((Buffer)buffer).position((int)streamPos);
+		buffer.get(b, off, length);
+		streamPos += length;
+		
+		return length;
+	}
+
+	@Override
+	public long length() {
+		return buffer.limit();
+	}
+
+	@Override
+	public boolean isCached() {
+		return true;
+	}
+
+	@Override
+	public boolean isCachedMemory() {
+		return true;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.ImageOutputStreamImpl;
+
+/**
+ * An {@link ImageOutputStream} which writes to a {@link ByteBuffer} that
+ * grows as needed.
+ * <p>
+ * Data is written starting at the position of the initial buffer. When the
+ * buffer is full, it is replaced by a buffer of twice the capacity, of the
+ * same kind (direct or heap) as the initial buffer, and the data written so
+ * far is copied to it. Once writing is finished, the data can be obtained
+ * through {@link #toByteBuffer()} without being copied again.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+class ByteBufferImageOutputStream extends ImageOutputStreamImpl {
+	/**
+	 * The buffer being written to. Data is stored from index {@code 0} of
+	 * this buffer, which is a slice of the initial buffer until it needs to
+	 * grow.
+	 */
+	private ByteBuffer buffer;
+	
+	/**
+	 * The number of bytes written to the buffer.
+	 */
+	private int length = 0;
+	
+	/**
+	 * Instantiates a {@link ByteBufferImageOutputStream}.
+	 * 
+	 * @param buffer		The buffer to write to first. Data is written
+	 * 						from its position. The position and limit of the
+	 * 						buffer are not changed.
+	 */
+	ByteBufferImageOutputStream(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+	
+	/**
+	 * Makes room in the buffer for writing up to the specified index.
+	 * 
+	 * @param end		The index right after the last byte to write.
+	 */
+	private void ensureCapacity(long end) throws IOException {
+		if (end > Integer.MAX_VALUE) {
+			throw new IOException("Cannot write more than 2GB to a ByteBuffer.");
+		}
+		if (end <= buffer.capacity()) {
+			return;
+		}
+		
+		int capacity = (int)Math.min(
+				Math.max(end, buffer.capacity() * 2L + 1),
+				Integer.MAX_VALUE
+		);
+		
+		ByteBuffer newBuffer = buffer.isDirect()
+				? ByteBuffer.allocateDirect(capacity)
+				: ByteBuffer.allocate(capacity);
+		
+		ByteBuffer data = buffer.duplicate();
+		// Cast so that this links against the Java 8 Buffer methods.
+		((Buffer)data).position(0);
+		((Buffer)data).limit(length);
+		newBuffer.put(data);
+		
+		buffer = newBuffer;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		checkClosed();
+		flushBits();
+		
+		ensureCapacity(streamPos + 1);
+		buffer.put((int)streamPos, (byte)b);
+		streamPos++;
+		length = (int)Math.max(length, streamPos);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		flushBits();
+		
+		ensureCapacity(streamPos + len);
+		((Buffer)buffer).position((int)streamPos);
+		buffer.put(b, off, len);
+		streamPos += len;
+		length = (int)Math.max(length, streamPos);
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		
+		if (streamPos >= length) {
+			return -1;
+		}
+		return buffer.get((int)streamPos++) & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		bitOffset = 0;
+		
+		if (len == 0) {
+			return 0;
+		}
+		
+		long remaining = length - streamPos;
+		if (remaining <= 0) {
+			return -1;
+		}
+		
+		int count = (int)Math.min(len, remaining);
+		((Buffer)buffer).position((int)streamPos);
+		buffer.get(b, off, count);
+		streamPos += count;
+		
+		return count;
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public boolean isCached() {
+		return true;
+	}
+
+	@Override
+	public boolean isCachedMemory() {
+		return true;
+	}
+	
+	/**
+	 * Returns the data written to this stream.
+	 * <p>
+	 * The returned buffer shares its content with the buffer written to,
+	 * and has a position of {@code 0} and a limit of the number of bytes
+	 * written.
+	 * 
+	 * @return		The written data.
+	 */
+	ByteBuffer toByteBuffer() {
+		ByteBuffer data = buffer.duplicate();
+		((Buffer)data).position(0);
+		((Buffer)data).limit(length);
+		return data.slice();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+
+/**
+ * An {@link ImageSink} which writes the thumbnail image to a
+ * {@link ByteBuffer}.
+ * <p>
+ * The encoded image is written to a buffer which grows as needed. Once the
+ * thumbnail has been written, {@link #getSink()} returns the buffer holding
+ * the encoded image, without the data being copied to a new array as
+ * {@link java.io.ByteArrayOutputStream#toByteArray()} would.
+ * <p>
+ * An initial buffer can be given to choose its capacity and whether the
+ * data is kept in a direct buffer. When the encoded image fits in the
+ * initial buffer, the returned buffer shares its content.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ByteBufferImageSink extends AbstractImageSink<ByteBuffer>
+		implements MultiFrameImageSink<ByteBuffer> {
+	/**
+	 * The default capacity of the initial buffer.
+	 */
+	private static final int DEFAULT_CAPACITY = 64 * 1024;
+	
+	/**
+	 * The buffer to write to first.
+	 */
+	private final ByteBuffer initialBuffer;
+	
+	/**
+	 * The buffer holding the thumbnail, or {@code null} if a thumbnail
+	 * has not been written yet.
+	 */
+	private ByteBuffer result;
+	
+	/**
+	 * Instantiates a {@link ByteBufferImageSink} which writes to a heap
+	 * buffer.
+	 */
+	public ByteBufferImageSink() {
+		this(ByteBuffer.allocate(DEFAULT_CAPACITY));
+	}
+	
+	/**
+	 * Instantiates a {@link ByteBufferImageSink} which first writes to the
+	 * specified buffer, starting at its position.
+	 * <p>
+	 * If the thumbnail does not fit in the remaining space of the buffer,
+	 * the data is moved to a larger buffer of the same kind.
+	 * 
+	 * @param buffer	The buffer to write to first.
+	 * @throws NullPointerException		If the {@link ByteBuffer} is
+	 * 									{@code null}.
+	 * @throws IllegalArgumentException	If the {@link ByteBuffer} is
+	 * 									read-only.
+	 */
+	public ByteBufferImageSink(ByteBuffer buffer) {
+		super();
+		
+		if (buffer == null) {
+			throw new NullPointerException("ByteBuffer cannot be null.");
+		}
+		if (buffer.isReadOnly()) {
+			throw new IllegalArgumentException("ByteBuffer cannot be read-only.");
+		}
+		
+		this.initialBuffer = buffer;
+	}
+
+	/**
+	 * Writes the resulting image to a {@link ByteBuffer}.
+	 * 
+	 * @param img							The image to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the image.
+	 * @throws NullPointerException		If the image is {@code null}.
+	 * @throws IllegalStateException	If the output format has not been set
+	 * 									by calling the
+	 * 									{@link #setOutputFormatName(String)}
+	 * 									method.
+	 */
+	public void write(BufferedImage img) throws IOException {
+		super.write(img);
+		
+		write(new FrameSequence(img));
+	}
+	
+	/**
+	 * Writes the frames to a {@link ByteBuffer} as a sequence of images,
+	 * as described in {@link ImageOutputStreamImageSink#writeFrames(FrameSequence)}.
+	 * 
+	 * @param frames						The frames to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the images.
+	 * @throws NullPointerException		If the frames are {@code null}.
+	 * @throws IllegalStateException	If the output format has not been set
+	 * 									by calling the
+	 * 									{@link #setOutputFormatName(String)}
+	 * 									method.
+	 * @since	0.4.21
+	 */
+	public void writeFrames(FrameSequence frames) throws IOException {
+		if (frames == null) {
+			throw new NullPointerException("Frames cannot be null.");
+		}
+		
+		write(frames);
+	}
+	
+	private void write(FrameSequence frames) throws IOException {
+		ByteBufferImageOutputStream ios =
+				new ByteBufferImageOutputStream(initialBuffer);
+		
+		MultiFrameImageSink<?> imageSink = new ImageOutputStreamImageSink(ios);
+		imageSink.setThumbnailParameter(param);
+		imageSink.setOutputFormatName(outputFormat);
+		
+		try {
+			imageSink.writeFrames(frames);
+		} finally {
+			ios.close();
+		}
+		
+		result = ios.toByteBuffer();
+	}
+
+	/**
+	 * Returns the buffer holding the encoded thumbnail.
+	 * <p>
+	 * The returned buffer has a position of {@code 0} and a limit of the
+	 * size of the encoded thumbnail.
+	 * 
+	 * @return							The encoded thumbnail.
+	 * @throws IllegalStateException	If a thumbnail has not been written
+	 * 									to this {@link ByteBufferImageSink}
+	 * 									yet.
+	 */
+	public ByteBuffer getSink() {
+		if (result == null) {
+			throw new IllegalStateException("ByteBufferImageSink has not been written to yet.");
+		}
+		return result;
+	}
+}
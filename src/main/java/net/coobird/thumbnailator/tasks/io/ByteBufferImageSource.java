@@ -0,0 +1,108 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * An {@link ImageSource} which reads the source image from the data held
+ * in a {@link ByteBuffer}.
+ * <p>
+ * The image is decoded directly from the bytes between the position and
+ * the limit of the buffer, through an {@link ImageInputStream} which seeks
+ * within the buffer. Unlike reading from an {@link java.io.InputStream},
+ * the data is not cached in another buffer or in a temporary file.
+ * The position and limit of the buffer are not changed.
+ * <p>
+ * Data held in a {@code byte[]} can be read by wrapping it using
+ * {@link ByteBuffer#wrap(byte[])}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ByteBufferImageSource extends AbstractImageSource<ByteBuffer>
+		implements MultiFrameImageSource<ByteBuffer> {
+	/**
+	 * The buffer holding the data of the source image.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * Instantiates a {@link ByteBufferImageSource} with the
+	 * {@link ByteBuffer} holding the data of the source image.
+	 * 
+	 * @param buffer	The buffer holding the source image data.
+	 * @throws NullPointerException		If the {@link ByteBuffer} is
+	 * 									{@code null}.
+	 */
+	public ByteBufferImageSource(ByteBuffer buffer) {
+		super();
+		
+		if (buffer == null) {
+			throw new NullPointerException("ByteBuffer cannot be null.");
+		}
+		
+		this.buffer = buffer;
+	}
+
+	public BufferedImage read() throws IOException {
+		return read(FrameReading.FIRST_FRAME).getFrame(0);
+	}
+
+	public FrameSequence readFrames() throws IOException {
+		return read(FrameReading.ALL_FRAMES);
+	}
+	
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		return read(FrameReading.processedBy(processor));
+	}
+
+	private FrameSequence read(FrameReading reading) throws IOException {
+		ImageInputStream iis = new ByteBufferImageInputStream(buffer);
+		
+		try {
+			ImageInputStreamImageSource imageSource =
+					new ImageInputStreamImageSource(iis);
+			imageSource.setThumbnailParameter(param);
+			
+			FrameSequence frames = reading.readFrom(imageSource);
+			inputFormatName = imageSource.getInputFormatName();
+			return finishedReading(frames);
+			
+		} finally {
+			iis.close();
+		}
+	}
+
+	public ByteBuffer getSource() {
+		return buffer;
+	}
+}
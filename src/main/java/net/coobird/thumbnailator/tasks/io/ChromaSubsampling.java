@@ -0,0 +1,87 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+/**
+ * The chroma subsampling to use when writing JPEG images.
+ * <p>
+ * Subsampling stores the color difference components at a lower resolution
+ * than the luminance, which makes the image smaller at the expense of color
+ * detail along sharp edges.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public enum ChromaSubsampling {
+	/**
+	 * The subsampling chosen by the encoder, which is 4:2:0 for the JPEG
+	 * writer bundled with the JRE.
+	 */
+	DEFAULT(0, 0),
+	
+	/**
+	 * No subsampling, where all components are stored at full resolution.
+	 */
+	CHROMA_444(1, 1),
+	
+	/**
+	 * The color difference components are stored at half the horizontal
+	 * resolution.
+	 */
+	CHROMA_422(2, 1),
+	
+	/**
+	 * The color difference components are stored at half the horizontal and
+	 * half the vertical resolution.
+	 */
+	CHROMA_420(2, 2),
+	;
+	
+	private final int horizontalFactor;
+	private final int verticalFactor;
+	
+	private ChromaSubsampling(int horizontalFactor, int verticalFactor) {
+		this.horizontalFactor = horizontalFactor;
+		this.verticalFactor = verticalFactor;
+	}
+	
+	/**
+	 * Returns the horizontal sampling factor of the luminance component
+	 * relative to the color difference components.
+	 */
+	int getHorizontalFactor() {
+		return horizontalFactor;
+	}
+	
+	/**
+	 * Returns the vertical sampling factor of the luminance component
+	 * relative to the color difference components.
+	 */
+	int getVerticalFactor() {
+		return verticalFactor;
+	}
+}
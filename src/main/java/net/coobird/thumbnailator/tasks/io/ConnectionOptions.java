@@ -0,0 +1,221 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+/**
+ * Options for the connections which retrieve source images from URLs.
+ * <p>
+ * Instances of this class are immutable. Starting from {@link #DEFAULT},
+ * each option is set by a method which returns a copy with that option
+ * changed:
+ * <pre>
+ConnectionOptions options = ConnectionOptions.DEFAULT
+    .connectTimeout(2000)
+    .readTimeout(5000)
+    .maxBodySize(20 * 1024 * 1024)
+    .validatorCache(ValidatorCache.inMemory(64 * 1024 * 1024));
+ * </pre>
+ * The body of the response is read completely before the image is decoded,
+ * and the connection is closed without being disconnected, so that HTTP
+ * connections are kept alive and reused by later requests to the same
+ * server, as long as the {@code http.keepAlive} system property is not
+ * {@code false}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ConnectionOptions {
+	/**
+	 * The options of connections which wait indefinitely, read responses
+	 * of any size, and do not use a {@link ValidatorCache}.
+	 */
+	public static final ConnectionOptions DEFAULT = new ConnectionOptions();
+	
+	/**
+	 * A value for the timeouts and the maximum body size which denotes
+	 * that they are not limited.
+	 */
+	public static final int UNLIMITED = 0;
+	
+	/*
+	 * The fields are only assigned on copies before they are returned, so
+	 * that instances are effectively immutable.
+	 */
+	private int connectTimeout = UNLIMITED;
+	private int readTimeout = UNLIMITED;
+	private int maxBodySize = UNLIMITED;
+	private boolean keepAlive = true;
+	private ValidatorCache validatorCache = null;
+	
+	private ConnectionOptions() {}
+	
+	private ConnectionOptions copy() {
+		ConnectionOptions copy = new ConnectionOptions();
+		copy.connectTimeout = connectTimeout;
+		copy.readTimeout = readTimeout;
+		copy.maxBodySize = maxBodySize;
+		copy.keepAlive = keepAlive;
+		copy.validatorCache = validatorCache;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the time to wait for a
+	 * connection to be established.
+	 * <p>
+	 * When the time runs out, a {@link java.net.SocketTimeoutException} is
+	 * thrown.
+	 * 
+	 * @param millis		The timeout in milliseconds, or
+	 * 						{@link #UNLIMITED}.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the timeout is negative.
+	 */
+	public ConnectionOptions connectTimeout(int millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Timeout cannot be negative.");
+		}
+		ConnectionOptions copy = copy();
+		copy.connectTimeout = millis;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the time to wait for data from
+	 * the connection.
+	 * <p>
+	 * When the time runs out, a {@link java.net.SocketTimeoutException} is
+	 * thrown.
+	 * 
+	 * @param millis		The timeout in milliseconds, or
+	 * 						{@link #UNLIMITED}.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the timeout is negative.
+	 */
+	public ConnectionOptions readTimeout(int millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Timeout cannot be negative.");
+		}
+		ConnectionOptions copy = copy();
+		copy.readTimeout = millis;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the largest number of bytes of
+	 * a response body which is read.
+	 * <p>
+	 * Larger responses cause a {@link ResponseTooLargeException} to be
+	 * thrown, without reading more than the limit.
+	 * 
+	 * @param bytes			The maximum size, or {@link #UNLIMITED}.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the size is negative.
+	 */
+	public ConnectionOptions maxBodySize(int bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("Size cannot be negative.");
+		}
+		ConnectionOptions copy = copy();
+		copy.maxBodySize = bytes;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options which asks HTTP servers to keep the
+	 * connection open for reuse, or to close it after the response.
+	 * <p>
+	 * Connections are kept alive by default.
+	 * 
+	 * @param keepAlive		{@code true} to keep connections alive.
+	 * @return				The new options.
+	 */
+	public ConnectionOptions keepAlive(boolean keepAlive) {
+		ConnectionOptions copy = copy();
+		copy.keepAlive = keepAlive;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options which makes conditional requests
+	 * with the validators stored in the specified cache, so that images
+	 * which have not changed are not downloaded again.
+	 * 
+	 * @param cache			The cache, or {@code null} to not use one.
+	 * @return				The new options.
+	 */
+	public ConnectionOptions validatorCache(ValidatorCache cache) {
+		ConnectionOptions copy = copy();
+		copy.validatorCache = cache;
+		return copy;
+	}
+	
+	/**
+	 * Returns the time to wait for a connection to be established.
+	 * 
+	 * @return		The timeout in milliseconds, or {@link #UNLIMITED}.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+	
+	/**
+	 * Returns the time to wait for data from the connection.
+	 * 
+	 * @return		The timeout in milliseconds, or {@link #UNLIMITED}.
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+	
+	/**
+	 * Returns the largest number of bytes of a response body which is read.
+	 * 
+	 * @return		The maximum size, or {@link #UNLIMITED}.
+	 */
+	public int getMaxBodySize() {
+		return maxBodySize;
+	}
+	
+	/**
+	 * Returns whether HTTP connections are kept alive for reuse.
+	 * 
+	 * @return		{@code true} if connections are kept alive.
+	 */
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+	
+	/**
+	 * Returns the cache of validators used for conditional requests.
+	 * 
+	 * @return		The cache, or {@code null} if none is used.
+	 */
+	public ValidatorCache getValidatorCache() {
+		return validatorCache;
+	}
+}
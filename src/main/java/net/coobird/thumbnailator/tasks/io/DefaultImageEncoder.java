@@ -0,0 +1,586 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.w3c.dom.NodeList;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.FormatRegistry;
+import net.coobird.thumbnailator.util.ThumbnailatorUtils;
+
+/**
+ * The {@link ImageEncoder} which encodes images with the {@link ImageWriter}s
+ * of the Image I/O API.
+ * <p>
+ * This encoder is used for all formats which are not handled by another
+ * {@link ImageEncoder}. It applies the output format type and quality,
+ * the {@link EncoderOptions} and the {@link OutputSizeLimit} of the
+ * {@link ThumbnailParameter} to the writer.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class DefaultImageEncoder implements ImageEncoder {
+	private static final DefaultImageEncoder INSTANCE = new DefaultImageEncoder();
+	
+	/**
+	 * The name of the native metadata format of the JPEG writer bundled
+	 * with the JRE.
+	 */
+	private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+	
+	/**
+	 * The difference in compression quality at which the search for the
+	 * quality meeting an {@link OutputSizeLimit} stops.
+	 */
+	private static final float QUALITY_PRECISION = 1.0f / 64;
+	
+	/**
+	 * The largest initial capacity of the buffers images are encoded to
+	 * while searching for the quality meeting an {@link OutputSizeLimit}.
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 1024 * 1024;
+	
+	/**
+	 * This class is not intended to be instantiated via the constructor.
+	 */
+	private DefaultImageEncoder() {}
+	
+	/**
+	 * Returns an instance of this class.
+	 * 
+	 * @return		An instance of this class.
+	 */
+	public static ImageEncoder getInstance() {
+		return INSTANCE;
+	}
+	
+	/**
+	 * Returns whether there is an {@link ImageWriter} for the format.
+	 */
+	public boolean supportsFormat(String formatName) {
+		return FormatRegistry.getWriterSpiByFormatName(formatName) != null;
+	}
+	
+	/**
+	 * Encodes the image with the preferred {@link ImageWriter} for the
+	 * format.
+	 * 
+	 * @throws UnsupportedFormatException	When there is no
+	 * 										{@link ImageWriter} for the
+	 * 										format.
+	 */
+	public void encode(
+			BufferedImage img,
+			String formatName,
+			ThumbnailParameter param,
+			ImageOutputStream ios
+	) throws IOException {
+		ImageWriterSpi writerSpi = FormatRegistry.getWriterSpiByFormatName(formatName);
+		
+		if (writerSpi == null) {
+			throw new UnsupportedFormatException(
+					formatName,
+					"No suitable ImageWriter found for " + formatName + "."
+			);
+		}
+		
+		ImageWriter writer = writerSpi.createWriterInstance();
+		
+		ImageWriteParam writeParam = writer.getDefaultWriteParam();
+		if (writeParam.canWriteCompressed()) {
+			/*
+			 * Sets the compression format type, if specified.
+			 *
+			 * Note:
+			 * The value to denote that the codec's default compression type
+			 * should be used is null.
+			 */
+			String compressionType = null;
+			if (param != null && param.getOutputFormatType() != ThumbnailParameter.DEFAULT_FORMAT_TYPE) {
+				compressionType = param.getOutputFormatType();
+
+			} else {
+				List<String> supportedFormats =
+						ThumbnailatorUtils.getSupportedOutputFormatTypes(formatName);
+
+				if (!supportedFormats.isEmpty()) {
+					compressionType = supportedFormats.get(0);
+				}
+			}
+			if (compressionType != null) {
+				setCompressionModeExplicit(writeParam);
+				writeParam.setCompressionType(compressionType);
+			}
+
+			/*
+			 * Sets the compression quality, if specified.
+			 *
+			 * Note:
+			 * The value to denote that the codec's default compression quality
+			 * should be used is Float.NaN.
+			 */
+			if (param != null && !Float.isNaN(param.getOutputQuality())) {
+				setCompressionModeExplicit(writeParam);
+				writeParam.setCompressionQuality(param.getOutputQuality());
+
+			} else if (isPng(formatName) && isJava9OrNewer() && isDefaultPngWriter(writer)) {
+				/*
+				 * Before Java 9, the PNG writer bundled with the JRE was
+				 * using maximum compression.
+				 * To replicate the behavior in Java 9+, the compression
+				 * quality is set to 0.0f to trigger maximum compression.
+				 * See Issue #156: https://github.com/coobird/thumbnailator/issues/156
+				 */
+				setCompressionModeExplicit(writeParam);
+				writeParam.setCompressionQuality(0.0f);
+			}
+		}
+
+		/*
+		 * Note:
+		 * The following code is a workaround for the JPEG writer which ships
+		 * with the JDK.
+		 * 
+		 * At issue is, that the JPEG writer appears to write the alpha
+		 * channel when it should not. Such images end up with wrong colors.
+		 * https://bugs.openjdk.java.net/browse/JDK-8041459
+		 *
+		 * To circumvent this, images to be saved as JPEG will be written
+		 * without an alpha channel.
+		 *
+		 * Furthermore, as of OpenJDK 11, if an BufferedImage with an alpha
+		 * channel is given to the JPEG writer, it will throw an exception.
+		 * https://bugs.openjdk.java.net/browse/JDK-8204188
+		 * 
+		 * Also, the BMP writer appears not to support ARGB, so an RGB image
+		 * will be produced before saving.
+		 */
+		if (isJpegOrBmp(formatName)) {
+			img = toOpaqueImage(img, writer, formatName);
+		}
+		
+		EncoderOptions options =
+				param != null ? param.getEncoderOptions() : EncoderOptions.DEFAULT;
+		
+		IIOImage image = new IIOImage(
+				img, null, applyOptions(writer, writeParam, img, options)
+		);
+		OutputSizeLimit limit = param != null ? param.getOutputSizeLimit() : null;
+		
+		if (limit != null && writeParam.canWriteCompressed()) {
+			if (isLossless(writeParam, formatName)) {
+				writeLossless(writer, writeParam, image, limit, ios);
+			} else {
+				writeWithinLimit(writer, writeParam, image, limit, param, ios);
+			}
+			
+		} else {
+			writer.setOutput(ios);
+			writer.write(null, image, writeParam);
+		}
+		
+		/*
+		 * Dispose the writer to free resources.
+		 * 
+		 * This seems to be the main culprit of `OutOfMemoryError`s which
+		 * started to frequently appear with Java 7 Update 21.
+		 * 
+		 * Issue:
+		 * https://github.com/coobird/thumbnailator/issues/42
+		 */
+		writer.dispose();
+	}
+	
+	/**
+	 * Applies the {@link EncoderOptions} which are supported by the writer
+	 * to the write parameters, and returns the metadata to write the image
+	 * with.
+	 *
+	 * @param writer		The writer which will write the image.
+	 * @param writeParam	The parameters to apply the options to.
+	 * @param img			The image to write.
+	 * @param options		The options to apply.
+	 * @return				The metadata to write the image with, or
+	 * 						{@code null} if the writer's default metadata
+	 * 						should be used.
+	 * @throws IOException	When the metadata could not be created.
+	 */
+	private IIOMetadata applyOptions(
+			ImageWriter writer,
+			ImageWriteParam writeParam,
+			BufferedImage img,
+			EncoderOptions options
+	) throws IOException {
+		/*
+		 * Progressive mode is interlacing for PNG and GIF, which is all
+		 * the writers bundled with the JRE support.
+		 */
+		if (options.isProgressive() && writeParam.canWriteProgressive()) {
+			writeParam.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		}
+		
+		if (options.isOptimizeHuffmanTables() && writeParam instanceof JPEGImageWriteParam) {
+			((JPEGImageWriteParam)writeParam).setOptimizeHuffmanTables(true);
+		}
+		
+		if (options.getChromaSubsampling() == ChromaSubsampling.DEFAULT) {
+			return null;
+		}
+		return createSubsampledMetadata(writer, writeParam, img, options.getChromaSubsampling());
+	}
+	
+	/**
+	 * Returns the default metadata of the writer with the sampling factors
+	 * of the luminance component set for the specified chroma subsampling.
+	 * <p>
+	 * The sampling factors are stored in the frame header of the native
+	 * metadata format of the JPEG writer bundled with the JRE. For other
+	 * writers, or images which are not color images, {@code null} is
+	 * returned so that the writer's defaults are used.
+	 */
+	private IIOMetadata createSubsampledMetadata(
+			ImageWriter writer,
+			ImageWriteParam writeParam,
+			BufferedImage img,
+			ChromaSubsampling subsampling
+	) throws IOException {
+		if (img.getColorModel().getNumColorComponents() != 3) {
+			return null;
+		}
+		
+		IIOMetadata metadata = writer.getDefaultImageMetadata(
+				new ImageTypeSpecifier(img), writeParam
+		);
+		if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+			return null;
+		}
+		
+		IIOMetadataNode root = (IIOMetadataNode)metadata.getAsTree(JPEG_METADATA_FORMAT);
+		NodeList components = root.getElementsByTagName("componentSpec");
+		if (components.getLength() != 3) {
+			return null;
+		}
+		
+		for (int i = 0; i < components.getLength(); i++) {
+			IIOMetadataNode component = (IIOMetadataNode)components.item(i);
+			int horizontal = i == 0 ? subsampling.getHorizontalFactor() : 1;
+			int vertical = i == 0 ? subsampling.getVerticalFactor() : 1;
+			component.setAttribute("HsamplingFactor", Integer.toString(horizontal));
+			component.setAttribute("VsamplingFactor", Integer.toString(vertical));
+		}
+		
+		metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+		return metadata;
+	}
+	
+	/**
+	 * Writes the image with the highest compression quality at which it
+	 * fits within the specified limit.
+	 * <p>
+	 * The image is encoded in memory with the same writer while the quality
+	 * is binary-searched, starting from the highest quality, so that images
+	 * which already fit are only encoded once. Only the chosen encoding is
+	 * written to the {@link ImageOutputStream}.
+	 *
+	 * @param writer		The writer to encode the image with.
+	 * @param writeParam	The parameters to encode the image with, of
+	 * 						which the compression quality is changed.
+	 * @param image			The image to write.
+	 * @param limit			The limit on the size of the encoded image.
+	 * @param param			The parameters of the thumbnail.
+	 * @param ios			The stream to write the chosen encoding to.
+	 * @throws IOException	When a problem occurs while writing the image.
+	 */
+	private void writeWithinLimit(
+			ImageWriter writer,
+			ImageWriteParam writeParam,
+			IIOImage image,
+			OutputSizeLimit limit,
+			ThumbnailParameter param,
+			ImageOutputStream ios
+	) throws IOException {
+		setCompressionModeExplicit(writeParam);
+		
+		long maxBytes = limit.getMaxBytes();
+		long acceptableBytes = (long)(maxBytes * (1.0 - limit.getTolerance()));
+		
+		float low = 0.0f;
+		float high = 1.0f;
+		if (param != null && !Float.isNaN(param.getOutputQuality())) {
+			high = param.getOutputQuality();
+		}
+		
+		ByteBuffer chosen = null;
+		float chosenQuality = low;
+		
+		float quality = high;
+		while (true) {
+			ByteBuffer encoded = encodeInMemory(writer, writeParam, image, quality, maxBytes);
+			
+			if (encoded.remaining() <= maxBytes) {
+				chosen = encoded;
+				chosenQuality = quality;
+				if (encoded.remaining() >= acceptableBytes) {
+					break;
+				}
+				low = quality;
+				
+			} else {
+				high = quality;
+			}
+			
+			if (high - low < QUALITY_PRECISION) {
+				break;
+			}
+			quality = (low + high) / 2;
+		}
+		
+		if (chosen == null) {
+			// The image does not fit, so the smallest encoding is used.
+			chosenQuality = 0.0f;
+			chosen = encodeInMemory(writer, writeParam, image, chosenQuality, maxBytes);
+		}
+		
+		writeBuffer(chosen, ios);
+		
+		if (limit.getListener() != null) {
+			limit.getListener().qualityChosen(chosenQuality, chosen.limit());
+		}
+	}
+	
+	/**
+	 * Writes the image once for formats whose compression quality does not
+	 * change the size of the image enough to meet a limit, such as PNG,
+	 * where the quality only trades the time spent compressing for a few
+	 * bytes.
+	 * <p>
+	 * The listener is notified of the quality the image was written with,
+	 * or {@link Float#NaN} if the codec's default was used.
+	 *
+	 * @param writer		The writer to encode the image with.
+	 * @param writeParam	The parameters to encode the image with.
+	 * @param image			The image to write.
+	 * @param limit			The limit on the size of the encoded image.
+	 * @param ios			The stream to write the image to.
+	 * @throws IOException	When a problem occurs while writing the image.
+	 */
+	private void writeLossless(
+			ImageWriter writer,
+			ImageWriteParam writeParam,
+			IIOImage image,
+			OutputSizeLimit limit,
+			ImageOutputStream ios
+	) throws IOException {
+		long start = ios.getStreamPosition();
+		
+		writer.setOutput(ios);
+		writer.write(null, image, writeParam);
+		
+		if (limit.getListener() != null) {
+			float quality = Float.NaN;
+			if (writeParam.getCompressionMode() == ImageWriteParam.MODE_EXPLICIT) {
+				quality = writeParam.getCompressionQuality();
+			}
+			limit.getListener().qualityChosen(quality, ios.getStreamPosition() - start);
+		}
+	}
+	
+	/**
+	 * Encodes the image in memory with the specified compression quality.
+	 *
+	 * @return			The encoded image.
+	 */
+	private ByteBuffer encodeInMemory(
+			ImageWriter writer,
+			ImageWriteParam writeParam,
+			IIOImage image,
+			float quality,
+			long maxBytes
+	) throws IOException {
+		int capacity = (int)Math.min(maxBytes + 1, MAX_INITIAL_CAPACITY);
+		ByteBufferImageOutputStream out =
+				new ByteBufferImageOutputStream(ByteBuffer.allocate(capacity));
+		
+		writeParam.setCompressionQuality(quality);
+		writer.setOutput(out);
+		writer.write(null, image, writeParam);
+		out.close();
+		
+		return out.toByteBuffer();
+	}
+	
+	/**
+	 * Writes the contents of the buffer to the {@link ImageOutputStream}.
+	 */
+	private void writeBuffer(ByteBuffer buffer, ImageOutputStream ios) throws IOException {
+		// Buffers from encodeInMemory are always backed by an array.
+		ios.write(
+				buffer.array(),
+				buffer.arrayOffset() + buffer.position(),
+				buffer.remaining()
+		);
+	}
+	
+	/**
+	 * Returns an image without an alpha channel for writers which cannot
+	 * handle alpha, avoiding a copy of the image where possible.
+	 * <ul>
+	 * <li>Images without an alpha channel of a type the writer can encode
+	 * are returned as they are.</li>
+	 * <li>Images with an alpha channel whose pixels are all opaque are
+	 * returned as a view of the color components sharing the same pixel
+	 * data.</li>
+	 * <li>Otherwise, the image is drawn onto a black
+	 * {@link BufferedImage#TYPE_INT_RGB} image.</li>
+	 * </ul>
+	 *
+	 * @param img		The image to write.
+	 * @param writer	The writer which will write the image.
+	 * @param formatName	The format the image will be written in.
+	 * @return			An image without an alpha channel.
+	 */
+	private BufferedImage toOpaqueImage(BufferedImage img, ImageWriter writer, String formatName) {
+		if (!img.getColorModel().hasAlpha()) {
+			if (isDirectlyWritable(img, writer)) {
+				return img;
+			}
+
+		} else if (BufferedImages.isOpaque(img)) {
+			BufferedImage view = BufferedImages.opaqueView(img);
+			/*
+			 * Views of byte-interleaved images have a pixel stride which
+			 * the BMP writer does not handle, although its provider claims
+			 * it can encode them. The JPEG writer handles them fine.
+			 */
+			if (view != null && (isDirectlyWritable(view, writer)
+					|| (isJpeg(formatName) && canEncode(view, writer)))) {
+				return view;
+			}
+		}
+
+		return BufferedImages.copy(img, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Returns whether an opaque image can be given to the writer as is.
+	 * Only image types which are known to be handled correctly by the
+	 * writers bundled with the JRE are considered.
+	 */
+	private boolean isDirectlyWritable(BufferedImage img, ImageWriter writer) {
+		switch (img.getType()) {
+			case BufferedImage.TYPE_INT_RGB:
+			case BufferedImage.TYPE_INT_BGR:
+			case BufferedImage.TYPE_3BYTE_BGR:
+			case BufferedImage.TYPE_BYTE_GRAY:
+				return canEncode(img, writer);
+			default:
+				return false;
+		}
+	}
+
+	private boolean canEncode(BufferedImage img, ImageWriter writer) {
+		ImageWriterSpi spi = writer.getOriginatingProvider();
+		return spi != null && spi.canEncodeImage(img);
+	}
+
+	/**
+	 * Sets the compression mode to explicit, if not already.
+	 * A check exists to prevent setting the explicit mode more than once,
+	 * as any previously set parameters will be discarded.
+	 *
+	 * @param writeParam	Current image writer parameters.
+	 */
+	private void setCompressionModeExplicit(ImageWriteParam writeParam) {
+		if (writeParam.getCompressionMode() != ImageWriteParam.MODE_EXPLICIT) {
+			writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		}
+	}
+
+	private boolean isJpegOrBmp(String formatName) {
+		return formatName.equalsIgnoreCase("jpg")
+				|| formatName.equalsIgnoreCase("jpeg")
+				|| formatName.equalsIgnoreCase("bmp");
+	}
+
+	private boolean isJpeg(String formatName) {
+		return formatName.equalsIgnoreCase("jpg")
+				|| formatName.equalsIgnoreCase("jpeg");
+	}
+
+	private boolean isPng(String formatName) {
+		return formatName.equalsIgnoreCase("png");
+	}
+
+	/**
+	 * Returns whether the compression quality of the format does not
+	 * affect the size of the image enough to search for a quality which
+	 * meets an {@link OutputSizeLimit}.
+	 */
+	private boolean isLossless(ImageWriteParam writeParam, String formatName) {
+		if (isPng(formatName)) {
+			return true;
+		}
+		if (writeParam.getCompressionMode() != ImageWriteParam.MODE_EXPLICIT) {
+			return false;
+		}
+		try {
+			return writeParam.isCompressionLossless();
+		} catch (IllegalStateException e) {
+			// No compression type was set for a writer which requires one.
+			return false;
+		}
+	}
+
+	private boolean isDefaultPngWriter(ImageWriter writer) {
+		String writerClassName = writer.getClass().getName();
+		return "com.sun.imageio.plugins.png.PNGImageWriter".equals(writerClassName);
+	}
+
+	private boolean isJava9OrNewer() {
+		String version = System.getProperty("java.specification.version");
+		// Up to Java 8, specification version was 1.x.
+		return version != null && !version.contains(".");
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import net.coobird.thumbnailator.filters.ColorQuantizer;
+import net.coobird.thumbnailator.resizers.configurations.Dithering;
+
+/**
+ * Options which control how thumbnails are encoded, beyond the output
+ * format type and quality.
+ * <p>
+ * Instances of this class are immutable. Starting from {@link #DEFAULT},
+ * each option is set by a method which returns a copy with that option
+ * changed:
+ * <pre>
+EncoderOptions options = EncoderOptions.DEFAULT
+    .progressive(true)
+    .optimizeHuffmanTables(true)
+    .chromaSubsampling(ChromaSubsampling.CHROMA_420);
+ * </pre>
+ * Options which are not supported by the encoder of the output format are
+ * ignored.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class EncoderOptions {
+	/**
+	 * The options with which the encoder's defaults are used.
+	 */
+	public static final EncoderOptions DEFAULT = new EncoderOptions();
+	
+	/**
+	 * A value for the PNG compression level which denotes that the default
+	 * level should be used.
+	 */
+	public static final int DEFAULT_COMPRESSION_LEVEL = -1;
+	
+	/*
+	 * The fields are only assigned on copies before they are returned, so
+	 * that instances are effectively immutable.
+	 */
+	private boolean progressive = false;
+	private boolean optimizeHuffmanTables = false;
+	private ChromaSubsampling chromaSubsampling = ChromaSubsampling.DEFAULT;
+	private ImageEncoder encoder = null;
+	private int pngCompressionLevel = DEFAULT_COMPRESSION_LEVEL;
+	private PngFilter pngFilter = PngFilter.DEFAULT;
+	private int pngCompressionThreads = 1;
+	private int paletteColors = 0;
+	private Dithering paletteDithering = Dithering.DEFAULT;
+	
+	private EncoderOptions() {}
+	
+	private EncoderOptions copy() {
+		EncoderOptions copy = new EncoderOptions();
+		copy.progressive = progressive;
+		copy.optimizeHuffmanTables = optimizeHuffmanTables;
+		copy.chromaSubsampling = chromaSubsampling;
+		copy.encoder = encoder;
+		copy.pngCompressionLevel = pngCompressionLevel;
+		copy.pngFilter = pngFilter;
+		copy.pngCompressionThreads = pngCompressionThreads;
+		copy.paletteColors = paletteColors;
+		copy.paletteDithering = paletteDithering;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where images are written
+	 * progressively, if the format supports it.
+	 * <p>
+	 * JPEG images are written as progressive JPEGs, and PNG and GIF images
+	 * are written interlaced. PNG images are not interlaced when they are
+	 * written by the PNG encoder of Thumbnailator, which is used when any of
+	 * the PNG settings is specified.
+	 * 
+	 * @param progressive	Whether images should be written progressively.
+	 * @return				The new options.
+	 */
+	public EncoderOptions progressive(boolean progressive) {
+		EncoderOptions copy = copy();
+		copy.progressive = progressive;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where optimized Huffman tables are
+	 * computed for each JPEG image, rather than the standard tables being
+	 * used. This makes images smaller at the expense of encoding time.
+	 * 
+	 * @param optimize		Whether Huffman tables should be optimized.
+	 * @return				The new options.
+	 */
+	public EncoderOptions optimizeHuffmanTables(boolean optimize) {
+		EncoderOptions copy = copy();
+		copy.optimizeHuffmanTables = optimize;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the specified chroma subsampling
+	 * for JPEG images.
+	 * 
+	 * @param subsampling	The chroma subsampling.
+	 * @return				The new options.
+	 * @throws NullPointerException	If the argument is {@code null}.
+	 */
+	public EncoderOptions chromaSubsampling(ChromaSubsampling subsampling) {
+		if (subsampling == null) {
+			throw new NullPointerException("ChromaSubsampling cannot be null.");
+		}
+		EncoderOptions copy = copy();
+		copy.chromaSubsampling = subsampling;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the specified
+	 * {@link ImageEncoder}, which takes precedence over the encoders
+	 * registered as service providers for the formats it supports.
+	 * 
+	 * @param encoder		The encoder, or {@code null} to choose the
+	 * 						encoder as described in {@link ImageEncoder}.
+	 * @return				The new options.
+	 */
+	public EncoderOptions encoder(ImageEncoder encoder) {
+		EncoderOptions copy = copy();
+		copy.encoder = encoder;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the specified deflate
+	 * compression level for PNG images.
+	 * <p>
+	 * Lower levels compress faster, and higher levels produce smaller
+	 * images. Specifying a level makes PNG images be written by the PNG
+	 * encoder of Thumbnailator rather than the Image I/O API.
+	 * 
+	 * @param level			The compression level from {@code 0} (no
+	 * 						compression) to {@code 9} (best compression), or
+	 * 						{@link #DEFAULT_COMPRESSION_LEVEL}.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the level is out of range.
+	 */
+	public EncoderOptions pngCompressionLevel(int level) {
+		if ((level < 0 || level > 9) && level != DEFAULT_COMPRESSION_LEVEL) {
+			throw new IllegalArgumentException("Compression level must be between 0 and 9.");
+		}
+		EncoderOptions copy = copy();
+		copy.pngCompressionLevel = level;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the specified filter for the
+	 * scanlines of PNG images.
+	 * <p>
+	 * Specifying a filter other than {@link PngFilter#DEFAULT} makes PNG
+	 * images be written by the PNG encoder of Thumbnailator rather than the
+	 * Image I/O API.
+	 * 
+	 * @param filter		The filter.
+	 * @return				The new options.
+	 * @throws NullPointerException	If the argument is {@code null}.
+	 */
+	public EncoderOptions pngFilter(PngFilter filter) {
+		if (filter == null) {
+			throw new NullPointerException("PngFilter cannot be null.");
+		}
+		EncoderOptions copy = copy();
+		copy.pngFilter = filter;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the number of threads which
+	 * compress PNG images.
+	 * <p>
+	 * With more than one thread, the image data of large images is split
+	 * into bands of rows which are filtered and compressed concurrently,
+	 * and joined into a single deflate stream. Each band is primed with the
+	 * end of the preceding band as its dictionary, so the loss in
+	 * compression is small. Specifying more than one thread makes PNG
+	 * images be written by the PNG encoder of Thumbnailator rather than the
+	 * Image I/O API.
+	 * 
+	 * @param threads		The number of threads.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of threads is not
+	 * 									greater than 0.
+	 */
+	public EncoderOptions pngCompressionThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Thread count must be greater than 0.");
+		}
+		EncoderOptions copy = copy();
+		copy.pngCompressionThreads = threads;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where PNG and GIF images are reduced
+	 * to an adaptive palette of at most the specified number of colors
+	 * before they are encoded, without dithering.
+	 * <p>
+	 * Indexed images are much smaller than truecolor images, especially for
+	 * small thumbnails such as icons and avatars. The palette is chosen as
+	 * described in {@link ColorQuantizer}.
+	 * 
+	 * @param maxColors		The maximum number of colors, from {@code 2}
+	 * 						to {@code 256}.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of colors is out of
+	 * 									range.
+	 */
+	public EncoderOptions palette(int maxColors) {
+		return palette(maxColors, Dithering.DEFAULT);
+	}
+	
+	/**
+	 * Returns a copy of these options where PNG and GIF images are reduced
+	 * to an adaptive palette of at most the specified number of colors
+	 * before they are encoded.
+	 * 
+	 * @param maxColors		The maximum number of colors, from {@code 2}
+	 * 						to {@code 256}.
+	 * @param dithering		Whether to dither, where only
+	 * 						{@link Dithering#ENABLE} enables dithering.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of colors is out of
+	 * 									range.
+	 * @throws NullPointerException		If the dithering setting is
+	 * 									{@code null}.
+	 * @see #palette(int)
+	 */
+	public EncoderOptions palette(int maxColors, Dithering dithering) {
+		if (maxColors < 2 || maxColors > 256) {
+			throw new IllegalArgumentException("The number of colors must be between 2 and 256.");
+		}
+		if (dithering == null) {
+			throw new NullPointerException("Dithering cannot be null.");
+		}
+		EncoderOptions copy = copy();
+		copy.paletteColors = maxColors;
+		copy.paletteDithering = dithering;
+		return copy;
+	}
+	
+	/**
+	 * Returns whether images are written progressively.
+	 * 
+	 * @return		{@code true} if images are written progressively.
+	 */
+	public boolean isProgressive() {
+		return progressive;
+	}
+	
+	/**
+	 * Returns whether Huffman tables are optimized for JPEG images.
+	 * 
+	 * @return		{@code true} if Huffman tables are optimized.
+	 */
+	public boolean isOptimizeHuffmanTables() {
+		return optimizeHuffmanTables;
+	}
+	
+	/**
+	 * Returns the chroma subsampling for JPEG images.
+	 * 
+	 * @return		The chroma subsampling.
+	 */
+	public ChromaSubsampling getChromaSubsampling() {
+		return chromaSubsampling;
+	}
+	
+	/**
+	 * Returns the {@link ImageEncoder} to use.
+	 * 
+	 * @return		The encoder, or {@code null} if the encoder is chosen
+	 * 				as described in {@link ImageEncoder}.
+	 */
+	public ImageEncoder getEncoder() {
+		return encoder;
+	}
+	
+	/**
+	 * Returns the deflate compression level for PNG images.
+	 * 
+	 * @return		The compression level, or
+	 * 				{@link #DEFAULT_COMPRESSION_LEVEL}.
+	 */
+	public int getPngCompressionLevel() {
+		return pngCompressionLevel;
+	}
+	
+	/**
+	 * Returns the filter for the scanlines of PNG images.
+	 * 
+	 * @return		The filter.
+	 */
+	public PngFilter getPngFilter() {
+		return pngFilter;
+	}
+	
+	/**
+	 * Returns the number of threads which compress PNG images.
+	 * 
+	 * @return		The number of threads.
+	 */
+	public int getPngCompressionThreads() {
+		return pngCompressionThreads;
+	}
+	
+	/**
+	 * Returns whether any of the PNG settings differs from the default, in
+	 * which case PNG images are written by the PNG encoder of Thumbnailator.
+	 */
+	boolean hasPngSettings() {
+		return pngCompressionLevel != DEFAULT_COMPRESSION_LEVEL
+				|| pngFilter != PngFilter.DEFAULT
+				|| pngCompressionThreads > 1;
+	}
+	
+	/**
+	 * Returns the maximum number of colors of the palette to which PNG and
+	 * GIF images are reduced.
+	 * 
+	 * @return		The number of colors, or {@code 0} if images are not
+	 * 				reduced to a palette.
+	 */
+	public int getPaletteColors() {
+		return paletteColors;
+	}
+	
+	/**
+	 * Returns the dithering setting used when images are reduced to a
+	 * palette.
+	 * 
+	 * @return		The dithering setting.
+	 */
+	public Dithering getPaletteDithering() {
+		return paletteDithering;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * An {@link ImageInputStream} which reads from a {@link FileChannel}.
+ * <p>
+ * Data is read with positional reads into a small buffer, so seeking
+ * backwards only re-reads from the file, which is usually held in the page
+ * cache of the operating system, rather than from a copy of the data kept
+ * by the stream. Reads which are larger than the buffer go to the
+ * destination array directly.
+ * <p>
+ * Closing the stream closes the {@link FileChannel}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class FileChannelImageInputStream extends ImageInputStreamImpl {
+	/**
+	 * The size of the read buffer.
+	 */
+	private static final int BUFFER_SIZE = 16 * 1024;
+	
+	/**
+	 * The channel to read from.
+	 */
+	private final FileChannel channel;
+	
+	/**
+	 * The buffer holding the data starting at {@link #bufferStart}, between
+	 * index {@code 0} and its limit.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	
+	/**
+	 * The buffer as a {@link Buffer}, for changing its position and limit.
+	 * Calling those methods on the {@link ByteBuffer} would link against
+	 * overrides which only exist from Java 9.
+	 */
+	private final Buffer bufferState = buffer;
+	
+	/**
+	 * The position in the file of the first byte in the buffer.
+	 */
+	private long bufferStart = 0;
+	
+	/**
+	 * Instantiates a {@link FileChannelImageInputStream}.
+	 * 
+	 * @param channel		The channel to read from.
+	 */
+	FileChannelImageInputStream(FileChannel channel) {
+		this.channel = channel;
+		bufferState.limit(0);
+	}
+	
+	/**
+	 * Fills the buffer with data starting at the current stream position.
+	 * 
+	 * @return				{@code false} if the end of the file was reached.
+	 * @throws IOException	When the file could not be read.
+	 */
+	private boolean fill() throws IOException {
+		bufferState.clear();
+		bufferStart = streamPos;
+		
+		int bytesRead = 0;
+		while (bytesRead == 0) {
+			bytesRead = channel.read(buffer, streamPos);
+		}
+		
+		bufferState.flip();
+		return bytesRead != -1;
+	}
+	
+	/**
+	 * Returns the index in the buffer of the current stream position, or
+	 * {@code -1} if the position is outside the buffered data.
+	 */
+	private int bufferIndex() {
+		long index = streamPos - bufferStart;
+		if (index < 0 || index >= buffer.limit()) {
+			return -1;
+		}
+		return (int)index;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		
+		int index = bufferIndex();
+		if (index == -1) {
+			if (!fill()) {
+				return -1;
+			}
+			index = 0;
+		}
+		
+		streamPos++;
+		return buffer.get(index) & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		bitOffset = 0;
+		
+		if (len == 0) {
+			return 0;
+		}
+		
+		int index = bufferIndex();
+		if (index == -1) {
+			if (len >= BUFFER_SIZE) {
+				int bytesRead = channel.read(ByteBuffer.wrap(b, off, len), streamPos);
+				if (bytesRead > 0) {
+					streamPos += bytesRead;
+				}
+				return bytesRead;
+			}
+			
+			if (!fill()) {
+				return -1;
+			}
+			index = 0;
+		}
+		
+		int length = Math.min(len, buffer.limit() - index);
+		bufferState.position(index);
+		buffer.get(b, off, length);
+		streamPos += length;
+		
+		return length;
+	}
+
+	@Override
+	public long length() {
+		try {
+			return channel.size();
+		} catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		channel.close();
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.ImageOutputStreamImpl;
+
+/**
+ * An {@link ImageOutputStream} which writes directly to a
+ * {@link FileChannel}.
+ * <p>
+ * Consecutive writes are collected in a small buffer and written with
+ * positional writes, so seeking back to patch earlier data, as some
+ * writers do, does not require the data to be cached by the stream.
+ * Writes which are larger than the buffer go to the channel directly.
+ * <p>
+ * Closing the stream writes out the buffer, but does not close the
+ * {@link FileChannel}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class FileChannelImageOutputStream extends ImageOutputStreamImpl {
+	/**
+	 * The default size of the write buffer.
+	 */
+	static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+	
+	/**
+	 * The channel to write to.
+	 */
+	private final FileChannel channel;
+	
+	/**
+	 * The buffer holding data which has not been written to the channel
+	 * yet, starting from index {@code 0} up to its position.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * The buffer as a {@link Buffer}, for changing its position and limit.
+	 * Calling those methods on the {@link ByteBuffer} would link against
+	 * overrides which only exist from Java 9.
+	 */
+	private final Buffer bufferState;
+	
+	/**
+	 * The position in the file of the first byte in the buffer.
+	 */
+	private long bufferStart = 0;
+	
+	/**
+	 * Instantiates a {@link FileChannelImageOutputStream} with the default
+	 * buffer size.
+	 * 
+	 * @param channel		The channel to write to, from its beginning.
+	 */
+	FileChannelImageOutputStream(FileChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Instantiates a {@link FileChannelImageOutputStream}.
+	 * 
+	 * @param channel		The channel to write to, from its beginning.
+	 * @param bufferSize	The size of the write buffer.
+	 */
+	FileChannelImageOutputStream(FileChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+		this.bufferState = buffer;
+	}
+	
+	/**
+	 * Writes the buffered data to the channel.
+	 */
+	private void flushBuffer() throws IOException {
+		bufferState.flip();
+		
+		long position = bufferStart;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		
+		bufferState.clear();
+		bufferStart = streamPos;
+	}
+	
+	/**
+	 * Makes the buffer ready to take the specified number of bytes at the
+	 * current stream position.
+	 * 
+	 * @return		{@code true} if the bytes can be buffered.
+	 */
+	private boolean prepareBuffer(int len) throws IOException {
+		if (streamPos != bufferStart + buffer.position()
+				|| buffer.remaining() < len) {
+			flushBuffer();
+		}
+		return len <= buffer.remaining();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		checkClosed();
+		flushBits();
+		
+		prepareBuffer(1);
+		buffer.put((byte)b);
+		streamPos++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		flushBits();
+		
+		if (prepareBuffer(len)) {
+			buffer.put(b, off, len);
+			
+		} else {
+			ByteBuffer data = ByteBuffer.wrap(b, off, len);
+			long position = streamPos;
+			while (data.hasRemaining()) {
+				position += channel.write(data, position);
+			}
+			bufferStart = streamPos + len;
+		}
+		streamPos += len;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		bitOffset = 0;
+		
+		if (len == 0) {
+			return 0;
+		}
+		
+		long position = streamPos;
+		flushBuffer();
+		
+		int bytesRead = channel.read(ByteBuffer.wrap(b, off, len), position);
+		if (bytesRead > 0) {
+			streamPos += bytesRead;
+			bufferStart = streamPos;
+		}
+		return bytesRead;
+	}
+
+	@Override
+	public long length() {
+		try {
+			return Math.max(channel.size(), bufferStart + buffer.position());
+		} catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		flushBuffer();
+	}
+}
@@ -29,15 +29,25 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
 
-import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
-import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.FormatRegistry;
 
 /**
  * An {@link ImageSink} which writes the resulting thumbnail to a file.
@@ -50,11 +60,34 @@ import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
  * method. In this case, the file name will have a file extension corresponding
  * to the output format set in the above method to be appended to the file
  * name originally provided when instantiating the {@link FileImageSink} object.
+ * <p>
+ * How the thumbnail is written into the file is determined by the
+ * {@link FileWriteMode}. By default, the thumbnail is written directly into
+ * the destination file.
  * 
  * @author coobird
  *
  */
-public class FileImageSink implements ImageSink<File> {
+public class FileImageSink implements MultiFrameImageSink<File> {
+	/**
+	 * The default size of the buffer used when writing to a file through
+	 * its {@link FileChannel}.
+	 * 
+	 * @since	0.4.21
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = FileChannelImageOutputStream.DEFAULT_BUFFER_SIZE;
+	
+	/**
+	 * The number of attempts made to create a temporary file with a name
+	 * which is not in use.
+	 */
+	private static final int TEMPORARY_FILE_ATTEMPTS = 100;
+	
+	/**
+	 * Source of the random part of temporary file names.
+	 */
+	private static final Random RANDOM = new Random();
+	
 	/**
 	 * The file to which the thumbnail is written to.
 	 * <p>
@@ -66,6 +99,10 @@ public class FileImageSink implements ImageSink<File> {
 	private File destinationFile;
 	
 	private final boolean allowOverwrite;
+	
+	private final FileWriteMode writeMode;
+	
+	private final int bufferSize;
 
 	private String outputFormat;
 
@@ -125,15 +162,50 @@ public class FileImageSink implements ImageSink<File> {
 	 * @throws NullPointerException	If the specified file is {@code null}.
 	 */
 	public FileImageSink(File destinationFile, boolean allowOverwrite) {
+		this(destinationFile, allowOverwrite, FileWriteMode.DIRECT, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Instantiates a {@link FileImageSink} with the file to which the thumbnail
+	 * should be written to, and how it should be written.
+	 * <p>
+	 * The output format to use will be determined from the file extension.
+	 * If another format should be used, then the
+	 * {@link #setOutputFormatName(String)} should be called with the desired
+	 * output format name.
+	 * 
+	 * @param destinationFile		The destination file.
+	 * @param allowOverwrite		Whether or not the {@code FileImageSink}
+	 * 								should overwrite the destination file if
+	 * 								it already exists.
+	 * @param writeMode				How the thumbnail is written into the
+	 * 								file.
+	 * @param bufferSize			The size of the buffer used when writing
+	 * 								to the file through its
+	 * 								{@link FileChannel}.
+	 * @throws NullPointerException	If the specified file or write mode is
+	 * 								{@code null}.
+	 * @throws IllegalArgumentException	If the buffer size is not positive.
+	 * @since	0.4.21
+	 */
+	public FileImageSink(File destinationFile, boolean allowOverwrite, FileWriteMode writeMode, int bufferSize) {
 		super();
 		
 		if (destinationFile == null) {
 			throw new NullPointerException("File cannot be null.");
 		}
+		if (writeMode == null) {
+			throw new NullPointerException("FileWriteMode cannot be null.");
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be greater than 0.");
+		}
 		
 		this.destinationFile = destinationFile;
 		this.outputFormat = getExtension(destinationFile);
 		this.allowOverwrite = allowOverwrite;
+		this.writeMode = writeMode;
+		this.bufferSize = bufferSize;
 	}
 	
 	/**
@@ -180,6 +252,8 @@ public class FileImageSink implements ImageSink<File> {
 		this.destinationFile = new File(destinationFilePath);
 		this.outputFormat = getExtension(destinationFile);
 		this.allowOverwrite = allowOverwrite;
+		this.writeMode = FileWriteMode.DIRECT;
+		this.bufferSize = DEFAULT_BUFFER_SIZE;
 	}
 	
 	/**
@@ -196,18 +270,18 @@ public class FileImageSink implements ImageSink<File> {
 			return false;
 		}
 		
-		ImageWriter iw;
-		try {
-			iw = ImageIO.getImageWritersByFormatName(formatName).next();
-
-		} catch (NoSuchElementException e) {
+		ImageWriterSpi spi = FormatRegistry.getWriterSpiByFormatName(formatName);
+		if (spi == null) {
 			throw new UnsupportedFormatException(
 					formatName,
 					"No suitable ImageWriter found for " + formatName + "."
 			);
 		}
 		
-		String[] suffixes = iw.getOriginatingProvider().getFileSuffixes();
+		String[] suffixes = spi.getFileSuffixes();
+		if (suffixes == null) {
+			return false;
+		}
 		
 		for (String suffix : suffixes) {
 			if (fileExtension.equalsIgnoreCase(suffix)) {
@@ -236,18 +310,26 @@ public class FileImageSink implements ImageSink<File> {
 		return null;
 	}
 	
+	/**
+	 * Returns the format name of the {@link ImageReader} for the specified
+	 * file suffix.
+	 * 
+	 * @param suffix		The file suffix.
+	 * @return				The format name, or {@code null} if there is no
+	 * 						{@link ImageReader} for the suffix.
+	 */
+	private static String getFormatNameForSuffix(String suffix) {
+		ImageReaderSpi spi = FormatRegistry.getReaderSpiBySuffix(suffix);
+		return spi == null ? null : spi.getFormatNames()[0];
+	}
+	
 	public String preferredOutputFormatName() {
 		String fileExtension = getExtension(destinationFile);
 
 		if (fileExtension != null) {
-			Iterator<ImageReader> rIter = ImageIO.getImageReadersBySuffix(fileExtension);
-			
-			if (rIter.hasNext()) {
-				try {
-					return rIter.next().getFormatName();
-				} catch (IOException e) {
-					return ThumbnailParameter.ORIGINAL_FORMAT;
-				}
+			String formatName = getFormatNameForSuffix(fileExtension);
+			if (formatName != null) {
+				return formatName;
 			}
 		}
 		
@@ -273,6 +355,45 @@ public class FileImageSink implements ImageSink<File> {
 	 * 										file already exists.
 	 */
 	public void write(BufferedImage img) throws IOException {
+		if (img == null) {
+			throw new NullPointerException("Cannot write a null image.");
+		}
+		
+		write(new FrameSequence(img));
+	}
+	
+	/**
+	 * Writes the frames to a file as a sequence of images, as described in
+	 * {@link ImageOutputStreamImageSink#writeFrames(FrameSequence)}.
+	 * <p>
+	 * The file is chosen and written in the same way as by
+	 * {@link #write(BufferedImage)}.
+	 * 
+	 * @param frames						The frames to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method, or if the output format
+	 * 										has not been set and cannot be
+	 * 										determined from the file name.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the images.
+	 * @throws NullPointerException			If the frames are {@code null}.
+	 * @throws IllegalArgumentException		If this {@code FileImageSink} does
+	 * 										not permit overwriting the
+	 * 										destination file and the destination
+	 * 										file already exists.
+	 * @since	0.4.21
+	 */
+	public void writeFrames(FrameSequence frames) throws IOException {
+		if (frames == null) {
+			throw new NullPointerException("Frames cannot be null.");
+		}
+		
+		write(frames);
+	}
+	
+	private void write(FrameSequence frames) throws IOException {
 		/*
 		 * Add or replace the file extension of the output file.
 		 * 
@@ -297,11 +418,7 @@ public class FileImageSink implements ImageSink<File> {
 		 * the file extension.
 		 */
 		if (formatName == null && fileExtension != null) {
-			Iterator<ImageReader> rIter = ImageIO.getImageReadersBySuffix(fileExtension);
-			
-			if (rIter.hasNext()) {
-				formatName = rIter.next().getFormatName();
-			}
+			formatName = getFormatNameForSuffix(fileExtension);
 		}
 		
 		if (formatName == null) {
@@ -311,17 +428,169 @@ public class FileImageSink implements ImageSink<File> {
 			);
 		}
 
+		if (writeMode != FileWriteMode.DIRECT) {
+			writeAtomically(frames, formatName);
+			return;
+		}
+		
 		OutputStream os = createOutputStream(destinationFile);
-		imageSink = new OutputStreamImageSink(os);
+		
+		/*
+		 * When caching is not wanted, the thumbnail is written directly into
+		 * the file through its channel, rather than through a stream which
+		 * needs to be cached.
+		 */
+		ImageOutputStream ios = null;
+		MultiFrameImageSink<?> frameSink;
+		if (param != null && param.getStreamCaching() == StreamCaching.NONE
+				&& os instanceof FileOutputStream) {
+			ios = new FileChannelImageOutputStream(((FileOutputStream)os).getChannel(), bufferSize);
+			frameSink = new ImageOutputStreamImageSink(ios);
+		} else {
+			frameSink = new OutputStreamImageSink(os);
+		}
+		
+		imageSink = frameSink;
 		imageSink.setThumbnailParameter(param);
 		imageSink.setOutputFormatName(formatName);
 		try {
-			imageSink.write(img);
+			frameSink.writeFrames(frames);
+			
+			if (ios != null) {
+				ios.close();
+			}
 		} finally {
 			os.close();
 		}
 	}
 
+	/**
+	 * Writes the images into a temporary file next to the destination file,
+	 * and moves it into place once it has been written completely.
+	 * 
+	 * @param frames		The images to write.
+	 * @param formatName	The output format.
+	 * @throws IOException	When a problem occurs while writing the image.
+	 */
+	private void writeAtomically(FrameSequence frames, String formatName) throws IOException {
+		Path destination = destinationFile.getAbsoluteFile().toPath();
+		Path temporaryFile = null;
+		FileChannel channel = null;
+		
+		/*
+		 * The temporary file is created directly rather than through
+		 * Files.createTempFile, as files created by that method are only
+		 * accessible by the owner, which the thumbnail would keep once moved.
+		 */
+		for (int i = 0; channel == null; i++) {
+			temporaryFile = destination.resolveSibling(
+					"." + destination.getFileName() + "."
+					+ Integer.toHexString(RANDOM.nextInt()) + ".tmp"
+			);
+			try {
+				channel = FileChannel.open(
+						temporaryFile,
+						StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.READ,
+						StandardOpenOption.WRITE
+				);
+			} catch (FileAlreadyExistsException e) {
+				if (i == TEMPORARY_FILE_ATTEMPTS) {
+					throw e;
+				}
+			}
+		}
+		
+		boolean isMoved = false;
+		try {
+			try {
+				ImageOutputStream ios = new FileChannelImageOutputStream(channel, bufferSize);
+				ImageOutputStreamImageSink frameSink = new ImageOutputStreamImageSink(ios);
+				imageSink = frameSink;
+				imageSink.setThumbnailParameter(param);
+				imageSink.setOutputFormatName(formatName);
+				frameSink.writeFrames(frames);
+				ios.close();
+				
+				if (writeMode == FileWriteMode.ATOMIC_SYNC) {
+					channel.force(true);
+				}
+			} finally {
+				channel.close();
+			}
+			
+			moveIntoPlace(temporaryFile, destination);
+			isMoved = true;
+			
+		} finally {
+			if (!isMoved) {
+				Files.deleteIfExists(temporaryFile);
+			}
+		}
+	}
+	
+	/**
+	 * Moves the written file to the destination.
+	 * 
+	 * @param source		The written file.
+	 * @param destination	The destination file.
+	 * @throws IOException	When the file could not be moved.
+	 * @throws IllegalArgumentException		If overwriting is not allowed and
+	 * 										the destination file has been
+	 * 										created in the meantime.
+	 */
+	private void moveIntoPlace(Path source, Path destination) throws IOException {
+		if (!allowOverwrite) {
+			/*
+			 * Files.move checks for an existing destination before renaming,
+			 * which could replace a file created in between. Creating a
+			 * hard link fails atomically if the destination exists, and the
+			 * temporary file is then removed.
+			 */
+			try {
+				Files.createLink(destination, source);
+				
+			} catch (FileAlreadyExistsException e) {
+				throw new IllegalArgumentException("The destination file exists.");
+				
+			} catch (UnsupportedOperationException e) {
+				moveWithoutReplacing(source, destination);
+				return;
+				
+			} catch (FileSystemException e) {
+				// File systems such as FAT do not support hard links.
+				if (Files.exists(destination, LinkOption.NOFOLLOW_LINKS)) {
+					throw new IllegalArgumentException("The destination file exists.");
+				}
+				moveWithoutReplacing(source, destination);
+				return;
+			}
+			Files.delete(source);
+			return;
+		}
+		
+		try {
+			Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Moves the written file to the destination without replacing an
+	 * existing file, on file systems without hard links. A file created at
+	 * the destination between the check and the move of
+	 * {@link Files#move(Path, Path, java.nio.file.CopyOption...)} can still
+	 * be replaced.
+	 */
+	private static void moveWithoutReplacing(Path source, Path destination) throws IOException {
+		try {
+			Files.move(source, destination);
+		} catch (FileAlreadyExistsException e) {
+			throw new IllegalArgumentException("The destination file exists.");
+		}
+	}
+
 	// Visible for testing only.
 	OutputStream createOutputStream(File destinationFile) throws IOException {
 		return new FileOutputStream(destinationFile);
@@ -29,9 +29,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.imageio.stream.ImageInputStream;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.Configurations;
 
 /**
  * An {@link ImageSource} which reads the source image from a file.
@@ -39,12 +44,25 @@ import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
  * @author coobird
  *
  */
-public class FileImageSource implements ImageSource<File> {
+public class FileImageSource implements MultiFrameImageSource<File> {
 	/**
 	 * The file from which the image should be obtained.
 	 */
 	private final File sourceFile;
 	
+	/**
+	 * The largest file size, in bytes, for which the file is memory-mapped
+	 * rather than read through its {@link FileChannel}, when mapping is
+	 * enabled by {@link Configurations#MEMORY_MAP_FILES}.
+	 */
+	private static final long MAPPING_THRESHOLD = 16L * 1024 * 1024;
+	
+	/**
+	 * Whether the platform is Windows.
+	 */
+	private static final boolean IS_WINDOWS =
+			System.getProperty("os.name", "").startsWith("Windows");
+	
 	/**
 	 * An {@link ImageSource} which actually performs the image source
 	 * operations. This {@link ImageSource} can change during the lifecycle
@@ -64,7 +82,7 @@ public class FileImageSource implements ImageSource<File> {
 	 * Temporary placeholder {@link ImageSource} which will be used before
 	 * the {@link #read()} method is used. Basically a way to use the
 	 * implementation of the {@link AbstractImageSource} without having to
-	 * instantiate a {@link InputStreamImageSource} object before needed.
+	 * instantiate a {@link ImageInputStreamImageSource} object before needed.
 	 */
 	private static class UninitializedImageSource extends AbstractImageSource<Void> {
 		public BufferedImage read() throws IOException {
@@ -111,6 +129,18 @@ public class FileImageSource implements ImageSource<File> {
 	}
 
 	public BufferedImage read() throws IOException {
+		return read(FrameReading.FIRST_FRAME).getFrame(0);
+	}
+
+	public FrameSequence readFrames() throws IOException {
+		return read(FrameReading.ALL_FRAMES);
+	}
+	
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		return read(FrameReading.processedBy(processor));
+	}
+
+	private FrameSequence read(FrameReading reading) throws IOException {
 		FileInputStream fis;
 		try {
 			fis = new FileInputStream(sourceFile);
@@ -121,10 +151,19 @@ public class FileImageSource implements ImageSource<File> {
 			);
 		}
 
+		ImageInputStream iis;
+		try {
+			iis = createImageInputStream(fis.getChannel());
+		} catch (IOException e) {
+			fis.close();
+			throw e;
+		}
+
 		try {
-			imageSource = new InputStreamImageSource(fis);
+			ImageInputStreamImageSource streamSource = new ImageInputStreamImageSource(iis);
+			imageSource = streamSource;
 			imageSource.setThumbnailParameter(param);
-			return imageSource.read();
+			return reading.readFrom(streamSource);
 
 		} catch (UnsupportedFormatException e) {
 			String sourcePath = sourceFile.getAbsolutePath();
@@ -133,10 +172,38 @@ public class FileImageSource implements ImageSource<File> {
 					"No suitable ImageReader found for " + sourcePath + "."
 			);
 		} finally {
+			iis.close();
 			fis.close();
 		}
 	}
 
+	/**
+	 * Returns an {@link ImageInputStream} which reads directly from the
+	 * specified channel, so that the decoder can seek in the file without
+	 * the data being cached again in memory or in a temporary file.
+	 * <p>
+	 * Files are read with positional reads. When
+	 * {@link Configurations#MEMORY_MAP_FILES} is enabled, files up to
+	 * {@link #MAPPING_THRESHOLD} bytes are memory-mapped instead, except on
+	 * Windows, where a mapped file cannot be overwritten until the mapping
+	 * is garbage collected.
+	 *
+	 * @param channel		The channel of the source file.
+	 * @return				An {@link ImageInputStream} for the file.
+	 * @throws IOException	When the file could not be mapped.
+	 */
+	private static ImageInputStream createImageInputStream(FileChannel channel) throws IOException {
+		long size = channel.size();
+
+		if (size <= MAPPING_THRESHOLD && !IS_WINDOWS
+				&& Configurations.MEMORY_MAP_FILES.getBoolean()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new ByteBufferImageInputStream(buffer);
+		}
+
+		return new FileChannelImageInputStream(channel);
+	}
+
 	/**
 	 * Returns the source file from which an image is read.
 	 * 
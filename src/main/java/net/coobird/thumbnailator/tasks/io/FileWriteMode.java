@@ -0,0 +1,70 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+/**
+ * Specifies how a {@link FileImageSink} writes the thumbnail into the
+ * destination file.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public enum FileWriteMode {
+	/**
+	 * Writes the thumbnail directly into the destination file.
+	 * <p>
+	 * Readers of the file can observe a partially written thumbnail, and a
+	 * failure while writing leaves a truncated file behind.
+	 * <p>
+	 * This is the default.
+	 */
+	DIRECT,
+	
+	/**
+	 * Writes the thumbnail into a temporary file in the same directory as
+	 * the destination file, then atomically moves it into place.
+	 * <p>
+	 * Readers of the destination file either see the previous file or the
+	 * complete thumbnail, and a failure while writing leaves the
+	 * destination file untouched.
+	 * <p>
+	 * When overwriting is not allowed, the thumbnail is hard linked into
+	 * place, which fails if a file has been created at the destination in
+	 * the meantime. On file systems without hard links it is moved instead,
+	 * which can replace a file created just before the move.
+	 */
+	ATOMIC,
+	
+	/**
+	 * Same as {@link #ATOMIC}, but additionally forces the content of the
+	 * temporary file to the storage device before moving it into place,
+	 * so that the thumbnail is not lost or truncated by a system crash after
+	 * the move.
+	 */
+	ATOMIC_SYNC,
+	;
+}
@@ -0,0 +1,262 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.util.Arrays;
+
+/**
+ * Options which make thumbnails of all the frames of animated images, such
+ * as animated GIFs, or of all the pages of multi-page images, such as
+ * multi-page TIFFs, rather than only of the first image.
+ * <p>
+ * Instances of this class are immutable. Starting from {@link #ALL}, each
+ * option is set by a method which returns a copy with that option changed:
+ * <pre>
+FrameOptions options = FrameOptions.ALL
+    .sample(24)
+    .threads(4);
+ * </pre>
+ * The frames of GIF images are composed as they would be displayed,
+ * following the disposal method of each frame, so that every thumbnail is
+ * a complete frame of the animation. The frames are resized concurrently,
+ * and are written as an animated image when the output format can hold a
+ * sequence of images, such as GIF and TIFF. For other formats, only the
+ * first thumbnail is written.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class FrameOptions {
+	/**
+	 * The options with which all the frames are used.
+	 */
+	public static final FrameOptions ALL = new FrameOptions();
+	
+	/**
+	 * A value for the maximum number of frames which denotes that the
+	 * number of frames is not limited.
+	 */
+	public static final int UNLIMITED = 0;
+	
+	/*
+	 * The fields are only assigned on copies before they are returned, so
+	 * that instances are effectively immutable.
+	 */
+	private int maxFrames = UNLIMITED;
+	private boolean sampling = false;
+	private int[] indices = null;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	
+	private FrameOptions() {}
+	
+	private FrameOptions copy() {
+		FrameOptions copy = new FrameOptions();
+		copy.maxFrames = maxFrames;
+		copy.sampling = sampling;
+		copy.indices = indices;
+		copy.threads = threads;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where at most the specified number
+	 * of frames is used, starting from the first frame.
+	 * <p>
+	 * The animation is cut off after the last frame, so it becomes shorter.
+	 * 
+	 * @param maxFrames		The maximum number of frames.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of frames is not
+	 * 									greater than 0.
+	 */
+	public FrameOptions limit(int maxFrames) {
+		if (maxFrames < 1) {
+			throw new IllegalArgumentException("Number of frames must be greater than 0.");
+		}
+		FrameOptions copy = copy();
+		copy.maxFrames = maxFrames;
+		copy.sampling = false;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where at most the specified number
+	 * of frames is used, evenly spaced over the animation.
+	 * <p>
+	 * The delay of each frame which is used is extended by the delays of
+	 * the frames which are skipped after it, so the animation keeps its
+	 * duration with a lower frame rate.
+	 * 
+	 * @param maxFrames		The maximum number of frames.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of frames is not
+	 * 									greater than 0.
+	 */
+	public FrameOptions sample(int maxFrames) {
+		if (maxFrames < 1) {
+			throw new IllegalArgumentException("Number of frames must be greater than 0.");
+		}
+		FrameOptions copy = copy();
+		copy.maxFrames = maxFrames;
+		copy.sampling = true;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options where only the frames or pages at
+	 * the specified indices are used, in ascending order.
+	 * <p>
+	 * Indices beyond the last frame of an image are ignored. A limit on
+	 * the number of frames applies to the selected frames.
+	 * 
+	 * @param indices		The zero-based indices of the frames.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If no index is given, or an index
+	 * 									is negative.
+	 */
+	public FrameOptions select(int... indices) {
+		if (indices.length == 0) {
+			throw new IllegalArgumentException("At least one index must be specified.");
+		}
+		int[] sorted = indices.clone();
+		Arrays.sort(sorted);
+		if (sorted[0] < 0) {
+			throw new IllegalArgumentException("Index cannot be negative.");
+		}
+		FrameOptions copy = copy();
+		copy.indices = sorted;
+		return copy;
+	}
+	
+	/**
+	 * Returns a copy of these options with the number of threads which
+	 * resize the frames.
+	 * <p>
+	 * By default, as many threads as there are processors are used.
+	 * <p>
+	 * The frames are resized on the threads of the {@link Offloading} of
+	 * the thumbnail, if one is set, or otherwise on a pool of as many
+	 * threads as there are processors which is shared by all thumbnails.
+	 * This number only limits how many frames of a single image are
+	 * resized at the same time.
+	 * 
+	 * @param threads		The number of threads.
+	 * @return				The new options.
+	 * @throws IllegalArgumentException	If the number of threads is not
+	 * 									greater than 0.
+	 */
+	public FrameOptions threads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Thread count must be greater than 0.");
+		}
+		FrameOptions copy = copy();
+		copy.threads = threads;
+		return copy;
+	}
+	
+	/**
+	 * Returns the maximum number of frames.
+	 * 
+	 * @return		The number of frames, or {@link #UNLIMITED}.
+	 */
+	public int getMaxFrames() {
+		return maxFrames;
+	}
+	
+	/**
+	 * Returns whether the frames are sampled over the whole animation when
+	 * the number of frames is limited, rather than cut off.
+	 * 
+	 * @return		{@code true} if the frames are sampled.
+	 */
+	public boolean isSampling() {
+		return sampling;
+	}
+	
+	/**
+	 * Returns the indices of the frames to use.
+	 * 
+	 * @return		The indices in ascending order, or {@code null} if all
+	 * 				frames are used.
+	 */
+	public int[] getIndices() {
+		return indices != null ? indices.clone() : null;
+	}
+	
+	/**
+	 * Returns the number of threads which resize the frames.
+	 * 
+	 * @return		The number of threads.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Returns the indices of the frames which are used from an image with
+	 * the specified number of frames.
+	 * 
+	 * @param frameCount	The number of frames of the image.
+	 * @return				The indices in ascending order.
+	 */
+	int[] selectFrames(int frameCount) {
+		int[] candidates;
+		if (indices == null) {
+			candidates = new int[frameCount];
+			for (int i = 0; i < frameCount; i++) {
+				candidates[i] = i;
+			}
+		} else {
+			int count = 0;
+			while (count < indices.length && indices[count] < frameCount) {
+				count++;
+			}
+			candidates = Arrays.copyOf(indices, count);
+			
+			// Duplicate indices are only used once.
+			int unique = 0;
+			for (int i = 0; i < candidates.length; i++) {
+				if (unique == 0 || candidates[unique - 1] != candidates[i]) {
+					candidates[unique++] = candidates[i];
+				}
+			}
+			candidates = Arrays.copyOf(candidates, unique);
+		}
+		
+		if (maxFrames == UNLIMITED || candidates.length <= maxFrames) {
+			return candidates;
+		}
+		if (!sampling) {
+			return Arrays.copyOf(candidates, maxFrames);
+		}
+		
+		int[] sampled = new int[maxFrames];
+		for (int i = 0; i < maxFrames; i++) {
+			sampled[i] = candidates[(int)((long)i * candidates.length / maxFrames)];
+		}
+		return sampled;
+	}
+}
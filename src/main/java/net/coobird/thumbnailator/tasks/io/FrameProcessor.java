@@ -0,0 +1,57 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Processes each frame of an animated or multi-page image as soon as it has
+ * been read, so that the frames at the full size of the image do not all
+ * need to be held in memory at once.
+ * <p>
+ * The frame given to {@link #process(BufferedImage)} may be reused to
+ * compose the next frame once the method returns, so an implementation
+ * must not keep a reference to it. The image which is returned is kept as
+ * the frame instead.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface FrameProcessor {
+	/**
+	 * Processes a frame which has been read.
+	 * 
+	 * @param frame			The frame, which is only valid until this
+	 * 						method returns.
+	 * @return				The image to keep in place of the frame, which
+	 * 						must not be the frame itself.
+	 * @throws IOException	When a problem occurs while processing the
+	 * 						frame.
+	 */
+	public BufferedImage process(BufferedImage frame) throws IOException;
+}
@@ -0,0 +1,296 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+
+import org.w3c.dom.Node;
+
+/**
+ * Reads the frames of an animated or multi-page image, as selected by
+ * {@link FrameOptions}.
+ * <p>
+ * The frames of GIF images only cover the part of the image which changes,
+ * and are drawn over what remains of the previous frames, so they are
+ * composed onto a canvas of the size of the image, following the disposal
+ * method of each frame. Frames of other formats are read as they are.
+ * <p>
+ * When a {@link FrameProcessor} is given, each selected frame is handed to
+ * it as soon as it has been read or composed, and only the processed image
+ * is kept, so that a copy of the whole canvas is not kept for every frame.
+ * 
+ * @author coobird
+ *
+ */
+final class FrameReader {
+	private static final String GIF_IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+	private static final String GIF_STREAM_METADATA_FORMAT = "javax_imageio_gif_stream_1.0";
+	
+	/**
+	 * The number of milliseconds in the unit of the delays of GIF frames.
+	 */
+	private static final int GIF_DELAY_UNIT = 10;
+	
+	private final ImageReader reader;
+	private final FrameOptions options;
+	private final FrameProcessor processor;
+	
+	/**
+	 * Instantiates a {@link FrameReader}.
+	 * 
+	 * @param reader		The reader whose input has been set.
+	 * @param options		The frames to read.
+	 */
+	FrameReader(ImageReader reader, FrameOptions options) {
+		this(reader, options, null);
+	}
+	
+	/**
+	 * Instantiates a {@link FrameReader} which processes each frame as soon
+	 * as it has been read.
+	 * 
+	 * @param reader		The reader whose input has been set.
+	 * @param options		The frames to read.
+	 * @param processor		The processor of the frames, or {@code null}
+	 * 						to keep the frames as they are read.
+	 */
+	FrameReader(ImageReader reader, FrameOptions options, FrameProcessor processor) {
+		this.reader = reader;
+		this.options = options;
+		this.processor = processor;
+	}
+	
+	/**
+	 * Reads the selected frames.
+	 * 
+	 * @return				The frames.
+	 * @throws IOException	When a problem occurs while reading the image.
+	 */
+	FrameSequence read() throws IOException {
+		int frameCount = reader.getNumImages(true);
+		int[] indices = options.selectFrames(frameCount);
+		if (indices.length == 0) {
+			// Selected pages beyond the end fall back to the first one.
+			indices = new int[] {0};
+		}
+		
+		if (reader.getFormatName().equalsIgnoreCase("gif")) {
+			return readGif(frameCount, indices);
+		}
+		
+		List<BufferedImage> frames = new ArrayList<BufferedImage>();
+		for (int index : indices) {
+			BufferedImage frame = reader.read(index);
+			frames.add(processor != null ? processor.process(frame) : frame);
+		}
+		return new FrameSequence(frames, new int[indices.length], FrameSequence.NO_LOOP);
+	}
+	
+	/**
+	 * Composes the frames of a GIF image up to the last selected frame, and
+	 * keeps a copy, or the processed image, of the selected ones.
+	 */
+	private FrameSequence readGif(int frameCount, int[] indices) throws IOException {
+		int lastFrame = indices[indices.length - 1];
+		int loopCount = FrameSequence.NO_LOOP;
+		
+		int[] frameDelays = new int[frameCount];
+		List<GifFrame> gifFrames = new ArrayList<GifFrame>();
+		for (int i = 0; i < frameCount; i++) {
+			GifFrame frame = new GifFrame(reader.getImageMetadata(i));
+			frameDelays[i] = frame.delay;
+			if (i == 0) {
+				loopCount = frame.loopCount;
+			}
+			if (i <= lastFrame) {
+				gifFrames.add(frame);
+			}
+		}
+		
+		BufferedImage canvas = createCanvas(gifFrames);
+		Graphics2D g = canvas.createGraphics();
+		
+		List<BufferedImage> frames = new ArrayList<BufferedImage>();
+		int[] delays = new int[indices.length];
+		int next = 0;
+		try {
+			for (int i = 0; i <= lastFrame; i++) {
+				GifFrame frame = gifFrames.get(i);
+				BufferedImage image = reader.read(i);
+				
+				BufferedImage previous = null;
+				if ("restoreToPrevious".equals(frame.disposal)) {
+					previous = canvas.getSubimage(
+							frame.left, frame.top,
+							Math.min(image.getWidth(), canvas.getWidth() - frame.left),
+							Math.min(image.getHeight(), canvas.getHeight() - frame.top)
+					);
+					previous = copy(previous);
+				}
+				
+				g.setComposite(AlphaComposite.SrcOver);
+				g.drawImage(image, frame.left, frame.top, null);
+				
+				if (i == indices[next]) {
+					frames.add(processor != null ? processor.process(canvas) : copy(canvas));
+					delays[next] = frameDelays[i];
+					
+					/*
+					 * Sampled frames are displayed for as long as the
+					 * frames which are skipped after them, so that the
+					 * animation keeps its duration.
+					 */
+					if (options.isSampling()) {
+						int end = next + 1 < indices.length ? indices[next + 1] : frameCount;
+						for (int j = i + 1; j < end; j++) {
+							delays[next] += frameDelays[j];
+						}
+					}
+					next++;
+				}
+				
+				if ("restoreToBackgroundColor".equals(frame.disposal)) {
+					g.setComposite(AlphaComposite.Clear);
+					g.fillRect(frame.left, frame.top, image.getWidth(), image.getHeight());
+					
+				} else if (previous != null) {
+					g.setComposite(AlphaComposite.Src);
+					g.drawImage(previous, frame.left, frame.top, null);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+		
+		return new FrameSequence(frames, delays, loopCount);
+	}
+	
+	/**
+	 * Creates a transparent canvas of the size of the logical screen of the
+	 * GIF image, enlarged to hold all frames if needed.
+	 */
+	private BufferedImage createCanvas(List<GifFrame> frames) throws IOException {
+		int width = 0;
+		int height = 0;
+		
+		IIOMetadata streamMetadata = reader.getStreamMetadata();
+		if (streamMetadata != null) {
+			Node root = streamMetadata.getAsTree(GIF_STREAM_METADATA_FORMAT);
+			IIOMetadataNode screen = findChild(root, "LogicalScreenDescriptor");
+			if (screen != null) {
+				width = parseInt(screen.getAttribute("logicalScreenWidth"));
+				height = parseInt(screen.getAttribute("logicalScreenHeight"));
+			}
+		}
+		
+		for (GifFrame frame : frames) {
+			width = Math.max(width, frame.left + frame.width);
+			height = Math.max(height, frame.top + frame.height);
+		}
+		
+		return new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	private static BufferedImage copy(BufferedImage img) {
+		BufferedImage copy = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = copy.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(img, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+	
+	private static IIOMetadataNode findChild(Node node, String name) {
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeName().equals(name)) {
+				return (IIOMetadataNode)child;
+			}
+		}
+		return null;
+	}
+	
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+	
+	/**
+	 * The placement and timing of a frame of a GIF image, taken from its
+	 * metadata.
+	 */
+	private static final class GifFrame {
+		private int left;
+		private int top;
+		private int width;
+		private int height;
+		private String disposal = "none";
+		private int delay;
+		private int loopCount = FrameSequence.NO_LOOP;
+		
+		private GifFrame(IIOMetadata metadata) {
+			Node root = metadata.getAsTree(GIF_IMAGE_METADATA_FORMAT);
+			
+			IIOMetadataNode descriptor = findChild(root, "ImageDescriptor");
+			if (descriptor != null) {
+				left = parseInt(descriptor.getAttribute("imageLeftPosition"));
+				top = parseInt(descriptor.getAttribute("imageTopPosition"));
+				width = parseInt(descriptor.getAttribute("imageWidth"));
+				height = parseInt(descriptor.getAttribute("imageHeight"));
+			}
+			
+			IIOMetadataNode control = findChild(root, "GraphicControlExtension");
+			if (control != null) {
+				disposal = control.getAttribute("disposalMethod");
+				delay = parseInt(control.getAttribute("delayTime")) * GIF_DELAY_UNIT;
+			}
+			
+			IIOMetadataNode extensions = findChild(root, "ApplicationExtensions");
+			if (extensions == null) {
+				return;
+			}
+			for (Node node = extensions.getFirstChild(); node != null; node = node.getNextSibling()) {
+				IIOMetadataNode extension = (IIOMetadataNode)node;
+				Object data = extension.getUserObject();
+				if ("NETSCAPE".equals(extension.getAttribute("applicationID"))
+						&& data instanceof byte[] && ((byte[])data).length >= 3) {
+					byte[] bytes = (byte[])data;
+					loopCount = (bytes[1] & 0xff) | ((bytes[2] & 0xff) << 8);
+				}
+			}
+		}
+	}
+}
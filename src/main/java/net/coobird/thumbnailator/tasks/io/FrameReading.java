@@ -0,0 +1,88 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+
+/**
+ * Which frames of a source image are read, and how they are processed,
+ * for the {@link ImageSource}s which read the image through another
+ * {@link MultiFrameImageSource}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class FrameReading {
+	/**
+	 * Reads only the first image, as {@link ImageSource#read()} does.
+	 */
+	static final FrameReading FIRST_FRAME = new FrameReading(false, null);
+	
+	/**
+	 * Reads the frames selected by the {@link FrameOptions}, as
+	 * {@link MultiFrameImageSource#readFrames()} does.
+	 */
+	static final FrameReading ALL_FRAMES = new FrameReading(true, null);
+	
+	private final boolean allFrames;
+	private final FrameProcessor processor;
+	
+	private FrameReading(boolean allFrames, FrameProcessor processor) {
+		this.allFrames = allFrames;
+		this.processor = processor;
+	}
+	
+	/**
+	 * Reads the frames selected by the {@link FrameOptions}, processing
+	 * each frame as {@link MultiFrameImageSource#readFrames(FrameProcessor)}
+	 * does.
+	 * 
+	 * @param processor		The processor of the frames.
+	 * @return				The {@link FrameReading}.
+	 * @throws NullPointerException	If the processor is {@code null}.
+	 */
+	static FrameReading processedBy(FrameProcessor processor) {
+		if (processor == null) {
+			throw new NullPointerException("FrameProcessor cannot be null.");
+		}
+		return new FrameReading(true, processor);
+	}
+	
+	/**
+	 * Reads the frames from the specified source.
+	 * 
+	 * @param source		The source to read the frames from.
+	 * @return				The frames which were read.
+	 * @throws IOException	When a problem occurs while reading the image,
+	 * 						or processing a frame.
+	 */
+	FrameSequence readFrom(MultiFrameImageSource<?> source) throws IOException {
+		if (!allFrames) {
+			return new FrameSequence(source.read());
+		}
+		return processor != null ? source.readFrames(processor) : source.readFrames();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sequence of images, such as the frames of an animated image or the
+ * pages of a multi-page image, together with their timing.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class FrameSequence {
+	/**
+	 * A value for the loop count which denotes that the animation is
+	 * repeated indefinitely.
+	 */
+	public static final int LOOP_FOREVER = 0;
+	
+	/**
+	 * A value for the loop count which denotes that the animation is played
+	 * once, or that the images are not an animation.
+	 */
+	public static final int NO_LOOP = -1;
+	
+	private final List<BufferedImage> frames;
+	private final int[] delays;
+	private final int loopCount;
+	
+	/**
+	 * Instantiates a {@link FrameSequence} of a single image.
+	 * 
+	 * @param image			The image.
+	 * @throws NullPointerException		If the image is {@code null}.
+	 */
+	public FrameSequence(BufferedImage image) {
+		this(Collections.singletonList(image), new int[1], NO_LOOP);
+	}
+	
+	/**
+	 * Instantiates a {@link FrameSequence}.
+	 * 
+	 * @param frames		The images of the frames.
+	 * @param delays		The time each frame is displayed for, in
+	 * 						milliseconds.
+	 * @param loopCount		The number of times the animation is repeated,
+	 * 						{@link #LOOP_FOREVER} or {@link #NO_LOOP}.
+	 * @throws NullPointerException		If the frames or the delays are
+	 * 									{@code null}, or a frame is
+	 * 									{@code null}.
+	 * @throws IllegalArgumentException	If there are no frames, or the
+	 * 									number of delays differs from the
+	 * 									number of frames.
+	 */
+	public FrameSequence(List<BufferedImage> frames, int[] delays, int loopCount) {
+		if (frames == null) {
+			throw new NullPointerException("Frames cannot be null.");
+		}
+		if (delays == null) {
+			throw new NullPointerException("Delays cannot be null.");
+		}
+		if (frames.isEmpty()) {
+			throw new IllegalArgumentException("There must be at least one frame.");
+		}
+		if (frames.size() != delays.length) {
+			throw new IllegalArgumentException("There must be a delay for each frame.");
+		}
+		for (BufferedImage frame : frames) {
+			if (frame == null) {
+				throw new NullPointerException("Frame cannot be null.");
+			}
+		}
+		
+		this.frames = Collections.unmodifiableList(new ArrayList<BufferedImage>(frames));
+		this.delays = delays.clone();
+		this.loopCount = loopCount;
+	}
+	
+	/**
+	 * Returns the number of frames.
+	 * 
+	 * @return		The number of frames.
+	 */
+	public int size() {
+		return frames.size();
+	}
+	
+	/**
+	 * Returns the image of a frame.
+	 * 
+	 * @param index		The index of the frame.
+	 * @return			The image of the frame.
+	 */
+	public BufferedImage getFrame(int index) {
+		return frames.get(index);
+	}
+	
+	/**
+	 * Returns the images of all the frames.
+	 * 
+	 * @return		An unmodifiable list of the images.
+	 */
+	public List<BufferedImage> getFrames() {
+		return frames;
+	}
+	
+	/**
+	 * Returns the time a frame is displayed for.
+	 * 
+	 * @param index		The index of the frame.
+	 * @return			The delay in milliseconds.
+	 */
+	public int getDelay(int index) {
+		if (index < 0 || index >= delays.length) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+		return delays[index];
+	}
+	
+	/**
+	 * Returns the number of times the animation is repeated.
+	 * 
+	 * @return		The loop count, {@link #LOOP_FOREVER} or
+	 * 				{@link #NO_LOOP}.
+	 */
+	public int getLoopCount() {
+		return loopCount;
+	}
+	
+	/**
+	 * Returns a {@link FrameSequence} with the same timing as this one,
+	 * and the specified images as its frames.
+	 * 
+	 * @param frames		The images of the frames.
+	 * @return				The new sequence.
+	 * @throws IllegalArgumentException	If the number of images differs
+	 * 									from the number of frames of this
+	 * 									sequence.
+	 */
+	public FrameSequence withFrames(List<BufferedImage> frames) {
+		return new FrameSequence(frames, delays, loopCount);
+	}
+}
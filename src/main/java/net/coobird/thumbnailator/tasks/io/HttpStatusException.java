@@ -0,0 +1,87 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * An exception used to indicate that an HTTP server responded to the
+ * request for a source image with a status other than success.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class HttpStatusException extends IOException {
+	/**
+	 * An ID used for serialization.
+	 */
+	private static final long serialVersionUID = 7243095158126934370L;
+	
+	/**
+	 * The URL which was requested.
+	 */
+	private final URL url;
+	
+	/**
+	 * The status code of the response.
+	 */
+	private final int statusCode;
+	
+	/**
+	 * Instantiates a {@link HttpStatusException}.
+	 * 
+	 * @param url			The URL which was requested.
+	 * @param statusCode	The status code of the response.
+	 * @param reason		The reason phrase of the response, or
+	 * 						{@code null} if there is none.
+	 */
+	public HttpStatusException(URL url, int statusCode, String reason) {
+		super("Server responded with " + statusCode
+				+ (reason != null ? " " + reason : "") + " for URL: " + url);
+		this.url = url;
+		this.statusCode = statusCode;
+	}
+	
+	/**
+	 * Returns the URL which was requested.
+	 * 
+	 * @return			The URL.
+	 */
+	public URL getURL() {
+		return url;
+	}
+	
+	/**
+	 * Returns the status code of the response.
+	 * 
+	 * @return			The status code, such as {@code 404}.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+}
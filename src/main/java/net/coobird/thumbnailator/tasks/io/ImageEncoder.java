@@ -0,0 +1,89 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import javax.imageio.stream.ImageOutputStream;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+
+/**
+ * An encoder which writes thumbnails in an image format.
+ * <p>
+ * {@link ImageSink}s which write to streams, files and buffers use an
+ * {@link ImageEncoder} to encode the thumbnail, which is chosen as follows:
+ * <ol>
+ * <li>The {@link ImageEncoder} set by
+ * {@link EncoderOptions#encoder(ImageEncoder)}, if it supports the
+ * format.</li>
+ * <li>The first {@link ImageEncoder} which supports the format, of those
+ * registered as service providers through a
+ * {@code META-INF/services/net.coobird.thumbnailator.tasks.io.ImageEncoder}
+ * file on the class path, as used by {@link java.util.ServiceLoader}.</li>
+ * <li>For PNG images, when any of the PNG settings of the
+ * {@link EncoderOptions} is specified, the PNG encoder of Thumbnailator.</li>
+ * <li>The {@link DefaultImageEncoder}, which uses the Image I/O API.</li>
+ * </ol>
+ * Implementations must be thread-safe, as the same instance is used for
+ * all thumbnails.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface ImageEncoder {
+	/**
+	 * Returns whether this encoder can write the specified format.
+	 * 
+	 * @param formatName	The name of the format, such as {@code "png"}.
+	 * @return				{@code true} if the format is supported,
+	 * 						{@code false} otherwise.
+	 */
+	public boolean supportsFormat(String formatName);
+	
+	/**
+	 * Encodes the image in the specified format to the stream.
+	 * <p>
+	 * The stream is neither flushed nor closed by this method.
+	 * 
+	 * @param img			The image to encode.
+	 * @param formatName	The name of the format to encode in.
+	 * @param param			The parameters of the thumbnail, which include
+	 * 						the output quality and the
+	 * 						{@link EncoderOptions}, or {@code null} if the
+	 * 						defaults should be used.
+	 * @param ios			The stream to write the encoded image to.
+	 * @throws IOException	When a problem occurs while writing the image.
+	 */
+	public void encode(
+			BufferedImage img,
+			String formatName,
+			ThumbnailParameter param,
+			ImageOutputStream ios
+	) throws IOException;
+}
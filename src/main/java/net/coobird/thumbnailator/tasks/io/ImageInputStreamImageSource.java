@@ -0,0 +1,866 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.geometry.AbsoluteSize;
+import net.coobird.thumbnailator.geometry.Coordinate;
+import net.coobird.thumbnailator.geometry.Positions;
+import net.coobird.thumbnailator.geometry.Region;
+import net.coobird.thumbnailator.makers.FixedSizeThumbnailMaker;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.Configurations;
+import net.coobird.thumbnailator.util.FormatRegistry;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
+
+/**
+ * An {@link ImageSource} which uses an {@link ImageInputStream} to read the
+ * source image.
+ * <p>
+ * The {@link ImageInputStream} is given to the {@link ImageReader} as is,
+ * so streams which can seek on their own, such as those backed by a file
+ * or a buffer, are read without another layer of caching.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ImageInputStreamImageSource extends AbstractImageSource<ImageInputStream>
+		implements MultiFrameImageSource<ImageInputStream> {
+	/**
+	 * The index used to obtain the first image in an image file.
+	 */
+	private static final int FIRST_IMAGE_INDEX = 0;
+	
+	/**
+	 * The size of the buffer used when scanning the stream for Exif data.
+	 */
+	private static final int EXIF_SCAN_BUFFER_SIZE = 8192;
+	
+	/**
+	 * The default for the smallest number of pixels of a strip which is
+	 * decoded at a time when an image is decoded in strips.
+	 */
+	private static final int MIN_STRIP_PIXELS = 1 << 22;
+	
+	/**
+	 * A {@link ImageInputStream} from which the source image is to be read.
+	 */
+	private final ImageInputStream iis;
+	
+	/**
+	 * The {@link ExifCaptureInputStream} which captured the Exif data while
+	 * the image data was streamed in, if any.
+	 */
+	private final ExifCaptureInputStream exifCapture;
+	
+	/**
+	 * Whether the stream should be scanned for Exif data when the
+	 * {@link ImageReader} cannot read the Exif metadata.
+	 */
+	private final boolean scanForExif;
+	
+	/**
+	 * The position of the stream when the image started to be read.
+	 */
+	private long startPosition;
+	
+	/**
+	 * The smallest number of pixels of a strip which is decoded at a time
+	 * when an image is decoded in strips.
+	 */
+	private int minStripPixels = MIN_STRIP_PIXELS;
+	
+	/**
+	 * The index of the image which is read.
+	 */
+	private int imageIndex = FIRST_IMAGE_INDEX;
+	
+	/**
+	 * Instantiates an {@link ImageInputStreamImageSource} with the
+	 * {@link ImageInputStream} which will be used to read the source image.
+	 * 
+	 * @param iis		The {@link ImageInputStream} which is to be used to
+	 * 					obtain the source image.
+	 * @throws NullPointerException		If the {@link ImageInputStream} is
+	 * 									{@code null}.
+	 */
+	public ImageInputStreamImageSource(ImageInputStream iis) {
+		this(iis, null, !Configurations.DISABLE_EXIF_WORKAROUND.getBoolean());
+	}
+	
+	/**
+	 * Instantiates an {@link ImageInputStreamImageSource} which uses the
+	 * Exif data captured by the specified {@link ExifCaptureInputStream}
+	 * rather than scanning the stream.
+	 * 
+	 * @param iis			The {@link ImageInputStream} which is to be used
+	 * 						to obtain the source image.
+	 * @param exifCapture	The {@link ExifCaptureInputStream} which the data
+	 * 						of the {@link ImageInputStream} was read through,
+	 * 						or {@code null} if none was used.
+	 */
+	ImageInputStreamImageSource(ImageInputStream iis, ExifCaptureInputStream exifCapture) {
+		this(iis, exifCapture, false);
+	}
+	
+	private ImageInputStreamImageSource(ImageInputStream iis, ExifCaptureInputStream exifCapture, boolean scanForExif) {
+		super();
+		
+		if (iis == null) {
+			throw new NullPointerException("ImageInputStream cannot be null.");
+		}
+		
+		this.iis = iis;
+		this.exifCapture = exifCapture;
+		this.scanForExif = scanForExif;
+	}
+
+	/**
+	 * Reads the source image from the {@link ImageInputStream}.
+	 * <p>
+	 * The {@link ImageInputStream} is not closed by this method.
+	 * 
+	 * @return					The source image.
+	 * @throws IOException		When a problem occurs while reading the
+	 * 							image.
+	 */
+	public BufferedImage read() throws IOException {
+		return Offloading.call(param, new Callable<BufferedImage>() {
+			public BufferedImage call() throws IOException {
+				return readSourceImage();
+			}
+		});
+	}
+	
+	private BufferedImage readSourceImage() throws IOException {
+		ImageReader reader = createReader();
+
+		try {
+			BufferedImage img = readImage(reader);
+			return finishedReading(img);
+
+		} finally {
+			/*
+			 * Dispose the reader to free resources.
+			 *
+			 * This seems to be one of the culprits which was causing
+			 * `OutOfMemoryError`s which began appearing frequently with
+			 * Java 7 Update 21.
+			 *
+			 * Issue:
+			 * https://github.com/coobird/thumbnailator/issues/42
+			 */
+			reader.dispose();
+		}
+	}
+
+	/**
+	 * Reads the frames of the source image from the {@link ImageInputStream},
+	 * as selected by the {@link FrameOptions} of the
+	 * {@link ThumbnailParameter}, or all frames if none are set.
+	 * <p>
+	 * The source region is taken from each frame. Exif metadata is not
+	 * used, and the frames are not decoded in strips.
+	 * <p>
+	 * The {@link ImageInputStream} is not closed by this method.
+	 * 
+	 * @return					The frames of the source image.
+	 * @throws IOException		When a problem occurs while reading the
+	 * 							image.
+	 */
+	public FrameSequence readFrames() throws IOException {
+		return Offloading.call(param, new Callable<FrameSequence>() {
+			public FrameSequence call() throws IOException {
+				return readFrameSequence(null);
+			}
+		});
+	}
+	
+	/**
+	 * Reads the frames of the source image from the {@link ImageInputStream},
+	 * as {@link #readFrames()} does, handing each frame to the given
+	 * {@link FrameProcessor} as soon as it has been read.
+	 * <p>
+	 * The source region is taken from each frame before it is processed.
+	 * <p>
+	 * The {@link ImageInputStream} is not closed by this method.
+	 * 
+	 * @param processor			The processor of the frames.
+	 * @return					The processed frames.
+	 * @throws IOException		When a problem occurs while reading the
+	 * 							image, or processing a frame.
+	 * @throws NullPointerException	If the processor is {@code null}.
+	 * @since	0.4.21
+	 */
+	public FrameSequence readFrames(final FrameProcessor processor) throws IOException {
+		if (processor == null) {
+			throw new NullPointerException("FrameProcessor cannot be null.");
+		}
+		
+		return Offloading.call(param, new Callable<FrameSequence>() {
+			public FrameSequence call() throws IOException {
+				return readFrameSequence(processor);
+			}
+		});
+	}
+	
+	private FrameSequence readFrameSequence(final FrameProcessor processor) throws IOException {
+		ImageReader reader = createReader();
+		
+		try {
+			FrameOptions options = param != null && param.getFrameOptions() != null
+					? param.getFrameOptions() : FrameOptions.ALL;
+			
+			inputFormatName = reader.getFormatName();
+			
+			if (processor != null) {
+				FrameProcessor regionProcessor = processor;
+				if (param != null && param.getSourceRegion() != null) {
+					regionProcessor = new FrameProcessor() {
+						public BufferedImage process(BufferedImage frame) throws IOException {
+							return processor.process(sourceRegionOf(frame));
+						}
+					};
+				}
+				return finishedReading(new FrameReader(reader, options, regionProcessor).read());
+			}
+			
+			FrameSequence frames = new FrameReader(reader, options).read();
+			
+			if (param != null && param.getSourceRegion() != null) {
+				List<BufferedImage> regions = new ArrayList<BufferedImage>();
+				for (BufferedImage frame : frames.getFrames()) {
+					regions.add(sourceRegionOf(frame));
+				}
+				frames = frames.withFrames(regions);
+			}
+			
+			return finishedReading(frames);
+			
+		} finally {
+			reader.dispose();
+		}
+	}
+	
+	/**
+	 * Returns the source region of the thumbnail parameters within a frame.
+	 */
+	private BufferedImage sourceRegionOf(BufferedImage frame) {
+		Rectangle region = param.getSourceRegion().calculate(
+				frame.getWidth(), frame.getHeight(), false, false, false
+		);
+		return frame.getSubimage(region.x, region.y, region.width, region.height);
+	}
+
+	/**
+	 * Returns an {@link ImageReader} for the source image, whose input has
+	 * been set to the {@link ImageInputStream}.
+	 * 
+	 * @return					The reader.
+	 * @throws UnsupportedFormatException	When there is no reader for the
+	 * 										format of the image.
+	 * @throws IOException		When a problem occurs while reading the
+	 * 							stream.
+	 */
+	private ImageReader createReader() throws IOException {
+		startPosition = iis.getStreamPosition();
+		
+		ImageReader reader = FormatRegistry.createReaderFor(iis);
+		if (reader == null) {
+			throw new UnsupportedFormatException(
+					UnsupportedFormatException.UNKNOWN,
+					"No suitable ImageReader found for source data."
+			);
+		}
+		
+		reader.setInput(iis);
+		return reader;
+	}
+
+	/**
+	 * Sets the smallest number of pixels of a strip which is decoded at a
+	 * time when an image is decoded in strips.
+	 * <p>
+	 * This is intended only to be called from tests.
+	 * 
+	 * @param pixels		The number of pixels.
+	 */
+	void setMinimumStripPixels(int pixels) {
+		this.minStripPixels = pixels;
+	}
+
+	/**
+	 * Returns the Exif data captured from the raw image data, as a fallback
+	 * for when the {@link ImageReader} could not read the Exif metadata.
+	 * <p>
+	 * If the data was not captured while it was streamed in, the beginning
+	 * of the stream is scanned for the Exif data, after which the stream is
+	 * returned to its current position.
+	 * 
+	 * @return					The Exif data, or {@code null} if not found.
+	 * @throws IOException		When a problem occurs while scanning.
+	 */
+	private byte[] getCapturedExifData() throws IOException {
+		if (exifCapture != null) {
+			return exifCapture.getExifData();
+		}
+		if (!scanForExif) {
+			return null;
+		}
+		
+		long position = iis.getStreamPosition();
+		try {
+			iis.seek(startPosition);
+			
+			ExifCaptureInputStream capture = new ExifCaptureInputStream(
+					new InputStream() {
+						@Override
+						public int read() throws IOException {
+							return iis.read();
+						}
+						
+						@Override
+						public int read(byte[] b, int off, int len) throws IOException {
+							return iis.read(b, off, len);
+						}
+					}
+			);
+			
+			byte[] buffer = new byte[EXIF_SCAN_BUFFER_SIZE];
+			while (capture.isIntercepting()
+					&& capture.read(buffer, 0, buffer.length) != -1);
+			
+			return capture.getExifData();
+			
+		} finally {
+			iis.seek(position);
+		}
+	}
+
+	private BufferedImage readImage(ImageReader reader) throws IOException {
+		Orientation orientation = null;
+		try {
+			if (param.useExifOrientation()) {
+
+				// Attempt to use Exif reader of the ImageReader.
+				// If the ImageReader fails like seen in Issue #108, use the
+				// backup method of using the captured Exif data.
+				boolean useExifFromRawData = false;
+				try {
+					orientation = ExifUtils.getExifOrientation(reader, FIRST_IMAGE_INDEX);
+				} catch (Exception e) {
+					// TODO Would be useful to capture why it didn't work.
+					useExifFromRawData = true;
+				}
+
+				if (useExifFromRawData) {
+					byte[] exifData = getCapturedExifData();
+					if (exifData != null) {
+						orientation = ExifUtils.getOrientationFromExif(exifData);
+					}
+				}
+
+				// Skip this code block if there's no rotation needed.
+				if (orientation != null && orientation != Orientation.TOP_LEFT) {
+					List<ImageFilter> filters = param.getImageFilters();
+
+					// EXIF orientation filter is added to the beginning, as
+					// it should be performed early to prevent mis-orientation
+					// in later filters.
+					filters.add(0, ExifFilterUtils.getFilterForOrientation(orientation));
+				}
+			}
+		} catch (Exception e) {
+			// If something goes wrong, then skip the orientation-related
+			// processing.
+			// TODO Ought to have some way to track errors.
+		}
+
+		inputFormatName = reader.getFormatName();
+		imageIndex = selectImage(reader, orientation);
+
+		ImageReadParam irParam = reader.getDefaultReadParam();
+		int width = reader.getWidth(imageIndex);
+		int height = reader.getHeight(imageIndex);
+
+		/*
+		 * Only the region of the source image which ends up in the thumbnail
+		 * is decoded: the explicit source region, narrowed down to the part
+		 * which remains after cropping, when the thumbnail is cropped.
+		 */
+		Rectangle decodeRegion = null;
+		if (param != null && param.getSourceRegion() != null) {
+			Region region = param.getSourceRegion();
+			decodeRegion = calculateSourceRegion(width, height, orientation, region);
+		}
+		
+		Rectangle cropRegion = calculateCropRegion(width, height, orientation, decodeRegion);
+		if (cropRegion != null) {
+			decodeRegion = cropRegion;
+		}
+		
+		int regionWidth = width;
+		int regionHeight = height;
+		if (decodeRegion != null) {
+			irParam.setSourceRegion(decodeRegion);
+			regionWidth = decodeRegion.width;
+			regionHeight = decodeRegion.height;
+		}
+
+		/*
+		 * When streaming is enabled, images which would take up more than
+		 * the streaming threshold once decoded are subsampled while they
+		 * are decoded, as little as needed to fit, so that the configured
+		 * Resizer still makes the thumbnail.
+		 * 
+		 * Only when no subsampling which keeps the image at least as large
+		 * as the thumbnail fits are they decoded in strips, which are
+		 * reduced to the size of the thumbnail as they are decoded.
+		 */
+		Dimension streamingSize = calculateStreamingSize(regionWidth, regionHeight, orientation);
+		if (streamingSize != null) {
+			int subsampling = calculateFittingSubsampling(regionWidth, regionHeight, streamingSize);
+			if (subsampling > 0 && (param.getSize() != null || setScalingFactors(
+					param.getWidthScalingFactor() * subsampling,
+					param.getHeightScalingFactor() * subsampling
+			))) {
+				irParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				return reader.read(imageIndex, irParam);
+			}
+			
+			if (param.getSize() != null || setScalingFactors(1.0, 1.0)) {
+				Rectangle region = decodeRegion != null
+						? decodeRegion : new Rectangle(0, 0, width, height);
+				return readInStrips(reader, region, streamingSize);
+			}
+		}
+
+		/*
+		 * FIXME Workaround to enable subsampling for large source images.
+		 *
+		 * Issue:
+		 * https://github.com/coobird/thumbnailator/issues/69
+		 */
+		if (param != null &&
+				Configurations.CONSERVE_MEMORY_WORKAROUND.getBoolean() &&
+				regionWidth > 1800 && regionHeight > 1800 &&
+				(regionWidth * regionHeight * 4L > Runtime.getRuntime().freeMemory() / 4)
+		) {
+			int subsampling = 1;
+
+			// Calculate the maximum subsampling that can be used.
+			if (param.getSize() != null && (param.getSize().width * 2 < regionWidth && param.getSize().height * 2 < regionHeight)) {
+				int targetWidth = param.getSize().width;
+				int targetHeight = param.getSize().height;
+
+				// Handle cases where .width() or .height() is called. (Issue 161)
+				targetWidth = targetWidth != Integer.MAX_VALUE ? targetWidth : targetHeight;
+				targetHeight = targetHeight != Integer.MAX_VALUE ? targetHeight : targetWidth;
+
+				double widthScaling = (double)regionWidth / (double)targetWidth;
+				double heightScaling = (double)regionHeight / (double)targetHeight;
+
+				subsampling = (int)Math.floor(Math.min(widthScaling, heightScaling));
+
+			} else if (param.getSize() == null) {
+				subsampling = (int)Math.max(1, Math.floor(1 / Math.max(param.getHeightScalingFactor(), param.getWidthScalingFactor())));
+			}
+
+			// Prevent excessive subsampling that can ruin image quality.
+			// This will ensure that at least a 600 x 600 image will be used as source.
+			for (; (regionWidth / subsampling) < 600 || (regionHeight / subsampling) < 600; subsampling--);
+
+			// If scaling factor based resize is used, need to change the scaling factor.
+			if (param.getSize() == null) {
+				boolean updated = setScalingFactors(
+						param.getWidthScalingFactor() * (double)subsampling,
+						param.getHeightScalingFactor() * (double)subsampling
+				);
+				
+				// If we can't update the parameter, then disable subsampling.
+				if (!updated) {
+					subsampling = 1;
+				}
+			}
+
+			irParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		}
+
+		return reader.read(imageIndex, irParam);
+	}
+
+	/**
+	 * Returns the index of the image to read, as selected by the
+	 * {@link ImageSelector} of the {@link ThumbnailParameter}.
+	 * <p>
+	 * The number of images and their sizes are only read when an
+	 * {@link ImageSelector} is specified, as finding the number of images
+	 * can require the entire stream to be scanned.
+	 * 
+	 * @param reader		The reader to read the image with.
+	 * @param orientation	The Exif orientation, or {@code null}.
+	 * @return				The index of the image.
+	 * @throws IOException	When a problem occurs while reading the sizes
+	 * 						of the images.
+	 */
+	private int selectImage(ImageReader reader, Orientation orientation) throws IOException {
+		ImageSelector selector = param != null ? param.getImageSelector() : null;
+		if (selector == null) {
+			return FIRST_IMAGE_INDEX;
+		}
+		
+		int count = reader.getNumImages(true);
+		Dimension[] sizes = new Dimension[count];
+		int largest = 0;
+		for (int i = 0; i < count; i++) {
+			sizes[i] = new Dimension(reader.getWidth(i), reader.getHeight(i));
+			if ((long)sizes[i].width * sizes[i].height
+					> (long)sizes[largest].width * sizes[largest].height) {
+				largest = i;
+			}
+		}
+		
+		Dimension thumbnailSize = null;
+		if (param.getSize() != null && count > 0) {
+			boolean swapDimensions = isSwapDimensions(orientation);
+			Dimension size = param.getSize();
+			thumbnailSize = FixedSizeThumbnailMaker.calculateSize(
+					sizes[largest].width,
+					sizes[largest].height,
+					swapDimensions ? size.height : size.width,
+					swapDimensions ? size.width : size.height,
+					param.isKeepAspectRatio(),
+					param.fitWithinDimenions()
+			);
+		}
+		
+		int index = selector.select(sizes, thumbnailSize);
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException(
+					"Image index " + index + " is out of range, as the source has "
+					+ count + " image(s)."
+			);
+		}
+		return index;
+	}
+
+	/**
+	 * Changes the scaling factors of the {@link ThumbnailParameter}, for
+	 * when the image is reduced while it is being read.
+	 * 
+	 * @param widthScalingFactor	The new scaling factor for the width.
+	 * @param heightScalingFactor	The new scaling factor for the height.
+	 * @return						{@code true} if the scaling factors
+	 * 								were changed.
+	 */
+	private boolean setScalingFactors(double widthScalingFactor, double heightScalingFactor) {
+		try {
+			Class<?> c = param.getClass();
+			Field heightField = c.getDeclaredField("heightScalingFactor");
+			Field widthField = c.getDeclaredField("widthScalingFactor");
+			heightField.setAccessible(true);
+			widthField.setAccessible(true);
+			heightField.set(param, heightScalingFactor);
+			widthField.set(param, widthScalingFactor);
+			return true;
+
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Calculates the size of the thumbnail in the orientation of the stored
+	 * image, if the region to decode is too large to be decoded at once.
+	 * 
+	 * @param regionWidth	The width of the region to decode.
+	 * @param regionHeight	The height of the region to decode.
+	 * @param orientation	The Exif orientation, or {@code null}.
+	 * @return				The size to which the region is reduced while
+	 * 						it is decoded, or {@code null} if the region
+	 * 						should be decoded at once.
+	 */
+	private Dimension calculateStreamingSize(int regionWidth, int regionHeight, Orientation orientation) {
+		if (param == null || regionWidth * (long)regionHeight * 4L <= param.getStreamingThreshold()) {
+			return null;
+		}
+		
+		boolean swapDimensions = isSwapDimensions(orientation);
+		Dimension size;
+		if (param.getSize() != null) {
+			Dimension thumbnailSize = param.getSize();
+			size = FixedSizeThumbnailMaker.calculateSize(
+					regionWidth,
+					regionHeight,
+					swapDimensions ? thumbnailSize.height : thumbnailSize.width,
+					swapDimensions ? thumbnailSize.width : thumbnailSize.height,
+					param.isKeepAspectRatio(),
+					param.fitWithinDimenions()
+			);
+			
+		} else if (!Double.isNaN(param.getWidthScalingFactor())) {
+			double widthScalingFactor = swapDimensions ?
+					param.getHeightScalingFactor() : param.getWidthScalingFactor();
+			double heightScalingFactor = swapDimensions ?
+					param.getWidthScalingFactor() : param.getHeightScalingFactor();
+			size = new Dimension(
+					Math.max(1, (int)Math.round(regionWidth * widthScalingFactor)),
+					Math.max(1, (int)Math.round(regionHeight * heightScalingFactor))
+			);
+			
+		} else {
+			return null;
+		}
+		
+		// Only reductions are performed while decoding.
+		if (size.width > regionWidth || size.height > regionHeight
+				|| (size.width == regionWidth && size.height == regionHeight)) {
+			return null;
+		}
+		return size;
+	}
+
+	/**
+	 * Calculates the smallest subsampling with which the decoded region
+	 * fits within the streaming threshold, while still being at least as
+	 * large as the thumbnail.
+	 * 
+	 * @param regionWidth	The width of the region to decode.
+	 * @param regionHeight	The height of the region to decode.
+	 * @param size			The size of the thumbnail in the orientation
+	 * 						of the stored image.
+	 * @return				The subsampling, or {@code 0} if no subsampling
+	 * 						fits.
+	 */
+	private int calculateFittingSubsampling(int regionWidth, int regionHeight, Dimension size) {
+		int maxSubsampling = Math.min(regionWidth / size.width, regionHeight / size.height);
+		for (int subsampling = 2; subsampling <= maxSubsampling; subsampling++) {
+			long width = (regionWidth + subsampling - 1) / subsampling;
+			long height = (regionHeight + subsampling - 1) / subsampling;
+			if (width * height * 4L <= param.getStreamingThreshold()) {
+				return subsampling;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Reads the specified region of the image in horizontal strips, which
+	 * are reduced to the specified size as they are read, so that only
+	 * one strip of the source image is held in memory at a time.
+	 * <p>
+	 * The height of the strips is limited by the streaming threshold, and
+	 * is a multiple of the height of the tiles or strips the image is
+	 * stored in, if any. Formats which can only be decoded from the
+	 * beginning, such as JPEG and PNG, decode the image up to each strip
+	 * again, which trades time for memory.
+	 * <p>
+	 * The strips are reduced with a triangle filter, rather than by the
+	 * {@link net.coobird.thumbnailator.resizers.Resizer} of the
+	 * {@link ThumbnailParameter}, which is why this is only used when the
+	 * image does not fit in memory even when subsampled.
+	 * 
+	 * @param reader		The reader to read the image with.
+	 * @param region		The region of the image to read.
+	 * @param size			The size to reduce the region to.
+	 * @return				The reduced image.
+	 * @throws IOException	When a problem occurs while reading the image.
+	 */
+	private BufferedImage readInStrips(ImageReader reader, Rectangle region, Dimension size) throws IOException {
+		/*
+		 * Strips take up to a quarter of the streaming threshold, as 4 bytes
+		 * per pixel, so that fewer strips are needed with a larger heap.
+		 */
+		long stripPixels = Math.max(minStripPixels, param.getStreamingThreshold() / 16);
+		int stripHeight = (int)Math.max(1, Math.min(region.height, stripPixels / region.width));
+		if (reader.isImageTiled(imageIndex)) {
+			int tileHeight = reader.getTileHeight(imageIndex);
+			stripHeight = Math.max(tileHeight, stripHeight / tileHeight * tileHeight);
+		}
+		
+		ImageReadParam irParam = reader.getDefaultReadParam();
+		StripResampler resampler = null;
+		BufferedImage strip = null;
+		
+		for (int y = 0; y < region.height; y += stripHeight) {
+			int height = Math.min(stripHeight, region.height - y);
+			irParam.setSourceRegion(
+					new Rectangle(region.x, region.y + y, region.width, height)
+			);
+			
+			// Each strip is decoded into the image of the first strip.
+			irParam.setDestination(strip);
+			strip = reader.read(imageIndex, irParam);
+			
+			if (resampler == null) {
+				resampler = new StripResampler(
+						region.width,
+						region.height,
+						size.width,
+						size.height,
+						strip.getColorModel().hasAlpha()
+				);
+			}
+			resampler.push(strip, height);
+		}
+		
+		return resampler.getResult();
+	}
+
+	/**
+	 * Returns whether the specified Exif orientation swaps the width and
+	 * height of the image.
+	 */
+	private static boolean isSwapDimensions(Orientation orientation) {
+		return orientation == Orientation.LEFT_TOP
+				|| orientation == Orientation.RIGHT_TOP
+				|| orientation == Orientation.RIGHT_BOTTOM
+				|| orientation == Orientation.LEFT_BOTTOM;
+	}
+
+	/**
+	 * Calculates the region of the source image which remains when the
+	 * thumbnail is cropped, so that the rest of the image is not decoded.
+	 * <p>
+	 * The crop is calculated in the orientation in which the image is
+	 * displayed, within the source region if one was specified, and the
+	 * result is mapped back to the coordinates of the stored image.
+	 * 
+	 * @param width			The width of the stored image.
+	 * @param height		The height of the stored image.
+	 * @param orientation	The Exif orientation, or {@code null}.
+	 * @param sourceRegion	The source region in the coordinates of the
+	 * 						stored image, or {@code null} for the entire
+	 * 						image.
+	 * @return				The region to decode, or {@code null} if the
+	 * 						thumbnail is not cropped.
+	 */
+	private Rectangle calculateCropRegion(int width, int height, Orientation orientation, Rectangle sourceRegion) {
+		/*
+		 * Only the predefined positions place an image which already has
+		 * the size of the thumbnail at its origin, so that cropping the
+		 * decoded region again does not move it. Other positions are
+		 * applied to the entire image.
+		 */
+		if (param == null || !(param.getCroppingPosition() instanceof Positions)
+				|| param.getSize() == null
+				|| !param.isKeepAspectRatio()
+				|| param.fitWithinDimenions()) {
+			return null;
+		}
+		
+		Dimension size = param.getSize();
+		if (size.width == Integer.MAX_VALUE || size.height == Integer.MAX_VALUE) {
+			return null;
+		}
+		
+		Rectangle outer = sourceRegion != null ? sourceRegion : new Rectangle(0, 0, width, height);
+		if (outer.isEmpty()) {
+			return null;
+		}
+		
+		boolean swapDimensions = isSwapDimensions(orientation);
+		int orientedWidth = swapDimensions ? outer.height : outer.width;
+		int orientedHeight = swapDimensions ? outer.width : outer.height;
+		
+		Rectangle crop = FixedSizeThumbnailMaker.calculateCropRegion(
+				orientedWidth, orientedHeight, size.width, size.height, param.getCroppingPosition()
+		);
+		
+		Region cropRegion = new Region(
+				new Coordinate(crop.x, crop.y),
+				new AbsoluteSize(crop.width, crop.height)
+		);
+		Rectangle region = calculateSourceRegion(outer.width, outer.height, orientation, cropRegion);
+		region.translate(outer.x, outer.y);
+		return region;
+	}
+
+	private Rectangle calculateSourceRegion(int width, int height, Orientation orientation, Region region) {
+		boolean flipHorizontal = false;
+		boolean flipVertical = false;
+		boolean swapDimensions = false;
+
+		/*
+		 * Fix for Issue 207:
+		 * https://github.com/coobird/thumbnailator/issues/207
+		 *
+		 * Source region should be selected from the image _after_ applying
+		 * the Exif orientation. Therefore, we need to change the source
+		 * region based on the Exif orientation, as source pixels will be
+		 * oriented differently.
+		 */
+		if (orientation == Orientation.TOP_RIGHT) {
+			flipHorizontal = true;
+
+		} else if (orientation == Orientation.BOTTOM_RIGHT) {
+			flipHorizontal = true;
+			flipVertical = true;
+
+		} else if (orientation == Orientation.BOTTOM_LEFT) {
+			flipVertical = true;
+
+		} else if (orientation == Orientation.LEFT_TOP) {
+			swapDimensions = true;
+
+		} else if (orientation == Orientation.RIGHT_TOP) {
+			flipVertical = true;
+			swapDimensions = true;
+
+		} else if (orientation == Orientation.RIGHT_BOTTOM) {
+			flipHorizontal = true;
+			flipVertical = true;
+			swapDimensions = true;
+
+		} else if (orientation == Orientation.LEFT_BOTTOM) {
+			flipHorizontal = true;
+			swapDimensions = true;
+		}
+
+		return region.calculate(
+				width, height, flipHorizontal, flipVertical, swapDimensions
+		);
+	}
+
+	public ImageInputStream getSource() {
+		return iis;
+	}
+}
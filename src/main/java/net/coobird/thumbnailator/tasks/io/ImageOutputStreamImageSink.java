@@ -0,0 +1,355 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2022 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.w3c.dom.Node;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.filters.ColorQuantizer;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.FormatRegistry;
+
+/**
+ * An {@link ImageSink} which writes the thumbnail image to an
+ * {@link ImageOutputStream}.
+ * <p>
+ * The {@link ImageOutputStream} is neither flushed nor closed by this
+ * {@link ImageSink}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ImageOutputStreamImageSink extends AbstractImageSink<ImageOutputStream>
+		implements MultiFrameImageSink<ImageOutputStream> {
+	/**
+	 * The {@link ImageOutputStream} to which the thumbnail image is to be
+	 * written to.
+	 */
+	private final ImageOutputStream ios;
+	
+	/**
+	 * The {@link ImageEncoder}s registered as service providers.
+	 */
+	private static final List<ImageEncoder> SERVICE_ENCODERS = loadEncoders();
+	
+	private static final String GIF_IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+	
+	/**
+	 * The number of milliseconds in the unit of the delays of GIF frames.
+	 */
+	private static final int GIF_DELAY_UNIT = 10;
+	
+	/**
+	 * Instantiates an {@link ImageOutputStreamImageSink} with the
+	 * {@link ImageOutputStream} to which the thumbnail should be written to.
+	 * 
+	 * @param ios		The {@link ImageOutputStream} to write the thumbnail
+	 * 					to.
+	 * @throws NullPointerException		If the {@link ImageOutputStream} is
+	 * 									{@code null}.
+	 */
+	public ImageOutputStreamImageSink(ImageOutputStream ios) {
+		super();
+		
+		if (ios == null) {
+			throw new NullPointerException("ImageOutputStream cannot be null.");
+		}
+		
+		this.ios = ios;
+	}
+
+	/**
+	 * Writes the resulting image to the {@link ImageOutputStream}.
+	 * 
+	 * @param img							The image to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the image.
+	 * @throws NullPointerException		If the image is {@code null}.
+	 * @throws IllegalStateException	If the output format has not been set
+	 * 									by calling the
+	 * 									{@link #setOutputFormatName(String)}
+	 * 									method.
+	 */
+	public void write(final BufferedImage img) throws IOException {
+		super.write(img);
+		
+		Offloading.call(param, new Callable<Void>() {
+			public Void call() throws IOException {
+				encode(img);
+				return null;
+			}
+		});
+	}
+	
+	private void encode(BufferedImage img) throws IOException {
+		if (outputFormat == null) {
+			throw new IllegalStateException("Output format has not been set.");
+		}
+		
+		EncoderOptions options =
+				param != null ? param.getEncoderOptions() : EncoderOptions.DEFAULT;
+		
+		if (options.getPaletteColors() > 0 && supportsPalette(outputFormat)) {
+			img = new ColorQuantizer(
+					options.getPaletteColors(),
+					options.getPaletteDithering()
+			).apply(img);
+		}
+		
+		findEncoder(outputFormat).encode(img, outputFormat, param, ios);
+	}
+	
+	/**
+	 * Writes the frames to the {@link ImageOutputStream} as a sequence of
+	 * images, such as an animated GIF or a multi-page TIFF.
+	 * <p>
+	 * The sequence is written by the {@link ImageWriter} of the format,
+	 * with the output format type and quality of the
+	 * {@link ThumbnailParameter}. The encoder set in the
+	 * {@link EncoderOptions} and the limit on the output size only apply
+	 * to single images. If the writer cannot write a sequence of images,
+	 * or there is only one frame, the first frame is written by
+	 * {@link #write(BufferedImage)}.
+	 * 
+	 * @param frames						The frames to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the images.
+	 * @throws NullPointerException		If the frames are {@code null}.
+	 * @throws IllegalStateException	If the output format has not been set
+	 * 									by calling the
+	 * 									{@link #setOutputFormatName(String)}
+	 * 									method.
+	 */
+	public void writeFrames(final FrameSequence frames) throws IOException {
+		if (frames == null) {
+			throw new NullPointerException("Frames cannot be null.");
+		}
+		
+		Offloading.call(param, new Callable<Void>() {
+			public Void call() throws IOException {
+				encodeFrames(frames);
+				return null;
+			}
+		});
+	}
+	
+	private void encodeFrames(FrameSequence frames) throws IOException {
+		if (ThumbnailParameter.DETERMINE_FORMAT.equals(outputFormat)) {
+			outputFormat = preferredOutputFormatName();
+		}
+		if (outputFormat == null) {
+			throw new IllegalStateException("Output format has not been set.");
+		}
+		
+		ImageWriterSpi writerSpi = FormatRegistry.getWriterSpiByFormatName(outputFormat);
+		ImageWriter writer = writerSpi != null ? writerSpi.createWriterInstance() : null;
+		
+		if (frames.size() == 1 || writer == null || !writer.canWriteSequence()) {
+			if (writer != null) {
+				writer.dispose();
+			}
+			write(frames.getFrame(0));
+			return;
+		}
+		
+		try {
+			writeSequence(writer, frames);
+		} finally {
+			writer.dispose();
+		}
+	}
+	
+	private void writeSequence(ImageWriter writer, FrameSequence frames) throws IOException {
+		EncoderOptions options =
+				param != null ? param.getEncoderOptions() : EncoderOptions.DEFAULT;
+		
+		ImageWriteParam writeParam = writer.getDefaultWriteParam();
+		if (param != null && writeParam.canWriteCompressed()) {
+			if (param.getOutputFormatType() != ThumbnailParameter.DEFAULT_FORMAT_TYPE) {
+				writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				writeParam.setCompressionType(param.getOutputFormatType());
+			}
+			if (!Float.isNaN(param.getOutputQuality())) {
+				writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				writeParam.setCompressionQuality(param.getOutputQuality());
+			}
+		}
+		if (options.isProgressive() && writeParam.canWriteProgressive()) {
+			writeParam.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		}
+		
+		writer.setOutput(ios);
+		writer.prepareWriteSequence(null);
+		
+		for (int i = 0; i < frames.size(); i++) {
+			BufferedImage img = frames.getFrame(i);
+			if (options.getPaletteColors() > 0 && supportsPalette(outputFormat)) {
+				img = new ColorQuantizer(
+						options.getPaletteColors(),
+						options.getPaletteDithering()
+				).apply(img);
+			}
+			
+			IIOMetadata metadata = writer.getDefaultImageMetadata(
+					ImageTypeSpecifier.createFromRenderedImage(img), writeParam
+			);
+			if (isGifMetadata(metadata)) {
+				setGifTiming(
+						metadata,
+						frames.getDelay(i),
+						i == 0 ? frames.getLoopCount() : FrameSequence.NO_LOOP
+				);
+			}
+			
+			writer.writeToSequence(new IIOImage(img, null, metadata), writeParam);
+		}
+		
+		writer.endWriteSequence();
+	}
+	
+	private static boolean isGifMetadata(IIOMetadata metadata) {
+		return metadata != null
+				&& GIF_IMAGE_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName());
+	}
+	
+	/**
+	 * Sets the delay of a GIF frame, and adds the extension which makes the
+	 * animation loop to the first frame.
+	 * <p>
+	 * As each frame is a complete image, the frame is cleared once it has
+	 * been displayed, so that transparent parts of the next frame do not
+	 * show the previous one.
+	 */
+	private static void setGifTiming(IIOMetadata metadata, int delay, int loopCount) throws IOException {
+		IIOMetadataNode root =
+				(IIOMetadataNode)metadata.getAsTree(GIF_IMAGE_METADATA_FORMAT);
+		
+		IIOMetadataNode control = getOrAddChild(root, "GraphicControlExtension");
+		control.setAttribute("disposalMethod", "restoreToBackgroundColor");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString((delay + GIF_DELAY_UNIT / 2) / GIF_DELAY_UNIT));
+		
+		if (loopCount != FrameSequence.NO_LOOP) {
+			IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+			extension.setAttribute("applicationID", "NETSCAPE");
+			extension.setAttribute("authenticationCode", "2.0");
+			extension.setUserObject(
+					new byte[] {1, (byte)(loopCount & 0xff), (byte)((loopCount >> 8) & 0xff)}
+			);
+			getOrAddChild(root, "ApplicationExtensions").appendChild(extension);
+		}
+		
+		metadata.setFromTree(GIF_IMAGE_METADATA_FORMAT, root);
+	}
+	
+	private static IIOMetadataNode getOrAddChild(IIOMetadataNode node, String name) {
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeName().equals(name)) {
+				return (IIOMetadataNode)child;
+			}
+		}
+		IIOMetadataNode child = new IIOMetadataNode(name);
+		node.appendChild(child);
+		return child;
+	}
+	
+	/**
+	 * Returns whether images are reduced to a palette for the format, when
+	 * requested by {@link EncoderOptions#palette(int)}.
+	 * 
+	 * @param formatName	The output format.
+	 * @return				{@code true} for PNG and GIF.
+	 */
+	private static boolean supportsPalette(String formatName) {
+		return formatName.equalsIgnoreCase("png") || formatName.equalsIgnoreCase("gif");
+	}
+	
+	/**
+	 * Returns the {@link ImageEncoder} for the format, chosen as described
+	 * in {@link ImageEncoder}.
+	 * 
+	 * @param formatName	The output format.
+	 * @return				The encoder to use.
+	 */
+	private ImageEncoder findEncoder(String formatName) {
+		EncoderOptions options =
+				param != null ? param.getEncoderOptions() : EncoderOptions.DEFAULT;
+		
+		ImageEncoder encoder = options.getEncoder();
+		if (encoder != null && encoder.supportsFormat(formatName)) {
+			return encoder;
+		}
+		
+		for (ImageEncoder serviceEncoder : SERVICE_ENCODERS) {
+			if (serviceEncoder.supportsFormat(formatName)) {
+				return serviceEncoder;
+			}
+		}
+		
+		if (options.hasPngSettings() && PngImageEncoder.INSTANCE.supportsFormat(formatName)) {
+			return PngImageEncoder.INSTANCE;
+		}
+		
+		return DefaultImageEncoder.getInstance();
+	}
+	
+	private static List<ImageEncoder> loadEncoders() {
+		List<ImageEncoder> encoders = new ArrayList<ImageEncoder>();
+		for (ImageEncoder encoder : ServiceLoader.load(ImageEncoder.class)) {
+			encoders.add(encoder);
+		}
+		return Collections.unmodifiableList(encoders);
+	}
+
+	public ImageOutputStream getSink() {
+		return ios;
+	}
+}
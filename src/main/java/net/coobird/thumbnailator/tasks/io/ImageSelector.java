@@ -0,0 +1,146 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.Dimension;
+
+/**
+ * This class decides which of the images stored in a source image file is
+ * used to make a thumbnail, for formats which store several images, such
+ * as multi-page TIFFs, pyramidal TIFFs and ICO files.
+ * <p>
+ * Formats which store the same picture in several resolutions can make a
+ * thumbnail from a stored resolution close to the size of the thumbnail,
+ * which is much faster than decoding the largest resolution and
+ * downscaling it. {@link #SMALLEST_COVERING} does this.
+ * <p>
+ * Sizes are compared in the orientation in which the images are stored.
+ * When a source region is specified, it applies to the selected image.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public abstract class ImageSelector {
+	/**
+	 * Selects the first image, which is the image used when no
+	 * {@link ImageSelector} is specified.
+	 */
+	public static final ImageSelector FIRST = index(0);
+	
+	/**
+	 * Selects the image with the most pixels. Of images with the same
+	 * number of pixels, the first one is selected.
+	 */
+	public static final ImageSelector LARGEST = new ImageSelector() {
+		@Override
+		public int select(Dimension[] imageSizes, Dimension thumbnailSize) {
+			return largest(imageSizes);
+		}
+	};
+	
+	/**
+	 * Selects the image with the fewest pixels which is at least as wide
+	 * and as high as the thumbnail, so that the thumbnail is made by
+	 * downscaling as little as possible. If no image is large enough, or
+	 * the thumbnail is sized by scaling factors, the largest image is
+	 * selected.
+	 */
+	public static final ImageSelector SMALLEST_COVERING = new ImageSelector() {
+		@Override
+		public int select(Dimension[] imageSizes, Dimension thumbnailSize) {
+			if (thumbnailSize == null) {
+				return largest(imageSizes);
+			}
+			
+			int selected = -1;
+			for (int i = 0; i < imageSizes.length; i++) {
+				Dimension size = imageSizes[i];
+				if (size.width >= thumbnailSize.width
+						&& size.height >= thumbnailSize.height
+						&& (selected == -1 || area(size) < area(imageSizes[selected]))) {
+					selected = i;
+				}
+			}
+			return selected != -1 ? selected : largest(imageSizes);
+		}
+	};
+	
+	/**
+	 * Default constructor.
+	 */
+	protected ImageSelector() {}
+	
+	/**
+	 * Returns an {@link ImageSelector} which selects the image at the
+	 * specified index, such as a page of a multi-page TIFF.
+	 * <p>
+	 * If the source image does not have an image at the index, an
+	 * {@link IndexOutOfBoundsException} is thrown when the image is read.
+	 * 
+	 * @param index		The zero-based index of the image.
+	 * @return			The {@link ImageSelector}.
+	 * @throws IllegalArgumentException	If the index is negative.
+	 */
+	public static ImageSelector index(final int index) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Index cannot be negative.");
+		}
+		
+		return new ImageSelector() {
+			@Override
+			public int select(Dimension[] imageSizes, Dimension thumbnailSize) {
+				return index;
+			}
+		};
+	}
+	
+	/**
+	 * Selects the image to make a thumbnail from.
+	 * 
+	 * @param imageSizes		The sizes of the images, in the order they
+	 * 							are stored.
+	 * @param thumbnailSize		The size of the thumbnail made from the
+	 * 							largest image, or {@code null} if the
+	 * 							thumbnail is sized by scaling factors, which
+	 * 							apply to the selected image.
+	 * @return					The index of the selected image.
+	 */
+	public abstract int select(Dimension[] imageSizes, Dimension thumbnailSize);
+	
+	private static long area(Dimension size) {
+		return (long)size.width * size.height;
+	}
+	
+	private static int largest(Dimension[] imageSizes) {
+		int largest = 0;
+		for (int i = 1; i < imageSizes.length; i++) {
+			if (area(imageSizes[i]) > area(imageSizes[largest])) {
+				largest = i;
+			}
+		}
+		return largest;
+	}
+}
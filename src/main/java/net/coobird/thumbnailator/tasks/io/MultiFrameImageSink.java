@@ -0,0 +1,52 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+
+/**
+ * An {@link ImageSink} which can write a sequence of images as an animated
+ * image, or as a multi-page image.
+ * 
+ * @param <T> 		The destination class to which the thumbnail is stored
+ * 					or written.
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface MultiFrameImageSink<T> extends ImageSink<T> {
+	/**
+	 * Writes the frames to the destination.
+	 * <p>
+	 * If the output format cannot hold a sequence of images, only the
+	 * first frame is written.
+	 * 
+	 * @param frames			The frames to write.
+	 * @throws IOException		When a problem occurs while writing the
+	 * 							images.
+	 * @throws NullPointerException		If the frames are {@code null}.
+	 */
+	public void writeFrames(FrameSequence frames) throws IOException;
+}
@@ -0,0 +1,68 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+
+/**
+ * An {@link ImageSource} which can read all the frames of animated images,
+ * or all the pages of multi-page images.
+ * 
+ * @param <T> 		The source class from which the source image is retrieved
+ * 					or read.
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface MultiFrameImageSource<T> extends ImageSource<T> {
+	/**
+	 * Reads the frames of the image which are selected by the
+	 * {@link FrameOptions} of the {@link net.coobird.thumbnailator.ThumbnailParameter}.
+	 * <p>
+	 * Images which consist of a single image are read as a sequence of
+	 * one frame.
+	 * 
+	 * @return					The frames.
+	 * @throws IOException		When a problem occurs while reading or
+	 * 							obtaining the image.
+	 */
+	public FrameSequence readFrames() throws IOException;
+	
+	/**
+	 * Reads the frames of the image which are selected by the
+	 * {@link FrameOptions} of the {@link net.coobird.thumbnailator.ThumbnailParameter},
+	 * processing each frame as soon as it has been read.
+	 * <p>
+	 * The frames of the returned {@link FrameSequence} are the images
+	 * returned by the {@link FrameProcessor}.
+	 * 
+	 * @param processor			The processor of the frames.
+	 * @return					The processed frames.
+	 * @throws IOException		When a problem occurs while reading or
+	 * 							obtaining the image, or processing a frame.
+	 * @throws NullPointerException	If the processor is {@code null}.
+	 */
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException;
+}
@@ -0,0 +1,247 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+
+/**
+ * Runs the CPU-bound work of making thumbnails on a separate pool of
+ * threads, while the thread which makes the thumbnail only performs the
+ * blocking I/O and waits for the work to finish.
+ * <p>
+ * This is intended for servers which make thumbnails on a large number of
+ * lightweight threads, such as the virtual threads of Java 21, where
+ * decoding, resizing and encoding on those threads would occupy the
+ * carrier threads, and the locks held by the Image I/O API would pin them.
+ * When offloading is used:
+ * <ul>
+ * <li>Source images read from {@link java.io.InputStream}s and URLs are
+ * read completely into memory by the calling thread before they are
+ * decoded, as with {@link StreamCaching#BUFFERED}.</li>
+ * <li>Decoding, resizing and encoding are run on the threads of the
+ * {@link Executor}, which only access data in memory, except for source
+ * and destination files, which are read and written in place.</li>
+ * <li>Thumbnails written to {@link java.io.OutputStream}s are written by
+ * the calling thread, in a single call, once they have been encoded.</li>
+ * </ul>
+ * The calling thread waits for the work without holding any monitors, so
+ * that a virtual thread is unmounted while it waits. Work which is offloaded
+ * while already running on a thread of the executor is run directly, so a
+ * bounded executor cannot deadlock on itself.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class Offloading {
+	/**
+	 * Whether the current thread is running offloaded work.
+	 */
+	private static final ThreadLocal<Boolean> OFFLOADED = new ThreadLocal<Boolean>();
+	
+	/**
+	 * The executor which runs the offloaded work.
+	 */
+	private final Executor executor;
+	
+	private Offloading(Executor executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Returns an {@link Offloading} which runs the work on the specified
+	 * {@link Executor}.
+	 * <p>
+	 * To bound the memory used by images being processed, the executor
+	 * should use a bounded number of threads.
+	 * 
+	 * @param executor		The executor to run the work on.
+	 * @return				An {@link Offloading} which uses the executor.
+	 * @throws NullPointerException	If the executor is {@code null}.
+	 */
+	public static Offloading to(Executor executor) {
+		if (executor == null) {
+			throw new NullPointerException("Executor cannot be null.");
+		}
+		
+		return new Offloading(executor);
+	}
+	
+	/**
+	 * Returns an {@link Offloading} which runs the work on a new pool of the
+	 * specified number of daemon threads.
+	 * <p>
+	 * The threads of the pool stay alive until the JVM exits, so the
+	 * returned instance should be created once and shared.
+	 * 
+	 * @param threads		The number of threads of the pool.
+	 * @return				An {@link Offloading} which uses a new pool.
+	 * @throws IllegalArgumentException	If the number of threads is not
+	 * 									positive.
+	 */
+	public static Offloading withThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+		
+		final AtomicInteger count = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "thumbnailator-offload-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		
+		return new Offloading(executor);
+	}
+	
+	/**
+	 * Runs the work on the executor and waits for its result.
+	 * <p>
+	 * If the current thread is already running offloaded work, the work is
+	 * run directly on the current thread.
+	 * 
+	 * @param work			The work to run.
+	 * @param <V>			The type of the result.
+	 * @return				The result of the work.
+	 * @throws IOException	When the work throws an {@link IOException} or
+	 * 						another checked exception, or when the current
+	 * 						thread is interrupted while waiting, in which
+	 * 						case an {@link InterruptedIOException} is thrown
+	 * 						and the work is cancelled.
+	 */
+	public <V> V call(final Callable<V> work) throws IOException {
+		if (OFFLOADED.get() != null) {
+			return callDirectly(work);
+		}
+		
+		FutureTask<V> future = new FutureTask<V>(offloaded(work));
+		executor.execute(future);
+		
+		try {
+			return future.get();
+			
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for offloaded work.");
+			
+		} catch (ExecutionException e) {
+			throw rethrow(e.getCause());
+		}
+	}
+	
+	/**
+	 * Starts the work on the executor without waiting for its result, so
+	 * that several pieces of work can be run concurrently.
+	 * <p>
+	 * If the current thread is already running offloaded work, the work is
+	 * run directly on the current thread before this method returns.
+	 * 
+	 * @param work			The work to run.
+	 * @param <V>			The type of the result.
+	 * @return				The result of the work, once it has finished.
+	 */
+	public <V> Future<V> submit(Callable<V> work) {
+		if (OFFLOADED.get() != null) {
+			FutureTask<V> future = new FutureTask<V>(work);
+			future.run();
+			return future;
+		}
+		
+		FutureTask<V> future = new FutureTask<V>(offloaded(work));
+		executor.execute(future);
+		return future;
+	}
+	
+	/**
+	 * Wraps the work so that it is marked as offloaded while it runs.
+	 */
+	private static <V> Callable<V> offloaded(final Callable<V> work) {
+		return new Callable<V>() {
+			public V call() throws Exception {
+				OFFLOADED.set(Boolean.TRUE);
+				try {
+					return work.call();
+				} finally {
+					OFFLOADED.remove();
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Runs the work with the {@link Offloading} of the parameters, or
+	 * directly when there are no parameters or no {@link Offloading}.
+	 */
+	static <V> V call(ThumbnailParameter param, Callable<V> work) throws IOException {
+		if (param != null && param.getOffloading() != null) {
+			return param.getOffloading().call(work);
+		}
+		return callDirectly(work);
+	}
+	
+	private static <V> V callDirectly(Callable<V> work) throws IOException {
+		try {
+			return work.call();
+		} catch (Exception e) {
+			throw rethrow(e);
+		}
+	}
+	
+	/**
+	 * Rethrows unchecked exceptions and {@link IOException}s as they are,
+	 * and returns other exceptions wrapped in an {@link IOException}.
+	 */
+	private static IOException rethrow(Throwable t) throws IOException {
+		if (t instanceof IOException) {
+			throw (IOException)t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException)t;
+		} else if (t instanceof Error) {
+			throw (Error)t;
+		}
+		return new IOException(t);
+	}
+	
+	@Override
+	public String toString() {
+		return "Offloading.to(" + executor + ")";
+	}
+}
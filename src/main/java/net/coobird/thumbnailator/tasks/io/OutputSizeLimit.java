@@ -0,0 +1,156 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+/**
+ * A limit on the number of bytes a thumbnail may take once it is written.
+ * <p>
+ * When writing with a codec which supports compression, the thumbnail is
+ * encoded in memory with different compression quality settings, using a
+ * binary search for the highest quality at which the thumbnail fits within
+ * the limit. The search stops early once a quality is found for which the
+ * thumbnail is within the tolerance of the limit.
+ * <p>
+ * If the thumbnail does not fit even at the lowest quality setting, it is
+ * written at the lowest quality setting. Codecs which do not support
+ * compression write the thumbnail as they would without a limit.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class OutputSizeLimit {
+	/**
+	 * The default tolerance, which accepts thumbnails which are within
+	 * 5% below the limit.
+	 */
+	public static final double DEFAULT_TOLERANCE = 0.05;
+	
+	/**
+	 * The maximum number of bytes of the thumbnail.
+	 */
+	private final long maxBytes;
+	
+	/**
+	 * The fraction below {@link #maxBytes} at which the search stops.
+	 */
+	private final double tolerance;
+	
+	/**
+	 * The listener to notify of the chosen quality, or {@code null}.
+	 */
+	private final Listener listener;
+	
+	/**
+	 * A listener which is notified of the compression quality which was
+	 * chosen to meet an {@link OutputSizeLimit}.
+	 * 
+	 * @author coobird
+	 * @since	0.4.21
+	 *
+	 */
+	public interface Listener {
+		/**
+		 * Called after a thumbnail has been written.
+		 * 
+		 * @param quality	The compression quality the thumbnail was
+		 * 					written with, or {@link Float#NaN} if it was
+		 * 					written in a lossless format with the codec's
+		 * 					default quality.
+		 * @param size		The size of the written thumbnail in bytes,
+		 * 					which exceeds the limit if the thumbnail did not
+		 * 					fit at the lowest quality setting.
+		 */
+		public void qualityChosen(float quality, long size);
+	}
+	
+	/**
+	 * Creates an {@link OutputSizeLimit} with the
+	 * {@link #DEFAULT_TOLERANCE} and no listener.
+	 * 
+	 * @param maxBytes		The maximum number of bytes of the thumbnail.
+	 * @throws IllegalArgumentException	If the maximum number of bytes is
+	 * 									not greater than 0.
+	 */
+	public OutputSizeLimit(long maxBytes) {
+		this(maxBytes, DEFAULT_TOLERANCE, null);
+	}
+	
+	/**
+	 * Creates an {@link OutputSizeLimit}.
+	 * 
+	 * @param maxBytes		The maximum number of bytes of the thumbnail.
+	 * @param tolerance		The fraction of {@code maxBytes} which the
+	 * 						thumbnail may fall below the limit for the search
+	 * 						to stop, from {@code 0.0} up to, but not
+	 * 						including, {@code 1.0}.
+	 * @param listener		The listener to notify of the chosen quality,
+	 * 						or {@code null} if none.
+	 * @throws IllegalArgumentException	If the maximum number of bytes is
+	 * 									not greater than 0, or if the
+	 * 									tolerance is out of range.
+	 */
+	public OutputSizeLimit(long maxBytes, double tolerance, Listener listener) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Maximum output bytes must be greater than 0.");
+		}
+		if (!(tolerance >= 0.0 && tolerance < 1.0)) {
+			throw new IllegalArgumentException("Tolerance must be between 0.0 and 1.0.");
+		}
+		
+		this.maxBytes = maxBytes;
+		this.tolerance = tolerance;
+		this.listener = listener;
+	}
+	
+	/**
+	 * Returns the maximum number of bytes of the thumbnail.
+	 * 
+	 * @return		The maximum number of bytes.
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * Returns the fraction of the maximum number of bytes which the
+	 * thumbnail may fall below the limit for the search to stop.
+	 * 
+	 * @return		The tolerance.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+	
+	/**
+	 * Returns the listener to notify of the chosen quality.
+	 * 
+	 * @return		The listener, or {@code null} if none.
+	 */
+	public Listener getListener() {
+		return listener;
+	}
+}
@@ -27,19 +27,10 @@ package net.coobird.thumbnailator.tasks.io;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Iterator;
-import java.util.List;
 
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 
-import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
-import net.coobird.thumbnailator.util.BufferedImages;
-import net.coobird.thumbnailator.util.ThumbnailatorUtils;
 
 /**
  * An {@link ImageSink} which specifies an {@link OutputStream} to which the
@@ -48,7 +39,8 @@ import net.coobird.thumbnailator.util.ThumbnailatorUtils;
  * @author coobird
  *
  */
-public class OutputStreamImageSink extends AbstractImageSink<OutputStream> {
+public class OutputStreamImageSink extends AbstractImageSink<OutputStream>
+		implements MultiFrameImageSink<OutputStream> {
 	/**
 	 * The {@link OutputStream} to which the thumbnail image is to be
 	 * written to.
@@ -92,73 +84,40 @@ public class OutputStreamImageSink extends AbstractImageSink<OutputStream> {
 	public void write(BufferedImage img) throws IOException {
 		super.write(img);
 		
-		if (outputFormat == null) {
-			throw new IllegalStateException("Output format has not been set.");
+		write(new FrameSequence(img));
+	}
+	
+	/**
+	 * Writes the frames to the {@link OutputStream} as a sequence of images,
+	 * as described in {@link ImageOutputStreamImageSink#writeFrames(FrameSequence)}.
+	 * 
+	 * @param frames						The frames to write.
+	 * @throws UnsupportedFormatException	When an unsupported format has been
+	 * 										specified by the
+	 * 										{@link #setOutputFormatName(String)}
+	 * 										method.
+	 * @throws IOException					When a problem occurs while writing
+	 * 										the images.
+	 * @throws NullPointerException		If the frames are {@code null}.
+	 * @throws IllegalStateException	If the output format has not been set
+	 * 									by calling the
+	 * 									{@link #setOutputFormatName(String)}
+	 * 									method.
+	 * @since	0.4.21
+	 */
+	public void writeFrames(FrameSequence frames) throws IOException {
+		if (frames == null) {
+			throw new NullPointerException("Frames cannot be null.");
 		}
 		
-		String formatName = outputFormat;
-			
-		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
-		
-		if (!writers.hasNext()) {
-			throw new UnsupportedFormatException(
-					formatName,
-					"No suitable ImageWriter found for " + formatName + "."
-			);
+		write(frames);
+	}
+	
+	private void write(FrameSequence frames) throws IOException {
+		if (outputFormat == null) {
+			throw new IllegalStateException("Output format has not been set.");
 		}
 		
-		ImageWriter writer = writers.next();
-		
-		ImageWriteParam writeParam = writer.getDefaultWriteParam();
-		if (writeParam.canWriteCompressed()) {
-			/*
-			 * Sets the compression format type, if specified.
-			 *
-			 * Note:
-			 * The value to denote that the codec's default compression type
-			 * should be used is null.
-			 */
-			String compressionType = null;
-			if (param != null && param.getOutputFormatType() != ThumbnailParameter.DEFAULT_FORMAT_TYPE) {
-				compressionType = param.getOutputFormatType();
-
-			} else {
-				List<String> supportedFormats =
-						ThumbnailatorUtils.getSupportedOutputFormatTypes(formatName);
-
-				if (!supportedFormats.isEmpty()) {
-					compressionType = supportedFormats.get(0);
-				}
-			}
-			if (compressionType != null) {
-				setCompressionModeExplicit(writeParam);
-				writeParam.setCompressionType(compressionType);
-			}
-
-			/*
-			 * Sets the compression quality, if specified.
-			 *
-			 * Note:
-			 * The value to denote that the codec's default compression quality
-			 * should be used is Float.NaN.
-			 */
-			if (param != null && !Float.isNaN(param.getOutputQuality())) {
-				setCompressionModeExplicit(writeParam);
-				writeParam.setCompressionQuality(param.getOutputQuality());
-
-			} else if (isPng(formatName) && isJava9OrNewer() && isDefaultPngWriter(writer)) {
-				/*
-				 * Before Java 9, the PNG writer bundled with the JRE was
-				 * using maximum compression.
-				 * To replicate the behavior in Java 9+, the compression
-				 * quality is set to 0.0f to trigger maximum compression.
-				 * See Issue #156: https://github.com/coobird/thumbnailator/issues/156
-				 */
-				setCompressionModeExplicit(writeParam);
-				writeParam.setCompressionQuality(0.0f);
-			}
-		}
-
 		/*
 		 * The following line is not surrounded by a try-catch, as catching
 		 * the `IOException` and re-throwing would not give a good feedback as
@@ -185,86 +144,32 @@ public class OutputStreamImageSink extends AbstractImageSink<OutputStream> {
 		 * Related issue:
 		 * https://github.com/coobird/thumbnailator/issues/37
 		 */
-		ImageOutputStream ios = ImageIO.createImageOutputStream(os);
+		StreamCaching streamCaching = StreamCaching.DEFAULT;
+		if (param != null) {
+			/*
+			 * When the work is offloaded, the stream is only accessed by
+			 * the calling thread, and the codec works on the data in memory.
+			 */
+			streamCaching = param.getOffloading() != null
+					? StreamCaching.BUFFERED : param.getStreamCaching();
+		}
+		ImageOutputStream ios = streamCaching.createImageOutputStream(os);
 		
 		if (ios == null) {
 			throw new IOException("Could not open OutputStream.");
 		}
 		
-		/*
-		 * Note:
-		 * The following code is a workaround for the JPEG writer which ships
-		 * with the JDK.
-		 * 
-		 * At issue is, that the JPEG writer appears to write the alpha
-		 * channel when it should not. Such images end up with wrong colors.
-		 * https://bugs.openjdk.java.net/browse/JDK-8041459
-		 *
-		 * To circumvent this, images to be saved as JPEG will be copied to
-		 * another BufferedImage without an alpha channel before it is saved.
-		 *
-		 * Furthermore, as of OpenJDK 11, if an BufferedImage with an alpha
-		 * channel is given to the JPEG writer, it will throw an exception.
-		 * https://bugs.openjdk.java.net/browse/JDK-8204188
-		 * 
-		 * Also, the BMP writer appears not to support ARGB, so an RGB image
-		 * will be produced before saving.
-		 */
-		if (isJpegOrBmp(formatName)) {
-			img = BufferedImages.copy(img, BufferedImage.TYPE_INT_RGB);
-		}
-		
-		writer.setOutput(ios);
-		writer.write(null, new IIOImage(img, null, null), writeParam);
-		
-		/*
-		 * Dispose the writer to free resources.
-		 * 
-		 * This seems to be the main culprit of `OutOfMemoryError`s which
-		 * started to frequently appear with Java 7 Update 21.
-		 * 
-		 * Issue:
-		 * https://github.com/coobird/thumbnailator/issues/42
-		 */
-		writer.dispose();
+		MultiFrameImageSink<ImageOutputStream> imageSink = new ImageOutputStreamImageSink(ios);
+		imageSink.setThumbnailParameter(param);
+		imageSink.setOutputFormatName(outputFormat);
 		
-		ios.close();
-	}
-
-	/**
-	 * Sets the compression mode to explicit, if not already.
-	 * A check exists to prevent setting the explicit mode more than once,
-	 * as any previously set parameters will be discarded.
-	 *
-	 * @param writeParam	Current image writer parameters.
-	 */
-	private void setCompressionModeExplicit(ImageWriteParam writeParam) {
-		if (writeParam.getCompressionMode() != ImageWriteParam.MODE_EXPLICIT) {
-			writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		try {
+			imageSink.writeFrames(frames);
+		} finally {
+			ios.close();
 		}
 	}
 
-	private boolean isJpegOrBmp(String formatName) {
-		return formatName.equalsIgnoreCase("jpg")
-				|| formatName.equalsIgnoreCase("jpeg")
-				|| formatName.equalsIgnoreCase("bmp");
-	}
-
-	private boolean isPng(String formatName) {
-		return formatName.equalsIgnoreCase("png");
-	}
-
-	private boolean isDefaultPngWriter(ImageWriter writer) {
-		String writerClassName = writer.getClass().getName();
-		return "com.sun.imageio.plugins.png.PNGImageWriter".equals(writerClassName);
-	}
-
-	private boolean isJava9OrNewer() {
-		String version = System.getProperty("java.specification.version");
-		// Up to Java 8, specification version was 1.x.
-		return version != null && !version.contains(".");
-	}
-
 	public OutputStream getSink() {
 		return os;
 	}
@@ -0,0 +1,102 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+/**
+ * The filters which are applied to the scanlines of PNG images before they
+ * are compressed.
+ * <p>
+ * Filters express each byte relative to neighboring bytes, which makes
+ * photographic content compress better. Choosing a single filter is faster
+ * than {@link #ADAPTIVE}, which tries each filter on every scanline.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public enum PngFilter {
+	/**
+	 * The filter chosen by the encoder. The PNG encoder of Thumbnailator
+	 * uses {@link #ADAPTIVE} filtering, except for indexed color images,
+	 * which are not filtered.
+	 * <p>
+	 * Note that the PNG writer bundled with the JRE, which is used when no
+	 * PNG settings are specified, only filters indexed color images, which
+	 * makes it fast for synthetic content such as screenshots but less
+	 * effective for photographs.
+	 */
+	DEFAULT(-1),
+	
+	/**
+	 * Scanlines are not filtered.
+	 */
+	NONE(0),
+	
+	/**
+	 * Each byte is stored relative to the corresponding byte of the pixel
+	 * to the left.
+	 */
+	SUB(1),
+	
+	/**
+	 * Each byte is stored relative to the corresponding byte of the pixel
+	 * above.
+	 */
+	UP(2),
+	
+	/**
+	 * Each byte is stored relative to the average of the pixels to the left
+	 * and above.
+	 */
+	AVERAGE(3),
+	
+	/**
+	 * Each byte is stored relative to the pixel to the left, above or upper
+	 * left, whichever is closest to a linear prediction.
+	 */
+	PAETH(4),
+	
+	/**
+	 * For each scanline, the filter which yields the smallest sum of
+	 * absolute differences is chosen.
+	 */
+	ADAPTIVE(-1),
+	;
+	
+	private final int type;
+	
+	private PngFilter(int type) {
+		this.type = type;
+	}
+	
+	/**
+	 * Returns the filter type stored in the PNG data, or {@code -1} if the
+	 * filter type is chosen for each scanline.
+	 */
+	int getType() {
+		return type;
+	}
+}
@@ -0,0 +1,549 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.imageio.stream.ImageOutputStream;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.util.Futures;
+
+/**
+ * An {@link ImageEncoder} which writes PNG images with a configurable
+ * deflate level and scanline filter, optionally compressing bands of the
+ * image on multiple threads.
+ * <p>
+ * This encoder is used in place of the Image I/O API when any of the PNG
+ * settings of the {@link EncoderOptions} is specified. Images are written
+ * as 8-bit grayscale, 8-bit indexed color, or 8-bit truecolor with or
+ * without alpha, without interlacing. The output quality, the output format
+ * type and the {@link OutputSizeLimit} do not apply to this encoder.
+ * <p>
+ * When compressed on multiple threads, each band of rows is filtered and
+ * compressed as a raw deflate stream which ends on a byte boundary, with the
+ * end of the preceding band as its dictionary. The bands are joined with a
+ * single zlib header and an Adler-32 checksum combined from those of the
+ * bands, in the same way as pigz.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class PngImageEncoder implements ImageEncoder {
+	static final PngImageEncoder INSTANCE = new PngImageEncoder();
+	
+	private static final byte[] SIGNATURE =
+			new byte[] {(byte)137, 80, 78, 71, 13, 10, 26, 10};
+	
+	private static final int COLOR_TYPE_GRAY = 0;
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int COLOR_TYPE_PALETTE = 3;
+	private static final int COLOR_TYPE_RGBA = 6;
+	
+	/**
+	 * The smallest amount of filtered image data for a band, below which
+	 * compressing on another thread is not worth the overhead.
+	 */
+	private static final int MIN_BAND_BYTES = 256 * 1024;
+	
+	/**
+	 * The size of the deflate window, which is the most data of the
+	 * preceding band which can be used as a dictionary.
+	 */
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	
+	private PngImageEncoder() {}
+	
+	public boolean supportsFormat(String formatName) {
+		return "png".equalsIgnoreCase(formatName);
+	}
+	
+	public void encode(
+			BufferedImage img,
+			String formatName,
+			ThumbnailParameter param,
+			ImageOutputStream ios
+	) throws IOException {
+		EncoderOptions options =
+				param != null ? param.getEncoderOptions() : EncoderOptions.DEFAULT;
+		
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int colorType = getColorType(img);
+		int bytesPerPixel = getBytesPerPixel(colorType);
+		
+		int filterType = options.getPngFilter().getType();
+		if (options.getPngFilter() == PngFilter.DEFAULT && colorType == COLOR_TYPE_PALETTE) {
+			filterType = PngFilter.NONE.getType();
+		}
+		
+		int level = options.getPngCompressionLevel();
+		if (level == EncoderOptions.DEFAULT_COMPRESSION_LEVEL) {
+			level = 6;
+		}
+		
+		ios.write(SIGNATURE);
+		
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8;
+		header[9] = (byte)colorType;
+		writeChunk(ios, "IHDR", header, header.length);
+		
+		if (colorType == COLOR_TYPE_PALETTE) {
+			writePalette(ios, (IndexColorModel)img.getColorModel());
+		}
+		
+		long rowLength = (long)width * bytesPerPixel + 1;
+		int bands = (int)Math.min(
+				Math.min(options.getPngCompressionThreads(), height),
+				Math.max(1, rowLength * height / MIN_BAND_BYTES)
+		);
+		int rowsPerBand = (height + bands - 1) / bands;
+		bands = (height + rowsPerBand - 1) / rowsPerBand;
+		
+		List<Band> tasks = new ArrayList<Band>(bands);
+		for (int i = 0; i < bands; i++) {
+			int start = i * rowsPerBand;
+			int end = Math.min(height, start + rowsPerBand);
+			tasks.add(new Band(img, colorType, bytesPerPixel, filterType, level, start, end, i == bands - 1));
+		}
+		
+		compress(tasks);
+		
+		long adler = tasks.get(0).adler;
+		for (int i = 1; i < bands; i++) {
+			Band band = tasks.get(i);
+			adler = combineAdler32(adler, band.adler, band.length);
+		}
+		byte[] checksum = new byte[4];
+		putInt(checksum, 0, (int)adler);
+		tasks.get(bands - 1).out.write(checksum);
+		
+		for (Band band : tasks) {
+			writeChunk(ios, "IDAT", band.out.toByteArray(), band.out.size());
+		}
+		writeChunk(ios, "IEND", new byte[0], 0);
+	}
+	
+	/**
+	 * Compresses the bands, all but the first on the common
+	 * {@link ForkJoinPool}, and the first on the calling thread.
+	 */
+	private static void compress(List<Band> bands) throws IOException {
+		List<Future<Band>> futures = new ArrayList<Future<Band>>(bands.size());
+		for (int i = 1; i < bands.size(); i++) {
+			futures.add(ForkJoinPool.commonPool().submit(bands.get(i)));
+		}
+		
+		bands.get(0).call();
+		
+		for (Future<Band> future : futures) {
+			Futures.getResult(future, "Interrupted while compressing the image.");
+		}
+	}
+	
+	/**
+	 * A band of rows of the image, which is filtered and compressed
+	 * independently of the other bands.
+	 */
+	private static final class Band implements Callable<Band> {
+		private final BufferedImage img;
+		private final int colorType;
+		private final int bytesPerPixel;
+		private final int filterType;
+		private final int level;
+		private final int start;
+		private final int end;
+		private final boolean last;
+		
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private long adler;
+		private long length;
+		
+		private Band(BufferedImage img, int colorType, int bytesPerPixel, int filterType, int level, int start, int end, boolean last) {
+			this.img = img;
+			this.colorType = colorType;
+			this.bytesPerPixel = bytesPerPixel;
+			this.filterType = filterType;
+			this.level = level;
+			this.start = start;
+			this.end = end;
+			this.last = last;
+		}
+		
+		public Band call() throws IOException {
+			int rowBytes = img.getWidth() * bytesPerPixel;
+			Scanlines scanlines = new Scanlines(img, colorType);
+			Filter filter = new Filter(filterType, bytesPerPixel, rowBytes);
+			
+			byte[] previous = new byte[rowBytes];
+			byte[] current = new byte[rowBytes];
+			
+			Deflater deflater = new Deflater(level, true);
+			try {
+				if (start == 0) {
+					out.write(zlibHeader(level));
+					
+				} else {
+					/*
+					 * Filters the rows at the end of the preceding band again
+					 * to use them as the dictionary, which also leaves the
+					 * row above this band in `previous`.
+					 */
+					int dictionaryRows = Math.min(start, (DICTIONARY_SIZE + rowBytes) / (rowBytes + 1));
+					int from = start - dictionaryRows;
+					if (from > 0) {
+						scanlines.read(from - 1, previous);
+					}
+					
+					byte[] dictionary = new byte[dictionaryRows * (rowBytes + 1)];
+					for (int y = from; y < start; y++) {
+						scanlines.read(y, current);
+						byte[] filtered = filter.apply(previous, current);
+						System.arraycopy(filtered, 0, dictionary, (y - from) * (rowBytes + 1), rowBytes + 1);
+						
+						byte[] swap = previous;
+						previous = current;
+						current = swap;
+					}
+					
+					int size = Math.min(dictionary.length, DICTIONARY_SIZE);
+					deflater.setDictionary(dictionary, dictionary.length - size, size);
+				}
+				
+				Adler32 checksum = new Adler32();
+				byte[] buffer = new byte[Math.max(8192, rowBytes)];
+				
+				for (int y = start; y < end; y++) {
+					scanlines.read(y, current);
+					byte[] filtered = filter.apply(previous, current);
+					checksum.update(filtered, 0, rowBytes + 1);
+					
+					deflater.setInput(filtered, 0, rowBytes + 1);
+					while (!deflater.needsInput()) {
+						int count = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+						out.write(buffer, 0, count);
+					}
+					
+					byte[] swap = previous;
+					previous = current;
+					current = swap;
+				}
+				
+				if (last) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						int count = deflater.deflate(buffer);
+						out.write(buffer, 0, count);
+					}
+				} else {
+					// Ends the band on a byte boundary so the next can follow.
+					int count;
+					do {
+						count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+						out.write(buffer, 0, count);
+					} while (count == buffer.length);
+				}
+				
+				adler = checksum.getValue();
+				length = (long)(end - start) * (rowBytes + 1);
+				return this;
+				
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+	
+	/**
+	 * Reads the rows of an image as PNG scanlines before filtering.
+	 */
+	private static final class Scanlines {
+		private final BufferedImage img;
+		private final int colorType;
+		private final int[] argb;
+		
+		private Scanlines(BufferedImage img, int colorType) {
+			this.img = img;
+			this.colorType = colorType;
+			this.argb = colorType == COLOR_TYPE_RGB || colorType == COLOR_TYPE_RGBA
+					? new int[img.getWidth()]
+					: null;
+		}
+		
+		private void read(int y, byte[] row) {
+			int width = img.getWidth();
+			
+			if (argb == null) {
+				// Grayscale and indexed images store one byte per pixel.
+				img.getRaster().getDataElements(0, y, width, 1, row);
+				return;
+			}
+			
+			img.getRGB(0, y, width, 1, argb, 0, width);
+			
+			int i = 0;
+			if (colorType == COLOR_TYPE_RGBA) {
+				for (int x = 0; x < width; x++) {
+					int pixel = argb[x];
+					row[i++] = (byte)(pixel >>> 16);
+					row[i++] = (byte)(pixel >>> 8);
+					row[i++] = (byte)pixel;
+					row[i++] = (byte)(pixel >>> 24);
+				}
+			} else {
+				for (int x = 0; x < width; x++) {
+					int pixel = argb[x];
+					row[i++] = (byte)(pixel >>> 16);
+					row[i++] = (byte)(pixel >>> 8);
+					row[i++] = (byte)pixel;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Applies a PNG filter to scanlines. When the filter type is adaptive,
+	 * the filter with the smallest sum of the filtered bytes as signed
+	 * values is chosen for each scanline, as recommended by the PNG
+	 * specification.
+	 */
+	private static final class Filter {
+		private final int type;
+		private final int bytesPerPixel;
+		private final byte[][] candidates;
+		
+		private Filter(int type, int bytesPerPixel, int rowBytes) {
+			this.type = type;
+			this.bytesPerPixel = bytesPerPixel;
+			this.candidates = new byte[type < 0 ? 5 : 1][rowBytes + 1];
+		}
+		
+		/**
+		 * Returns the filtered scanline, prefixed with the filter type. The
+		 * returned array is reused by subsequent calls.
+		 */
+		private byte[] apply(byte[] previous, byte[] current) {
+			if (type >= 0) {
+				filter(type, previous, current, candidates[0]);
+				return candidates[0];
+			}
+			
+			byte[] best = null;
+			long bestSum = Long.MAX_VALUE;
+			for (int t = 0; t < candidates.length; t++) {
+				long sum = filter(t, previous, current, candidates[t]);
+				if (sum < bestSum) {
+					bestSum = sum;
+					best = candidates[t];
+				}
+			}
+			return best;
+		}
+		
+		/**
+		 * Filters the scanline with the specified filter type, and returns
+		 * the sum of the absolute values of the filtered bytes as signed
+		 * values.
+		 */
+		private long filter(int t, byte[] previous, byte[] current, byte[] out) {
+			out[0] = (byte)t;
+			int bpp = bytesPerPixel;
+			int length = current.length;
+			long sum = 0;
+			
+			for (int i = 0; i < length; i++) {
+				int x = current[i] & 0xff;
+				int a = i >= bpp ? current[i - bpp] & 0xff : 0;
+				int b = previous[i] & 0xff;
+				int c = i >= bpp ? previous[i - bpp] & 0xff : 0;
+				
+				int predicted;
+				switch (t) {
+					case 1: predicted = a; break;
+					case 2: predicted = b; break;
+					case 3: predicted = (a + b) >>> 1; break;
+					case 4: predicted = paeth(a, b, c); break;
+					default: predicted = 0;
+				}
+				
+				byte value = (byte)(x - predicted);
+				out[i + 1] = value;
+				sum += Math.abs((int)value);
+			}
+			return sum;
+		}
+		
+		private static int paeth(int a, int b, int c) {
+			int p = a + b - c;
+			int pa = Math.abs(p - a);
+			int pb = Math.abs(p - b);
+			int pc = Math.abs(p - c);
+			if (pa <= pb && pa <= pc) {
+				return a;
+			} else if (pb <= pc) {
+				return b;
+			}
+			return c;
+		}
+	}
+	
+	private static int getColorType(BufferedImage img) {
+		if (img.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			return COLOR_TYPE_GRAY;
+		} else if (img.getType() == BufferedImage.TYPE_BYTE_INDEXED
+				&& img.getColorModel() instanceof IndexColorModel) {
+			return COLOR_TYPE_PALETTE;
+		} else if (img.getColorModel().hasAlpha()) {
+			return COLOR_TYPE_RGBA;
+		}
+		return COLOR_TYPE_RGB;
+	}
+	
+	private static int getBytesPerPixel(int colorType) {
+		switch (colorType) {
+			case COLOR_TYPE_RGB: return 3;
+			case COLOR_TYPE_RGBA: return 4;
+			default: return 1;
+		}
+	}
+	
+	/**
+	 * Writes the palette, and the transparency of the palette entries up to
+	 * the last entry which is not fully opaque, if any.
+	 */
+	private static void writePalette(ImageOutputStream ios, IndexColorModel cm) throws IOException {
+		int size = cm.getMapSize();
+		byte[] palette = new byte[size * 3];
+		byte[] alpha = new byte[size];
+		int alphaEntries = 0;
+		
+		for (int i = 0; i < size; i++) {
+			palette[i * 3] = (byte)cm.getRed(i);
+			palette[i * 3 + 1] = (byte)cm.getGreen(i);
+			palette[i * 3 + 2] = (byte)cm.getBlue(i);
+			alpha[i] = (byte)cm.getAlpha(i);
+			if (cm.getAlpha(i) != 255) {
+				alphaEntries = i + 1;
+			}
+		}
+		
+		writeChunk(ios, "PLTE", palette, palette.length);
+		if (alphaEntries > 0) {
+			writeChunk(ios, "tRNS", alpha, alphaEntries);
+		}
+	}
+	
+	private static void writeChunk(ImageOutputStream ios, String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		byte[] buffer = new byte[4];
+		
+		putInt(buffer, 0, length);
+		ios.write(buffer);
+		ios.write(typeBytes);
+		ios.write(data, 0, length);
+		
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		putInt(buffer, 0, (int)crc.getValue());
+		ios.write(buffer);
+	}
+	
+	private static void putInt(byte[] b, int offset, int value) {
+		b[offset] = (byte)(value >>> 24);
+		b[offset + 1] = (byte)(value >>> 16);
+		b[offset + 2] = (byte)(value >>> 8);
+		b[offset + 3] = (byte)value;
+	}
+	
+	/**
+	 * Returns the zlib header for a deflate stream with the default window
+	 * size, compressed with the specified level.
+	 */
+	private static byte[] zlibHeader(int level) {
+		int compressionLevel;
+		if (level <= 1) {
+			compressionLevel = 0;
+		} else if (level <= 5) {
+			compressionLevel = 1;
+		} else if (level == 6) {
+			compressionLevel = 2;
+		} else {
+			compressionLevel = 3;
+		}
+		
+		int cmf = 0x78;
+		int flg = compressionLevel << 6;
+		flg += 31 - ((cmf << 8) + flg) % 31;
+		return new byte[] {(byte)cmf, (byte)flg};
+	}
+	
+	/**
+	 * Returns the Adler-32 checksum of two sequences of data from their
+	 * checksums, as {@code adler32_combine} of zlib.
+	 * 
+	 * @param adler1		The checksum of the first sequence.
+	 * @param adler2		The checksum of the second sequence.
+	 * @param length2		The length of the second sequence.
+	 * @return				The checksum of the concatenated sequences.
+	 */
+	static long combineAdler32(long adler1, long adler2, long length2) {
+		final long base = 65521;
+		long remainder = length2 % base;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (remainder * sum1) % base;
+		sum1 += (adler2 & 0xffff) + base - 1;
+		sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - remainder;
+		if (sum1 >= base) {
+			sum1 -= base;
+		}
+		if (sum1 >= base) {
+			sum1 -= base;
+		}
+		if (sum2 >= (base << 1)) {
+			sum2 -= (base << 1);
+		}
+		if (sum2 >= base) {
+			sum2 -= base;
+		}
+		return sum1 | (sum2 << 16);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * An exception used to indicate that the body of the response for a source
+ * image is larger than the size allowed by the {@link ConnectionOptions},
+ * or, when the size is not limited, larger than can be held in an array.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ResponseTooLargeException extends IOException {
+	/**
+	 * An ID used for serialization.
+	 */
+	private static final long serialVersionUID = -3198657441295608821L;
+	
+	/**
+	 * The URL which was requested.
+	 */
+	private final URL url;
+	
+	/**
+	 * The largest number of bytes which was allowed.
+	 */
+	private final int maxBodySize;
+	
+	/**
+	 * Instantiates a {@link ResponseTooLargeException}.
+	 * 
+	 * @param url			The URL which was requested.
+	 * @param maxBodySize	The largest number of bytes which was allowed.
+	 */
+	public ResponseTooLargeException(URL url, int maxBodySize) {
+		super("Response is larger than " + maxBodySize + " bytes for URL: " + url);
+		this.url = url;
+		this.maxBodySize = maxBodySize;
+	}
+	
+	/**
+	 * Returns the URL which was requested.
+	 * 
+	 * @return			The URL.
+	 */
+	public URL getURL() {
+		return url;
+	}
+	
+	/**
+	 * Returns the largest number of bytes which was allowed.
+	 * 
+	 * @return			The maximum size of the body.
+	 */
+	public int getMaxBodySize() {
+		return maxBodySize;
+	}
+}
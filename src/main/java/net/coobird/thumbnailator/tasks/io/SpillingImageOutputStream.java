@@ -0,0 +1,226 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.FileCacheImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.ImageOutputStreamImpl;
+
+/**
+ * An {@link ImageOutputStream} which caches the data in memory until it
+ * exceeds a threshold, after which the data is moved to, and further cached
+ * in, a temporary file.
+ * <p>
+ * When cached in memory, the data is written to the {@link OutputStream}
+ * when this stream is closed. The {@link OutputStream} is not closed.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class SpillingImageOutputStream extends ImageOutputStreamImpl {
+	/**
+	 * The stream to which the data is finally written.
+	 */
+	private final OutputStream os;
+	
+	/**
+	 * The largest number of bytes to cache in memory.
+	 */
+	private final int threshold;
+	
+	/**
+	 * The directory in which to create the temporary file, or {@code null}
+	 * for the default temporary directory.
+	 */
+	private final File cacheDirectory;
+	
+	/**
+	 * The in-memory cache, or {@code null} once the data has been moved to
+	 * a file.
+	 */
+	private ByteBufferImageOutputStream memoryCache;
+	
+	/**
+	 * The file cache, or {@code null} while the data is cached in memory.
+	 */
+	private ImageOutputStream fileCache;
+	
+	/**
+	 * Instantiates a {@link SpillingImageOutputStream}.
+	 * 
+	 * @param os				The stream to write the data to.
+	 * @param threshold			The largest number of bytes to cache in
+	 * 							memory.
+	 * @param cacheDirectory	The directory for the temporary file, or
+	 * 							{@code null} for the default temporary
+	 * 							directory.
+	 */
+	SpillingImageOutputStream(OutputStream os, int threshold, File cacheDirectory) {
+		this.os = os;
+		this.threshold = threshold;
+		this.cacheDirectory = cacheDirectory;
+		this.memoryCache = new ByteBufferImageOutputStream(
+				ByteBuffer.allocate(Math.min(threshold, 8192))
+		);
+	}
+	
+	/**
+	 * Returns the cache to operate on, positioned at the current stream
+	 * position, after moving the data to a file if writing up to the
+	 * specified position would exceed the threshold.
+	 * 
+	 * @param end		The position right after the last byte to be written.
+	 */
+	private ImageOutputStream cache(long end) throws IOException {
+		if (fileCache == null && end > threshold) {
+			fileCache = new FileCacheImageOutputStream(os, cacheDirectory);
+			
+			ByteBuffer data = memoryCache.toByteBuffer();
+			fileCache.write(data.array(), data.arrayOffset(), data.remaining());
+			memoryCache.close();
+			memoryCache = null;
+			
+			if (flushedPos > 0) {
+				fileCache.flushBefore(flushedPos);
+			}
+		}
+		
+		ImageOutputStream cache = fileCache != null ? fileCache : memoryCache;
+		cache.seek(streamPos);
+		return cache;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		checkClosed();
+		flushBits();
+		
+		cache(streamPos + 1).write(b);
+		streamPos++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		flushBits();
+		
+		cache(streamPos + len).write(b, off, len);
+		streamPos += len;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		
+		int b = cache(streamPos).read();
+		if (b != -1) {
+			streamPos++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		
+		if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		bitOffset = 0;
+		
+		if (len == 0) {
+			return 0;
+		}
+		
+		int bytesRead = cache(streamPos).read(b, off, len);
+		if (bytesRead > 0) {
+			streamPos += bytesRead;
+		}
+		return bytesRead;
+	}
+
+	@Override
+	public long length() {
+		try {
+			return fileCache != null ? fileCache.length() : memoryCache.length();
+		} catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	@Override
+	public void flushBefore(long pos) throws IOException {
+		super.flushBefore(pos);
+		
+		if (fileCache != null) {
+			fileCache.seek(streamPos);
+			fileCache.flushBefore(pos);
+		}
+	}
+
+	@Override
+	public boolean isCached() {
+		return true;
+	}
+
+	@Override
+	public boolean isCachedMemory() {
+		return fileCache == null;
+	}
+
+	@Override
+	public boolean isCachedFile() {
+		return fileCache != null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		
+		if (fileCache != null) {
+			fileCache.close();
+			
+		} else {
+			ByteBuffer data = memoryCache.toByteBuffer();
+			os.write(data.array(), data.arrayOffset(), data.remaining());
+			os.flush();
+			memoryCache.close();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.FileCacheImageInputStream;
+import javax.imageio.stream.FileCacheImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Determines how the data of {@link InputStream}s and {@link OutputStream}s
+ * is cached while images are being read and written.
+ * <p>
+ * Image readers and writers need to seek within the image data, which a
+ * plain stream does not allow, so the Image I/O API places a cache between
+ * the stream and the codec. By default, whether that cache is kept in
+ * memory or in a temporary file is decided by the JVM-wide
+ * {@link ImageIO#setUseCache(boolean)} setting. A {@code StreamCaching}
+ * decides this for each thumbnail instead.
+ * <p>
+ * Files which are read or written directly by Thumbnailator, rather than
+ * through a stream given by the caller, are accessed in place and are not
+ * affected by the caching except as described for {@link #NONE}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public abstract class StreamCaching {
+	/**
+	 * The size of the chunks in which a stream is read into memory.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+	
+	/**
+	 * The largest number of bytes which {@link #BUFFERED} reads into memory,
+	 * which is the largest size of an array on common JVMs.
+	 */
+	private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+	
+	/**
+	 * Caches the data as decided by the Image I/O API, which uses a
+	 * temporary file when {@link ImageIO#getUseCache()} is {@code true}
+	 * and memory otherwise.
+	 * <p>
+	 * This is the default behavior.
+	 */
+	public static final StreamCaching DEFAULT = new StreamCaching() {
+		@Override
+		public ImageInputStream createImageInputStream(InputStream is) throws IOException {
+			return ImageIO.createImageInputStream(is);
+		}
+		
+		@Override
+		public ImageOutputStream createImageOutputStream(OutputStream os) throws IOException {
+			return ImageIO.createImageOutputStream(os);
+		}
+		
+		@Override
+		public String toString() {
+			return "StreamCaching.DEFAULT";
+		}
+	};
+	
+	/**
+	 * Caches the data in memory.
+	 */
+	public static final StreamCaching MEMORY = new StreamCaching() {
+		@Override
+		public ImageInputStream createImageInputStream(InputStream is) {
+			return new MemoryCacheImageInputStream(is);
+		}
+		
+		@Override
+		public ImageOutputStream createImageOutputStream(OutputStream os) {
+			return new MemoryCacheImageOutputStream(os);
+		}
+		
+		@Override
+		public String toString() {
+			return "StreamCaching.MEMORY";
+		}
+	};
+	
+	/**
+	 * Caches the data in a temporary file in the directory given by
+	 * {@link ImageIO#getCacheDirectory()}.
+	 */
+	public static final StreamCaching DISK = new StreamCaching() {
+		@Override
+		public ImageInputStream createImageInputStream(InputStream is) throws IOException {
+			return new FileCacheImageInputStream(is, ImageIO.getCacheDirectory());
+		}
+		
+		@Override
+		public ImageOutputStream createImageOutputStream(OutputStream os) throws IOException {
+			return new FileCacheImageOutputStream(os, ImageIO.getCacheDirectory());
+		}
+		
+		@Override
+		public String toString() {
+			return "StreamCaching.DISK";
+		}
+	};
+	
+	/**
+	 * Avoids caching wherever the data can be accessed directly.
+	 * <p>
+	 * Thumbnails written to files are written directly into the destination
+	 * file, without going through a stream. As codecs need to seek within
+	 * the data, streams given by the caller are still cached, in memory.
+	 */
+	public static final StreamCaching NONE = new StreamCaching() {
+		@Override
+		public ImageInputStream createImageInputStream(InputStream is) {
+			return new MemoryCacheImageInputStream(is);
+		}
+		
+		@Override
+		public ImageOutputStream createImageOutputStream(OutputStream os) {
+			return new MemoryCacheImageOutputStream(os);
+		}
+		
+		@Override
+		public String toString() {
+			return "StreamCaching.NONE";
+		}
+	};
+	
+	/**
+	 * Reads input streams completely into memory before the image is
+	 * decoded, and encodes images completely into memory before they are
+	 * written to output streams in a single call.
+	 * <p>
+	 * The streams are only accessed by plain reads and writes on the thread
+	 * which makes the thumbnail, and not by the codecs, so that the blocking
+	 * I/O and the decoding and encoding can happen on different threads, as
+	 * with {@link Offloading}. The entire image data is held in memory, so
+	 * this is not suited to images larger than 2GB.
+	 */
+	public static final StreamCaching BUFFERED = new StreamCaching() {
+		@Override
+		public ImageInputStream createImageInputStream(InputStream is) throws IOException {
+			return createBoundedImageInputStream(is, MAX_BUFFER_SIZE);
+		}
+		
+		@Override
+		public ImageOutputStream createImageOutputStream(final OutputStream os) {
+			return new ByteBufferImageOutputStream(ByteBuffer.allocate(CHUNK_SIZE)) {
+				@Override
+				public void close() throws IOException {
+					super.close();
+					
+					ByteBuffer data = toByteBuffer();
+					os.write(data.array(), data.arrayOffset(), data.remaining());
+				}
+			};
+		}
+		
+		@Override
+		public String toString() {
+			return "StreamCaching.BUFFERED";
+		}
+	};
+	
+	/**
+	 * Returns a {@link StreamCaching} which caches the data in memory as
+	 * long as it does not exceed the specified size, and in a temporary file
+	 * in the directory given by {@link ImageIO#getCacheDirectory()} once it
+	 * does.
+	 * <p>
+	 * Images which fit within the threshold never touch the file system.
+	 * 
+	 * @param threshold		The largest number of bytes to cache in memory.
+	 * @return				A {@link StreamCaching} which caches up to the
+	 * 						specified number of bytes in memory.
+	 * @throws IllegalArgumentException	If the threshold is negative.
+	 */
+	public static StreamCaching memoryUpTo(final int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Threshold cannot be negative.");
+		}
+		
+		return new StreamCaching() {
+			@Override
+			public ImageInputStream createImageInputStream(InputStream is) throws IOException {
+				return createBoundedImageInputStream(is, threshold);
+			}
+			
+			@Override
+			public ImageOutputStream createImageOutputStream(OutputStream os) {
+				return new SpillingImageOutputStream(os, threshold, ImageIO.getCacheDirectory());
+			}
+			
+			@Override
+			public String toString() {
+				return "StreamCaching.memoryUpTo(" + threshold + ")";
+			}
+		};
+	}
+	
+	/**
+	 * Reads the stream into memory up to the threshold. If the stream ends
+	 * within the threshold, the data is read from memory; otherwise the
+	 * data read so far and the rest of the stream are cached in a file.
+	 * <p>
+	 * The stream is read in chunks starting at offset {@code 0} of a
+	 * separate array, as the Exif capturing stream only captures data
+	 * read that way.
+	 */
+	private static ImageInputStream createBoundedImageInputStream(InputStream is, int threshold) throws IOException {
+		byte[] data = new byte[Math.min(threshold, CHUNK_SIZE)];
+		byte[] chunk = new byte[CHUNK_SIZE];
+		int length = 0;
+		
+		while (length <= threshold) {
+			int bytesRead = is.read(chunk, 0, (int)Math.min(chunk.length, threshold + 1L - length));
+			if (bytesRead == -1) {
+				return new ByteBufferImageInputStream(ByteBuffer.wrap(data, 0, length));
+			}
+			
+			if (length + bytesRead > data.length) {
+				byte[] newData = new byte[(int)Math.min(
+						Math.max(data.length * 2L, length + bytesRead),
+						threshold + 1L
+				)];
+				System.arraycopy(data, 0, newData, 0, length);
+				data = newData;
+			}
+			System.arraycopy(chunk, 0, data, length, bytesRead);
+			length += bytesRead;
+		}
+		
+		InputStream remaining = new SequenceInputStream(
+				new ByteArrayInputStream(data, 0, length), is
+		);
+		return new FileCacheImageInputStream(remaining, ImageIO.getCacheDirectory());
+	}
+	
+	/**
+	 * Creates an {@link ImageInputStream} which reads from the specified
+	 * {@link InputStream}.
+	 * 
+	 * @param is			The stream to read from.
+	 * @return				An {@link ImageInputStream} for the stream, or
+	 * 						{@code null} if one could not be created.
+	 * @throws IOException	When the stream or its cache could not be set up.
+	 */
+	public abstract ImageInputStream createImageInputStream(InputStream is) throws IOException;
+	
+	/**
+	 * Creates an {@link ImageOutputStream} which writes to the specified
+	 * {@link OutputStream}.
+	 * <p>
+	 * Closing the returned stream writes any cached data to the
+	 * {@link OutputStream}, but does not close it.
+	 * 
+	 * @param os			The stream to write to.
+	 * @return				An {@link ImageOutputStream} for the stream, or
+	 * 						{@code null} if one could not be created.
+	 * @throws IOException	When the stream or its cache could not be set up.
+	 */
+	public abstract ImageOutputStream createImageOutputStream(OutputStream os) throws IOException;
+}
@@ -0,0 +1,465 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Reduces an image which is given as a sequence of horizontal strips,
+ * from top to bottom, without the entire image being held in memory.
+ * <p>
+ * The image is resampled with a triangle filter which spans the source
+ * pixels covered by each destination pixel, first vertically, then
+ * horizontally. Each source row is added to the destination rows whose
+ * filter covers it, which are kept at the width of the source image, and
+ * a destination row is reduced horizontally as soon as its last source
+ * row has been added. Only the few destination rows whose filters overlap
+ * are kept at any time, so the memory used does not depend on the height
+ * of the source image.
+ * <p>
+ * Colors are resampled with premultiplied alpha, so that transparent
+ * pixels do not bleed into their neighbors.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class StripResampler {
+	/**
+	 * The width of the source image.
+	 */
+	private final int sourceWidth;
+	
+	/**
+	 * The height of the source image.
+	 */
+	private final int sourceHeight;
+	
+	/**
+	 * Whether the source image has an alpha channel.
+	 */
+	private final boolean hasAlpha;
+	
+	/**
+	 * The number of channels which are accumulated for each pixel.
+	 */
+	private final int channels;
+	
+	/**
+	 * The filter used to reduce the rows of the image.
+	 */
+	private final Filter rows;
+	
+	/**
+	 * The filter used to reduce the columns of the image.
+	 */
+	private final Filter columns;
+	
+	/**
+	 * The destination rows which are being accumulated, where destination
+	 * row {@code j} is kept at index {@code j % accumulators.length}.
+	 */
+	private final float[][] accumulators;
+	
+	/**
+	 * The channels of the source row which is being added, which are
+	 * premultiplied if the source image has an alpha channel.
+	 */
+	private final float[] sourceRowBuffer;
+	
+	/**
+	 * The image to which the destination rows are written.
+	 */
+	private final BufferedImage destination;
+	
+	/**
+	 * The pixels of the destination image.
+	 */
+	private final int[] destinationPixels;
+	
+	/**
+	 * The image into which each strip is converted to packed pixels.
+	 */
+	private BufferedImage stripBuffer;
+	
+	/**
+	 * The index of the next source row.
+	 */
+	private int sourceRow;
+	
+	/**
+	 * The index of the first destination row which has not been written.
+	 */
+	private int firstPendingRow;
+	
+	/**
+	 * The index of the first destination row to which no source row has
+	 * been added yet.
+	 */
+	private int firstUnusedRow;
+	
+	/**
+	 * Instantiates a {@link StripResampler}.
+	 * 
+	 * @param sourceWidth		The width of the source image.
+	 * @param sourceHeight		The height of the source image.
+	 * @param width				The width of the destination image.
+	 * @param height			The height of the destination image.
+	 * @param hasAlpha			Whether the source image has an alpha
+	 * 							channel.
+	 */
+	StripResampler(int sourceWidth, int sourceHeight, int width, int height, boolean hasAlpha) {
+		this.sourceWidth = sourceWidth;
+		this.sourceHeight = sourceHeight;
+		this.hasAlpha = hasAlpha;
+		this.channels = hasAlpha ? 4 : 3;
+		this.rows = new Filter(sourceHeight, height);
+		this.columns = new Filter(sourceWidth, width);
+		this.accumulators = new float[rows.maxOverlap()][sourceWidth * channels];
+		this.sourceRowBuffer = new float[sourceWidth * channels];
+		this.destination = new BufferedImage(
+				width,
+				height,
+				hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+		);
+		this.destinationPixels =
+				((DataBufferInt)destination.getRaster().getDataBuffer()).getData();
+	}
+	
+	/**
+	 * Adds the next rows of the source image.
+	 * 
+	 * @param strip		An image containing the rows, which must have the
+	 * 					width of the source image.
+	 * @param height	The number of rows of the image to add.
+	 * @throws IllegalStateException	If the rows extend past the bottom
+	 * 									of the source image.
+	 */
+	void push(BufferedImage strip, int height) {
+		if (sourceRow + height > sourceHeight) {
+			throw new IllegalStateException("More rows than the source image has.");
+		}
+		
+		if (isByteComponentImage(strip)) {
+			for (int y = 0; y < height; y++) {
+				unpackBytes(strip.getRaster(), y);
+				addRow();
+			}
+		} else {
+			int[] pixels = toPackedPixels(strip, height);
+			for (int y = 0; y < height; y++) {
+				unpackPixels(pixels, y * sourceWidth);
+				addRow();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the destination image.
+	 * 
+	 * @return			The destination image.
+	 * @throws IllegalStateException	If not all rows of the source image
+	 * 									have been added.
+	 */
+	BufferedImage getResult() {
+		if (sourceRow != sourceHeight) {
+			throw new IllegalStateException("Not all rows of the source image have been added.");
+		}
+		return destination;
+	}
+	
+	/**
+	 * Returns whether the samples of the image can be read directly, which
+	 * is the case for 8-bit sRGB and gray images in a single array, with
+	 * or without an alpha channel which is not premultiplied.
+	 */
+	private boolean isByteComponentImage(BufferedImage img) {
+		ColorModel cm = img.getColorModel();
+		SampleModel sm = img.getSampleModel();
+		if (!(cm instanceof ComponentColorModel)
+				|| !(sm instanceof ComponentSampleModel)
+				|| sm.getDataType() != DataBuffer.TYPE_BYTE
+				|| img.getRaster().getDataBuffer().getNumBanks() != 1
+				|| cm.isAlphaPremultiplied()
+				|| cm.hasAlpha() != hasAlpha) {
+			return false;
+		}
+		
+		ColorSpace cs = cm.getColorSpace();
+		int colorBands = cs.isCS_sRGB() ? 3 : (cs == ColorSpace.getInstance(ColorSpace.CS_GRAY) ? 1 : 0);
+		return colorBands != 0 && sm.getNumBands() == colorBands + (hasAlpha ? 1 : 0);
+	}
+	
+	/**
+	 * Reads a row of an 8-bit sRGB or gray image into the source row
+	 * buffer, premultiplying the color by the alpha, if any.
+	 */
+	private void unpackBytes(WritableRaster raster, int y) {
+		ComponentSampleModel sm = (ComponentSampleModel)raster.getSampleModel();
+		byte[] data = ((DataBufferByte)raster.getDataBuffer()).getData();
+		int[] bandOffsets = sm.getBandOffsets();
+		int pixelStride = sm.getPixelStride();
+		int p = raster.getDataBuffer().getOffset()
+				+ (y - raster.getSampleModelTranslateY()) * sm.getScanlineStride()
+				- raster.getSampleModelTranslateX() * pixelStride;
+		
+		boolean gray = bandOffsets.length < 3;
+		int r = bandOffsets[0];
+		int g = gray ? r : bandOffsets[1];
+		int b = gray ? r : bandOffsets[2];
+		
+		float[] row = sourceRowBuffer;
+		if (hasAlpha) {
+			int a = bandOffsets[bandOffsets.length - 1];
+			for (int i = 0; i < row.length; i += 4, p += pixelStride) {
+				float alpha = data[p + a] & 0xff;
+				float scale = alpha / 255f;
+				row[i] = alpha;
+				row[i + 1] = (data[p + r] & 0xff) * scale;
+				row[i + 2] = (data[p + g] & 0xff) * scale;
+				row[i + 3] = (data[p + b] & 0xff) * scale;
+			}
+		} else {
+			for (int i = 0; i < row.length; i += 3, p += pixelStride) {
+				row[i] = data[p + r] & 0xff;
+				row[i + 1] = data[p + g] & 0xff;
+				row[i + 2] = data[p + b] & 0xff;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a row of packed pixels into the source row buffer.
+	 */
+	private void unpackPixels(int[] pixels, int offset) {
+		float[] row = sourceRowBuffer;
+		if (hasAlpha) {
+			for (int x = 0, i = 0; x < sourceWidth; x++, i += 4) {
+				int argb = pixels[offset + x];
+				row[i] = argb >>> 24;
+				row[i + 1] = (argb >> 16) & 0xff;
+				row[i + 2] = (argb >> 8) & 0xff;
+				row[i + 3] = argb & 0xff;
+			}
+		} else {
+			for (int x = 0, i = 0; x < sourceWidth; x++, i += 3) {
+				int rgb = pixels[offset + x];
+				row[i] = (rgb >> 16) & 0xff;
+				row[i + 1] = (rgb >> 8) & 0xff;
+				row[i + 2] = rgb & 0xff;
+			}
+		}
+	}
+	
+	/**
+	 * Copies the rows of the strip into a buffer of packed pixels, which
+	 * are premultiplied if the source image has an alpha channel.
+	 */
+	private int[] toPackedPixels(BufferedImage strip, int height) {
+		if (stripBuffer == null || stripBuffer.getHeight() < height) {
+			stripBuffer = new BufferedImage(
+					sourceWidth,
+					height,
+					hasAlpha ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB
+			);
+		}
+		
+		Graphics2D g = stripBuffer.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(
+				strip,
+				0, 0, sourceWidth, height,
+				0, 0, sourceWidth, height,
+				null
+		);
+		g.dispose();
+		
+		return ((DataBufferInt)stripBuffer.getRaster().getDataBuffer()).getData();
+	}
+	
+	/**
+	 * Adds the source row in the source row buffer to the destination rows
+	 * whose filters cover it, and writes the destination rows which are
+	 * then complete.
+	 */
+	private void addRow() {
+		int y = sourceRow++;
+		
+		while (firstUnusedRow < rows.size() && rows.first(firstUnusedRow) <= y) {
+			float[] acc = accumulators[firstUnusedRow % accumulators.length];
+			Arrays.fill(acc, 0f);
+			firstUnusedRow++;
+		}
+		
+		float[] row = sourceRowBuffer;
+		for (int j = firstPendingRow; j < firstUnusedRow; j++) {
+			float weight = rows.weight(j, y);
+			if (weight != 0f) {
+				float[] acc = accumulators[j % accumulators.length];
+				for (int i = 0; i < row.length; i++) {
+					acc[i] += weight * row[i];
+				}
+			}
+		}
+		
+		while (firstPendingRow < firstUnusedRow && rows.last(firstPendingRow) <= y) {
+			writeRow(firstPendingRow);
+			firstPendingRow++;
+		}
+	}
+	
+	/**
+	 * Reduces an accumulated row horizontally into the destination image.
+	 */
+	private void writeRow(int j) {
+		float[] acc = accumulators[j % accumulators.length];
+		int width = columns.size();
+		int offset = j * width;
+		
+		for (int x = 0; x < width; x++) {
+			int first = columns.first(x);
+			float[] weights = columns.weights(x);
+			float c0 = 0f, c1 = 0f, c2 = 0f, c3 = 0f;
+			
+			for (int k = 0, i = first * channels; k < weights.length; k++, i += channels) {
+				float weight = weights[k];
+				c0 += weight * acc[i];
+				c1 += weight * acc[i + 1];
+				c2 += weight * acc[i + 2];
+				if (hasAlpha) {
+					c3 += weight * acc[i + 3];
+				}
+			}
+			
+			if (hasAlpha) {
+				int alpha = clamp(c0);
+				if (alpha == 0) {
+					destinationPixels[offset + x] = 0;
+				} else {
+					float unpremultiply = 255f / c0;
+					destinationPixels[offset + x] = (alpha << 24)
+							| (clamp(c1 * unpremultiply) << 16)
+							| (clamp(c2 * unpremultiply) << 8)
+							| clamp(c3 * unpremultiply);
+				}
+			} else {
+				destinationPixels[offset + x] =
+						(clamp(c0) << 16) | (clamp(c1) << 8) | clamp(c2);
+			}
+		}
+	}
+	
+	private static int clamp(float value) {
+		int i = (int)(value + 0.5f);
+		return i < 0 ? 0 : (i > 255 ? 255 : i);
+	}
+	
+	/**
+	 * The weights of a triangle filter which reduces one dimension of an
+	 * image, for each pixel of the destination.
+	 */
+	private static final class Filter {
+		private final int[] first;
+		private final float[][] weights;
+		
+		Filter(int sourceSize, int size) {
+			double scale = (double)sourceSize / size;
+			double radius = Math.max(1.0, scale);
+			
+			first = new int[size];
+			weights = new float[size][];
+			
+			for (int j = 0; j < size; j++) {
+				double center = (j + 0.5) * scale;
+				int start = Math.max(0, (int)Math.ceil(center - radius - 0.5));
+				int end = Math.min(sourceSize - 1, (int)Math.floor(center + radius - 0.5));
+				
+				float[] w = new float[end - start + 1];
+				double sum = 0;
+				for (int i = start; i <= end; i++) {
+					double weight = 1.0 - Math.abs(i + 0.5 - center) / radius;
+					w[i - start] = (float)Math.max(0, weight);
+					sum += w[i - start];
+				}
+				for (int i = 0; i < w.length; i++) {
+					w[i] /= sum;
+				}
+				
+				first[j] = start;
+				weights[j] = w;
+			}
+		}
+		
+		int size() {
+			return first.length;
+		}
+		
+		int first(int j) {
+			return first[j];
+		}
+		
+		int last(int j) {
+			return first[j] + weights[j].length - 1;
+		}
+		
+		float[] weights(int j) {
+			return weights[j];
+		}
+		
+		float weight(int j, int i) {
+			int k = i - first[j];
+			return k >= 0 && k < weights[j].length ? weights[j][k] : 0f;
+		}
+		
+		/**
+		 * Returns the largest number of destination pixels whose filters
+		 * cover the same source pixel.
+		 */
+		int maxOverlap() {
+			int max = 1;
+			int j = 0;
+			for (int k = 0; k < first.length; k++) {
+				while (last(j) < first[k]) {
+					j++;
+				}
+				max = Math.max(max, k - j + 1);
+			}
+			return max;
+		}
+	}
+}
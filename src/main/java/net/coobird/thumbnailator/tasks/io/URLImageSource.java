@@ -27,17 +27,29 @@ package net.coobird.thumbnailator.tasks.io;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * An {@link ImageSource} which retrieves a source image from a URL.
+ * <p>
+ * The response is read completely into memory before the image is
+ * decoded. The connections are made with the {@link ConnectionOptions}
+ * of the {@link net.coobird.thumbnailator.ThumbnailParameter}. Responses
+ * from HTTP servers with a status other than success cause a
+ * {@link HttpStatusException}, and timeouts cause a
+ * {@link java.net.SocketTimeoutException}.
  * 
  * @author coobird
  *
  */
-public class URLImageSource extends AbstractImageSource<URL> {
+public class URLImageSource extends AbstractImageSource<URL>
+		implements MultiFrameImageSource<URL> {
 	/**
 	 * The URL from which to retrieve the source image.
 	 */
@@ -49,6 +61,34 @@ public class URLImageSource extends AbstractImageSource<URL> {
 	 * If a proxy is not required, then this field will be {@code null}.
 	 */
 	private final Proxy proxy;
+	
+	/**
+	 * The size of the chunks in which the response is read.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+	
+	/**
+	 * The number of bytes of an unused response which are read to reuse
+	 * the connection, beyond which the connection is disconnected instead.
+	 */
+	private static final int MAX_DRAIN_SIZE = 64 * 1024;
+	
+	/**
+	 * The largest body which can be read into an array.
+	 */
+	private static final int MAX_BODY_SIZE = Integer.MAX_VALUE - 8;
+	
+	/**
+	 * The body of the response which has been retrieved but not read yet,
+	 * or {@code null}.
+	 */
+	private byte[] body;
+	
+	/**
+	 * Whether the retrieved body differs from the one stored in the
+	 * {@link ValidatorCache}.
+	 */
+	private boolean isModified = true;
 
 	/**
 	 * Instantiates an {@link URLImageSource} with the URL from which the
@@ -133,33 +173,180 @@ public class URLImageSource extends AbstractImageSource<URL> {
 	}
 
 	public BufferedImage read() throws IOException {
-		InputStream is;
-		try {
-			if (proxy != null) {
-				is = url.openConnection(proxy).getInputStream();
-			} else {
-				is = url.openStream();
-			}
+		return read(FrameReading.FIRST_FRAME).getFrame(0);
+	}
 
-		} catch (IOException e) {
-			throw new IOException("Could not open connection to URL: " + url);
-		}
+	public FrameSequence readFrames() throws IOException {
+		return read(FrameReading.ALL_FRAMES);
+	}
+	
+	public FrameSequence readFrames(FrameProcessor processor) throws IOException {
+		return read(FrameReading.processedBy(processor));
+	}
 
-		InputStreamImageSource source = new InputStreamImageSource(is);
+	private FrameSequence read(FrameReading reading) throws IOException {
+		if (body == null) {
+			fetch();
+		}
+		
+		ByteBufferImageSource source = new ByteBufferImageSource(ByteBuffer.wrap(body));
 		source.setThumbnailParameter(param);
+		body = null;
+		
+		FrameSequence frames = reading.readFrom(source);
+		
+		this.inputFormatName = source.getInputFormatName();
+		
+		return finishedReading(frames);
+	}
+	
+	/**
+	 * Returns whether the image at the URL has changed since it was stored
+	 * in the {@link ValidatorCache} of the {@link ConnectionOptions}.
+	 * <p>
+	 * The image is retrieved by this method, and is not retrieved again
+	 * when it is read. When the server responds that the image has not
+	 * been modified, the image stored in the cache is read.
+	 * 
+	 * @return					{@code false} if the server responded that
+	 * 							the image has not been modified,
+	 * 							{@code true} otherwise, including when no
+	 * 							cache is used.
+	 * @throws IOException		When a problem occurs while retrieving the
+	 * 							image.
+	 */
+	public boolean isModified() throws IOException {
+		if (body == null) {
+			fetch();
+		}
+		return isModified;
+	}
+	
+	/**
+	 * Retrieves the body of the response for the URL into {@link #body}.
+	 * <p>
+	 * Unused bodies of small error and {@code 304} responses are read to
+	 * their end and the stream closed, rather than disconnecting, so that
+	 * the connection can be reused.
+	 */
+	private void fetch() throws IOException {
+		ConnectionOptions options = param != null && param.getConnectionOptions() != null
+				? param.getConnectionOptions() : ConnectionOptions.DEFAULT;
+		
+		URLConnection connection = proxy != null
+				? url.openConnection(proxy) : url.openConnection();
+		connection.setConnectTimeout(options.getConnectTimeout());
+		connection.setReadTimeout(options.getReadTimeout());
+		
+		ValidatorCache cache = options.getValidatorCache();
+		ValidatorCache.Entry cached = null;
+		isModified = true;
 		
-		BufferedImage img;
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection)connection;
+			if (!options.isKeepAlive()) {
+				http.setRequestProperty("Connection", "close");
+			}
+			
+			cached = cache != null ? cache.get(url) : null;
+			if (cached != null && cached.getETag() != null) {
+				http.setRequestProperty("If-None-Match", cached.getETag());
+			}
+			if (cached != null && cached.getLastModified() != null) {
+				http.setRequestProperty("If-Modified-Since", cached.getLastModified());
+			}
+			
+			int status = http.getResponseCode();
+			if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+				drain(http, http.getInputStream());
+				body = cached.getBody();
+				isModified = false;
+				return;
+			}
+			if (status < 200 || status >= 300) {
+				drain(http, http.getErrorStream());
+				throw new HttpStatusException(url, status, http.getResponseMessage());
+			}
+		}
+		
+		int maxBodySize = options.getMaxBodySize();
+		InputStream is = connection.getInputStream();
 		try {
-			img = source.read();
-		} catch (Exception e) {
-			throw new IOException("Could not obtain image from URL: " + url);
+			if (maxBodySize != ConnectionOptions.UNLIMITED
+					&& connection.getContentLengthLong() > maxBodySize) {
+				throw new ResponseTooLargeException(url, maxBodySize);
+			}
+			body = readFully(is, maxBodySize);
 		} finally {
 			is.close();
 		}
-
-		this.inputFormatName = source.getInputFormatName();
 		
-		return finishedReading(img);
+		if (cache != null && connection instanceof HttpURLConnection) {
+			String eTag = connection.getHeaderField("ETag");
+			String lastModified = connection.getHeaderField("Last-Modified");
+			if (eTag != null || lastModified != null) {
+				cache.put(url, new ValidatorCache.Entry(eTag, lastModified, body));
+			}
+		}
+	}
+	
+	/**
+	 * Reads the stream to its end, with plain reads on the calling thread.
+	 */
+	private byte[] readFully(InputStream is, int maxBodySize) throws IOException {
+		/*
+		 * One byte more than the limit is read, so that a body which is
+		 * larger than the limit is noticed.
+		 */
+		int initialSize = CHUNK_SIZE;
+		if (maxBodySize != ConnectionOptions.UNLIMITED) {
+			initialSize = (int)Math.min(CHUNK_SIZE, maxBodySize + 1L);
+		}
+		byte[] data = new byte[initialSize];
+		int length = 0;
+		
+		int bytesRead;
+		while ((bytesRead = is.read(data, length, data.length - length)) != -1) {
+			length += bytesRead;
+			if (maxBodySize != ConnectionOptions.UNLIMITED && length > maxBodySize) {
+				throw new ResponseTooLargeException(url, maxBodySize);
+			}
+			if (length == data.length) {
+				if (data.length == MAX_BODY_SIZE) {
+					// The body does not fit in an array.
+					throw new ResponseTooLargeException(url, MAX_BODY_SIZE);
+				}
+				data = Arrays.copyOf(data, (int)Math.min(data.length * 2L, MAX_BODY_SIZE));
+			}
+		}
+		return Arrays.copyOf(data, length);
+	}
+	
+	/**
+	 * Reads and closes the stream of a response which is not used, so
+	 * that its connection can be reused.
+	 * <p>
+	 * If the response is longer than {@link #MAX_DRAIN_SIZE}, the
+	 * connection is disconnected rather than reading the rest of it.
+	 */
+	private static void drain(HttpURLConnection http, InputStream is) throws IOException {
+		if (is == null) {
+			return;
+		}
+		try {
+			byte[] buffer = new byte[CHUNK_SIZE];
+			int drained = 0;
+			int bytesRead;
+			while ((bytesRead = is.read(buffer)) != -1) {
+				drained += bytesRead;
+				if (drained > MAX_DRAIN_SIZE) {
+					http.disconnect();
+					return;
+				}
+			}
+		} finally {
+			is.close();
+		}
 	}
 
 	/**
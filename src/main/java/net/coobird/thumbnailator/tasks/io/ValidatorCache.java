@@ -0,0 +1,198 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores the validators of responses for source images retrieved from
+ * URLs, along with their bodies, so that later requests for the same URL
+ * can be made conditional.
+ * <p>
+ * When a response carries an {@code ETag} or a {@code Last-Modified}
+ * header, it is stored in the cache. The next request for the URL sends
+ * the validators in {@code If-None-Match} and {@code If-Modified-Since}
+ * headers, and when the server responds with {@code 304 Not Modified},
+ * the stored body is used instead of downloading the image again.
+ * {@link URLImageSource#isModified()} tells whether this happened, so that
+ * callers can skip making a thumbnail they already have.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public abstract class ValidatorCache {
+	/**
+	 * A stored response.
+	 * 
+	 * @author coobird
+	 * @since	0.4.21
+	 *
+	 */
+	public static final class Entry {
+		private final String eTag;
+		private final String lastModified;
+		private final byte[] body;
+		
+		/**
+		 * Instantiates an {@link Entry}.
+		 * 
+		 * @param eTag			The value of the {@code ETag} header, or
+		 * 						{@code null}.
+		 * @param lastModified	The value of the {@code Last-Modified}
+		 * 						header, or {@code null}.
+		 * @param body			The body of the response, which is not
+		 * 						copied.
+		 * @throws NullPointerException	If the body is {@code null}.
+		 */
+		public Entry(String eTag, String lastModified, byte[] body) {
+			if (body == null) {
+				throw new NullPointerException("Body cannot be null.");
+			}
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+			this.body = body;
+		}
+		
+		/**
+		 * Returns the value of the {@code ETag} header.
+		 * 
+		 * @return		The entity tag, or {@code null}.
+		 */
+		public String getETag() {
+			return eTag;
+		}
+		
+		/**
+		 * Returns the value of the {@code Last-Modified} header.
+		 * 
+		 * @return		The date, as sent by the server, or {@code null}.
+		 */
+		public String getLastModified() {
+			return lastModified;
+		}
+		
+		/**
+		 * Returns the body of the response. The returned array is not
+		 * copied, and must not be modified.
+		 * 
+		 * @return		The body.
+		 */
+		public byte[] getBody() {
+			return body;
+		}
+	}
+	
+	/**
+	 * Returns a {@link ValidatorCache} which holds the entries in memory,
+	 * discarding the least recently used entries when their bodies take
+	 * more than the specified number of bytes.
+	 * <p>
+	 * The returned cache can be shared by threads.
+	 * 
+	 * @param maxBytes		The largest total size of the bodies.
+	 * @return				A new cache.
+	 * @throws IllegalArgumentException	If the size is negative.
+	 */
+	public static ValidatorCache inMemory(final long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Size cannot be negative.");
+		}
+		
+		return new ValidatorCache() {
+			/*
+			 * A lock rather than synchronization is used, so that virtual
+			 * threads waiting for the cache do not pin their carrier.
+			 */
+			private final Lock lock = new ReentrantLock();
+			private final LinkedHashMap<String, Entry> entries =
+					new LinkedHashMap<String, Entry>(16, 0.75f, true);
+			private long size = 0;
+			
+			@Override
+			public Entry get(URL url) {
+				lock.lock();
+				try {
+					return entries.get(url.toExternalForm());
+				} finally {
+					lock.unlock();
+				}
+			}
+			
+			@Override
+			public void put(URL url, Entry entry) {
+				lock.lock();
+				try {
+					Entry previous = entries.remove(url.toExternalForm());
+					if (previous != null) {
+						size -= previous.getBody().length;
+					}
+					if (entry.getBody().length > maxBytes) {
+						return;
+					}
+					
+					entries.put(url.toExternalForm(), entry);
+					size += entry.getBody().length;
+					
+					Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+					while (size > maxBytes) {
+						size -= iter.next().getValue().getBody().length;
+						iter.remove();
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+			
+			@Override
+			public String toString() {
+				return "ValidatorCache.inMemory(" + maxBytes + ")";
+			}
+		};
+	}
+	
+	/**
+	 * Returns the entry stored for the specified URL.
+	 * 
+	 * @param url			The URL.
+	 * @return				The entry, or {@code null} if there is none.
+	 */
+	public abstract Entry get(URL url);
+	
+	/**
+	 * Stores the entry for the specified URL, replacing any entry which
+	 * was stored for it.
+	 * 
+	 * @param url			The URL.
+	 * @param entry			The entry to store.
+	 */
+	public abstract void put(URL url, Entry entry);
+}
@@ -0,0 +1,173 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tiles;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sprite sheet, which is a single image containing thumbnails laid out
+ * in a grid, along with the region of each thumbnail within the image.
+ * <p>
+ * A sprite sheet is made by the
+ * {@link net.coobird.thumbnailator.Thumbnails.Builder#asSpriteSheet(int)}
+ * method. The regions can be written out as JSON or CSS, so that a web
+ * page can show each thumbnail from the sprite sheet.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class SpriteSheet {
+	/**
+	 * The image containing the thumbnails.
+	 */
+	private final BufferedImage image;
+	
+	/**
+	 * The region of each thumbnail within the image.
+	 */
+	private final List<Rectangle> regions;
+	
+	/**
+	 * Instantiates a {@link SpriteSheet}.
+	 * 
+	 * @param image		The image containing the thumbnails.
+	 * @param regions	The region of each thumbnail within the image, in
+	 * 					the order of the source images.
+	 * @throws NullPointerException	If the image or regions are
+	 * 								{@code null}.
+	 */
+	public SpriteSheet(BufferedImage image, List<Rectangle> regions) {
+		if (image == null) {
+			throw new NullPointerException("Image cannot be null.");
+		}
+		if (regions == null) {
+			throw new NullPointerException("Regions cannot be null.");
+		}
+		
+		this.image = image;
+		
+		List<Rectangle> copy = new ArrayList<Rectangle>();
+		for (Rectangle region : regions) {
+			copy.add(new Rectangle(region));
+		}
+		this.regions = Collections.unmodifiableList(copy);
+	}
+	
+	/**
+	 * Returns the image containing the thumbnails.
+	 * 
+	 * @return			The image of the sprite sheet.
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Returns the region of each thumbnail within the image, in the order
+	 * of the source images.
+	 * 
+	 * @return			An unmodifiable list of the regions.
+	 */
+	public List<Rectangle> getRegions() {
+		return regions;
+	}
+	
+	/**
+	 * Returns the size of the image and the regions of the thumbnails as
+	 * JSON, in the following form:
+	 * <pre>
+{"width":320,"height":90,"frames":[{"x":0,"y":0,"width":160,"height":90},...]}
+	 * </pre>
+	 * 
+	 * @return			The regions as JSON.
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"width\":").append(image.getWidth())
+				.append(",\"height\":").append(image.getHeight())
+				.append(",\"frames\":[");
+		
+		for (int i = 0; i < regions.size(); i++) {
+			Rectangle r = regions.get(i);
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"x\":").append(r.x)
+					.append(",\"y\":").append(r.y)
+					.append(",\"width\":").append(r.width)
+					.append(",\"height\":").append(r.height)
+					.append('}');
+		}
+		
+		return sb.append("]}").toString();
+	}
+	
+	/**
+	 * Returns CSS rules which show the thumbnails from the sprite sheet.
+	 * <p>
+	 * A rule for the specified class name sets the background image, and
+	 * a rule for each thumbnail, with the index of the thumbnail appended
+	 * to the class name, sets the size and background position. For
+	 * example, with the class name {@code sprite}, the element of the
+	 * second thumbnail has the classes {@code sprite sprite-1}.
+	 * 
+	 * @param className	The CSS class name of the thumbnails.
+	 * @param imageUrl	The URL of the sprite sheet image.
+	 * @return			The CSS rules.
+	 * @throws NullPointerException	If the class name or URL is
+	 * 								{@code null}.
+	 */
+	public String toCss(String className, String imageUrl) {
+		if (className == null) {
+			throw new NullPointerException("Class name cannot be null.");
+		}
+		if (imageUrl == null) {
+			throw new NullPointerException("Image URL cannot be null.");
+		}
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append('.').append(className)
+				.append(" { background-image: url(\"").append(imageUrl)
+				.append("\"); background-repeat: no-repeat; }\n");
+		
+		for (int i = 0; i < regions.size(); i++) {
+			Rectangle r = regions.get(i);
+			sb.append('.').append(className).append('-').append(i)
+					.append(" { width: ").append(r.width)
+					.append("px; height: ").append(r.height)
+					.append("px; background-position: ").append(-r.x)
+					.append("px ").append(-r.y)
+					.append("px; }\n");
+		}
+		
+		return sb.toString();
+	}
+}
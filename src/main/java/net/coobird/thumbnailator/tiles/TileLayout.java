@@ -0,0 +1,244 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tiles;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * This class decides which levels of a tile pyramid are written, and the
+ * paths of the tiles, in the same way a {@link net.coobird.thumbnailator.name.Rename}
+ * decides the names of thumbnails.
+ * <p>
+ * Levels are numbered as in the Deep Zoom format, where the image at
+ * level {@code 0} is 1 pixel in size, and the size doubles with each level
+ * up to the highest level, which is the size of the source image.
+ * <p>
+ * A layout also gives the size and overlap of the tiles which are used
+ * unless others are set, and may write a descriptor of the pyramid, which
+ * viewers read to find the tiles.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public abstract class TileLayout {
+	/**
+	 * The layout of the Deep Zoom (DZI) format, where all levels are
+	 * written, and a tile is named {@code level/column_row}.
+	 * <p>
+	 * For example, the second tile in the first row of level {@code 12} is
+	 * {@code 12/1_0.jpg}.
+	 * <p>
+	 * Tiles are {@code 254} pixels in size with an overlap of {@code 1}
+	 * pixel by default, so that tiles with neighbors on both sides are
+	 * {@code 256} pixels in size.
+	 * <p>
+	 * The {@code .dzi} descriptor is written next to the directory of the
+	 * tiles. Viewers expect the directory to be named {@code name_files}
+	 * for the descriptor {@code name.dzi}, so the {@code _files} suffix is
+	 * removed from the directory name, if present, to name the descriptor.
+	 */
+	public static final TileLayout DEEP_ZOOM = new TileLayout() {
+		@Override
+		public int getDefaultTileSize() {
+			return 254;
+		}
+		
+		@Override
+		public int getDefaultOverlap() {
+			return 1;
+		}
+		
+		@Override
+		public String apply(int level, int column, int row) {
+			return level + "/" + column + "_" + row;
+		}
+		
+		@Override
+		public File writeDescriptor(File directory, int width, int height, int tileSize, int overlap, String format) throws IOException {
+			File absoluteDirectory = directory.getAbsoluteFile();
+			String name = absoluteDirectory.getName();
+			if (name.endsWith(DEEP_ZOOM_DIRECTORY_SUFFIX) && name.length() > DEEP_ZOOM_DIRECTORY_SUFFIX.length()) {
+				name = name.substring(0, name.length() - DEEP_ZOOM_DIRECTORY_SUFFIX.length());
+			}
+			File descriptor = new File(absoluteDirectory.getParentFile(), name + ".dzi");
+			
+			Writer writer = new OutputStreamWriter(new FileOutputStream(descriptor), "UTF-8");
+			try {
+				writer.write(
+						"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+						+ "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\""
+						+ " TileSize=\"" + tileSize + "\""
+						+ " Overlap=\"" + overlap + "\""
+						+ " Format=\"" + escape(format) + "\">\n"
+						+ "  <Size Width=\"" + width + "\" Height=\"" + height + "\"/>\n"
+						+ "</Image>\n"
+				);
+			} finally {
+				writer.close();
+			}
+			return descriptor;
+		}
+	};
+	
+	/**
+	 * The suffix of the name of the directory of Deep Zoom tiles.
+	 */
+	private static final String DEEP_ZOOM_DIRECTORY_SUFFIX = "_files";
+	
+	/**
+	 * The layout used by web map viewers, where a tile is named
+	 * {@code zoom/x/y} and zoom {@code 0} is the lowest level at which the
+	 * entire image fits in a single tile. The levels below it are not
+	 * written.
+	 * <p>
+	 * For example, the second tile in the first row of zoom {@code 3} is
+	 * {@code 3/1/0.png}.
+	 * <p>
+	 * Tiles are {@code 256} pixels in size without overlap by default, as
+	 * expected by web map viewers.
+	 */
+	public static final TileLayout XYZ = new TileLayout() {
+		@Override
+		public int getLowestLevel(int highestLevel, int width, int height, int tileSize) {
+			int size = Math.max(width, height);
+			int steps = 0;
+			while (steps < highestLevel && ceilDivide(size, 1 << steps) > tileSize) {
+				steps++;
+			}
+			return highestLevel - steps;
+		}
+		
+		@Override
+		public String apply(int level, int column, int row) {
+			return level + "/" + column + "/" + row;
+		}
+	};
+	
+	/**
+	 * The default constructor is intended only to be called implicitly
+	 * by the classes implementing the functionality of the
+	 * {@link TileLayout} class.
+	 */
+	protected TileLayout() {}
+	
+	/**
+	 * Returns the width and height of the tiles, not counting the overlap,
+	 * which are used unless another size is set.
+	 * <p>
+	 * By default, tiles are {@code 256} pixels in size.
+	 * 
+	 * @return				The width and height of the tiles.
+	 */
+	public int getDefaultTileSize() {
+		return 256;
+	}
+	
+	/**
+	 * Returns the number of pixels by which tiles extend into their
+	 * neighbors, which is used unless another overlap is set.
+	 * <p>
+	 * By default, tiles do not overlap.
+	 * 
+	 * @return				The overlap in pixels.
+	 */
+	public int getDefaultOverlap() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the lowest level which is written.
+	 * <p>
+	 * By default, all levels are written.
+	 * 
+	 * @param highestLevel	The highest level, which is the size of the
+	 * 						source image.
+	 * @param width			The width of the source image.
+	 * @param height		The height of the source image.
+	 * @param tileSize		The width and height of the tiles.
+	 * @return				The lowest level which is written.
+	 */
+	public int getLowestLevel(int highestLevel, int width, int height, int tileSize) {
+		return 0;
+	}
+	
+	/**
+	 * Returns the path of a tile, relative to the directory of the tile
+	 * pyramid and without the file extension, with {@code /} separating
+	 * the directories.
+	 * 
+	 * @param level			The level of the tile, counted from the lowest
+	 * 						level which is written.
+	 * @param column		The column of the tile, counted from the left.
+	 * @param row			The row of the tile, counted from the top.
+	 * @return				The path of the tile.
+	 */
+	public abstract String apply(int level, int column, int row);
+	
+	/**
+	 * Writes a descriptor of the tile pyramid, once its tiles have been
+	 * written.
+	 * <p>
+	 * By default, no descriptor is written.
+	 * 
+	 * @param directory		The directory of the tiles.
+	 * @param width			The width of the source image.
+	 * @param height		The height of the source image.
+	 * @param tileSize		The width and height of the tiles, not counting
+	 * 						the overlap.
+	 * @param overlap		The overlap of the tiles in pixels.
+	 * @param format		The format of the tiles, which is also their
+	 * 						file extension.
+	 * @return				The descriptor file, or {@code null} if no
+	 * 						descriptor was written.
+	 * @throws IOException	When a problem occurs while writing the
+	 * 						descriptor.
+	 */
+	public File writeDescriptor(File directory, int width, int height, int tileSize, int overlap, String format) throws IOException {
+		return null;
+	}
+	
+	/**
+	 * Escapes a string for use as an XML attribute value.
+	 */
+	private static String escape(String s) {
+		return s.replace("&", "&amp;")
+				.replace("<", "&lt;")
+				.replace(">", "&gt;")
+				.replace("\"", "&quot;");
+	}
+	
+	/**
+	 * Divides, rounding up.
+	 */
+	static int ceilDivide(int dividend, int divisor) {
+		return (dividend + divisor - 1) / divisor;
+	}
+}
@@ -0,0 +1,487 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tiles;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.tasks.io.BufferedImageSource;
+import net.coobird.thumbnailator.tasks.io.FileImageSink;
+import net.coobird.thumbnailator.tasks.io.FileImageSource;
+import net.coobird.thumbnailator.tasks.io.ImageSink;
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+import net.coobird.thumbnailator.util.Futures;
+
+/**
+ * Cuts an image into a pyramid of tiles, such as those of the Deep Zoom
+ * format, for viewers which zoom into large images.
+ * <p>
+ * The source image is decoded once. Each level of the pyramid is made by
+ * averaging each 2 x 2 block of pixels of the level above it, and is cut
+ * into tiles which are written in parallel by {@link FileImageSink}s,
+ * while the next level is being made.
+ * <p>
+ * The size and overlap of the tiles default to those of the
+ * {@link TileLayout}, which may also write a descriptor of the pyramid,
+ * such as the {@code .dzi} file of the Deep Zoom format.
+ * <p>
+ * Usage:
+ * <pre>
+// Writes the tiles into large_files, and the descriptor to large.dzi.
+TilePyramid.of(new File("large.tif"))
+    .outputFormat("jpg")
+    .toDirectory(new File("large_files"));
+ * </pre>
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class TilePyramid {
+	/**
+	 * Used for the tile size and overlap when they should be taken from
+	 * the {@link TileLayout}.
+	 */
+	private static final int LAYOUT_DEFAULT = -1;
+	
+	/**
+	 * The default format of the tiles.
+	 */
+	public static final String DEFAULT_FORMAT = "jpg";
+	
+	/**
+	 * The source of the image.
+	 */
+	private final ImageSource<?> source;
+	
+	private int tileSize = LAYOUT_DEFAULT;
+	private int overlap = LAYOUT_DEFAULT;
+	private String outputFormat = DEFAULT_FORMAT;
+	private float outputQuality = ThumbnailParameter.DEFAULT_QUALITY;
+	private TileLayout layout = TileLayout.DEEP_ZOOM;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	
+	private TilePyramid(ImageSource<?> source) {
+		this.source = source;
+	}
+	
+	/**
+	 * Returns a {@link TilePyramid} for the image in the specified file.
+	 * <p>
+	 * The image is oriented according to its Exif metadata.
+	 * 
+	 * @param file		The file of the source image.
+	 * @return			A {@link TilePyramid} for the image.
+	 * @throws NullPointerException	If the file is {@code null}.
+	 */
+	public static TilePyramid of(File file) {
+		return new TilePyramid(new FileImageSource(file));
+	}
+	
+	/**
+	 * Returns a {@link TilePyramid} for the specified image.
+	 * 
+	 * @param img		The source image.
+	 * @return			A {@link TilePyramid} for the image.
+	 * @throws NullPointerException	If the image is {@code null}.
+	 */
+	public static TilePyramid of(BufferedImage img) {
+		return new TilePyramid(new BufferedImageSource(img));
+	}
+	
+	/**
+	 * Returns a {@link TilePyramid} for the image from the specified
+	 * {@link ImageSource}.
+	 * 
+	 * @param source	The source of the image.
+	 * @return			A {@link TilePyramid} for the image.
+	 * @throws NullPointerException	If the source is {@code null}.
+	 */
+	public static TilePyramid of(ImageSource<?> source) {
+		if (source == null) {
+			throw new NullPointerException("ImageSource cannot be null.");
+		}
+		return new TilePyramid(source);
+	}
+	
+	/**
+	 * Sets the width and height of the tiles, not counting the overlap.
+	 * <p>
+	 * The default is given by the {@link TileLayout#getDefaultTileSize()
+	 * TileLayout}.
+	 * 
+	 * @param size		The width and height of the tiles.
+	 * @return			A reference to this object.
+	 * @throws IllegalArgumentException	If the size is not greater than
+	 * 									zero.
+	 */
+	public TilePyramid tileSize(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Tile size must be greater than zero.");
+		}
+		this.tileSize = size;
+		return this;
+	}
+	
+	/**
+	 * Sets the number of pixels by which tiles extend into their neighbors
+	 * on each side which has a neighbor.
+	 * <p>
+	 * The default is given by the {@link TileLayout#getDefaultOverlap()
+	 * TileLayout}.
+	 * 
+	 * @param overlap	The overlap in pixels.
+	 * @return			A reference to this object.
+	 * @throws IllegalArgumentException	If the overlap is negative.
+	 */
+	public TilePyramid overlap(int overlap) {
+		if (overlap < 0) {
+			throw new IllegalArgumentException("Overlap cannot be negative.");
+		}
+		this.overlap = overlap;
+		return this;
+	}
+	
+	/**
+	 * Sets the format of the tiles, which is also used as the extension
+	 * of the tile files.
+	 * <p>
+	 * The default is {@link #DEFAULT_FORMAT}.
+	 * 
+	 * @param format	The name of the format, such as {@code png}.
+	 * @return			A reference to this object.
+	 * @throws NullPointerException	If the format is {@code null}.
+	 */
+	public TilePyramid outputFormat(String format) {
+		if (format == null) {
+			throw new NullPointerException("Format cannot be null.");
+		}
+		this.outputFormat = format;
+		return this;
+	}
+	
+	/**
+	 * Sets the compression quality of the tiles, from {@code 0.0f} to
+	 * {@code 1.0f}.
+	 * 
+	 * @param quality	The compression quality.
+	 * @return			A reference to this object.
+	 * @throws IllegalArgumentException	If the quality is out of range.
+	 */
+	public TilePyramid outputQuality(float quality) {
+		if (quality < 0.0f || quality > 1.0f) {
+			throw new IllegalArgumentException(
+					"The quality setting must be in the range 0.0f and " +
+					"1.0f, inclusive."
+			);
+		}
+		this.outputQuality = quality;
+		return this;
+	}
+	
+	/**
+	 * Sets the {@link TileLayout} which decides the levels which are written
+	 * and the paths of the tiles.
+	 * <p>
+	 * The default is {@link TileLayout#DEEP_ZOOM}.
+	 * 
+	 * @param layout	The layout of the tiles.
+	 * @return			A reference to this object.
+	 * @throws NullPointerException	If the layout is {@code null}.
+	 */
+	public TilePyramid layout(TileLayout layout) {
+		if (layout == null) {
+			throw new NullPointerException("TileLayout cannot be null.");
+		}
+		this.layout = layout;
+		return this;
+	}
+	
+	/**
+	 * Sets the number of threads which write the tiles.
+	 * <p>
+	 * The default is the number of available processors.
+	 * 
+	 * @param threads	The number of threads.
+	 * @return			A reference to this object.
+	 * @throws IllegalArgumentException	If the number is not greater than
+	 * 									zero.
+	 */
+	public TilePyramid threads(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be greater than zero.");
+		}
+		this.threads = threads;
+		return this;
+	}
+	
+	/**
+	 * Writes the tiles of the pyramid into the specified directory, at the
+	 * paths given by the {@link TileLayout}. Existing tiles are overwritten.
+	 * <p>
+	 * Once all tiles have been written, the descriptor of the pyramid is
+	 * written by the {@link TileLayout}, if it has one.
+	 * 
+	 * @param directory		The directory to write the tiles into.
+	 * @return				The files of the tiles, from the lowest level
+	 * 						to the highest, each level row by row.
+	 * @throws IOException	When a problem occurs while reading the image
+	 * 						or writing the tiles.
+	 * @throws NullPointerException	If the directory is {@code null}.
+	 */
+	public List<File> toDirectory(File directory) throws IOException {
+		if (directory == null) {
+			throw new NullPointerException("Directory cannot be null.");
+		}
+		
+		int tileSize = this.tileSize != LAYOUT_DEFAULT ? this.tileSize : layout.getDefaultTileSize();
+		int overlap = this.overlap != LAYOUT_DEFAULT ? this.overlap : layout.getDefaultOverlap();
+		
+		BufferedImage img = readImage();
+		int width = img.getWidth();
+		int height = img.getHeight();
+		
+		int highestLevel = 0;
+		while ((1L << highestLevel) < Math.max(width, height)) {
+			highestLevel++;
+		}
+		int lowestLevel = layout.getLowestLevel(highestLevel, width, height, tileSize);
+		
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.scale(1.0)
+				.format(outputFormat)
+				.quality(outputQuality)
+				.build();
+		
+		List<List<File>> files = new ArrayList<List<File>>();
+		Set<File> directories = new HashSet<File>();
+		List<Future<?>> pending = new ArrayList<Future<?>>();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int level = highestLevel; level >= lowestLevel; level--) {
+				List<File> levelFiles = new ArrayList<File>();
+				List<Future<?>> written = new ArrayList<Future<?>>();
+				
+				int columns = TileLayout.ceilDivide(img.getWidth(), tileSize);
+				int rows = TileLayout.ceilDivide(img.getHeight(), tileSize);
+				
+				for (int row = 0; row < rows; row++) {
+					for (int column = 0; column < columns; column++) {
+						File file = new File(
+								directory,
+								layout.apply(level - lowestLevel, column, row) + "." + outputFormat
+						);
+						
+						File parent = file.getParentFile();
+						if (directories.add(parent) && !parent.isDirectory() && !parent.mkdirs()) {
+							throw new IOException("Could not create directory: " + parent);
+						}
+						
+						levelFiles.add(file);
+						written.add(executor.submit(
+								new TileWriter(cutTile(img, column, row, tileSize, overlap), file, param)
+						));
+					}
+				}
+				files.add(0, levelFiles);
+				
+				// The next level is made while the tiles of this level are written.
+				BufferedImage next = level > lowestLevel ? halve(img) : null;
+				
+				await(pending);
+				pending = written;
+				img = next;
+			}
+			await(pending);
+			
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		layout.writeDescriptor(directory, width, height, tileSize, overlap, outputFormat);
+		
+		List<File> allFiles = new ArrayList<File>();
+		for (List<File> levelFiles : files) {
+			allFiles.addAll(levelFiles);
+		}
+		return allFiles;
+	}
+	
+	/**
+	 * Reads the source image, orients it according to its Exif metadata,
+	 * and converts it to packed pixels which can be averaged directly.
+	 */
+	private BufferedImage readImage() throws IOException {
+		ThumbnailParameter param = new ThumbnailParameterBuilder().scale(1.0).build();
+		source.setThumbnailParameter(param);
+		
+		BufferedImage img = source.read();
+		for (ImageFilter filter : param.getImageFilters()) {
+			img = filter.apply(img);
+		}
+		
+		int type = img.getColorModel().hasAlpha()
+				? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		if (img.getType() == type && img.getRaster().getParent() == null) {
+			return img;
+		}
+		
+		BufferedImage packed = new BufferedImage(img.getWidth(), img.getHeight(), type);
+		Graphics2D g = packed.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(img, 0, 0, null);
+		g.dispose();
+		return packed;
+	}
+	
+	/**
+	 * Returns the tile at the specified column and row of a level,
+	 * extended by the overlap on each side which has a neighbor.
+	 */
+	private static BufferedImage cutTile(BufferedImage img, int column, int row, int tileSize, int overlap) {
+		int x0 = Math.max(0, column * tileSize - overlap);
+		int y0 = Math.max(0, row * tileSize - overlap);
+		int x1 = (int)Math.min(img.getWidth(), (column + 1L) * tileSize + overlap);
+		int y1 = (int)Math.min(img.getHeight(), (row + 1L) * tileSize + overlap);
+		return img.getSubimage(x0, y0, x1 - x0, y1 - y0);
+	}
+	
+	/**
+	 * Returns an image half the size of the specified image, rounded up,
+	 * where each pixel is the average of a 2 x 2 block of pixels. At odd
+	 * edges, the last column or row is averaged with itself.
+	 */
+	private static BufferedImage halve(BufferedImage img) {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int halfWidth = (width + 1) / 2;
+		int halfHeight = (height + 1) / 2;
+		boolean hasAlpha = img.getType() == BufferedImage.TYPE_INT_ARGB;
+		
+		BufferedImage half = new BufferedImage(halfWidth, halfHeight, img.getType());
+		int[] src = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+		int[] dst = ((DataBufferInt)half.getRaster().getDataBuffer()).getData();
+		
+		for (int y = 0; y < halfHeight; y++) {
+			int row0 = (y * 2) * width;
+			int row1 = Math.min(y * 2 + 1, height - 1) * width;
+			int offset = y * halfWidth;
+			
+			for (int x = 0; x < halfWidth; x++) {
+				int x0 = x * 2;
+				int x1 = Math.min(x0 + 1, width - 1);
+				dst[offset + x] = average(
+						src[row0 + x0], src[row0 + x1], src[row1 + x0], src[row1 + x1], hasAlpha
+				);
+			}
+		}
+		return half;
+	}
+	
+	/**
+	 * Averages four pixels, weighting the colors by their alpha.
+	 */
+	private static int average(int p0, int p1, int p2, int p3, boolean hasAlpha) {
+		if (!hasAlpha) {
+			int r = ((p0 >> 16) & 0xff) + ((p1 >> 16) & 0xff) + ((p2 >> 16) & 0xff) + ((p3 >> 16) & 0xff);
+			int g = ((p0 >> 8) & 0xff) + ((p1 >> 8) & 0xff) + ((p2 >> 8) & 0xff) + ((p3 >> 8) & 0xff);
+			int b = (p0 & 0xff) + (p1 & 0xff) + (p2 & 0xff) + (p3 & 0xff);
+			
+			return 0xff000000
+					| (((r + 2) >> 2) << 16)
+					| (((g + 2) >> 2) << 8)
+					| ((b + 2) >> 2);
+		}
+		
+		int a0 = p0 >>> 24;
+		int a1 = p1 >>> 24;
+		int a2 = p2 >>> 24;
+		int a3 = p3 >>> 24;
+		int a = a0 + a1 + a2 + a3;
+		
+		if (a == 0) {
+			return 0;
+		}
+		
+		int r = ((p0 >> 16) & 0xff) * a0 + ((p1 >> 16) & 0xff) * a1 + ((p2 >> 16) & 0xff) * a2 + ((p3 >> 16) & 0xff) * a3;
+		int g = ((p0 >> 8) & 0xff) * a0 + ((p1 >> 8) & 0xff) * a1 + ((p2 >> 8) & 0xff) * a2 + ((p3 >> 8) & 0xff) * a3;
+		int b = (p0 & 0xff) * a0 + (p1 & 0xff) * a1 + (p2 & 0xff) * a2 + (p3 & 0xff) * a3;
+		int half = a >> 1;
+		
+		return (((a + 2) >> 2) << 24)
+				| (((r + half) / a) << 16)
+				| (((g + half) / a) << 8)
+				| ((b + half) / a);
+	}
+	
+	/**
+	 * Waits for the tiles to be written, and rethrows the first failure.
+	 */
+	private static void await(List<Future<?>> futures) throws IOException {
+		for (Future<?> future : futures) {
+			Futures.getResult(future, "Interrupted while writing tiles.");
+		}
+	}
+	
+	/**
+	 * Writes a tile through a {@link FileImageSink}.
+	 */
+	private static final class TileWriter implements Callable<Void> {
+		private final BufferedImage tile;
+		private final File file;
+		private final ThumbnailParameter param;
+		
+		TileWriter(BufferedImage tile, File file, ThumbnailParameter param) {
+			this.tile = tile;
+			this.file = file;
+			this.param = param;
+		}
+		
+		public Void call() throws IOException {
+			ImageSink<File> sink = new FileImageSink(file);
+			sink.setThumbnailParameter(param);
+			sink.setOutputFormatName(param.getOutputFormat());
+			sink.write(tile);
+			return null;
+		}
+	}
+}
@@ -27,7 +27,20 @@ package net.coobird.thumbnailator.util;
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 
 import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 
 /**
  * This class provides convenience methods for using {@link BufferedImage}s.
@@ -72,4 +85,184 @@ public final class BufferedImages {
 		
 		return newImage;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Creates a {@link BufferedImage} of the specified size which has the
+	 * same {@link ColorModel} and {@link SampleModel} layout as the
+	 * specified image.
+	 * <p>
+	 * Unlike creating an image by the image type of the specified image,
+	 * images of type {@link BufferedImage#TYPE_CUSTOM} keep their layout,
+	 * and indexed images keep their palette.
+	 * 
+	 * @param img		The image whose layout should be used.
+	 * @param width		The width of the image to create.
+	 * @param height	The height of the image to create.
+	 * @return			A new image compatible with the specified image.
+	 * @since	0.4.21
+	 */
+	public static BufferedImage createCompatible(BufferedImage img, int width, int height) {
+		ColorModel cm = img.getColorModel();
+		WritableRaster raster =
+				img.getRaster().createCompatibleWritableRaster(width, height);
+		
+		return new BufferedImage(cm, raster, cm.isAlphaPremultiplied(), null);
+	}
+	
+	/**
+	 * Returns a copy of an image which has the same {@link ColorModel} and
+	 * {@link SampleModel} layout as another image.
+	 * <p>
+	 * Drawing into an image with an {@link IndexColorModel} chooses the
+	 * palette entry of each pixel by its color alone, so that an opaque
+	 * pixel can take the transparent entry of the palette when that entry
+	 * has the same color. This method has the {@link ColorModel} choose
+	 * the entry of each pixel, which takes alpha into account.
+	 * 
+	 * @param img		The image to copy.
+	 * @param layout	The image whose layout should be used.
+	 * @return			A copy of the image, compatible with the layout.
+	 * @since	0.4.21
+	 */
+	public static BufferedImage copyCompatible(BufferedImage img, BufferedImage layout) {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		BufferedImage copy = createCompatible(layout, width, height);
+		
+		ColorModel cm = copy.getColorModel();
+		WritableRaster raster = copy.getRaster();
+		int[] row = new int[width];
+		Object pixel = null;
+		for (int y = 0; y < height; y++) {
+			img.getRGB(0, y, width, 1, row, 0, width);
+			for (int x = 0; x < width; x++) {
+				pixel = cm.getDataElements(row[x], pixel);
+				raster.setDataElements(x, y, pixel);
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * Returns whether all pixels of the specified image are fully opaque.
+	 * <p>
+	 * Images without an alpha channel are always opaque. For images with an
+	 * alpha channel, the alpha samples are scanned one row at a time until
+	 * a pixel which is not fully opaque is found.
+	 * 
+	 * @param img		The image to check.
+	 * @return			{@code true} if all pixels are fully opaque,
+	 * 					{@code false} otherwise.
+	 * @since	0.4.21
+	 */
+	public static boolean isOpaque(BufferedImage img) {
+		if (img.getColorModel().getTransparency() == Transparency.OPAQUE) {
+			return true;
+		}
+		
+		WritableRaster alpha = img.getAlphaRaster();
+		if (alpha == null) {
+			return false;
+		}
+		
+		int width = alpha.getWidth();
+		int height = alpha.getHeight();
+		int opaque = (1 << img.getColorModel().getComponentSize(
+				img.getColorModel().getNumComponents() - 1)) - 1;
+		int[] row = new int[width];
+		
+		for (int y = 0; y < height; y++) {
+			alpha.getSamples(alpha.getMinX(), alpha.getMinY() + y, width, 1, 0, row);
+			for (int sample : row) {
+				if (sample != opaque) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns an image without an alpha channel which shares the pixel data
+	 * of the specified image, ignoring its alpha channel.
+	 * <p>
+	 * No pixel data is copied, so changes to either image are visible in the
+	 * other. The color components are used as they are, so the result is
+	 * only equivalent to the original when the original is fully opaque,
+	 * or for {@link BufferedImage#TYPE_INT_ARGB_PRE} images, when the
+	 * transparent portions should become black.
+	 * <p>
+	 * Views can be created for images of type
+	 * {@link BufferedImage#TYPE_INT_ARGB},
+	 * {@link BufferedImage#TYPE_INT_ARGB_PRE} and
+	 * {@link BufferedImage#TYPE_4BYTE_ABGR}.
+	 * 
+	 * @param img		The image.
+	 * @return			An opaque view of the image, or {@code null} if
+	 * 					a view cannot be created for the type of the image.
+	 * @since	0.4.21
+	 */
+	public static BufferedImage opaqueView(BufferedImage img) {
+		WritableRaster raster = img.getRaster();
+		DataBuffer buffer = raster.getDataBuffer();
+		SampleModel sm = raster.getSampleModel();
+		
+		/*
+		 * The sample model of an image made by getSubimage covers the
+		 * entire parent image, so the view is made for the same area and
+		 * the region of the image is taken from it.
+		 */
+		int width = sm.getWidth();
+		int height = sm.getHeight();
+		
+		ColorModel cm;
+		SampleModel viewSm;
+		
+		int type = img.getType();
+		if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE)
+				&& sm instanceof SinglePixelPackedSampleModel) {
+			int[] masks = {0x00ff0000, 0x0000ff00, 0x000000ff};
+			cm = new DirectColorModel(24, masks[0], masks[1], masks[2]);
+			viewSm = new SinglePixelPackedSampleModel(
+					DataBuffer.TYPE_INT,
+					width,
+					height,
+					((SinglePixelPackedSampleModel)sm).getScanlineStride(),
+					masks
+			);
+			
+		} else if (type == BufferedImage.TYPE_4BYTE_ABGR
+				&& sm instanceof PixelInterleavedSampleModel) {
+			PixelInterleavedSampleModel pism = (PixelInterleavedSampleModel)sm;
+			int[] offsets = pism.getBandOffsets();
+			cm = new ComponentColorModel(
+					ColorSpace.getInstance(ColorSpace.CS_sRGB),
+					false,
+					false,
+					Transparency.OPAQUE,
+					DataBuffer.TYPE_BYTE
+			);
+			viewSm = new PixelInterleavedSampleModel(
+					DataBuffer.TYPE_BYTE,
+					width,
+					height,
+					pism.getPixelStride(),
+					pism.getScanlineStride(),
+					new int[] {offsets[0], offsets[1], offsets[2]}
+			);
+			
+		} else {
+			return null;
+		}
+		
+		WritableRaster viewRaster = Raster.createWritableRaster(
+				viewSm,
+				buffer,
+				new Point(raster.getSampleModelTranslateX(), raster.getSampleModelTranslateY())
+		).createWritableChild(
+				raster.getMinX(), raster.getMinY(), raster.getWidth(), raster.getHeight(),
+				0, 0, null
+		);
+		return new BufferedImage(cm, viewRaster, false, null);
+	}
+}
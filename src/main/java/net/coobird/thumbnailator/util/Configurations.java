@@ -84,7 +84,32 @@ public enum Configurations {
      *       than 1/4 of the available JVM free memory</li>
      * </ul>
      */
-    CONSERVE_MEMORY_WORKAROUND("thumbnailator.conserveMemoryWorkaround")
+    CONSERVE_MEMORY_WORKAROUND("thumbnailator.conserveMemoryWorkaround"),
+
+    /**
+     * Enable memory-mapping of source image files.
+     * <br>
+     * Property name: {@code thumbnailator.memoryMapFiles}
+     * <p>
+     * When enabled, source files of up to 16 MB are memory-mapped rather
+     * than read through positional reads, except on Windows.
+     * <p>
+     * Mapping is not enabled by default, as a mapped file has these
+     * drawbacks:
+     * <ul>
+     *   <li>The mapping is only released when its buffer is garbage
+     *       collected, so the address space and file handle stay in use
+     *       until then.</li>
+     *   <li>Each mapping counts toward the limit on the number of mappings
+     *       of a process, such as {@code vm.max_map_count} on Linux, which
+     *       many concurrent thumbnail operations can reach.</li>
+     *   <li>If the file is truncated by another process while it is mapped,
+     *       reading the missing part raises {@code SIGBUS}, which surfaces
+     *       as an {@link InternalError} rather than an
+     *       {@link IOException}.</li>
+     * </ul>
+     */
+    MEMORY_MAP_FILES("thumbnailator.memoryMapFiles")
     ;
 
     private final String key;
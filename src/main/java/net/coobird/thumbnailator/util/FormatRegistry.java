@@ -0,0 +1,444 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * A registry of the image formats which can be read and written through
+ * the Image I/O API.
+ * <p>
+ * Looking up readers and writers through {@link ImageIO} goes through every
+ * registered service provider under the lock of the {@link IIORegistry}
+ * each time. This class takes a snapshot of the registered
+ * {@link ImageReaderSpi}s and {@link ImageWriterSpi}s along with their
+ * format names, file suffixes and MIME types, so that these lookups become
+ * map lookups which do not contend with each other.
+ * <p>
+ * The snapshot is taken when this class is first used. When a lookup
+ * finds no provider, the registered providers are compared with the
+ * snapshot, and a new snapshot is taken if they have changed, so that
+ * plug-ins registered afterwards are still found. Plug-ins which replace
+ * the preferred provider of a format which is already supported are only
+ * seen once {@link #refresh()} is called, or once they are loaded through
+ * {@link #scanForPlugins()} rather than {@link ImageIO#scanForPlugins()}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class FormatRegistry {
+	/**
+	 * The current snapshot of the registry.
+	 */
+	private static volatile Snapshot snapshot = new Snapshot();
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private FormatRegistry() {}
+	
+	/**
+	 * An immutable view of the service providers registered at a point in
+	 * time. Lookups are keyed in the same way as the corresponding
+	 * {@link ImageIO} methods, ignoring case, and providers are kept in the order in which
+	 * {@link ImageIO} returns them.
+	 */
+	private static final class Snapshot {
+		private final List<ImageReaderSpi> readers;
+		private final List<ImageWriterSpi> writers;
+		private final Map<String, ImageReaderSpi> readersByFormat;
+		private final Map<String, ImageReaderSpi> readersBySuffix;
+		private final Map<String, ImageReaderSpi> readersByMIMEType;
+		private final Map<String, ImageWriterSpi> writersByFormat;
+		private final Map<String, ImageWriterSpi> writersBySuffix;
+		private final Map<String, ImageWriterSpi> writersByMIMEType;
+		private final List<String> writerFormatNames;
+		
+		/**
+		 * The compression types of the writer for each format name, which
+		 * are obtained when first requested, as an {@link ImageWriter}
+		 * needs to be instantiated for them.
+		 */
+		private final ConcurrentMap<String, List<String>> compressionTypes =
+				new ConcurrentHashMap<String, List<String>>();
+		
+		private Snapshot() {
+			IIORegistry registry = IIORegistry.getDefaultInstance();
+			
+			List<ImageReaderSpi> readers = new ArrayList<ImageReaderSpi>();
+			Map<String, ImageReaderSpi> readersByFormat = new HashMap<String, ImageReaderSpi>();
+			Map<String, ImageReaderSpi> readersBySuffix = new HashMap<String, ImageReaderSpi>();
+			Map<String, ImageReaderSpi> readersByMIMEType = new HashMap<String, ImageReaderSpi>();
+			
+			Iterator<ImageReaderSpi> readerIter =
+					registry.getServiceProviders(ImageReaderSpi.class, true);
+			while (readerIter.hasNext()) {
+				ImageReaderSpi spi = readerIter.next();
+				readers.add(spi);
+				putAll(readersByFormat, spi.getFormatNames(), spi);
+				putAll(readersBySuffix, spi.getFileSuffixes(), spi);
+				putAll(readersByMIMEType, spi.getMIMETypes(), spi);
+			}
+			
+			List<ImageWriterSpi> writers = new ArrayList<ImageWriterSpi>();
+			Map<String, ImageWriterSpi> writersByFormat = new HashMap<String, ImageWriterSpi>();
+			Map<String, ImageWriterSpi> writersBySuffix = new HashMap<String, ImageWriterSpi>();
+			Map<String, ImageWriterSpi> writersByMIMEType = new HashMap<String, ImageWriterSpi>();
+			Set<String> writerFormatNames = new LinkedHashSet<String>();
+			
+			Iterator<ImageWriterSpi> writerIter =
+					registry.getServiceProviders(ImageWriterSpi.class, true);
+			while (writerIter.hasNext()) {
+				ImageWriterSpi spi = writerIter.next();
+				writers.add(spi);
+				putAll(writersByFormat, spi.getFormatNames(), spi);
+				putAll(writersBySuffix, spi.getFileSuffixes(), spi);
+				putAll(writersByMIMEType, spi.getMIMETypes(), spi);
+				if (spi.getFormatNames() != null) {
+					writerFormatNames.addAll(Arrays.asList(spi.getFormatNames()));
+				}
+			}
+			
+			this.readers = Collections.unmodifiableList(readers);
+			this.writers = writers;
+			this.readersByFormat = readersByFormat;
+			this.readersBySuffix = readersBySuffix;
+			this.readersByMIMEType = readersByMIMEType;
+			this.writersByFormat = writersByFormat;
+			this.writersBySuffix = writersBySuffix;
+			this.writersByMIMEType = writersByMIMEType;
+			this.writerFormatNames = Collections.unmodifiableList(
+					new ArrayList<String>(writerFormatNames)
+			);
+		}
+		
+		/**
+		 * Returns whether the providers registered with the
+		 * {@link IIORegistry} are no longer the ones of this snapshot.
+		 */
+		private boolean isStale() {
+			IIORegistry registry = IIORegistry.getDefaultInstance();
+			return !matches(registry.getServiceProviders(ImageReaderSpi.class, true), readers)
+					|| !matches(registry.getServiceProviders(ImageWriterSpi.class, true), writers);
+		}
+		
+		private static <T> boolean matches(Iterator<T> registered, List<T> taken) {
+			for (T spi : taken) {
+				if (!registered.hasNext() || registered.next() != spi) {
+					return false;
+				}
+			}
+			return !registered.hasNext();
+		}
+		
+		/**
+		 * Adds the provider for each of the keys, unless a provider which
+		 * comes earlier in the order has already been added for the key.
+		 */
+		private static <T> void putAll(Map<String, T> map, String[] keys, T spi) {
+			if (keys == null) {
+				return;
+			}
+			for (String name : keys) {
+				if (name != null && !map.containsKey(key(name))) {
+					map.put(key(name), spi);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the key under which a format name, suffix or MIME type is
+	 * stored. As with {@link ImageIO}, these are matched ignoring case.
+	 */
+	private static String key(String name) {
+		return name == null ? null : name.toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Takes a new snapshot after a lookup found no provider, if the
+	 * registered providers have changed since the snapshot was taken.
+	 * 
+	 * @return		{@code true} if a new snapshot was taken.
+	 */
+	private static boolean refreshIfStale() {
+		if (!snapshot.isStale()) {
+			return false;
+		}
+		refresh();
+		return true;
+	}
+	
+	/**
+	 * Takes a new snapshot of the service providers which are registered
+	 * with the {@link IIORegistry}.
+	 * <p>
+	 * Plug-ins for formats which are not supported yet are found without
+	 * calling this method. It should be called after plug-ins which replace
+	 * or remove the provider of a supported format have been registered or
+	 * deregistered, for example, after calling
+	 * {@link ImageIO#scanForPlugins()}.
+	 */
+	public static void refresh() {
+		snapshot = new Snapshot();
+	}
+	
+	/**
+	 * Scans for Image I/O plug-ins on the application class path by calling
+	 * {@link ImageIO#scanForPlugins()}, then takes a new snapshot of the
+	 * registered service providers.
+	 */
+	public static void scanForPlugins() {
+		ImageIO.scanForPlugins();
+		refresh();
+	}
+	
+	/**
+	 * Returns the {@link ImageReaderSpi}s which are registered, in the order
+	 * in which they should be tried.
+	 * 
+	 * @return		The registered {@link ImageReaderSpi}s.
+	 */
+	public static List<ImageReaderSpi> getReaderSpis() {
+		return snapshot.readers;
+	}
+	
+	/**
+	 * Returns the {@link ImageReaderSpi} of the preferred reader for the
+	 * specified format name.
+	 * 
+	 * @param formatName	The format name.
+	 * @return				The {@link ImageReaderSpi}, or {@code null} if
+	 * 						there is no reader for the format.
+	 */
+	public static ImageReaderSpi getReaderSpiByFormatName(String formatName) {
+		ImageReaderSpi spi = snapshot.readersByFormat.get(key(formatName));
+		if (spi == null && formatName != null && refreshIfStale()) {
+			spi = snapshot.readersByFormat.get(key(formatName));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the {@link ImageReaderSpi} of the preferred reader for the
+	 * specified file suffix.
+	 * 
+	 * @param suffix		The file suffix.
+	 * @return				The {@link ImageReaderSpi}, or {@code null} if
+	 * 						there is no reader for the suffix.
+	 */
+	public static ImageReaderSpi getReaderSpiBySuffix(String suffix) {
+		ImageReaderSpi spi = snapshot.readersBySuffix.get(key(suffix));
+		if (spi == null && suffix != null && refreshIfStale()) {
+			spi = snapshot.readersBySuffix.get(key(suffix));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the {@link ImageReaderSpi} of the preferred reader for the
+	 * specified MIME type.
+	 * 
+	 * @param mimeType		The MIME type.
+	 * @return				The {@link ImageReaderSpi}, or {@code null} if
+	 * 						there is no reader for the MIME type.
+	 */
+	public static ImageReaderSpi getReaderSpiByMIMEType(String mimeType) {
+		ImageReaderSpi spi = snapshot.readersByMIMEType.get(key(mimeType));
+		if (spi == null && mimeType != null && refreshIfStale()) {
+			spi = snapshot.readersByMIMEType.get(key(mimeType));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the {@link ImageWriterSpi} of the preferred writer for the
+	 * specified format name.
+	 * 
+	 * @param formatName	The format name.
+	 * @return				The {@link ImageWriterSpi}, or {@code null} if
+	 * 						there is no writer for the format.
+	 */
+	public static ImageWriterSpi getWriterSpiByFormatName(String formatName) {
+		ImageWriterSpi spi = snapshot.writersByFormat.get(key(formatName));
+		if (spi == null && formatName != null && refreshIfStale()) {
+			spi = snapshot.writersByFormat.get(key(formatName));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the {@link ImageWriterSpi} of the preferred writer for the
+	 * specified file suffix.
+	 * 
+	 * @param suffix		The file suffix.
+	 * @return				The {@link ImageWriterSpi}, or {@code null} if
+	 * 						there is no writer for the suffix.
+	 */
+	public static ImageWriterSpi getWriterSpiBySuffix(String suffix) {
+		ImageWriterSpi spi = snapshot.writersBySuffix.get(key(suffix));
+		if (spi == null && suffix != null && refreshIfStale()) {
+			spi = snapshot.writersBySuffix.get(key(suffix));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the {@link ImageWriterSpi} of the preferred writer for the
+	 * specified MIME type.
+	 * 
+	 * @param mimeType		The MIME type.
+	 * @return				The {@link ImageWriterSpi}, or {@code null} if
+	 * 						there is no writer for the MIME type.
+	 */
+	public static ImageWriterSpi getWriterSpiByMIMEType(String mimeType) {
+		ImageWriterSpi spi = snapshot.writersByMIMEType.get(key(mimeType));
+		if (spi == null && mimeType != null && refreshIfStale()) {
+			spi = snapshot.writersByMIMEType.get(key(mimeType));
+		}
+		return spi;
+	}
+	
+	/**
+	 * Returns the format names which can be written.
+	 * 
+	 * @return		The format names which can be written.
+	 */
+	public static List<String> getWriterFormatNames() {
+		return snapshot.writerFormatNames;
+	}
+	
+	/**
+	 * Returns the compression types supported by the preferred writer for
+	 * the specified format name.
+	 * 
+	 * @param formatName	The format name.
+	 * @return				The compression types. If there is no writer for
+	 * 						the format, or if the writer does not support
+	 * 						compression, then an empty list is returned.
+	 */
+	public static List<String> getCompressionTypes(String formatName) {
+		if (formatName == null) {
+			return Collections.emptyList();
+		}
+		
+		Snapshot current = snapshot;
+		
+		List<String> types = current.compressionTypes.get(key(formatName));
+		if (types == null) {
+			types = findCompressionTypes(getWriterSpiByFormatName(formatName));
+			current.compressionTypes.put(key(formatName), types);
+		}
+		return types;
+	}
+	
+	private static List<String> findCompressionTypes(ImageWriterSpi spi) {
+		if (spi == null) {
+			return Collections.emptyList();
+		}
+		
+		ImageWriter writer;
+		try {
+			writer = spi.createWriterInstance();
+		} catch (IOException e) {
+			return Collections.emptyList();
+		}
+		
+		try {
+			String[] types = writer.getDefaultWriteParam().getCompressionTypes();
+			if (types == null) {
+				return Collections.emptyList();
+			}
+			return Collections.unmodifiableList(Arrays.asList(types.clone()));
+			
+		} catch (UnsupportedOperationException e) {
+			return Collections.emptyList();
+			
+		} finally {
+			writer.dispose();
+		}
+	}
+	
+	/**
+	 * Returns a reader which is able to decode the data in the specified
+	 * {@link ImageInputStream}, in the same manner as
+	 * {@link ImageIO#getImageReaders(Object)}.
+	 * <p>
+	 * The position of the stream is not changed by this method.
+	 * 
+	 * @param iis			The stream containing the image data.
+	 * @return				A new reader for the data, or {@code null} if none
+	 * 						of the registered readers can decode the data.
+	 * @throws IOException	When the reader could not be instantiated.
+	 */
+	public static ImageReader createReaderFor(ImageInputStream iis) throws IOException {
+		ImageReader reader = createReaderFor(iis, snapshot.readers);
+		if (reader == null && refreshIfStale()) {
+			reader = createReaderFor(iis, snapshot.readers);
+		}
+		return reader;
+	}
+	
+	private static ImageReader createReaderFor(ImageInputStream iis, List<ImageReaderSpi> readers) throws IOException {
+		for (ImageReaderSpi spi : readers) {
+			boolean canDecode;
+			iis.mark();
+			try {
+				canDecode = spi.canDecodeInput(iis);
+			} catch (IOException e) {
+				canDecode = false;
+			} finally {
+				iis.reset();
+			}
+			
+			if (canDecode) {
+				return spi.createReaderInstance();
+			}
+		}
+		return null;
+	}
+}
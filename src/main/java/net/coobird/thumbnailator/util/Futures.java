@@ -0,0 +1,82 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This class provides convenience methods for waiting on work which
+ * Thumbnailator runs on other threads.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class Futures {
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private Futures() {}
+	
+	/**
+	 * Waits for the result of a task, rethrowing its failure.
+	 * <p>
+	 * {@link IOException}s and unchecked exceptions thrown by the task are
+	 * rethrown as they are, and other exceptions are wrapped in an
+	 * {@link IOException}. If the current thread is interrupted while
+	 * waiting, its interrupt status is restored and an {@link IOException}
+	 * with the specified message is thrown.
+	 * 
+	 * @param <V>					The type of the result.
+	 * @param future				The task to wait for.
+	 * @param interruptedMessage	The message of the exception thrown
+	 * 								when interrupted.
+	 * @return						The result of the task.
+	 * @throws IOException			When the task failed, or when the
+	 * 								current thread was interrupted.
+	 */
+	public static <V> V getResult(Future<V> future, String interruptedMessage) throws IOException {
+		try {
+			return future.get();
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(interruptedMessage, e);
+			
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
@@ -24,14 +24,9 @@
 
 package net.coobird.thumbnailator.util;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
-
 import net.coobird.thumbnailator.ThumbnailParameter;
 
 /**
@@ -53,13 +48,7 @@ public final class ThumbnailatorUtils {
 	 * 				are supported, an empty list is returned.
 	 */
 	public static List<String> getSupportedOutputFormats() {
-		String[] formats = ImageIO.getWriterFormatNames();
-		
-		if (formats == null) {
-			return Collections.emptyList();
-		} else {
-			return Arrays.asList(formats);
-		}
+		return FormatRegistry.getWriterFormatNames();
 	}
 	
 	/**
@@ -99,23 +88,7 @@ public final class ThumbnailatorUtils {
 			return Collections.emptyList();
 		}
 		
-		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
-		if (!writers.hasNext()) {
-			return Collections.emptyList();
-		}
-		
-		String[] types;
-		try {
-			types = writers.next().getDefaultWriteParam().getCompressionTypes();
-		} catch (UnsupportedOperationException e) {
-			return Collections.emptyList();
-		}
-		
-		if (types == null) {
-			return Collections.emptyList();
-		} else {
-			return Arrays.asList(types);
-		}
+		return FormatRegistry.getCompressionTypes(format);
 	}
 	
 	/**
@@ -0,0 +1,196 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.filters.Canvas;
+import net.coobird.thumbnailator.filters.Flip;
+import net.coobird.thumbnailator.filters.Transparency;
+import net.coobird.thumbnailator.geometry.Positions;
+
+public class NativeImageTypeTest {
+	/**
+	 * Paints the left half of the image white and the right half black.
+	 */
+	private static BufferedImage halves(BufferedImage img) {
+		for (int y = 0; y < img.getHeight(); y++) {
+			for (int x = 0; x < img.getWidth(); x++) {
+				img.setRGB(x, y, x < img.getWidth() / 2 ? 0xffffffff : 0xff000000);
+			}
+		}
+		return img;
+	}
+	
+	private static BufferedImage gray() {
+		return halves(new BufferedImage(40, 40, BufferedImage.TYPE_BYTE_GRAY));
+	}
+	
+	private static BufferedImage grayWithAlpha() {
+		ComponentColorModel cm = new ComponentColorModel(
+				ColorSpace.getInstance(ColorSpace.CS_GRAY), true, false,
+				ComponentColorModel.TRANSLUCENT, DataBuffer.TYPE_BYTE
+		);
+		return halves(new BufferedImage(
+				cm, cm.createCompatibleWritableRaster(40, 40), false, null
+		));
+	}
+	
+	private static BufferedImage indexed() {
+		IndexColorModel cm = new IndexColorModel(
+				8, 3, new int[] {0x00000000, 0xffffffff, 0xff000000}, 0, true, 0,
+				DataBuffer.TYPE_BYTE
+		);
+		return halves(new BufferedImage(40, 40, BufferedImage.TYPE_BYTE_INDEXED, cm));
+	}
+	
+	private static BufferedImage watermark() {
+		BufferedImage img = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 4; y++) {
+			for (int x = 0; x < 4; x++) {
+				img.setRGB(x, y, 0xffffffff);
+			}
+		}
+		return img;
+	}
+	
+	/**
+	 * Resizes to 20x20, flips, encloses in a 30x30 canvas without a fill
+	 * color, and puts a white watermark in the bottom right corner.
+	 */
+	private static BufferedImage thumbnail(BufferedImage img) throws IOException {
+		return Thumbnails.of(img)
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.addFilter(Flip.HORIZONTAL)
+				.addFilter(new Canvas(30, 30, Positions.CENTER))
+				.watermark(Positions.BOTTOM_RIGHT, watermark(), 1.0f, 0)
+				.asBufferedImage();
+	}
+	
+	private static void assertFiltered(BufferedImage thumbnail, int border) {
+		assertEquals(30, thumbnail.getWidth());
+		assertEquals(30, thumbnail.getHeight());
+		
+		// The flipped image has the black half on the left.
+		assertEquals(0xff000000, thumbnail.getRGB(7, 15));
+		assertEquals(0xffffffff, thumbnail.getRGB(22, 15));
+		
+		assertEquals(border, thumbnail.getRGB(1, 1));
+		assertEquals(0xffffffff, thumbnail.getRGB(28, 28));
+	}
+	
+	@Test
+	public void grayLayoutIsKeptThroughFilters() throws IOException {
+		BufferedImage thumbnail = thumbnail(gray());
+		
+		assertEquals(BufferedImage.TYPE_BYTE_GRAY, thumbnail.getType());
+		// Images without alpha are enclosed in black.
+		assertFiltered(thumbnail, 0xff000000);
+	}
+	
+	@Test
+	public void customLayoutIsKeptThroughFilters() throws IOException {
+		BufferedImage source = grayWithAlpha();
+		BufferedImage thumbnail = thumbnail(source);
+		
+		assertEquals(BufferedImage.TYPE_CUSTOM, thumbnail.getType());
+		assertEquals(source.getColorModel(), thumbnail.getColorModel());
+		assertEquals(2, thumbnail.getRaster().getNumBands());
+		assertEquals(0, thumbnail.getRGB(1, 1) >>> 24);
+		assertFiltered(thumbnail, thumbnail.getRGB(1, 1));
+	}
+	
+	@Test
+	public void indexedLayoutIsKeptThroughFilters() throws IOException {
+		BufferedImage source = indexed();
+		BufferedImage thumbnail = thumbnail(source);
+		
+		assertEquals(BufferedImage.TYPE_BYTE_INDEXED, thumbnail.getType());
+		IndexColorModel cm = (IndexColorModel)thumbnail.getColorModel();
+		int[] palette = new int[cm.getMapSize()];
+		cm.getRGBs(palette);
+		assertArrayEquals(new int[] {0x00000000, 0xffffffff, 0xff000000}, palette);
+		assertEquals(0, thumbnail.getRGB(1, 1) >>> 24);
+		assertFiltered(thumbnail, thumbnail.getRGB(1, 1));
+	}
+	
+	@Test
+	public void translucentFiltersUseDefaultType() throws IOException {
+		BufferedImage translucentCanvas = Thumbnails.of(gray())
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.addFilter(new Canvas(30, 30, Positions.CENTER, new Color(255, 0, 0, 128)))
+				.asBufferedImage();
+		assertEquals(ThumbnailParameter.DEFAULT_IMAGE_TYPE, translucentCanvas.getType());
+		assertTrue((translucentCanvas.getRGB(1, 1) >>> 24) < 0xff);
+		
+		BufferedImage rotated = Thumbnails.of(gray())
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.rotate(45)
+				.asBufferedImage();
+		assertEquals(ThumbnailParameter.DEFAULT_IMAGE_TYPE, rotated.getType());
+		assertEquals(0, rotated.getRGB(0, 0) >>> 24);
+		
+		BufferedImage transparent = Thumbnails.of(gray())
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.addFilter(new Transparency(0.5))
+				.asBufferedImage();
+		assertEquals(ThumbnailParameter.DEFAULT_IMAGE_TYPE, transparent.getType());
+	}
+	
+	@Test
+	public void opaqueFiltersKeepNativeType() throws IOException {
+		BufferedImage rightAngle = Thumbnails.of(gray())
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.rotate(90)
+				.asBufferedImage();
+		assertEquals(BufferedImage.TYPE_BYTE_GRAY, rightAngle.getType());
+		
+		BufferedImage opaqueCanvas = Thumbnails.of(gray())
+				.size(20, 20)
+				.imageType(ThumbnailParameter.NATIVE_IMAGE_TYPE)
+				.addFilter(new Canvas(30, 30, Positions.CENTER, Color.WHITE))
+				.asBufferedImage();
+		assertEquals(BufferedImage.TYPE_BYTE_GRAY, opaqueCanvas.getType());
+		assertEquals(0xffffffff, opaqueCanvas.getRGB(1, 1));
+	}
+}
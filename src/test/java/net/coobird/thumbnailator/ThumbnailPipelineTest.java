@@ -0,0 +1,101 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.tasks.SourceSinkThumbnailTask;
+import net.coobird.thumbnailator.tasks.ThumbnailTask;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.tasks.io.BufferedImageSink;
+import net.coobird.thumbnailator.tasks.io.BufferedImageSource;
+import net.coobird.thumbnailator.tasks.io.ByteBufferImageSource;
+
+public class ThumbnailPipelineTest {
+	private static ThumbnailParameter param() {
+		return new ThumbnailParameterBuilder().size(50, 50).build();
+	}
+	
+	@Test
+	public void allTasksPassThroughEveryStage() throws IOException {
+		List<ThumbnailTask<?, ?>> tasks = new ArrayList<ThumbnailTask<?, ?>>();
+		List<BufferedImageSink> sinks = new ArrayList<BufferedImageSink>();
+		for (int i = 0; i < 12; i++) {
+			BufferedImageSink sink = new BufferedImageSink();
+			sinks.add(sink);
+			tasks.add(new SourceSinkThumbnailTask<BufferedImage, BufferedImage>(
+					param(),
+					new BufferedImageSource(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB)),
+					sink
+			));
+		}
+		
+		ThumbnailPipeline pipeline = new ThumbnailPipeline(2, 3, 1, 2);
+		pipeline.run(tasks);
+		
+		for (BufferedImageSink sink : sinks) {
+			assertEquals(50, sink.getSink().getWidth());
+			assertEquals(25, sink.getSink().getHeight());
+		}
+		for (ThumbnailPipeline.Stage stage : ThumbnailPipeline.Stage.values()) {
+			ThumbnailPipeline.StageStatistics stats = pipeline.getStatistics(stage);
+			assertEquals(12, stats.getCompleted());
+			assertEquals(0, stats.getQueueDepth());
+			assertTrue(stats.getPeakQueueDepth() <= stats.getQueueCapacity());
+			assertTrue(stats.getUtilization() >= 0.0 && stats.getUtilization() <= 1.0);
+		}
+		assertEquals(3, pipeline.getStatistics(ThumbnailPipeline.Stage.PROCESS).getThreads());
+		assertEquals(2, pipeline.getStatistics(ThumbnailPipeline.Stage.WRITE).getQueueCapacity());
+	}
+	
+	@Test
+	public void failureStopsThePipeline() {
+		List<ThumbnailTask<?, ?>> tasks = new ArrayList<ThumbnailTask<?, ?>>();
+		for (int i = 0; i < 20; i++) {
+			tasks.add(new SourceSinkThumbnailTask<ByteBuffer, BufferedImage>(
+					param(),
+					new ByteBufferImageSource(ByteBuffer.wrap(new byte[] {1, 2, 3})),
+					new BufferedImageSink()
+			));
+		}
+		
+		ThumbnailPipeline pipeline = new ThumbnailPipeline(1, 1, 1, 1);
+		
+		assertThrows(UnsupportedFormatException.class, () -> pipeline.run(tasks));
+		assertEquals(0, pipeline.getStatistics(ThumbnailPipeline.Stage.WRITE).getCompleted());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.resizers.configurations.Dithering;
+
+public class ColorQuantizerTest {
+	private static BufferedImage gradient(int type) {
+		BufferedImage img = new BufferedImage(100, 100, type);
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 100; x++) {
+				int alpha = x < 10 ? 0 : 0xff;
+				img.setRGB(x, y, (alpha << 24) | (x * 2 << 16) | (y * 2 << 8) | 0x40);
+			}
+		}
+		return img;
+	}
+
+	@Test
+	public void fewColorsAreKeptExactly() {
+		BufferedImage img = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+		img.setRGB(5, 5, 0xff0000);
+		img.setRGB(6, 6, 0x00ff00);
+
+		BufferedImage result = new ColorQuantizer(8).apply(img);
+
+		assertEquals(BufferedImage.TYPE_BYTE_INDEXED, result.getType());
+		assertEquals(3, ((IndexColorModel)result.getColorModel()).getMapSize());
+		assertEquals(0xffff0000, result.getRGB(5, 5));
+		assertEquals(0xff00ff00, result.getRGB(6, 6));
+		assertEquals(0xff000000, result.getRGB(0, 0));
+	}
+
+	@Test
+	public void gradientIsReducedToPalette() {
+		BufferedImage img = gradient(BufferedImage.TYPE_INT_ARGB);
+
+		for (Dithering dithering : Dithering.values()) {
+			BufferedImage result = new ColorQuantizer(32, dithering).apply(img);
+
+			IndexColorModel cm = (IndexColorModel)result.getColorModel();
+			assertTrue(cm.getMapSize() <= 32);
+
+			long error = 0;
+			for (int y = 0; y < 100; y++) {
+				for (int x = 0; x < 100; x++) {
+					int expected = img.getRGB(x, y);
+					int actual = result.getRGB(x, y);
+					if (x < 10) {
+						assertEquals(0, actual >>> 24);
+						continue;
+					}
+					assertEquals(0xff, actual >>> 24);
+					for (int shift = 0; shift < 24; shift += 8) {
+						error += Math.abs(((expected >> shift) & 0xff) - ((actual >> shift) & 0xff));
+					}
+				}
+			}
+			assertTrue(error / (90.0 * 100 * 3) < 10);
+		}
+	}
+
+	@Test
+	public void invalidNumberOfColors() {
+		assertThrows(IllegalArgumentException.class, () -> new ColorQuantizer(1));
+		assertThrows(IllegalArgumentException.class, () -> new ColorQuantizer(257));
+		assertThrows(NullPointerException.class, () -> new ColorQuantizer(16, null));
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.tasks.io.ByteBufferImageSource;
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+
+public class ThumbnailProcessorTest {
+	/**
+	 * Publishes the given number of source images, the one at
+	 * {@code brokenIndex} not being an image, and records how many were
+	 * requested.
+	 */
+	private static final class SourcePublisher implements Flow.Publisher<ImageSource<?>> {
+		final AtomicLong requested = new AtomicLong();
+		final AtomicInteger published = new AtomicInteger();
+		private final int count;
+		private final int brokenIndex;
+		private final byte[] image;
+		
+		SourcePublisher(int count, int brokenIndex) throws IOException {
+			this.count = count;
+			this.brokenIndex = brokenIndex;
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", os);
+			this.image = os.toByteArray();
+		}
+		
+		public void subscribe(final Flow.Subscriber<? super ImageSource<?>> subscriber) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				public void request(long n) {
+					requested.addAndGet(n);
+					for (long i = 0; i < n && published.get() < count; i++) {
+						int index = published.getAndIncrement();
+						byte[] data = index == brokenIndex ? new byte[] {1, 2, 3} : image;
+						subscriber.onNext(new ByteBufferImageSource(ByteBuffer.wrap(data)));
+						if (published.get() == count) {
+							subscriber.onComplete();
+						}
+					}
+				}
+				
+				public void cancel() {}
+			});
+		}
+	}
+	
+	@Test
+	public void inFlightItemsAreBoundedBySlowSubscriber() throws Exception {
+		final SourcePublisher publisher = new SourcePublisher(20, 5);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		
+		final List<ThumbnailResult> results = new CopyOnWriteArrayList<ThumbnailResult>();
+		final AtomicLong maxInFlight = new AtomicLong();
+		final CountDownLatch completed = new CountDownLatch(1);
+		
+		ThumbnailProcessor processor = new ThumbnailProcessor(
+				new ThumbnailParameterBuilder().size(50, 50).format("png"),
+				executor,
+				2,
+				3
+		);
+		publisher.subscribe(processor);
+		processor.subscribe(new Flow.Subscriber<ThumbnailResult>() {
+			private Flow.Subscription subscription;
+			
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+			
+			public void onNext(ThumbnailResult item) {
+				maxInFlight.set(Math.max(
+						maxInFlight.get(),
+						publisher.published.get() - results.size()
+				));
+				results.add(item);
+				subscription.request(1);
+			}
+			
+			public void onError(Throwable throwable) {
+				completed.countDown();
+			}
+			
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		
+		try {
+			assertTrue(completed.await(30, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals(20, results.size());
+		assertTrue(maxInFlight.get() <= 3);
+		
+		int failures = 0;
+		for (ThumbnailResult result : results) {
+			if (result.isSuccessful()) {
+				assertEquals("png", result.getFormatName());
+				BufferedImage thumbnail = ImageIO.read(
+						new ByteArrayInputStream(result.getThumbnail().array(),
+								result.getThumbnail().arrayOffset(),
+								result.getThumbnail().remaining())
+				);
+				assertEquals(50, thumbnail.getWidth());
+			} else {
+				assertFalse(result.getException() == null);
+				failures++;
+			}
+		}
+		assertEquals(1, failures);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.makers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.filters.Canvas;
+import net.coobird.thumbnailator.geometry.Coordinate;
+import net.coobird.thumbnailator.geometry.Positions;
+
+public class FixedSizeThumbnailMakerTest {
+	/**
+	 * Returns a 300 x 100 image with a blue, a red and a green square.
+	 */
+	private static BufferedImage squares() {
+		BufferedImage img = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+		Graphics g = img.getGraphics();
+		g.setColor(Color.BLUE);
+		g.fillRect(0, 0, 100, 100);
+		g.setColor(Color.RED);
+		g.fillRect(100, 0, 100, 100);
+		g.setColor(Color.GREEN);
+		g.fillRect(200, 0, 100, 100);
+		g.dispose();
+		return img;
+	}
+
+	@Test
+	public void cropResizesOnlyVisibleRegion() {
+		BufferedImage thumbnail = new FixedSizeThumbnailMaker(50, 50, true, false)
+				.crop(Positions.CENTER)
+				.make(squares());
+
+		assertEquals(50, thumbnail.getWidth());
+		assertEquals(50, thumbnail.getHeight());
+		for (int y = 0; y < 50; y++) {
+			for (int x = 0; x < 50; x++) {
+				assertEquals(Color.RED.getRGB(), thumbnail.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void cropAtCoordinateIsSameAsCanvas() {
+		BufferedImage img = squares();
+		Coordinate position = new Coordinate(20, -10);
+
+		BufferedImage expected = new Canvas(50, 50, position).apply(
+				new FixedSizeThumbnailMaker(50, 50, true, false).make(img)
+		);
+		BufferedImage actual = new FixedSizeThumbnailMaker(50, 50, true, false)
+				.crop(position)
+				.make(img);
+
+		for (int y = 0; y < 50; y++) {
+			for (int x = 0; x < 50; x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void cropCannotBeSetTwice() {
+		FixedSizeThumbnailMaker maker = new FixedSizeThumbnailMaker(50, 50).crop(Positions.CENTER);
+
+		assertThrows(IllegalStateException.class, () -> maker.crop(Positions.CENTER));
+		assertThrows(NullPointerException.class, () -> new FixedSizeThumbnailMaker().crop(null));
+	}
+}
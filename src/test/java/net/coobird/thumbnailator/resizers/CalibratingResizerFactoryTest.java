@@ -0,0 +1,137 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package net.coobird.thumbnailator.resizers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.coobird.thumbnailator.resizers.CalibratingResizerFactory.RatioBucket;
+
+public class CalibratingResizerFactoryTest {
+	@TempDir
+	Path tempDir;
+	
+	/**
+	 * Calibrates the bucket for reductions between 2 and 4 times for
+	 * {@link BufferedImage#TYPE_INT_RGB} images, by resizing an image.
+	 */
+	private static void resize(CalibratingResizerFactory factory) {
+		BufferedImage src = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+		BufferedImage dest = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		factory.getResizer(new Dimension(300, 300), new Dimension(100, 100)).resize(src, dest);
+	}
+	
+	private static Properties load(File f) throws IOException {
+		Properties properties = new Properties();
+		InputStream is = new FileInputStream(f);
+		try {
+			properties.load(is);
+		} finally {
+			is.close();
+		}
+		return properties;
+	}
+	
+	@Test
+	public void bucketSelection() {
+		Dimension original = new Dimension(1000, 800);
+		
+		assertEquals(RatioBucket.UPSCALE, CalibratingResizerFactory.bucketOf(original, new Dimension(1200, 900)));
+		assertEquals(RatioBucket.DOWNSCALE_2X, CalibratingResizerFactory.bucketOf(original, new Dimension(500, 400)));
+		assertEquals(RatioBucket.DOWNSCALE_4X, CalibratingResizerFactory.bucketOf(original, new Dimension(400, 300)));
+		assertEquals(RatioBucket.DOWNSCALE_8X, CalibratingResizerFactory.bucketOf(original, new Dimension(125, 100)));
+		assertEquals(RatioBucket.DOWNSCALE_LARGE, CalibratingResizerFactory.bucketOf(original, new Dimension(100, 80)));
+		
+		// The ratio of the dimension which is reduced the least is used.
+		assertEquals(RatioBucket.DOWNSCALE_2X, CalibratingResizerFactory.bucketOf(original, new Dimension(100, 600)));
+		
+		assertNull(CalibratingResizerFactory.bucketOf(original, new Dimension(1200, 600)));
+		assertNull(CalibratingResizerFactory.bucketOf(original, original));
+		
+		CalibratingResizerFactory factory = new CalibratingResizerFactory();
+		assertSame(Resizers.NULL, factory.getResizer(original, original));
+		assertSame(Resizers.PROGRESSIVE, factory.getResizer(original, new Dimension(1200, 600)));
+	}
+	
+	@Test
+	public void resultsAreReadBackFromCache() throws IOException {
+		File cacheFile = tempDir.resolve("resizers.properties").toFile();
+		CalibratingResizerFactory factory = new CalibratingResizerFactory(cacheFile);
+		resize(factory);
+		
+		Resizers choice = factory.getChoice(RatioBucket.DOWNSCALE_4X, BufferedImage.TYPE_INT_RGB);
+		assertNotNull(choice);
+		assertEquals(choice.name(), load(cacheFile).getProperty("DOWNSCALE_4X." + BufferedImage.TYPE_INT_RGB));
+		
+		// No temporary file is left behind.
+		assertArrayEquals(new String[] {"resizers.properties"}, tempDir.toFile().list());
+		
+		CalibratingResizerFactory cached = new CalibratingResizerFactory(cacheFile);
+		assertEquals(choice, cached.getChoice(RatioBucket.DOWNSCALE_4X, BufferedImage.TYPE_INT_RGB));
+		assertNull(cached.getChoice(RatioBucket.DOWNSCALE_8X, BufferedImage.TYPE_INT_RGB));
+	}
+	
+	@Test
+	public void cacheIsIgnoredWhenFingerprintDiffers() throws IOException {
+		File cacheFile = tempDir.resolve("resizers.properties").toFile();
+		resize(new CalibratingResizerFactory(cacheFile));
+		
+		// A different quality floor.
+		CalibratingResizerFactory factory = new CalibratingResizerFactory(cacheFile, 20.0);
+		assertNull(factory.getChoice(RatioBucket.DOWNSCALE_4X, BufferedImage.TYPE_INT_RGB));
+		
+		// A different Java virtual machine.
+		Properties properties = load(cacheFile);
+		properties.setProperty("fingerprint", "Other VM" + properties.getProperty("fingerprint"));
+		OutputStream os = new FileOutputStream(cacheFile);
+		try {
+			properties.store(os, null);
+		} finally {
+			os.close();
+		}
+		
+		factory = new CalibratingResizerFactory(cacheFile);
+		assertNull(factory.getChoice(RatioBucket.DOWNSCALE_4X, BufferedImage.TYPE_INT_RGB));
+	}
+}
@@ -0,0 +1,118 @@
+package net.coobird.thumbnailator.resizers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class LinearLightResizerTest {
+
+	private static BufferedImage checkerboard(int width, int height, int type) {
+		BufferedImage img = new BufferedImage(width, height, type);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				img.setRGB(x, y, ((x + y) % 2 == 0) ? 0xffffffff : 0xff000000);
+			}
+		}
+		return img;
+	}
+
+	@Test
+	public void checkerboardAveragesToLinearGray() {
+		int[] types = {
+				BufferedImage.TYPE_INT_RGB,
+				BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_3BYTE_BGR,
+				BufferedImage.TYPE_4BYTE_ABGR,
+				BufferedImage.TYPE_USHORT_565_RGB
+		};
+		for (int type : types) {
+			BufferedImage src = checkerboard(300, 200, type);
+			BufferedImage dest = new BufferedImage(30, 20, type);
+
+			new LinearLightResizer().resize(src, dest);
+
+			// Half of the light of white is 188 when encoded in sRGB.
+			int blue = dest.getRGB(15, 10) & 0xff;
+			assertTrue(Math.abs(blue - 188) <= 4, "Unexpected value for type " + type + ": " + blue);
+		}
+	}
+
+	@Test
+	public void sameSizeIsUnchanged() {
+		BufferedImage src = new BufferedImage(256, 1, BufferedImage.TYPE_INT_RGB);
+		for (int i = 0; i < 256; i++) {
+			src.setRGB(i, 0, (i << 16) | ((255 - i) << 8) | i);
+		}
+		BufferedImage dest = new BufferedImage(256, 1, BufferedImage.TYPE_INT_RGB);
+
+		new LinearLightResizer().resize(src, dest);
+
+		for (int i = 0; i < 256; i++) {
+			assertEquals(src.getRGB(i, 0), dest.getRGB(i, 0));
+		}
+	}
+
+	@Test
+	public void transparentPixelsDoNotBleedColor() {
+		BufferedImage src = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 100; x++) {
+				src.setRGB(x, y, (x % 2 == 0) ? 0xff0000ff : 0x00ff0000);
+			}
+		}
+		BufferedImage dest = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+
+		new LinearLightResizer().resize(src, dest);
+
+		int argb = dest.getRGB(5, 5);
+		assertTrue(Math.abs((argb >>> 24) - 128) <= 1);
+		assertEquals(0x0000ff, argb & 0xffffff);
+	}
+
+	@Test
+	public void enlargingUsesSpecifiedResizer() {
+		final boolean[] called = new boolean[1];
+		Resizer resizer = new Resizer() {
+			public void resize(BufferedImage srcImage, BufferedImage destImage) {
+				called[0] = true;
+			}
+		};
+		BufferedImage src = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		BufferedImage dest = new BufferedImage(20, 5, BufferedImage.TYPE_INT_RGB);
+
+		new LinearLightResizer(resizer).resize(src, dest);
+
+		assertTrue(called[0]);
+	}
+
+	@Test
+	public void reductionsToHalfTheSizeOrMoreUseSpecifiedResizer() {
+		final int[] calls = new int[1];
+		Resizer resizer = new Resizer() {
+			public void resize(BufferedImage srcImage, BufferedImage destImage) {
+				calls[0]++;
+			}
+		};
+		BufferedImage src = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+
+		new LinearLightResizer(resizer).resize(src, new BufferedImage(5, 4, BufferedImage.TYPE_INT_RGB));
+		assertEquals(1, calls[0]);
+
+		new LinearLightResizer(resizer).resize(src, new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+		assertEquals(1, calls[0]);
+	}
+
+	@Test
+	public void factoryKeepsChoicesOfWrappedFactory() {
+		ResizerFactory factory = new LinearLightResizerFactory();
+		Dimension original = new Dimension(300, 200);
+
+		assertSame(Resizers.BILINEAR, factory.getResizer(original, new Dimension(150, 100)));
+		assertSame(Resizers.BICUBIC, factory.getResizer(original, new Dimension(600, 400)));
+		assertSame(Resizers.NULL, factory.getResizer(original, original));
+		assertTrue(factory.getResizer(original, new Dimension(30, 20)) instanceof LinearLightResizer);
+	}
+}
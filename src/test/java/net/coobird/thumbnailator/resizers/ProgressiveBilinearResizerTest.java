@@ -0,0 +1,31 @@
+package net.coobird.thumbnailator.resizers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class ProgressiveBilinearResizerTest {
+
+	private static BufferedImage checkerboard(int size, int type) {
+		BufferedImage img = new BufferedImage(size, size, type);
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				img.setRGB(x, y, ((x + y) % 2 == 0) ? 0xffffffff : 0xff000000);
+			}
+		}
+		return img;
+	}
+
+	@Test
+	public void checkerboardAveragesToGray() {
+		BufferedImage src = checkerboard(333, BufferedImage.TYPE_INT_ARGB);
+		BufferedImage dest = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+
+		new ProgressiveBilinearResizer().resize(src, dest);
+
+		int blue = dest.getRGB(10, 10) & 0xff;
+		assertTrue(Math.abs(blue - 128) <= 8, "Unexpected value: " + blue);
+	}
+}
@@ -0,0 +1,71 @@
+package net.coobird.thumbnailator.resizers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class ProgressiveBoxResizerTest {
+
+	private static BufferedImage checkerboard(int size, int type) {
+		BufferedImage img = new BufferedImage(size, size, type);
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				img.setRGB(x, y, ((x + y) % 2 == 0) ? 0xffffffff : 0xff000000);
+			}
+		}
+		return img;
+	}
+
+	@Test
+	public void checkerboardAveragesToGray() {
+		BufferedImage src = checkerboard(400, BufferedImage.TYPE_INT_RGB);
+		BufferedImage dest = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
+
+		new ProgressiveBoxResizer().resize(src, dest);
+
+		for (int y = 0; y < 50; y++) {
+			for (int x = 0; x < 50; x++) {
+				int blue = dest.getRGB(x, y) & 0xff;
+				assertTrue(Math.abs(blue - 128) <= 1, "Unexpected value: " + blue);
+			}
+		}
+	}
+
+	@Test
+	public void transparentPixelsDoNotBleedColor() {
+		BufferedImage src = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				// Every other column is fully transparent green.
+				src.setRGB(x, y, (x % 2 == 0) ? 0xffff0000 : 0x0000ff00);
+			}
+		}
+		BufferedImage dest = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+
+		new ProgressiveBoxResizer().resize(src, dest);
+
+		int argb = dest.getRGB(8, 8);
+		assertEquals(0, (argb >> 8) & 0xff);
+		assertTrue(((argb >> 16) & 0xff) > 250);
+	}
+
+	@Test
+	public void nonIntegerSourceType() {
+		BufferedImage src = checkerboard(300, BufferedImage.TYPE_3BYTE_BGR);
+		BufferedImage dest = new BufferedImage(40, 30, BufferedImage.TYPE_3BYTE_BGR);
+
+		new ProgressiveBoxResizer().resize(src, dest);
+
+		int blue = dest.getRGB(20, 15) & 0xff;
+		assertTrue(Math.abs(blue - 128) <= 8, "Unexpected value: " + blue);
+	}
+
+	@Test
+	public void nullImages() {
+		assertThrows(NullPointerException.class, () -> {
+			new ProgressiveBoxResizer().resize(null, new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
+		});
+	}
+}
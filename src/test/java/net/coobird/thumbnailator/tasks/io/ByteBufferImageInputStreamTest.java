@@ -0,0 +1,125 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ByteBufferImageInputStreamTest {
+	private static final int SIZE = 1000;
+	
+	private byte[] data;
+	private ByteBufferImageInputStream iis;
+	
+	@BeforeEach
+	public void setUp() {
+		data = new byte[SIZE];
+		new Random(1).nextBytes(data);
+		iis = new ByteBufferImageInputStream(ByteBuffer.wrap(data));
+	}
+	
+	@Test
+	public void readsAllBytesInOrder() throws IOException {
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(data[i] & 0xff, iis.read());
+		}
+		assertEquals(-1, iis.read());
+		assertEquals(SIZE, iis.getStreamPosition());
+	}
+	
+	@Test
+	public void seek() throws IOException {
+		iis.seek(700);
+		assertEquals(data[700] & 0xff, iis.read());
+		
+		iis.seek(5);
+		assertEquals(data[5] & 0xff, iis.read());
+		assertEquals(6, iis.getStreamPosition());
+		
+		iis.seek(SIZE);
+		assertEquals(-1, iis.read());
+	}
+	
+	@Test
+	public void streamStartsAtPositionOfBuffer() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.position(100);
+		buffer.limit(200);
+		ByteBufferImageInputStream slice = new ByteBufferImageInputStream(buffer);
+		
+		assertEquals(100, slice.length());
+		assertEquals(data[100] & 0xff, slice.read());
+		slice.seek(99);
+		assertEquals(data[199] & 0xff, slice.read());
+		assertEquals(-1, slice.read());
+	}
+	
+	@Test
+	public void readArray() throws IOException {
+		iis.seek(10);
+		byte[] b = new byte[20];
+		
+		assertEquals(10, iis.read(b, 5, 10));
+		assertArrayEquals(Arrays.copyOfRange(data, 10, 20), Arrays.copyOfRange(b, 5, 15));
+		assertEquals(0, b[4]);
+		assertEquals(0, b[15]);
+		assertEquals(20, iis.getStreamPosition());
+	}
+	
+	@Test
+	public void readArrayAtEndOfBuffer() throws IOException {
+		iis.seek(SIZE - 3);
+		byte[] b = new byte[10];
+		
+		assertEquals(3, iis.read(b, 0, 10));
+		assertArrayEquals(Arrays.copyOfRange(data, SIZE - 3, SIZE), Arrays.copyOf(b, 3));
+		assertEquals(-1, iis.read(b, 0, 10));
+		assertEquals(0, iis.read(b, 0, 0));
+	}
+	
+	@Test
+	public void readArrayOutOfBounds() {
+		final byte[] b = new byte[10];
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, -1, 5));
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, 6, 5));
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, 0, -1));
+	}
+	
+	@Test
+	public void length() {
+		assertEquals(SIZE, iis.length());
+	}
+}
@@ -0,0 +1,73 @@
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+class ByteBufferImageSinkTest {
+
+	@Test
+	public void writeGrowsBeyondInitialBuffer() throws IOException {
+		BufferedImage img = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		ByteBufferImageSink sink = new ByteBufferImageSink(ByteBuffer.allocateDirect(16));
+		sink.setOutputFormatName("png");
+
+		sink.write(img);
+
+		ByteBuffer result = sink.getSink();
+		assertTrue(result.isDirect());
+		assertEquals(0, result.position());
+		assertTrue(result.limit() > 16);
+
+		BufferedImage decoded = new ByteBufferImageSource(result).read();
+		assertEquals(200, decoded.getWidth());
+		assertEquals(100, decoded.getHeight());
+	}
+
+	@Test
+	public void getSinkBeforeWrite() {
+		Exception exception = assertThrows(IllegalStateException.class, () -> {
+			new ByteBufferImageSink().getSink();
+		});
+
+		assertEquals("ByteBufferImageSink has not been written to yet.", exception.getMessage());
+	}
+
+	@Test
+	public void sourceReadsFromPositionWithoutMovingIt() throws IOException {
+		byte[] data = Files.readAllBytes(Paths.get("src/test/resources/Thumbnailator/grid.png"));
+		ByteBuffer buffer = ByteBuffer.allocate(data.length + 10);
+		buffer.position(10);
+		buffer.put(data);
+		buffer.position(10);
+
+		ByteBuffer thumbnail = Thumbnails.of(buffer)
+				.size(50, 50)
+				.asByteBuffer();
+
+		assertEquals(10, buffer.position());
+		assertEquals(data.length + 10, buffer.limit());
+
+		ByteBufferImageSource source = new ByteBufferImageSource(thumbnail);
+		BufferedImage decoded = source.read();
+		assertEquals(50, decoded.getWidth());
+		assertEquals("png", source.getInputFormatName());
+	}
+
+	@Test
+	public void nullBuffer() {
+		Exception exception = assertThrows(NullPointerException.class, () -> {
+			new ByteBufferImageSource(null);
+		});
+
+		assertEquals("ByteBuffer cannot be null.", exception.getMessage());
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.Thumbnails;
+
+public class EncoderOptionsTest {
+	private static final File SOURCE = new File("src/test/resources/Thumbnailator/grid.jpg");
+
+	private static IIOMetadataNode readJpegMetadata(byte[] data) throws IOException {
+		ImageReader reader = ImageIO.getImageReadersByFormatName("jpeg").next();
+		try {
+			reader.setInput(ImageIO.createImageInputStream(new ByteArrayInputStream(data)));
+			return (IIOMetadataNode)reader.getImageMetadata(0)
+					.getAsTree("javax_imageio_jpeg_image_1.0");
+		} finally {
+			reader.dispose();
+		}
+	}
+
+	@Test
+	public void progressiveJpegWithoutChromaSubsampling() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(SOURCE)
+				.size(200, 200)
+				.outputFormat("jpg")
+				.encoderOptions(
+						EncoderOptions.DEFAULT
+								.progressive(true)
+								.chromaSubsampling(ChromaSubsampling.CHROMA_444)
+				)
+				.toOutputStream(os);
+
+		IIOMetadataNode root = readJpegMetadata(os.toByteArray());
+		IIOMetadataNode sof = (IIOMetadataNode)root.getElementsByTagName("sof").item(0);
+		IIOMetadataNode luma = (IIOMetadataNode)root.getElementsByTagName("componentSpec").item(0);
+		assertEquals("2", sof.getAttribute("process"));
+		assertEquals("1", luma.getAttribute("HsamplingFactor"));
+		assertEquals("1", luma.getAttribute("VsamplingFactor"));
+	}
+
+	@Test
+	public void encoderIsUsedForSupportedFormats() throws IOException {
+		final byte[] marker = new byte[] {1, 2, 3};
+		ImageEncoder encoder = new ImageEncoder() {
+			public boolean supportsFormat(String formatName) {
+				return "png".equals(formatName);
+			}
+
+			public void encode(BufferedImage img, String formatName, ThumbnailParameter param, ImageOutputStream ios) throws IOException {
+				ios.write(marker);
+			}
+		};
+
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		Thumbnails.of(SOURCE)
+				.size(50, 50)
+				.outputFormat("png")
+				.encoderOptions(EncoderOptions.DEFAULT.encoder(encoder))
+				.toOutputStream(png);
+
+		ByteArrayOutputStream jpg = new ByteArrayOutputStream();
+		Thumbnails.of(SOURCE)
+				.size(50, 50)
+				.outputFormat("jpg")
+				.encoderOptions(EncoderOptions.DEFAULT.encoder(encoder))
+				.toOutputStream(jpg);
+
+		assertArrayEquals(marker, png.toByteArray());
+		assertEquals(50, ImageIO.read(new ByteArrayInputStream(jpg.toByteArray())).getWidth());
+	}
+
+	@Test
+	public void nullChromaSubsampling() {
+		Exception exception = assertThrows(NullPointerException.class, () -> {
+			EncoderOptions.DEFAULT.chromaSubsampling(null);
+		});
+
+		assertEquals("ChromaSubsampling cannot be null.", exception.getMessage());
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileChannelImageInputStreamTest {
+	/**
+	 * Larger than the 16 KB buffer of the stream, so that reads cross the
+	 * end of the buffer.
+	 */
+	private static final int SIZE = 40000;
+	
+	@TempDir
+	Path tempDir;
+	
+	private byte[] data;
+	private FileChannelImageInputStream iis;
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		data = new byte[SIZE];
+		new Random(1).nextBytes(data);
+		Path file = tempDir.resolve("data.bin");
+		Files.write(file, data);
+		iis = new FileChannelImageInputStream(FileChannel.open(file, StandardOpenOption.READ));
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException {
+		iis.close();
+	}
+	
+	@Test
+	public void readsAllBytesInOrder() throws IOException {
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(data[i] & 0xff, iis.read());
+		}
+		assertEquals(-1, iis.read());
+		assertEquals(SIZE, iis.getStreamPosition());
+	}
+	
+	@Test
+	public void seek() throws IOException {
+		iis.seek(30000);
+		assertEquals(data[30000] & 0xff, iis.read());
+		
+		// Back into the range which is not buffered.
+		iis.seek(5);
+		assertEquals(data[5] & 0xff, iis.read());
+		assertEquals(6, iis.getStreamPosition());
+		
+		iis.seek(SIZE);
+		assertEquals(-1, iis.read());
+	}
+	
+	@Test
+	public void readArrayAcrossEndOfBuffer() throws IOException {
+		iis.seek(16 * 1024 - 4);
+		byte[] b = new byte[20];
+		iis.readFully(b, 2, 10);
+		
+		assertArrayEquals(
+				Arrays.copyOfRange(data, 16 * 1024 - 4, 16 * 1024 + 6),
+				Arrays.copyOfRange(b, 2, 12)
+		);
+		assertEquals(0, b[0]);
+		assertEquals(0, b[12]);
+	}
+	
+	@Test
+	public void readArrayLargerThanBuffer() throws IOException {
+		byte[] b = new byte[SIZE];
+		iis.readFully(b);
+		assertArrayEquals(data, b);
+	}
+	
+	@Test
+	public void readArrayAtEndOfFile() throws IOException {
+		iis.seek(SIZE - 3);
+		byte[] b = new byte[10];
+		
+		int read = iis.read(b, 0, 10);
+		assertTrue(read > 0 && read <= 3);
+		iis.readFully(b, read, 3 - read);
+		assertArrayEquals(Arrays.copyOfRange(data, SIZE - 3, SIZE), Arrays.copyOf(b, 3));
+		
+		assertEquals(-1, iis.read(b, 0, 10));
+		assertEquals(0, iis.read(b, 0, 0));
+	}
+	
+	@Test
+	public void readArrayOutOfBounds() {
+		final byte[] b = new byte[10];
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, -1, 5));
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, 6, 5));
+		assertThrows(IndexOutOfBoundsException.class, () -> iis.read(b, 0, -1));
+	}
+	
+	@Test
+	public void length() {
+		assertEquals(SIZE, iis.length());
+	}
+}
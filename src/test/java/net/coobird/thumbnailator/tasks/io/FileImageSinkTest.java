@@ -0,0 +1,115 @@
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+class FileImageSinkTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void atomicWriteReplacesDestination() throws IOException {
+		File destination = tempDir.resolve("thumbnail.png").toFile();
+		ImageIO.write(new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB), "png", destination);
+
+		FileImageSink sink = new FileImageSink(destination, true, FileWriteMode.ATOMIC_SYNC, 16);
+		sink.write(new BufferedImage(10, 5, BufferedImage.TYPE_INT_RGB));
+
+		BufferedImage written = ImageIO.read(destination);
+		assertEquals(10, written.getWidth());
+		assertEquals(5, written.getHeight());
+		assertArrayEquals(new String[] {"thumbnail.png"}, tempDir.toFile().list());
+	}
+
+	@Test
+	public void atomicWriteWithoutOverwrite() throws IOException {
+		File destination = tempDir.resolve("thumbnail.png").toFile();
+		assertTrue(destination.createNewFile());
+
+		FileImageSink sink = new FileImageSink(destination, false, FileWriteMode.ATOMIC, 16);
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			sink.write(new BufferedImage(10, 5, BufferedImage.TYPE_INT_RGB));
+		});
+		assertEquals(0, destination.length());
+		assertArrayEquals(new String[] {"thumbnail.png"}, tempDir.toFile().list());
+	}
+
+	@Test
+	public void atomicWriteWithoutOverwriteToNewFile() throws IOException {
+		File destination = tempDir.resolve("thumbnail.png").toFile();
+
+		FileImageSink sink = new FileImageSink(destination, false, FileWriteMode.ATOMIC, 16);
+		sink.write(new BufferedImage(10, 5, BufferedImage.TYPE_INT_RGB));
+
+		BufferedImage written = ImageIO.read(destination);
+		assertEquals(10, written.getWidth());
+		// The temporary file which was linked into place is removed.
+		assertArrayEquals(new String[] {"thumbnail.png"}, tempDir.toFile().list());
+	}
+
+	@Test
+	public void formatIsDeterminedFromMixedCaseExtension() throws IOException {
+		File png = tempDir.resolve("thumbnail.Png").toFile();
+		File jpg = tempDir.resolve("thumbnail.Jpg").toFile();
+
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.size(50, 50)
+				.toFile(png);
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.size(50, 50)
+				.toFile(jpg);
+
+		assertEquals("png", formatOf(png));
+		assertEquals("JPEG", formatOf(jpg));
+		assertEquals("JPEG", new FileImageSink(tempDir.resolve("t.JPG").toFile()).preferredOutputFormatName());
+	}
+
+	@Test
+	public void mixedCaseOutputFormat() throws IOException {
+		File destination = tempDir.resolve("thumbnail.png").toFile();
+
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.size(50, 50)
+				.outputFormat("Png")
+				.toFile(destination);
+
+		assertEquals("png", formatOf(destination));
+		assertArrayEquals(new String[] {"thumbnail.png"}, tempDir.toFile().list());
+	}
+
+	private static String formatOf(File f) throws IOException {
+		ImageInputStream iis = ImageIO.createImageInputStream(f);
+		try {
+			ImageReader reader = ImageIO.getImageReaders(iis).next();
+			String formatName = reader.getFormatName();
+			reader.dispose();
+			return formatName;
+		} finally {
+			iis.close();
+		}
+	}
+
+	@Test
+	public void invalidBufferSize() {
+		Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+			new FileImageSink(new File("thumbnail.png"), true, FileWriteMode.ATOMIC, 0);
+		});
+
+		assertEquals("Buffer size must be greater than 0.", exception.getMessage());
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+
+public class FrameOptionsTest {
+	private static final String GIF_IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+	/**
+	 * Writes a 40x40 GIF of a red frame, a blue frame over the bottom right
+	 * quarter which is cleared afterwards, and a green frame over the top
+	 * left quarter.
+	 */
+	private static byte[] createAnimation() throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageOutputStream ios = ImageIO.createImageOutputStream(os);
+		writer.setOutput(ios);
+		writer.prepareWriteSequence(null);
+
+		writeFrame(writer, Color.RED, 40, 0, "none", 10);
+		writeFrame(writer, Color.BLUE, 20, 20, "restoreToBackgroundColor", 20);
+		writeFrame(writer, Color.GREEN, 20, 0, "none", 30);
+
+		writer.endWriteSequence();
+		ios.close();
+		writer.dispose();
+		return os.toByteArray();
+	}
+
+	private static void writeFrame(ImageWriter writer, Color color, int size, int offset, String disposal, int delay) throws IOException {
+		BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, size, size);
+		g.dispose();
+
+		IIOMetadata metadata = writer.getDefaultImageMetadata(
+				ImageTypeSpecifier.createFromRenderedImage(img), null
+		);
+		IIOMetadataNode root = (IIOMetadataNode)metadata.getAsTree(GIF_IMAGE_METADATA_FORMAT);
+		IIOMetadataNode descriptor = (IIOMetadataNode)root.getElementsByTagName("ImageDescriptor").item(0);
+		descriptor.setAttribute("imageLeftPosition", Integer.toString(offset));
+		descriptor.setAttribute("imageTopPosition", Integer.toString(offset));
+		IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+		control.setAttribute("disposalMethod", disposal);
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(delay));
+		control.setAttribute("transparentColorIndex", "0");
+		root.appendChild(control);
+		metadata.setFromTree(GIF_IMAGE_METADATA_FORMAT, root);
+
+		writer.writeToSequence(new IIOImage(img, null, metadata), null);
+	}
+
+	private static ImageReader createReader(byte[] data) throws IOException {
+		ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+		reader.setInput(ImageIO.createImageInputStream(new ByteArrayInputStream(data)));
+		return reader;
+	}
+
+	private static int getDelay(ImageReader reader, int index) throws IOException {
+		IIOMetadataNode root = (IIOMetadataNode)reader.getImageMetadata(index)
+				.getAsTree(GIF_IMAGE_METADATA_FORMAT);
+		IIOMetadataNode control = (IIOMetadataNode)root.getElementsByTagName("GraphicControlExtension").item(0);
+		return Integer.parseInt(control.getAttribute("delayTime"));
+	}
+
+	@Test
+	public void framesAreComposedAndResized() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(new ByteArrayInputStream(createAnimation()))
+				.size(20, 20)
+				.frames(FrameOptions.ALL.threads(2))
+				.toOutputStream(os);
+
+		ImageReader reader = createReader(os.toByteArray());
+		assertEquals(3, reader.getNumImages(true));
+		assertArrayEquals(
+				new int[] {10, 20, 30},
+				new int[] {getDelay(reader, 0), getDelay(reader, 1), getDelay(reader, 2)}
+		);
+
+		BufferedImage second = reader.read(1);
+		assertEquals(20, second.getWidth());
+		assertEquals(0xffff0000, second.getRGB(5, 5));
+		assertEquals(0xff0000ff, second.getRGB(15, 15));
+
+		// The blue frame has been cleared before the green frame is drawn.
+		BufferedImage third = reader.read(2);
+		assertEquals(0xff00ff00, third.getRGB(5, 5));
+		assertEquals(0xffff0000, third.getRGB(15, 5));
+		assertEquals(0, third.getRGB(15, 15) >>> 24);
+		reader.dispose();
+	}
+
+	@Test
+	public void framesAreProcessedAsTheyAreComposed() throws IOException {
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(20, 20)
+				.frames(FrameOptions.ALL)
+				.build();
+		InputStreamImageSource source =
+				new InputStreamImageSource(new ByteArrayInputStream(createAnimation()));
+		source.setThumbnailParameter(param);
+
+		final List<Integer> composed = new ArrayList<Integer>();
+		final List<BufferedImage> processed = new ArrayList<BufferedImage>();
+		FrameSequence frames = source.readFrames(new FrameProcessor() {
+			public BufferedImage process(BufferedImage frame) {
+				assertEquals(40, frame.getWidth());
+				composed.add(frame.getRGB(30, 30));
+				BufferedImage thumbnail = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+				processed.add(thumbnail);
+				return thumbnail;
+			}
+		});
+
+		assertEquals(3, composed.size());
+		assertEquals(0xffff0000, (int)composed.get(0));
+		assertEquals(0xff0000ff, (int)composed.get(1));
+		assertEquals(0, composed.get(2) >>> 24);
+		for (int i = 0; i < processed.size(); i++) {
+			assertSame(processed.get(i), frames.getFrame(i));
+		}
+	}
+
+	@Test
+	public void framesAreResizedOnABoundedOffloadingExecutor() throws IOException {
+		final AtomicInteger executed = new AtomicInteger();
+		final ExecutorService pool = Executors.newSingleThreadExecutor();
+		Executor executor = new Executor() {
+			public void execute(Runnable command) {
+				executed.incrementAndGet();
+				pool.execute(command);
+			}
+		};
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final Offloading offloading = Offloading.to(executor);
+
+		try {
+			// Frames submitted from the only thread of the pool must not wait for it.
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				Thumbnails.of(new ByteArrayInputStream(createAnimation()))
+						.size(20, 20)
+						.frames(FrameOptions.ALL.threads(2))
+						.offload(offloading)
+						.toOutputStream(os);
+			});
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(3, createReader(os.toByteArray()).getNumImages(true));
+		assertTrue(executed.get() > 0);
+	}
+
+	@Test
+	public void sampledFramesKeepDuration() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(new ByteArrayInputStream(createAnimation()))
+				.size(20, 20)
+				.frames(FrameOptions.ALL.sample(2))
+				.toOutputStream(os);
+
+		ImageReader reader = createReader(os.toByteArray());
+		assertEquals(2, reader.getNumImages(true));
+		assertEquals(10, getDelay(reader, 0));
+		assertEquals(50, getDelay(reader, 1));
+		reader.dispose();
+	}
+
+	@Test
+	public void limitedFramesAreCutOff() {
+		assertArrayEquals(new int[] {0, 1}, FrameOptions.ALL.limit(2).selectFrames(5));
+		assertArrayEquals(new int[] {0, 2, 4}, FrameOptions.ALL.sample(3).selectFrames(6));
+		assertArrayEquals(new int[] {1, 3}, FrameOptions.ALL.select(3, 1, 9).selectFrames(5));
+		assertThrows(IllegalArgumentException.class, () -> FrameOptions.ALL.limit(0));
+	}
+}
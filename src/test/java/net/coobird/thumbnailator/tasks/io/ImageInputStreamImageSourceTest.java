@@ -0,0 +1,321 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.geometry.Positions;
+import net.coobird.thumbnailator.makers.FixedSizeThumbnailMaker;
+
+public class ImageInputStreamImageSourceTest {
+	private static BufferedImage panorama() {
+		BufferedImage img = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 300; x++) {
+				img.setRGB(x, y, (x / 3 << 16) | (y << 8) | (x * y % 256));
+			}
+		}
+		return img;
+	}
+
+	private static byte[] toPng(BufferedImage img) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(img, "png", os);
+		return os.toByteArray();
+	}
+
+	@Test
+	public void cropRegionOfPanorama() {
+		assertEquals(
+				new Rectangle(100, 0, 100, 100),
+				FixedSizeThumbnailMaker.calculateCropRegion(300, 100, 50, 50, Positions.CENTER)
+		);
+		assertEquals(
+				new Rectangle(200, 0, 100, 100),
+				FixedSizeThumbnailMaker.calculateCropRegion(300, 100, 50, 50, Positions.BOTTOM_RIGHT)
+		);
+		assertEquals(
+				new Rectangle(0, 0, 300, 100),
+				FixedSizeThumbnailMaker.calculateCropRegion(300, 100, 60, 20, Positions.CENTER)
+		);
+	}
+
+	@Test
+	public void onlyCroppedRegionIsDecoded() throws IOException {
+		BufferedImage source = panorama();
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(50, 50)
+				.fitWithinDimensions(false)
+				.crop(Positions.CENTER)
+				.build();
+
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(100, img.getWidth());
+		assertEquals(100, img.getHeight());
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 100; x++) {
+				assertEquals(source.getRGB(x + 100, y), img.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void croppedThumbnailIsSameAsFromEntireImage() throws IOException {
+		BufferedImage source = panorama();
+		byte[] data = toPng(source);
+
+		BufferedImage expected = Thumbnails.of(source)
+				.size(40, 40)
+				.crop(Positions.TOP_RIGHT)
+				.asBufferedImage();
+		BufferedImage actual = Thumbnails.of(new ByteArrayInputStream(data))
+				.size(40, 40)
+				.crop(Positions.TOP_RIGHT)
+				.asBufferedImage();
+
+		assertEquals(40, actual.getWidth());
+		assertEquals(40, actual.getHeight());
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 40; x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void largeImageIsReducedWhileDecoded() throws IOException {
+		BufferedImage source = panorama();
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(60, 60)
+				.streamingThreshold(1)
+				.build();
+
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(60, img.getWidth());
+		assertEquals(20, img.getHeight());
+
+		BufferedImage expected = Thumbnails.of(source).size(60, 60).asBufferedImage();
+		long difference = 0;
+		for (int y = 0; y < 20; y++) {
+			for (int x = 0; x < 60; x++) {
+				int c1 = expected.getRGB(x, y);
+				int c2 = img.getRGB(x, y);
+				for (int shift = 0; shift < 24; shift += 8) {
+					difference += Math.abs(((c1 >> shift) & 0xff) - ((c2 >> shift) & 0xff));
+				}
+			}
+		}
+		assertTrue(difference / (60 * 20 * 3) < 8);
+	}
+
+	@Test
+	public void imageIsReducedAcrossSeveralStrips() throws IOException {
+		BufferedImage source = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 300; x++) {
+				source.setRGB(x, y, (y * 2) << 8);
+			}
+		}
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(60, 60)
+				.streamingThreshold(1)
+				.build();
+
+		// Strips of 16 rows, so the image is decoded in 7 strips.
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setMinimumStripPixels(300 * 16);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(60, img.getWidth());
+		assertEquals(20, img.getHeight());
+		for (int y = 0; y < 20; y++) {
+			int expected = y * 10 + 4;
+			for (int x = 0; x < 60; x++) {
+				int actual = (img.getRGB(x, y) >> 8) & 0xff;
+				assertTrue(Math.abs(expected - actual) <= 2, "row " + y + ": " + actual);
+			}
+		}
+	}
+
+	@Test
+	public void largeImageIsSubsampledWhenThatFits() throws IOException {
+		BufferedImage source = panorama();
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.scale(0.2)
+				.streamingThreshold(150 * 50 * 4)
+				.build();
+
+		// The 300x100 image only fits when subsampled by 2.
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(150, img.getWidth());
+		assertEquals(50, img.getHeight());
+		assertEquals(0.4, param.getWidthScalingFactor(), 1e-9);
+		assertEquals(0.4, param.getHeightScalingFactor(), 1e-9);
+		assertEquals(source.getRGB(2, 2), img.getRGB(1, 1));
+	}
+
+	@Test
+	public void largeImageIsDecodedAtOnceByDefault() throws IOException {
+		BufferedImage source = panorama();
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(60, 60)
+				.build();
+
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(300, img.getWidth());
+		assertEquals(100, img.getHeight());
+	}
+
+	@Test
+	public void transparencyIsKeptWhileDecodedInStrips() throws IOException {
+		BufferedImage source = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 100; y++) {
+			for (int x = 0; x < 100; x++) {
+				source.setRGB(x, y, 0xffff0000);
+			}
+		}
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.scale(0.1)
+				.streamingThreshold(1)
+				.build();
+
+		ImageInputStream iis =
+				ImageIO.createImageInputStream(new ByteArrayInputStream(toPng(source)));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		BufferedImage img = imageSource.read();
+
+		assertEquals(20, img.getWidth());
+		assertEquals(10, img.getHeight());
+		assertEquals(1.0, param.getWidthScalingFactor());
+		assertEquals(1.0, param.getHeightScalingFactor());
+		assertEquals(0xffff0000, img.getRGB(0, 5));
+		assertEquals(0xffff0000, img.getRGB(8, 5));
+		assertEquals(0, img.getRGB(12, 5) >>> 24);
+		assertEquals(0, img.getRGB(19, 5) >>> 24);
+	}
+
+	/**
+	 * Writes a TIFF with a red 400x400 page, a green 100x100 page and a
+	 * blue 50x50 page.
+	 */
+	private static byte[] multiResolutionTiff() throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageOutputStream ios = ImageIO.createImageOutputStream(os);
+		writer.setOutput(ios);
+		writer.prepareWriteSequence(null);
+
+		Color[] colors = {Color.RED, Color.GREEN, Color.BLUE};
+		int[] sizes = {400, 100, 50};
+		for (int i = 0; i < colors.length; i++) {
+			BufferedImage page = new BufferedImage(sizes[i], sizes[i], BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = page.createGraphics();
+			g.setColor(colors[i]);
+			g.fillRect(0, 0, sizes[i], sizes[i]);
+			g.dispose();
+			writer.writeToSequence(new IIOImage(page, null, null), null);
+		}
+
+		writer.endWriteSequence();
+		ios.close();
+		writer.dispose();
+		return os.toByteArray();
+	}
+
+	private static BufferedImage readSelected(byte[] data, int size, ImageSelector selector) throws IOException {
+		ThumbnailParameter param = new ThumbnailParameterBuilder()
+				.size(size, size)
+				.selectImage(selector)
+				.build();
+
+		ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(data));
+		ImageInputStreamImageSource imageSource = new ImageInputStreamImageSource(iis);
+		imageSource.setThumbnailParameter(param);
+		return imageSource.read();
+	}
+
+	@Test
+	public void imageIsSelectedByIndex() throws IOException {
+		BufferedImage img = readSelected(multiResolutionTiff(), 20, ImageSelector.index(1));
+
+		assertEquals(100, img.getWidth());
+		assertEquals(0xff00ff00, img.getRGB(0, 0));
+	}
+
+	@Test
+	public void smallestCoveringImageIsSelected() throws IOException {
+		byte[] data = multiResolutionTiff();
+
+		assertEquals(100, readSelected(data, 80, ImageSelector.SMALLEST_COVERING).getWidth());
+		assertEquals(50, readSelected(data, 50, ImageSelector.SMALLEST_COVERING).getWidth());
+		assertEquals(400, readSelected(data, 120, ImageSelector.SMALLEST_COVERING).getWidth());
+		assertEquals(400, readSelected(data, 800, ImageSelector.SMALLEST_COVERING).getWidth());
+	}
+}
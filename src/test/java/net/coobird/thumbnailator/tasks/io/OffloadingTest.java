@@ -0,0 +1,135 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.ImageFilter;
+
+public class OffloadingTest {
+	@Test
+	public void workIsRunOnExecutorAndWrittenOnce() throws IOException {
+		ByteArrayOutputStream source = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		
+		final Thread caller = Thread.currentThread();
+		final List<Thread> filterThreads = Collections.synchronizedList(new ArrayList<Thread>());
+		final List<Thread> writeThreads = new ArrayList<Thread>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		OutputStream os = new OutputStream() {
+			@Override
+			public void write(int b) {
+				throw new AssertionError("Written byte by byte.");
+			}
+			
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				writeThreads.add(Thread.currentThread());
+				sink.write(b, off, len);
+			}
+		};
+		
+		try {
+			Thumbnails.of(new ByteArrayInputStream(source.toByteArray()))
+					.size(50, 50)
+					.outputFormat("png")
+					.addFilter(new ImageFilter() {
+						public BufferedImage apply(BufferedImage img) {
+							filterThreads.add(Thread.currentThread());
+							return img;
+						}
+					})
+					.offload(Offloading.to(executor))
+					.toOutputStream(os);
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals(1, filterThreads.size());
+		assertTrue(filterThreads.get(0) != caller);
+		assertEquals(Collections.singletonList(caller), writeThreads);
+		
+		BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(sink.toByteArray()));
+		assertEquals(50, thumbnail.getWidth());
+		assertEquals(25, thumbnail.getHeight());
+	}
+	
+	@Test
+	public void nestedWorkIsRunDirectly() throws IOException {
+		final Offloading offloading = Offloading.withThreads(1);
+		
+		Thread[] threads = offloading.call(new Callable<Thread[]>() {
+			public Thread[] call() throws IOException {
+				Thread nested = offloading.call(new Callable<Thread>() {
+					public Thread call() {
+						return Thread.currentThread();
+					}
+				});
+				return new Thread[] {Thread.currentThread(), nested};
+			}
+		});
+		
+		assertSame(threads[0], threads[1]);
+		assertTrue(threads[0].isDaemon());
+	}
+	
+	@Test
+	public void checkedExceptionsArePropagated() {
+		Offloading offloading = Offloading.withThreads(1);
+		final IOException e = new IOException("failed");
+		
+		IOException thrown = assertThrows(IOException.class, () ->
+				offloading.call(new Callable<Void>() {
+					public Void call() throws IOException {
+						throw e;
+					}
+				})
+		);
+		assertSame(e, thrown);
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+public class OutputSizeLimitTest {
+	private static final File SOURCE = new File("src/test/resources/Thumbnailator/grid.jpg");
+
+	@Test
+	public void jpegIsWrittenWithinLimit() throws IOException {
+		final float[] chosen = new float[] {Float.NaN};
+		final long[] reported = new long[] {-1};
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(SOURCE)
+				.size(400, 400)
+				.outputFormat("jpg")
+				.maxOutputBytes(20000, new OutputSizeLimit.Listener() {
+					public void qualityChosen(float quality, long size) {
+						chosen[0] = quality;
+						reported[0] = size;
+					}
+				})
+				.toOutputStream(os);
+
+		assertTrue(os.size() <= 20000);
+		assertEquals(os.size(), reported[0]);
+		assertTrue(chosen[0] > 0.0f && chosen[0] < 1.0f);
+	}
+
+	@Test
+	public void outputQualityIsUpperBound() throws IOException {
+		final float[] chosen = new float[] {Float.NaN};
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(SOURCE)
+				.size(100, 100)
+				.outputFormat("jpg")
+				.outputQuality(0.5f)
+				.maxOutputBytes(1000000, new OutputSizeLimit.Listener() {
+					public void qualityChosen(float quality, long size) {
+						chosen[0] = quality;
+					}
+				})
+				.toOutputStream(os);
+
+		assertEquals(0.5f, chosen[0], 0.0f);
+	}
+
+	@Test
+	public void pngIsWrittenWithoutQualitySearch() throws IOException {
+		final int[] calls = new int[] {0};
+		final long[] reported = new long[] {-1};
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		Thumbnails.of(SOURCE)
+				.size(100, 100)
+				.outputFormat("png")
+				.maxOutputBytes(100, new OutputSizeLimit.Listener() {
+					public void qualityChosen(float quality, long size) {
+						calls[0]++;
+						reported[0] = size;
+					}
+				})
+				.toOutputStream(os);
+
+		assertEquals(1, calls[0]);
+		assertEquals(os.size(), reported[0]);
+		assertTrue(os.size() > 100);
+	}
+
+	@Test
+	public void nonPositiveLimit() {
+		Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+			Thumbnails.of(SOURCE).maxOutputBytes(0);
+		});
+
+		assertEquals("Maximum output bytes must be greater than 0.", exception.getMessage());
+	}
+}
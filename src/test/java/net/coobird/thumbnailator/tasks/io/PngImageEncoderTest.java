@@ -0,0 +1,94 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+public class PngImageEncoderTest {
+	@Test
+	public void combineAdler32() {
+		byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte)(i * 31 + (i >> 7));
+		}
+
+		Adler32 whole = new Adler32();
+		whole.update(data);
+		Adler32 first = new Adler32();
+		first.update(data, 0, 70000);
+		Adler32 second = new Adler32();
+		second.update(data, 70000, 30000);
+
+		assertEquals(
+				whole.getValue(),
+				PngImageEncoder.combineAdler32(first.getValue(), second.getValue(), 30000)
+		);
+	}
+
+	@Test
+	public void bandsCompressedOnThreadsDecodeToSameImage() throws IOException {
+		BufferedImage img = new BufferedImage(600, 600, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = img.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, new Color(255, 0, 0, 255), 600, 600, new Color(0, 0, 255, 40)));
+		g.fillRect(0, 0, 600, 600);
+		g.dispose();
+
+		for (PngFilter filter : PngFilter.values()) {
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			Thumbnails.of(img)
+					.scale(1.0)
+					.outputFormat("png")
+					.encoderOptions(
+							EncoderOptions.DEFAULT
+									.pngFilter(filter)
+									.pngCompressionLevel(1)
+									.pngCompressionThreads(4)
+					)
+					.toOutputStream(os);
+
+			BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+			int[] expected = img.getRGB(0, 0, 600, 600, null, 0, 600);
+			int[] actual = decoded.getRGB(0, 0, 600, 600, null, 0, 600);
+			assertArrayEquals(expected, actual, filter.name());
+		}
+	}
+}
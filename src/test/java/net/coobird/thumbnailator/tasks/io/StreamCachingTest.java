@@ -0,0 +1,71 @@
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+class StreamCachingTest {
+
+	private static byte[] makeThumbnail(byte[] source, StreamCaching streamCaching) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Thumbnails.of(new ByteArrayInputStream(source))
+				.size(50, 50)
+				.outputFormat("png")
+				.streamCaching(streamCaching)
+				.toOutputStream(os);
+		return os.toByteArray();
+	}
+
+	@Test
+	public void allPoliciesProduceSameOutput() throws IOException {
+		byte[] source = Files.readAllBytes(Paths.get("src/test/resources/Thumbnailator/grid.png"));
+		byte[] expected = makeThumbnail(source, StreamCaching.DEFAULT);
+
+		StreamCaching[] policies = {
+				StreamCaching.MEMORY,
+				StreamCaching.DISK,
+				StreamCaching.NONE,
+				StreamCaching.memoryUpTo(0),
+				StreamCaching.memoryUpTo(64),
+				StreamCaching.memoryUpTo(1024 * 1024)
+		};
+		for (StreamCaching policy : policies) {
+			assertArrayEquals(expected, makeThumbnail(source, policy), policy.toString());
+		}
+	}
+
+	@Test
+	public void spillingStreamMovesToFileAboveThreshold() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		SpillingImageOutputStream ios = new SpillingImageOutputStream(os, 4, null);
+
+		ios.write(new byte[] {1, 2, 3});
+		assertTrue(ios.isCachedMemory());
+
+		ios.write(new byte[] {4, 5, 6});
+		assertTrue(ios.isCachedFile());
+
+		ios.seek(1);
+		ios.write(9);
+		ios.close();
+
+		assertArrayEquals(new byte[] {1, 9, 3, 4, 5, 6}, os.toByteArray());
+	}
+
+	@Test
+	public void negativeThreshold() {
+		Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+			StreamCaching.memoryUpTo(-1);
+		});
+
+		assertEquals("Threshold cannot be negative.", exception.getMessage());
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+
+public class URLImageSourceTest {
+	private static final String ETAG = "\"v1\"";
+	
+	private HttpServer server;
+	private byte[] image;
+	private final AtomicInteger bodiesSent = new AtomicInteger();
+	
+	@BeforeEach
+	public void startServer() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", os);
+		image = os.toByteArray();
+		
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/image.png", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					bodiesSent.incrementAndGet();
+					exchange.sendResponseHeaders(200, image.length);
+					OutputStream body = exchange.getResponseBody();
+					body.write(image);
+				}
+				exchange.close();
+			}
+		});
+		server.createContext("/endless-error.png", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(500, 0);
+				OutputStream body = exchange.getResponseBody();
+				byte[] chunk = new byte[8192];
+				try {
+					while (true) {
+						body.write(chunk);
+					}
+				} catch (IOException e) {
+					// The client stopped reading.
+				}
+				exchange.close();
+			}
+		});
+		server.createContext("/slow.png", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					Thread.sleep(2000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+	
+	@AfterEach
+	public void stopServer() {
+		server.stop(0);
+	}
+	
+	private URL url(String path) throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+	}
+	
+	private static URLImageSource source(URL url, ConnectionOptions options) {
+		URLImageSource source = new URLImageSource(url);
+		source.setThumbnailParameter(
+				new ThumbnailParameterBuilder().size(50, 50).connection(options).build()
+		);
+		return source;
+	}
+	
+	@Test
+	public void unchangedImageIsNotDownloadedAgain() throws IOException {
+		ConnectionOptions options = ConnectionOptions.DEFAULT
+				.validatorCache(ValidatorCache.inMemory(1024 * 1024));
+		
+		URLImageSource first = source(url("/image.png"), options);
+		assertTrue(first.isModified());
+		assertEquals(200, first.read().getWidth());
+		
+		URLImageSource second = source(url("/image.png"), options);
+		assertFalse(second.isModified());
+		assertEquals(200, second.read().getWidth());
+		assertEquals("png", second.getInputFormatName());
+		
+		assertEquals(1, bodiesSent.get());
+	}
+	
+	@Test
+	public void errorStatusIsReported() throws IOException {
+		URLImageSource source = source(url("/missing.png"), ConnectionOptions.DEFAULT);
+		
+		HttpStatusException e = assertThrows(HttpStatusException.class, source::read);
+		assertEquals(404, e.getStatusCode());
+	}
+	
+	@Test
+	public void longErrorResponseIsNotReadToTheEnd() throws IOException {
+		final URLImageSource source = source(url("/endless-error.png"), ConnectionOptions.DEFAULT);
+		
+		HttpStatusException e = assertTimeoutPreemptively(
+				Duration.ofSeconds(10),
+				() -> assertThrows(HttpStatusException.class, source::read)
+		);
+		assertEquals(500, e.getStatusCode());
+	}
+	
+	@Test
+	public void largeResponseIsRejected() throws IOException {
+		URLImageSource source = source(
+				url("/image.png"),
+				ConnectionOptions.DEFAULT.maxBodySize(image.length - 1)
+		);
+		
+		assertThrows(ResponseTooLargeException.class, source::read);
+	}
+	
+	@Test
+	public void readTimesOut() throws IOException {
+		URLImageSource source = source(
+				url("/slow.png"),
+				ConnectionOptions.DEFAULT.readTimeout(200)
+		);
+		
+		assertThrows(SocketTimeoutException.class, source::read);
+	}
+}
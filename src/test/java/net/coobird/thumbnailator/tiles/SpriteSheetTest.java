@@ -0,0 +1,133 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+
+public class SpriteSheetTest {
+	private static BufferedImage image(int width, int height, Color color) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics g = img.getGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return img;
+	}
+
+	@Test
+	public void thumbnailsAreLaidOutInGrid() throws IOException {
+		SpriteSheet sheet = Thumbnails.of(
+				image(80, 60, Color.RED),
+				image(80, 60, Color.GREEN),
+				image(80, 60, Color.BLUE),
+				image(60, 80, Color.YELLOW)
+		)
+				.size(40, 30)
+				.asSpriteSheet(3);
+
+		BufferedImage img = sheet.getImage();
+		assertEquals(120, img.getWidth());
+		assertEquals(60, img.getHeight());
+		assertEquals(
+				Arrays.asList(
+						new Rectangle(0, 0, 40, 30),
+						new Rectangle(40, 0, 40, 30),
+						new Rectangle(80, 0, 40, 30),
+						new Rectangle(8, 30, 23, 30)
+				),
+				sheet.getRegions()
+		);
+
+		assertEquals(Color.RED.getRGB(), img.getRGB(20, 15));
+		assertEquals(Color.GREEN.getRGB(), img.getRGB(60, 15));
+		assertEquals(Color.BLUE.getRGB(), img.getRGB(100, 15));
+		assertEquals(Color.YELLOW.getRGB(), img.getRGB(20, 45));
+		assertEquals(0, img.getRGB(2, 45) >>> 24);
+		assertEquals(0, img.getRGB(60, 45) >>> 24);
+	}
+
+	@Test
+	public void croppedThumbnailsFillTheirCells() throws IOException {
+		SpriteSheet sheet = Thumbnails.of(
+				image(80, 60, Color.RED),
+				image(60, 80, Color.BLUE)
+		)
+				.size(30, 30)
+				.crop(Positions.CENTER)
+				.asSpriteSheet(2);
+
+		assertEquals(
+				Arrays.asList(new Rectangle(0, 0, 30, 30), new Rectangle(30, 0, 30, 30)),
+				sheet.getRegions()
+		);
+		assertEquals(Color.RED.getRGB(), sheet.getImage().getRGB(0, 0));
+		assertEquals(Color.BLUE.getRGB(), sheet.getImage().getRGB(59, 29));
+	}
+
+	@Test
+	public void regionsAsJsonAndCss() {
+		SpriteSheet sheet = new SpriteSheet(
+				new BufferedImage(80, 30, BufferedImage.TYPE_INT_ARGB),
+				Arrays.asList(new Rectangle(0, 0, 40, 30), new Rectangle(45, 0, 30, 30))
+		);
+
+		assertEquals(
+				"{\"width\":80,\"height\":30,\"frames\":["
+						+ "{\"x\":0,\"y\":0,\"width\":40,\"height\":30},"
+						+ "{\"x\":45,\"y\":0,\"width\":30,\"height\":30}]}",
+				sheet.toJson()
+		);
+		assertEquals(
+				".sprite { background-image: url(\"sprite.png\"); background-repeat: no-repeat; }\n"
+						+ ".sprite-0 { width: 40px; height: 30px; background-position: 0px 0px; }\n"
+						+ ".sprite-1 { width: 30px; height: 30px; background-position: -45px 0px; }\n",
+				sheet.toCss("sprite", "sprite.png")
+		);
+	}
+
+	@Test
+	public void sizeMustBeSpecified() {
+		assertThrows(IllegalStateException.class, () ->
+				Thumbnails.of(image(80, 60, Color.RED)).width(40).asSpriteSheet(2)
+		);
+		assertThrows(IllegalStateException.class, () ->
+				Thumbnails.of(image(80, 60, Color.RED)).scale(0.5).asSpriteSheet(2)
+		);
+	}
+}
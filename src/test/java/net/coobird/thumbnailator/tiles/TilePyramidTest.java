@@ -0,0 +1,167 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TilePyramidTest {
+	@TempDir
+	Path tempDir;
+
+	private static BufferedImage image(int type) {
+		BufferedImage img = new BufferedImage(600, 300, type);
+		for (int y = 0; y < 300; y++) {
+			for (int x = 0; x < 600; x++) {
+				img.setRGB(x, y, 0xff000000 | (x / 3 << 16) | (y << 8) | (x * y % 256));
+			}
+		}
+		return img;
+	}
+
+	@Test
+	public void deepZoomTilesOverlapTheirNeighbors() throws IOException {
+		BufferedImage source = image(BufferedImage.TYPE_INT_RGB);
+		File directory = tempDir.resolve("image_files").toFile();
+
+		List<File> files = TilePyramid.of(source)
+				.tileSize(254)
+				.overlap(1)
+				.outputFormat("png")
+				.toDirectory(directory);
+
+		// Levels 0 to 8 fit in a tile, level 9 has 2 x 1 tiles and
+		// level 10 has 3 x 2 tiles.
+		assertEquals(17, files.size());
+		assertEquals(new File(directory, "0/0_0.png"), files.get(0));
+		assertEquals(new File(directory, "10/2_1.png"), files.get(16));
+
+		BufferedImage tile = ImageIO.read(new File(directory, "10/1_0.png"));
+		assertEquals(256, tile.getWidth());
+		assertEquals(255, tile.getHeight());
+		for (int y = 0; y < 255; y++) {
+			for (int x = 0; x < 256; x++) {
+				assertEquals(source.getRGB(x + 253, y), tile.getRGB(x, y));
+			}
+		}
+
+		BufferedImage level9 = ImageIO.read(new File(directory, "9/0_0.png"));
+		assertEquals(255, level9.getWidth());
+		assertEquals(150, level9.getHeight());
+
+		BufferedImage level0 = ImageIO.read(new File(directory, "0/0_0.png"));
+		assertEquals(1, level0.getWidth());
+		assertEquals(1, level0.getHeight());
+	}
+
+	@Test
+	public void xyzStartsAtLevelWhichFitsInOneTile() throws IOException {
+		File directory = tempDir.resolve("image_files").toFile();
+
+		List<File> files = TilePyramid.of(image(BufferedImage.TYPE_INT_RGB))
+				.tileSize(256)
+				.overlap(0)
+				.outputFormat("png")
+				.layout(TileLayout.XYZ)
+				.toDirectory(directory);
+
+		assertEquals(1 + 2 + 6, files.size());
+		assertEquals(new File(directory, "0/0/0.png"), files.get(0));
+		assertEquals(new File(directory, "2/2/1.png"), files.get(8));
+
+		BufferedImage zoom0 = ImageIO.read(files.get(0));
+		assertEquals(150, zoom0.getWidth());
+		assertEquals(75, zoom0.getHeight());
+	}
+
+	@Test
+	public void deepZoomDescriptorIsWritten() throws IOException {
+		File directory = tempDir.resolve("image_files").toFile();
+
+		TilePyramid.of(image(BufferedImage.TYPE_INT_RGB))
+				.outputFormat("png")
+				.toDirectory(directory);
+
+		String descriptor = new String(
+				Files.readAllBytes(tempDir.resolve("image.dzi")), "UTF-8"
+		);
+		assertEquals(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\""
+				+ " TileSize=\"254\" Overlap=\"1\" Format=\"png\">\n"
+				+ "  <Size Width=\"600\" Height=\"300\"/>\n"
+				+ "</Image>\n",
+				descriptor
+		);
+	}
+
+	@Test
+	public void xyzDefaultsToTilesWithoutOverlap() throws IOException {
+		File directory = tempDir.resolve("tiles").toFile();
+
+		List<File> files = TilePyramid.of(image(BufferedImage.TYPE_INT_RGB))
+				.outputFormat("png")
+				.layout(TileLayout.XYZ)
+				.toDirectory(directory);
+
+		assertEquals(1 + 2 + 6, files.size());
+		BufferedImage tile = ImageIO.read(new File(directory, "2/1/0.png"));
+		assertEquals(256, tile.getWidth());
+		assertEquals(256, tile.getHeight());
+		assertFalse(tempDir.resolve("tiles.dzi").toFile().exists());
+	}
+
+	@Test
+	public void tilesOfImageWithAlphaAreCutAsJpeg() throws IOException {
+		BufferedImage source = new BufferedImage(600, 300, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 300; y++) {
+			for (int x = 0; x < 600; x++) {
+				source.setRGB(x, y, x < 300 ? 0xffff0000 : 0xff0000ff);
+			}
+		}
+		File directory = tempDir.resolve("image_files").toFile();
+
+		TilePyramid.of(source).toDirectory(directory);
+
+		BufferedImage tile = ImageIO.read(new File(directory, "10/2_0.jpg"));
+		int rgb = tile.getRGB(tile.getWidth() / 2, tile.getHeight() / 2);
+		assertTrue((rgb & 0xff) > 200);
+		assertTrue(((rgb >> 16) & 0xff) < 50);
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+
+import org.junit.jupiter.api.Test;
+
+public class BufferedImagesTest {
+	/**
+	 * Returns a 40x40 image with a different color in each 20x20 quadrant
+	 * and a half-transparent pixel at (30, 30).
+	 */
+	private static BufferedImage quadrants(int type) {
+		BufferedImage img = new BufferedImage(40, 40, type);
+		int[] colors = {0xffff0000, 0xff00ff00, 0xff0000ff, 0xffffffff};
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 40; x++) {
+				img.setRGB(x, y, colors[(y / 20) * 2 + x / 20]);
+			}
+		}
+		img.setRGB(30, 30, 0x80ff0000);
+		return img;
+	}
+	
+	@Test
+	public void isOpaqueForImageWithoutAlpha() {
+		assertTrue(BufferedImages.isOpaque(
+				new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)
+		));
+	}
+	
+	@Test
+	public void isOpaqueForTranslucentImage() {
+		assertFalse(BufferedImages.isOpaque(quadrants(BufferedImage.TYPE_INT_ARGB)));
+		assertFalse(BufferedImages.isOpaque(quadrants(BufferedImage.TYPE_4BYTE_ABGR)));
+		assertFalse(BufferedImages.isOpaque(
+				new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB)
+		));
+	}
+	
+	@Test
+	public void isOpaqueForSubimage() {
+		BufferedImage img = quadrants(BufferedImage.TYPE_INT_ARGB);
+		
+		assertTrue(BufferedImages.isOpaque(img.getSubimage(0, 0, 30, 30)));
+		assertTrue(BufferedImages.isOpaque(img.getSubimage(31, 31, 9, 9)));
+		assertFalse(BufferedImages.isOpaque(img.getSubimage(25, 25, 10, 10)));
+	}
+	
+	@Test
+	public void opaqueViewOfSubimage() {
+		for (int type : new int[] {
+				BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_INT_ARGB_PRE,
+				BufferedImage.TYPE_4BYTE_ABGR
+		}) {
+			BufferedImage img = quadrants(type);
+			BufferedImage sub = img.getSubimage(10, 10, 20, 20);
+			BufferedImage view = BufferedImages.opaqueView(sub);
+			
+			assertEquals(20, view.getWidth());
+			assertEquals(20, view.getHeight());
+			assertFalse(view.getColorModel().hasAlpha());
+			for (int y = 0; y < 20; y++) {
+				for (int x = 0; x < 20; x++) {
+					assertEquals(sub.getRGB(x, y), view.getRGB(x, y), "type " + type);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void opaqueViewSharesPixelsWithSubimage() {
+		BufferedImage img = quadrants(BufferedImage.TYPE_INT_ARGB);
+		BufferedImage view = BufferedImages.opaqueView(img.getSubimage(20, 20, 20, 20));
+		
+		view.setRGB(0, 0, 0xff123456);
+		
+		assertEquals(0x123456, img.getRGB(20, 20) & 0xffffff);
+		assertEquals(0xff0000ff, img.getRGB(19, 20));
+	}
+	
+	@Test
+	public void opaqueViewIgnoresAlphaOfTranslucentImage() {
+		BufferedImage argb = quadrants(BufferedImage.TYPE_INT_ARGB);
+		BufferedImage abgr = quadrants(BufferedImage.TYPE_4BYTE_ABGR);
+		BufferedImage pre = quadrants(BufferedImage.TYPE_INT_ARGB_PRE);
+		
+		assertEquals(0xffff0000, BufferedImages.opaqueView(argb).getRGB(30, 30));
+		assertEquals(0xffff0000, BufferedImages.opaqueView(abgr).getRGB(30, 30));
+		
+		// Premultiplied colors become blended with black.
+		int red = (BufferedImages.opaqueView(pre).getRGB(30, 30) >> 16) & 0xff;
+		assertTrue(Math.abs(red - 0x80) <= 1);
+	}
+	
+	@Test
+	public void opaqueViewIsNotCreatedForOtherTypes() {
+		assertNull(BufferedImages.opaqueView(
+				new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)
+		));
+		assertNull(BufferedImages.opaqueView(
+				new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY)
+		));
+	}
+	
+	@Test
+	public void createCompatibleKeepsCustomLayout() {
+		ComponentColorModel cm = new ComponentColorModel(
+				ColorSpace.getInstance(ColorSpace.CS_GRAY), true, false,
+				ComponentColorModel.TRANSLUCENT, DataBuffer.TYPE_BYTE
+		);
+		BufferedImage img = new BufferedImage(
+				cm, cm.createCompatibleWritableRaster(40, 40), false, null
+		);
+		
+		BufferedImage compatible = BufferedImages.createCompatible(img, 10, 20);
+		
+		assertEquals(BufferedImage.TYPE_CUSTOM, compatible.getType());
+		assertEquals(10, compatible.getWidth());
+		assertEquals(20, compatible.getHeight());
+		assertSame(cm, compatible.getColorModel());
+		assertEquals(2, compatible.getRaster().getNumBands());
+	}
+	
+	@Test
+	public void createCompatibleKeepsPalette() {
+		IndexColorModel cm = new IndexColorModel(
+				8, 3, new int[] {0xff123456, 0xff654321, 0x00000000}, 0, true, 2,
+				DataBuffer.TYPE_BYTE
+		);
+		BufferedImage img = new BufferedImage(40, 40, BufferedImage.TYPE_BYTE_INDEXED, cm);
+		
+		BufferedImage compatible = BufferedImages.createCompatible(img, 10, 10);
+		
+		assertEquals(BufferedImage.TYPE_BYTE_INDEXED, compatible.getType());
+		assertSame(cm, compatible.getColorModel());
+		assertNotSame(img.getRaster(), compatible.getRaster());
+	}
+	
+	@Test
+	public void createCompatibleKeepsGray() {
+		BufferedImage img = new BufferedImage(40, 40, BufferedImage.TYPE_BYTE_GRAY);
+		
+		BufferedImage compatible = BufferedImages.createCompatible(img, 5, 5);
+		
+		assertEquals(BufferedImage.TYPE_BYTE_GRAY, compatible.getType());
+		assertEquals(5, compatible.getWidth());
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+public class FormatRegistryTest {
+	/**
+	 * A writer provider for a format which no other provider supports.
+	 */
+	private static final class LateWriterSpi extends ImageWriterSpi {
+		LateWriterSpi() {
+			vendorName = "coobird";
+			version = "1.0";
+			names = new String[] {"thumbnailator-late"};
+			suffixes = new String[] {"late"};
+			pluginClassName = ImageWriter.class.getName();
+			outputTypes = new Class<?>[] {ImageOutputStream.class};
+		}
+		
+		public boolean canEncodeImage(ImageTypeSpecifier type) {
+			return false;
+		}
+		
+		public ImageWriter createWriterInstance(Object extension) {
+			throw new UnsupportedOperationException();
+		}
+		
+		public String getDescription(Locale locale) {
+			return "Late writer";
+		}
+	}
+	
+	@Test
+	public void writerFormatNamesMatchImageIO() {
+		assertEquals(
+				new HashSet<String>(Arrays.asList(ImageIO.getWriterFormatNames())),
+				new HashSet<String>(FormatRegistry.getWriterFormatNames())
+		);
+	}
+	
+	@Test
+	public void lookupsUseSamePreferredProviderAsImageIO() {
+		assertEquals(
+				ImageIO.getImageWritersByFormatName("png").next().getOriginatingProvider().getClass(),
+				FormatRegistry.getWriterSpiByFormatName("png").getClass()
+		);
+		assertEquals(
+				ImageIO.getImageReadersBySuffix("jpg").next().getOriginatingProvider().getClass(),
+				FormatRegistry.getReaderSpiBySuffix("jpg").getClass()
+		);
+		assertNull(FormatRegistry.getWriterSpiByFormatName("foobar"));
+	}
+	
+	@Test
+	public void lookupsIgnoreCase() {
+		assertEquals(
+				FormatRegistry.getWriterSpiByFormatName("png").getClass(),
+				FormatRegistry.getWriterSpiByFormatName("Png").getClass()
+		);
+		assertEquals(
+				FormatRegistry.getReaderSpiBySuffix("jpg").getClass(),
+				FormatRegistry.getReaderSpiBySuffix("JPG").getClass()
+		);
+		assertEquals(
+				FormatRegistry.getWriterSpiByMIMEType("image/png").getClass(),
+				FormatRegistry.getWriterSpiByMIMEType("IMAGE/PNG").getClass()
+		);
+	}
+	
+	@Test
+	public void pluginsRegisteredAfterFirstUseAreFound() {
+		assertNull(FormatRegistry.getWriterSpiByFormatName("thumbnailator-late"));
+		
+		LateWriterSpi spi = new LateWriterSpi();
+		IIORegistry.getDefaultInstance().registerServiceProvider(spi);
+		try {
+			assertSame(spi, FormatRegistry.getWriterSpiByFormatName("thumbnailator-late"));
+			assertSame(spi, FormatRegistry.getWriterSpiBySuffix("LATE"));
+			
+		} finally {
+			IIORegistry.getDefaultInstance().deregisterServiceProvider(spi);
+			FormatRegistry.refresh();
+		}
+	}
+	
+	@Test
+	public void compressionTypesRemainAfterRefresh() {
+		assertTrue(FormatRegistry.getCompressionTypes("JPEG").contains("JPEG"));
+		FormatRegistry.refresh();
+		assertTrue(FormatRegistry.getCompressionTypes("JPEG").contains("JPEG"));
+		assertTrue(FormatRegistry.getCompressionTypes("foobar").isEmpty());
+	}
+}